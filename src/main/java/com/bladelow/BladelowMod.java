@@ -6,11 +6,16 @@ import com.bladelow.builder.PlacementJobRunner;
 import com.bladelow.command.ManualRecoveryCommands;
 import com.bladelow.ml.BladelowLearning;
 import com.bladelow.ml.ManualBuildLearningTracker;
+import com.bladelow.network.HudActionJobs;
 import com.bladelow.network.HudCommandBridge;
+import com.bladelow.network.HudTelemetrySync;
+import com.bladelow.network.ProgressReporter;
+import com.bladelow.network.PreviewGeometryStreamer;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +40,14 @@ public class BladelowMod implements ModInitializer {
             PlacementJobRunner.tick(server);
             CityAutoplayDirector.tick(server);
             ManualBuildLearningTracker.tick(server);
+            BladelowLearning.offlineTrainer().tick();
+            ProgressReporter.flush(server);
+            HudTelemetrySync.flush(server);
+            PreviewGeometryStreamer.tick(server);
         });
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            HudTelemetrySync.forget(handler.getPlayer().getUuid())
+        );
         ServerLifecycleEvents.SERVER_STARTED.register(server -> {
             LOGGER.info("Bladelow blueprint {}", BlueprintLibrary.reload(server));
             int restored = PlacementJobRunner.restoreFromCheckpoint(server);
@@ -50,6 +62,7 @@ public class BladelowMod implements ModInitializer {
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             PlacementJobRunner.saveCheckpoint(server);
             CityAutoplayDirector.save(server);
+            HudActionJobs.cancelAll();
         });
 
         String loadStatus = BladelowLearning.load();
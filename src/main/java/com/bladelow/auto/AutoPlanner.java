@@ -4,6 +4,7 @@ import com.bladelow.builder.BlueprintLibrary;
 import com.bladelow.builder.PlacementJobRunner;
 import com.bladelow.ml.BladelowLearning;
 import com.bladelow.ml.PlacementFeatures;
+import com.bladelow.ml.PlacementModel;
 import com.bladelow.auto.PhasedBuildPlan;
 import net.minecraft.block.BlockState;
 import net.minecraft.item.BlockItem;
@@ -49,6 +50,7 @@ public final class AutoPlanner {
 
     public record Proposal(
         UUID playerId,
+        String worldKey,
         String blueprintName,
         BlockPos site,
         int groundY,
@@ -156,12 +158,14 @@ public final class AutoPlanner {
         double coverage = estimateMaterialCoverage(player, buildPlan.blockStates());
         String matSummary = formatMaterialSummary(player, buildPlan.blockStates());
 
-        // 6. Score with PlacementModel
-        double modelScore = scoreWithModel(site, buildPlan, coverage);
+        // 6. Score with the PlacementModel weights scoped to this world/player
+        String worldKey = player.getEntityWorld().getRegistryKey().getValue().toString();
+        double modelScore = scoreWithModel(BladelowLearning.model().weightsFor(worldKey, playerId), site, buildPlan, coverage);
 
         // 7. Decide — low confidence surfaces in the proposal but doesn't block
         Proposal proposal = new Proposal(
             playerId,
+            worldKey,
             goal.blueprintName(),
             site.corner(),
             site.groundY() + 1,
@@ -296,7 +300,8 @@ public final class AutoPlanner {
     // Model scoring + training
     // -------------------------------------------------------------------------
 
-    private static double scoreWithModel(TerrainScanner.Site site,
+    private static double scoreWithModel(PlacementModel.WeightSet weights,
+                                          TerrainScanner.Site site,
                                           BlueprintLibrary.BuildPlan plan,
                                           double coverage) {
         // Map our signals onto the existing PlacementFeatures schema:
@@ -314,7 +319,7 @@ public final class AutoPlanner {
             coverage,
             sizeConfidence
         );
-        return BladelowLearning.model().score(features);
+        return weights.score(features);
     }
 
     private static void trainModel(Proposal proposal, boolean approved) {
@@ -327,7 +332,8 @@ public final class AutoPlanner {
             proposal.materialCoverage(),
             sizeConfidence
         );
-        BladelowLearning.model().train(features, approved);
+        // Train the set the proposal was scored with, not the current one.
+        BladelowLearning.model().weightsFor(proposal.worldKey(), proposal.playerId()).train(features, approved);
         BladelowLearning.save();
     }
 }
@@ -3,6 +3,7 @@ package com.bladelow.auto;
 import com.bladelow.builder.BlueprintLibrary;
 import com.bladelow.builder.IntentStructurePlanner;
 import com.bladelow.builder.SelectionState;
+import com.bladelow.builder.StructureSnapshot;
 import com.bladelow.builder.TownZoneStore;
 import com.bladelow.builder.WorldContextMemoryStore;
 import com.bladelow.builder.WorldPerceptionSnapshot;
@@ -31,49 +32,83 @@ public final class AutonomousBuildService {
         int height,
         boolean includeAir
     ) {
-        if (server == null || world == null || player == null) {
+        if (server == null) {
             return CaptureResult.error("capture context unavailable");
         }
+        CaptureResult result = finishCapture(server, prepareCapture(world, player, name, height, includeAir));
+        if (result.ok()) {
+            BlueprintLibrary.select(player.getUuid(), name);
+        }
+        return result;
+    }
+
+    /**
+     * Server-thread half of a capture: check the selection and copy its
+     * blocks. {@link #finishCapture} writes the files and may run on any
+     * thread; the caller selects the blueprint once it has been saved.
+     */
+    public static PendingCapture prepareCapture(
+        ServerWorld world,
+        ServerPlayerEntity player,
+        String name,
+        int height,
+        boolean includeAir
+    ) {
+        if (world == null || player == null) {
+            return PendingCapture.error("capture context unavailable");
+        }
         if (name == null || name.isBlank()) {
-            return CaptureResult.error("blueprint name required");
+            return PendingCapture.error("blueprint name required");
         }
         if (height < 1 || height > 256) {
-            return CaptureResult.error("height must be 1..256");
+            return PendingCapture.error("height must be 1..256");
         }
 
         List<BlockPos> base = SelectionState.snapshot(player.getUuid(), world.getRegistryKey());
         if (base.isEmpty()) {
-            return CaptureResult.error("selection is empty; mark an area in the HUD first");
+            return PendingCapture.error("selection is empty; mark an area in the HUD first");
         }
 
         Bounds bounds = Bounds.from(base);
         long volume = bounds.baseArea() * ((long) height + 1L);
         if (volume > MAX_BLUEPRINT_CAPTURE_BLOCKS) {
-            return CaptureResult.error("capture volume too large (" + volume + " blocks). limit=" + MAX_BLUEPRINT_CAPTURE_BLOCKS);
-        }
-
-        BlueprintLibrary.SaveResult save = BlueprintLibrary.captureSelectionAsBlueprint(
-            server,
-            world,
-            name,
-            base,
-            height,
-            includeAir
+            return PendingCapture.error("capture volume too large (" + volume + " blocks). limit=" + MAX_BLUEPRINT_CAPTURE_BLOCKS);
+        }
+
+        StructureSnapshot snapshot = StructureSnapshot.capture(world, name, base, height, includeAir);
+        return new PendingCapture(
+            snapshot,
+            CaptureResult.ok(
+                "",
+                bounds.minX(),
+                bounds.minY(),
+                bounds.minZ(),
+                bounds.maxX(),
+                bounds.maxY() + height,
+                bounds.maxZ(),
+                volume
+            )
         );
+    }
+
+    public static CaptureResult finishCapture(MinecraftServer server, PendingCapture pending) {
+        if (pending == null || !pending.ok()) {
+            return CaptureResult.error(pending == null ? "capture context unavailable" : pending.extent().message());
+        }
+        BlueprintLibrary.SaveResult save = BlueprintLibrary.saveCapturedStructure(server, pending.snapshot());
         if (!save.ok()) {
             return CaptureResult.error(save.message());
         }
-
-        BlueprintLibrary.select(player.getUuid(), name);
+        CaptureResult extent = pending.extent();
         return CaptureResult.ok(
             save.message(),
-            bounds.minX(),
-            bounds.minY(),
-            bounds.minZ(),
-            bounds.maxX(),
-            bounds.maxY() + height,
-            bounds.maxZ(),
-            volume
+            extent.minX(),
+            extent.minY(),
+            extent.minZ(),
+            extent.maxX(),
+            extent.maxY(),
+            extent.maxZ(),
+            extent.volume()
         );
     }
 
@@ -104,16 +139,19 @@ public final class AutonomousBuildService {
         return PerceptionResult.ok(snapshot.compactSummary() + "; " + save.message(), snapshot);
     }
 
-    public static IntentStructurePlanner.GeneratedBuild generateCityStructure(
+    /**
+     * Reads the selected site on the server thread once, so several variants
+     * can be generated from it with {@link IntentStructurePlanner#generateVariant}.
+     */
+    public static IntentStructurePlanner.PreparedSelection prepareCityStructure(
         ServerWorld world,
         ServerPlayerEntity player,
         BlockPos from,
         BlockPos to,
-        List<String> args,
-        int variant
+        List<String> args
     ) {
         if (world == null || player == null || from == null || to == null) {
-            return IntentStructurePlanner.GeneratedBuild.error("invalid generation context");
+            return IntentStructurePlanner.PreparedSelection.error("invalid generation context");
         }
         String plotLabel = args == null || args.isEmpty() ? "" : args.get(0);
         List<String> slotOverrides = new ArrayList<>();
@@ -125,17 +163,30 @@ public final class AutonomousBuildService {
                 }
             }
         }
-        return IntentStructurePlanner.planSelection(
+        return IntentStructurePlanner.prepareSelection(
             world,
             player.getUuid(),
             from,
             to,
             plotLabel,
-            slotOverrides,
-            variant
+            slotOverrides
         );
     }
 
+    /**
+     * A copied selection waiting to be saved; {@code extent} holds the bounds
+     * and volume to report, or the error when {@code snapshot} is null.
+     */
+    public record PendingCapture(StructureSnapshot snapshot, CaptureResult extent) {
+        public static PendingCapture error(String message) {
+            return new PendingCapture(null, CaptureResult.error(message));
+        }
+
+        public boolean ok() {
+            return snapshot != null && extent.ok();
+        }
+    }
+
     public record CaptureResult(
         boolean ok,
         String message,
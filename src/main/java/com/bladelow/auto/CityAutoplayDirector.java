@@ -6,6 +6,7 @@ import com.bladelow.builder.PlacementJob;
 import com.bladelow.builder.PlacementJobRunner;
 import com.bladelow.builder.TownAutoLayoutPlanner;
 import com.bladelow.builder.TownDistrictType;
+import com.bladelow.builder.TownPlanner;
 import com.bladelow.builder.TownZoneStore;
 import com.bladelow.command.MaterialResolver;
 import net.minecraft.block.BlockState;
@@ -27,6 +28,7 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -34,8 +36,14 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * City director mode for full autopilot:
@@ -46,6 +54,8 @@ import java.util.concurrent.ConcurrentHashMap;
  *   5) district queue scheduler
  *   6) session persistence (resume after restart)
  *   7) HUD-friendly status/control commands
+ *   8) lookahead: district N+1 is planned off-thread while N builds
+ *   9) one analysed town area per session, updated as districts finish
  */
 public final class CityAutoplayDirector {
     private static final Map<UUID, Session> SESSIONS = new ConcurrentHashMap<>();
@@ -57,6 +67,12 @@ public final class CityAutoplayDirector {
         TownDistrictType.MIXED.id()
     );
     private static final Path SESSION_PATH = Path.of("config", "bladelow", "city-director.properties");
+    private static final ExecutorService LOOKAHEAD_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bladelow-city-planner");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
 
     private static volatile boolean dirty;
     private static volatile String lastSaveError = "";
@@ -102,6 +118,12 @@ public final class CityAutoplayDirector {
         private long updatedAtEpochMs;
         private List<BlockState> pendingStates;
         private List<BlockPos> pendingTargets;
+        private List<BlockState> prepStates;
+        private List<BlockPos> prepTargets;
+        // Neither is persisted: a restored session re-analyses its area and
+        // plans its next district synchronously.
+        private TownPlanner.AreaModel area;
+        private Lookahead lookahead;
 
         private Session(
             UUID playerId,
@@ -125,6 +147,8 @@ public final class CityAutoplayDirector {
             this.updatedAtEpochMs = this.startedAtEpochMs;
             this.pendingStates = List.of();
             this.pendingTargets = List.of();
+            this.prepStates = List.of();
+            this.prepTargets = List.of();
         }
 
         private void touch(String summary) {
@@ -211,6 +235,7 @@ public final class CityAutoplayDirector {
             + " next=" + Math.min(session.nextDistrictIndex + 1, session.districtOrder.size()) + "/" + session.districtOrder.size()
             + " skipped=" + session.skippedDistricts
             + " failed=" + session.failedDistricts
+            + " lookahead=" + lookaheadState(session)
             + " age=" + runtimeAge
             + " last=\"" + session.lastSummary + "\""
             + (lastSaveError.isBlank() ? "" : " saveError=\"" + lastSaveError + "\"");
@@ -251,6 +276,7 @@ public final class CityAutoplayDirector {
         if (removed == null) {
             return "no active city autoplay session";
         }
+        discardLookahead(removed);
         save(server);
         return "city autoplay canceled";
     }
@@ -291,6 +317,13 @@ public final class CityAutoplayDirector {
             }
 
             if (session.stage == Stage.PREP_RUNNING) {
+                // Clears and supports are in the world now; fold them in
+                // before the lookahead for the next district starts.
+                if (session.area != null) {
+                    session.area.recordPlacements(session.prepTargets, session.prepStates);
+                }
+                session.prepStates = List.of();
+                session.prepTargets = List.of();
                 if (!queueDistrictBuild(server, player, world, session)) {
                     session.failedDistricts++;
                     session.stage = Stage.PAUSED;
@@ -301,6 +334,9 @@ public final class CityAutoplayDirector {
             }
 
             if (session.stage == Stage.BUILD_RUNNING) {
+                if (session.area != null) {
+                    session.area.recordPlacements(session.pendingTargets, session.pendingStates);
+                }
                 session.builtDistricts++;
                 session.nextDistrictIndex++;
                 session.roadsIncluded = true;
@@ -313,7 +349,8 @@ public final class CityAutoplayDirector {
                 player.sendMessage(blueText(
                     "[Bladelow] city autoplay district complete (" + session.builtDistricts + "/" + session.districtOrder.size() + ")"
                 ), false);
-                continue;
+                // Fall through: with a finished lookahead the next district
+                // queues on this same tick.
             }
 
             if (session.nextDistrictIndex >= session.districtOrder.size()) {
@@ -331,7 +368,10 @@ public final class CityAutoplayDirector {
 
         if (!toRemove.isEmpty()) {
             for (UUID playerId : toRemove) {
-                SESSIONS.remove(playerId);
+                Session removed = SESSIONS.remove(playerId);
+                if (removed != null) {
+                    discardLookahead(removed);
+                }
             }
             dirty = true;
         }
@@ -435,81 +475,239 @@ public final class CityAutoplayDirector {
         ServerWorld world,
         Session session
     ) {
+        if (consumeLookahead(server, player, world, session)) {
+            return;
+        }
         while (session.nextDistrictIndex < session.districtOrder.size()) {
             String district = session.districtOrder.get(session.nextDistrictIndex);
-            BlueprintLibrary.BuildPlan plan = BlueprintLibrary.resolveTownFill(
-                world,
-                session.playerId,
-                session.from,
-                session.to,
-                district,
-                true,
-                !session.roadsIncluded
-            );
+            BlueprintLibrary.BuildPlan plan = townFill(world, session).plan(district, true, !session.roadsIncluded, Set.of());
 
             if (!plan.ok()) {
                 String msg = plan.message() == null ? "" : plan.message();
                 if (isSkippablePlanMiss(msg, district)) {
-                    session.skippedDistricts++;
-                    session.nextDistrictIndex++;
-                    session.touch("skip " + district + " (" + msg + ")");
-                    player.sendMessage(blueText("[Bladelow] city autoplay skip " + district + ": " + msg), false);
+                    skipDistrict(player, session, district, msg);
                     continue;
                 }
-                session.failedDistricts++;
-                session.stage = Stage.PAUSED;
-                session.touch("planner error " + district + ": " + msg);
-                player.sendMessage(blueText("[Bladelow] city autoplay paused (" + district + "): " + msg), false);
+                pauseOnPlannerError(player, session, district, msg);
                 return;
             }
             if (plan.targets().isEmpty()) {
-                session.skippedDistricts++;
-                session.nextDistrictIndex++;
-                session.touch("skip " + district + " (0 targets)");
+                skipDistrict(player, session, district, "");
                 continue;
             }
 
-            MaterialResolver.Resolution resolution = MaterialResolver.resolve(player, plan.blockStates());
-            if (!resolution.summary().isBlank()) {
-                player.sendMessage(blueText("[Bladelow] " + resolution.summary()), false);
-            }
-            List<BlockState> states = resolution.blockStates();
-            List<BlockPos> targets = plan.targets();
-            TerrainPrep prep = buildTerrainPrep(world, states, targets);
+            queuePlannedDistrict(server, player, world, session, district, plan);
+            return;
+        }
+    }
 
-            session.activeDistrict = district;
-            session.pendingStates = states;
-            session.pendingTargets = targets;
-            session.queuedDistricts++;
-            session.touch("queued " + district + " targets=" + targets.size());
+    /**
+     * Use the background plan for the next district if there is one.
+     * Returns true when the tick is handled: the plan was queued, the
+     * session paused on it, or it is still being computed. False means plan
+     * synchronously.
+     */
+    private static boolean consumeLookahead(
+        MinecraftServer server,
+        ServerPlayerEntity player,
+        ServerWorld world,
+        Session session
+    ) {
+        Lookahead lookahead = session.lookahead;
+        if (lookahead == null) {
+            return false;
+        }
+        if (lookahead.startIndex() != session.nextDistrictIndex) {
+            discardLookahead(session);
+            return false;
+        }
+        if (!lookahead.future().isDone()) {
+            // Planning N+1 is already underway; waiting a few ticks is cheaper
+            // than planning it again on the server thread.
+            return true;
+        }
+        session.lookahead = null;
+        LookaheadResult result;
+        try {
+            result = lookahead.future().join();
+        } catch (CancellationException | CompletionException ex) {
+            return false;
+        }
+        if (result.plan() != null
+            && !Collections.disjoint(TownPlanner.occupiedColumns(result.plan().targets()), lookahead.reservedColumns())) {
+            // The planner already treats N's columns as reserved, so this only
+            // trips if that contract is broken; never build on top of N.
+            return false;
+        }
+        if (result.plan() != null && result.plan().ok() && !TownPlanner.claim(result.plan().claim())) {
+            // A lot was locked after the lookahead ran; plan it again.
+            return false;
+        }
 
-            if (!prep.targets().isEmpty()) {
-                String prepTag = "autocity:prep:" + district + ":" + session.nextDistrictIndex;
-                if (!queuePlacementJob(server, world.getRegistryKey(), session.playerId, prep.states(), prep.targets(), prepTag)) {
-                    session.failedDistricts++;
-                    session.stage = Stage.PAUSED;
-                    session.touch("failed terrain prep queue");
-                    player.sendMessage(blueText("[Bladelow] city autoplay paused: failed to queue terrain prep"), false);
-                    return;
+        for (PlanMiss miss : result.misses()) {
+            skipDistrict(player, session, miss.district(), miss.message());
+        }
+        if (result.plan() == null) {
+            // Every remaining district was a miss; the next tick completes.
+            return true;
+        }
+        if (!result.plan().ok()) {
+            pauseOnPlannerError(player, session, result.district(), result.plan().message() == null ? "" : result.plan().message());
+            return true;
+        }
+        queuePlannedDistrict(server, player, world, session, result.district(), result.plan());
+        return true;
+    }
+
+    /**
+     * Start planning the district after the one now building, against the
+     * session's area as of now. The area does not contain the active district
+     * until it finishes, so every column it will occupy is passed as reserved.
+     */
+    private static void startLookahead(ServerWorld world, Session session, List<BlockPos> activeTargets) {
+        discardLookahead(session);
+        int startIndex = session.nextDistrictIndex + 1;
+        if (startIndex >= session.districtOrder.size()) {
+            return;
+        }
+        BlueprintLibrary.TownFillContext context = townFill(world, session);
+        Set<Long> reserved = Set.copyOf(TownPlanner.occupiedColumns(activeTargets));
+        List<String> order = session.districtOrder;
+        CompletableFuture<LookaheadResult> future = CompletableFuture.supplyAsync(
+            () -> planAhead(context, order, startIndex, reserved),
+            LOOKAHEAD_EXECUTOR
+        );
+        session.lookahead = new Lookahead(startIndex, reserved, future);
+    }
+
+    private static LookaheadResult planAhead(
+        BlueprintLibrary.TownFillContext context,
+        List<String> order,
+        int startIndex,
+        Set<Long> reserved
+    ) {
+        // Roads always go in with the first district, which is never planned
+        // ahead, so lookahead plans never include them.
+        List<PlanMiss> misses = new ArrayList<>();
+        for (int index = startIndex; index < order.size(); index++) {
+            String district = order.get(index);
+            // Locks and placement logs wait for consumeLookahead, so a
+            // discarded lookahead leaves nothing behind.
+            BlueprintLibrary.BuildPlan plan = context.planUnclaimed(district, true, false, reserved);
+            if (!plan.ok()) {
+                String msg = plan.message() == null ? "" : plan.message();
+                if (isSkippablePlanMiss(msg, district)) {
+                    misses.add(new PlanMiss(district, msg));
+                    continue;
                 }
-                session.awaitingTag = prepTag;
-                session.stage = Stage.PREP_RUNNING;
-                player.sendMessage(blueText(
-                    "[Bladelow] city autoplay terrain prep " + district
-                        + " clears=" + prep.clears()
-                        + " supports=" + prep.supports()
-                ), false);
-                return;
+                return new LookaheadResult(district, plan, List.copyOf(misses));
             }
+            if (plan.targets().isEmpty()) {
+                misses.add(new PlanMiss(district, ""));
+                continue;
+            }
+            return new LookaheadResult(district, plan, List.copyOf(misses));
+        }
+        return new LookaheadResult("", null, List.copyOf(misses));
+    }
+
+    /**
+     * Town-fill context over the session's shared area, analysing the area on
+     * first use. Finished districts are folded into the area as they complete,
+     * so it is never rescanned for later districts.
+     */
+    private static BlueprintLibrary.TownFillContext townFill(ServerWorld world, Session session) {
+        if (session.area == null) {
+            BlueprintLibrary.TownFillContext context = BlueprintLibrary.prepareTownFill(world, session.playerId, session.from, session.to);
+            session.area = context.area();
+            return context;
+        }
+        return BlueprintLibrary.prepareTownFill(world, session.playerId, session.area);
+    }
+
+    private static void discardLookahead(Session session) {
+        Lookahead lookahead = session.lookahead;
+        if (lookahead != null) {
+            lookahead.future().cancel(false);
+            session.lookahead = null;
+        }
+    }
+
+    private static String lookaheadState(Session session) {
+        Lookahead lookahead = session.lookahead;
+        if (lookahead == null) {
+            return "-";
+        }
+        return (lookahead.future().isDone() ? "ready@" : "planning@") + (lookahead.startIndex() + 1);
+    }
 
-            if (!queueDistrictBuild(server, player, world, session)) {
+    private static void skipDistrict(ServerPlayerEntity player, Session session, String district, String msg) {
+        session.skippedDistricts++;
+        session.nextDistrictIndex++;
+        if (msg == null || msg.isBlank()) {
+            session.touch("skip " + district + " (0 targets)");
+            return;
+        }
+        session.touch("skip " + district + " (" + msg + ")");
+        player.sendMessage(blueText("[Bladelow] city autoplay skip " + district + ": " + msg), false);
+    }
+
+    private static void pauseOnPlannerError(ServerPlayerEntity player, Session session, String district, String msg) {
+        session.failedDistricts++;
+        session.stage = Stage.PAUSED;
+        session.touch("planner error " + district + ": " + msg);
+        player.sendMessage(blueText("[Bladelow] city autoplay paused (" + district + "): " + msg), false);
+    }
+
+    private static void queuePlannedDistrict(
+        MinecraftServer server,
+        ServerPlayerEntity player,
+        ServerWorld world,
+        Session session,
+        String district,
+        BlueprintLibrary.BuildPlan plan
+    ) {
+        MaterialResolver.Resolution resolution = MaterialResolver.resolve(player, plan.blockStates());
+        if (!resolution.summary().isBlank()) {
+            player.sendMessage(blueText("[Bladelow] " + resolution.summary()), false);
+        }
+        List<BlockState> states = resolution.blockStates();
+        List<BlockPos> targets = plan.targets();
+        TerrainPrep prep = buildTerrainPrep(world, states, targets);
+
+        session.activeDistrict = district;
+        session.pendingStates = states;
+        session.pendingTargets = targets;
+        session.queuedDistricts++;
+        session.touch("queued " + district + " targets=" + targets.size());
+
+        if (!prep.targets().isEmpty()) {
+            String prepTag = "autocity:prep:" + district + ":" + session.nextDistrictIndex;
+            if (!queuePlacementJob(server, world.getRegistryKey(), session.playerId, prep.states(), prep.targets(), prepTag)) {
                 session.failedDistricts++;
                 session.stage = Stage.PAUSED;
-                session.touch("failed build queue");
-                player.sendMessage(blueText("[Bladelow] city autoplay paused: failed to queue district build"), false);
+                session.touch("failed terrain prep queue");
+                player.sendMessage(blueText("[Bladelow] city autoplay paused: failed to queue terrain prep"), false);
+                return;
             }
+            session.awaitingTag = prepTag;
+            session.prepStates = prep.states();
+            session.prepTargets = prep.targets();
+            session.stage = Stage.PREP_RUNNING;
+            player.sendMessage(blueText(
+                "[Bladelow] city autoplay terrain prep " + district
+                    + " clears=" + prep.clears()
+                    + " supports=" + prep.supports()
+            ), false);
             return;
         }
+
+        if (!queueDistrictBuild(server, player, world, session)) {
+            session.failedDistricts++;
+            session.stage = Stage.PAUSED;
+            session.touch("failed build queue");
+            player.sendMessage(blueText("[Bladelow] city autoplay paused: failed to queue district build"), false);
+        }
     }
 
     private static boolean queueDistrictBuild(
@@ -521,20 +719,14 @@ public final class CityAutoplayDirector {
         List<BlockState> states = session.pendingStates;
         List<BlockPos> targets = session.pendingTargets;
         if (states == null || targets == null || states.isEmpty() || targets.isEmpty() || states.size() != targets.size()) {
-            BlueprintLibrary.BuildPlan fallback = BlueprintLibrary.resolveTownFill(
-                world,
-                session.playerId,
-                session.from,
-                session.to,
-                session.activeDistrict,
-                false,
-                false
-            );
+            BlueprintLibrary.BuildPlan fallback = townFill(world, session).plan(session.activeDistrict, false, false, Set.of());
             if (!fallback.ok() || fallback.targets().isEmpty()) {
                 return false;
             }
             states = fallback.blockStates();
             targets = fallback.targets();
+            session.pendingStates = states;
+            session.pendingTargets = targets;
         }
 
         String tag = "autocity:district:" + session.activeDistrict + ":" + session.nextDistrictIndex;
@@ -544,6 +736,7 @@ public final class CityAutoplayDirector {
         session.awaitingTag = tag;
         session.stage = Stage.BUILD_RUNNING;
         session.touch("district build queued");
+        startLookahead(world, session, targets);
         player.sendMessage(blueText(
             "[Bladelow] city autoplay building " + session.activeDistrict
                 + " targets=" + targets.size()
@@ -856,6 +1049,20 @@ public final class CityAutoplayDirector {
         return Text.literal("[Bladelow] " + msg).formatted(Formatting.AQUA);
     }
 
+    private record Lookahead(int startIndex, Set<Long> reservedColumns, CompletableFuture<LookaheadResult> future) {
+    }
+
+    /**
+     * Outcome of planning ahead: the skippable misses walked past, then the
+     * first district that produced a plan (or a hard planner error). A null
+     * plan means every remaining district was a miss.
+     */
+    private record LookaheadResult(String district, BlueprintLibrary.BuildPlan plan, List<PlanMiss> misses) {
+    }
+
+    private record PlanMiss(String district, String message) {
+    }
+
     private record TerrainPrep(List<BlockState> states, List<BlockPos> targets, int clears, int supports) {
         static TerrainPrep empty() {
             return new TerrainPrep(List.of(), List.of(), 0, 0);
@@ -0,0 +1,280 @@
+package com.bladelow.auto;
+
+import com.bladelow.builder.IntentStructurePlanner;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Speculative city-build preview variants, kept per player and selection.
+ *
+ * Once a preview is shown, the next few variants of the same selection are
+ * generated in parallel from its one {@link IntentStructurePlanner.PreparedSelection}
+ * and ranked by the generation preference model. A reroll takes the best
+ * finished variant from the queue instead of planning on the server thread,
+ * and the queue refills in the background. A reroll that arrives before any
+ * variant has finished gets a pending {@link Take} and waits for the queue
+ * off the server thread, so the speculative work is never thrown away.
+ *
+ * Variants are only valid for the site as it was when the selection was
+ * prepared, so a queue expires after a short while and is dropped whenever
+ * the preview is committed, rejected or replaced. A dropped queue cancels its
+ * pending variants, so generation that has not started yet never runs.
+ */
+public final class CityPreviewQueue {
+    private static final int SPECULATIVE_VARIANTS = 4;
+    private static final long MAX_AGE_MILLIS = 120_000L;
+    // Variants cycle through this many design seeds before repeating.
+    private static final int DESIGN_SEEDS = 10;
+    private static final AtomicInteger GENERATOR_THREAD_IDS = new AtomicInteger();
+    private static final ExecutorService GENERATOR_POOL = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(SPECULATIVE_VARIANTS, Runtime.getRuntime().availableProcessors() - 1)),
+        runnable -> {
+            Thread thread = new Thread(runnable, "bladelow-preview-variant-" + GENERATOR_THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    );
+    private static final Map<UUID, Queue> QUEUES = new ConcurrentHashMap<>();
+
+    private CityPreviewQueue() {
+    }
+
+    /**
+     * Start speculating on the variants after {@code shownVariant} of a
+     * selection the player is now previewing. Replaces any earlier queue.
+     */
+    public static synchronized void start(
+        UUID playerId,
+        IntentStructurePlanner.PreparedSelection prepared,
+        List<String> args,
+        int shownVariant,
+        IntentStructurePlanner.GeneratedBuild shown
+    ) {
+        if (playerId == null || prepared == null || !prepared.ok()) {
+            return;
+        }
+        Queue queue = new Queue(prepared, List.copyOf(args == null ? List.of() : args), shownVariant + 1);
+        queue.markShown(shown);
+        queue.refill();
+        drop(QUEUES.put(playerId, queue));
+    }
+
+    /**
+     * Best-ranked finished variant for this player and selection. When none
+     * has finished yet but some are still generating, the result is pending
+     * and the queue stays alive; the caller waits with {@link #await} off the
+     * server thread and takes again. A miss means the caller should plan
+     * directly: there is no live queue for this selection, or every variant
+     * failed. Never waits, since it is called on the server thread.
+     */
+    public static synchronized Take take(UUID playerId, BlockPos from, BlockPos to, List<String> args) {
+        Queue queue = playerId == null ? null : QUEUES.get(playerId);
+        if (queue == null) {
+            return Take.MISS;
+        }
+        if (!queue.matches(from, to, args) || queue.expired()) {
+            drop(QUEUES.remove(playerId));
+            return Take.MISS;
+        }
+        Variant next = queue.take();
+        if (next == null) {
+            CompletableFuture<Object> ready = queue.nextReady();
+            if (ready != null) {
+                return new Take(null, ready);
+            }
+            // The direct plan restarts the queue from its own variant.
+            drop(QUEUES.remove(playerId));
+            return Take.MISS;
+        }
+        queue.markShown(next.plan());
+        queue.refill();
+        return new Take(next, null);
+    }
+
+    /**
+     * Block until a pending take's first variant finishes, fails or is
+     * cancelled, or {@code timeoutMillis} passes. For planner threads only.
+     */
+    public static void await(Take take, long timeoutMillis) {
+        if (take == null || !take.pending()) {
+            return;
+        }
+        try {
+            take.ready().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException | TimeoutException ex) {
+            // Whatever happened, the caller takes again and sees the outcome.
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static synchronized void clear(UUID playerId) {
+        if (playerId != null) {
+            drop(QUEUES.remove(playerId));
+        }
+    }
+
+    private static void drop(Queue queue) {
+        if (queue != null) {
+            queue.cancel();
+        }
+    }
+
+    /**
+     * Ranking key: the preference model's probability for the concrete design,
+     * as computed by {@code OfflineTrainingModel.scoreGeneration} when the
+     * variant was generated. Untrained models score every design alike, which
+     * leaves variant order as the tiebreak.
+     */
+    private static double rank(IntentStructurePlanner.GeneratedBuild plan) {
+        if (plan == null || !plan.ok() || plan.generation() == null) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return plan.generation().preference();
+    }
+
+    public record Variant(int variant, IntentStructurePlanner.GeneratedBuild plan) {
+    }
+
+    /**
+     * Outcome of {@link #take}: a finished variant, a future that completes
+     * when the next one finishes, or neither when the queue is gone.
+     */
+    public record Take(Variant variant, CompletableFuture<Object> ready) {
+        public static final Take MISS = new Take(null, null);
+
+        public boolean pending() {
+            return variant == null && ready != null;
+        }
+    }
+
+    private record Pending(int variant, CompletableFuture<IntentStructurePlanner.GeneratedBuild> future) {
+    }
+
+    private static final class Queue {
+        private final IntentStructurePlanner.PreparedSelection prepared;
+        private final List<String> args;
+        private final long createdAt = System.currentTimeMillis();
+        private final List<Pending> pending = new ArrayList<>();
+        private final Set<Integer> shownDesigns = new HashSet<>();
+        private int nextVariant;
+
+        private Queue(IntentStructurePlanner.PreparedSelection prepared, List<String> args, int nextVariant) {
+            this.prepared = prepared;
+            this.args = args;
+            this.nextVariant = nextVariant;
+        }
+
+        private boolean matches(BlockPos from, BlockPos to, List<String> requestArgs) {
+            List<String> normalized = requestArgs == null ? List.of() : requestArgs;
+            return from != null && to != null && prepared.matches(from, to) && args.equals(normalized);
+        }
+
+        private boolean expired() {
+            return System.currentTimeMillis() - createdAt > MAX_AGE_MILLIS;
+        }
+
+        private void refill() {
+            while (pending.size() < SPECULATIVE_VARIANTS) {
+                int variant = nextVariant++;
+                // Keep the future supplyAsync returns: cancelling it before a
+                // generator thread picks the task up skips the work entirely.
+                pending.add(new Pending(
+                    variant,
+                    CompletableFuture.supplyAsync(() -> IntentStructurePlanner.generateVariant(prepared, variant), GENERATOR_POOL)
+                ));
+            }
+        }
+
+        private void cancel() {
+            for (Pending entry : pending) {
+                entry.future().cancel(false);
+            }
+            pending.clear();
+        }
+
+        private void markShown(IntentStructurePlanner.GeneratedBuild plan) {
+            if (plan == null || plan.generation() == null) {
+                return;
+            }
+            if (shownDesigns.size() >= DESIGN_SEEDS) {
+                // Every design has been seen once; let them come round again.
+                shownDesigns.clear();
+            }
+            shownDesigns.add(plan.generation().designSeed());
+        }
+
+        private Variant take() {
+            Pending best = null;
+            IntentStructurePlanner.GeneratedBuild bestPlan = null;
+            boolean bestRepeats = true;
+            double bestRank = Double.NEGATIVE_INFINITY;
+            for (Pending entry : new ArrayList<>(pending)) {
+                if (!entry.future().isDone()) {
+                    continue;
+                }
+                IntentStructurePlanner.GeneratedBuild plan = entry.future().isCompletedExceptionally()
+                    ? null
+                    : entry.future().getNow(null);
+                if (plan == null || !plan.ok()) {
+                    pending.remove(entry);
+                    continue;
+                }
+                // Designs the player has already seen rank below any new one.
+                boolean repeats = isRepeat(plan);
+                double rank = rank(plan);
+                boolean better = best == null
+                    || (bestRepeats && !repeats)
+                    || (bestRepeats == repeats && (rank > bestRank || (rank == bestRank && entry.variant() < best.variant())));
+                if (better) {
+                    best = entry;
+                    bestPlan = plan;
+                    bestRepeats = repeats;
+                    bestRank = rank;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            pending.remove(best);
+            return new Variant(best.variant(), bestPlan);
+        }
+
+        /**
+         * Completes when any still-running variant does, or null when none
+         * is left.
+         */
+        private CompletableFuture<Object> nextReady() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[pending.size()];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pending.get(i).future();
+            }
+            return CompletableFuture.anyOf(futures);
+        }
+
+        private boolean isRepeat(IntentStructurePlanner.GeneratedBuild plan) {
+            return plan.generation() != null
+                && shownDesigns.size() < DESIGN_SEEDS
+                && shownDesigns.contains(plan.generation().designSeed());
+        }
+    }
+}
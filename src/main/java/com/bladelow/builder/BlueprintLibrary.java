@@ -22,6 +22,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
@@ -30,12 +31,18 @@ public final class BlueprintLibrary {
     private static final Gson GSON = new Gson();
     private static final Map<String, BlueprintTemplate> TEMPLATES = new ConcurrentHashMap<>();
     private static final Map<UUID, String> SELECTED_BY_PLAYER = new ConcurrentHashMap<>();
+    // Town blueprints (and their profiles) are derived once per library load
+    // rather than on every planner call; null means rebuild on next use.
+    private static List<TownBlueprint> townBlueprintCache;
+    private static List<TownBlueprintRotations> townRotationCache;
 
     private BlueprintLibrary() {
     }
 
     public static synchronized String reload(MinecraftServer server) {
         TEMPLATES.clear();
+        townBlueprintCache = null;
+        townRotationCache = null;
         Path dir = blueprintDir(server);
         try {
             Files.createDirectories(dir);
@@ -125,12 +132,43 @@ public final class BlueprintLibrary {
         boolean lockLots,
         boolean includeRoads
     ) {
-        List<TownZoneStore.Zone> zones = playerId == null ? List.of() : TownZoneStore.snapshot(playerId, world.getRegistryKey());
-        TownPlan plan = TownPlanner.plan(world, playerId, from, to, townBlueprints(), zones, requiredZoneType, lockLots, includeRoads);
-        if (!plan.ok()) {
-            return BuildPlan.error(plan.message());
+        if (world == null || from == null || to == null) {
+            return BuildPlan.error("invalid townfill bounds");
         }
-        return BuildPlan.ok(plan.message(), plan.blockStates(), plan.targets());
+        return prepareTownFill(world, playerId, from, to).plan(requiredZoneType, lockLots, includeRoads, Set.of());
+    }
+
+    /**
+     * Analyse {@code from..to} and capture the zones and town blueprints a
+     * town fill needs. Call on the server thread; the returned context plans
+     * without touching the world or this library's lock.
+     */
+    public static synchronized TownFillContext prepareTownFill(ServerWorld world, UUID playerId, BlockPos from, BlockPos to) {
+        return prepareTownFill(world, playerId, TownPlanner.analyzeArea(world, from, to, townBlueprints()));
+    }
+
+    /**
+     * Like {@link #prepareTownFill(ServerWorld, UUID, BlockPos, BlockPos)} but
+     * stops after copying the area, zones and blueprints, so the analysis can
+     * run off the server thread as well as the plan.
+     */
+    public static synchronized PendingTownFill captureTownFill(ServerWorld world, UUID playerId, BlockPos from, BlockPos to) {
+        List<TownZoneStore.Zone> zones = playerId == null ? List.of() : TownZoneStore.snapshot(playerId, world.getRegistryKey());
+        return new PendingTownFill(
+            TownPlanner.captureAreaForAnalysis(world, from, to, townBlueprints()),
+            playerId,
+            townRotations(),
+            zones
+        );
+    }
+
+    /**
+     * Same as above but reusing an area analysed earlier, so repeated fills
+     * over one selection only refresh zones and blueprints.
+     */
+    public static synchronized TownFillContext prepareTownFill(ServerWorld world, UUID playerId, TownPlanner.AreaModel area) {
+        List<TownZoneStore.Zone> zones = playerId == null ? List.of() : TownZoneStore.snapshot(playerId, world.getRegistryKey());
+        return new TownFillContext(area, playerId, townRotations(), zones);
     }
 
     public static synchronized int clearTownLotLocks(ServerWorld world, UUID playerId) {
@@ -198,15 +236,23 @@ public final class BlueprintLibrary {
             return SaveResult.error("height must be 1..256");
         }
 
-        StructureSnapshot snapshot = StructureSnapshot.capture(world, name, basePoints, height, includeAir);
-        if (snapshot.blocks().isEmpty()) {
+        return saveCapturedStructure(server, StructureSnapshot.capture(world, name, basePoints, height, includeAir));
+    }
+
+    /**
+     * Write a structure captured earlier to structure memory and as a
+     * blueprint. Only file IO and a library reload, so it may run off the
+     * server thread.
+     */
+    public static SaveResult saveCapturedStructure(MinecraftServer server, StructureSnapshot snapshot) {
+        if (snapshot == null || snapshot.blocks().isEmpty()) {
             return SaveResult.error("selection volume contains no captured blocks");
         }
         StructureMemoryStore.SaveResult memoryResult = StructureMemoryStore.save(server, snapshot);
         if (!memoryResult.ok()) {
             return SaveResult.error(memoryResult.message());
         }
-        SaveResult blueprintResult = savePlacementsAsBlueprint(server, name, snapshot.toBlueprintPlacements());
+        SaveResult blueprintResult = savePlacementsAsBlueprint(server, snapshot.name(), snapshot.toBlueprintPlacements());
         if (!blueprintResult.ok()) {
             return blueprintResult;
         }
@@ -296,10 +342,28 @@ public final class BlueprintLibrary {
     }
 
     private static List<TownBlueprint> townBlueprints() {
-        return TEMPLATES.values().stream()
-            .filter(BlueprintLibrary::isTownTemplate)
-            .map(BlueprintLibrary::toTownBlueprint)
-            .toList();
+        List<TownBlueprint> cached = townBlueprintCache;
+        if (cached == null) {
+            cached = TEMPLATES.values().stream()
+                .filter(BlueprintLibrary::isTownTemplate)
+                .map(BlueprintLibrary::toTownBlueprint)
+                .toList();
+            townBlueprintCache = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * All four orientations of every town blueprint, with block states
+     * resolved, built once per library load.
+     */
+    private static List<TownBlueprintRotations> townRotations() {
+        List<TownBlueprintRotations> cached = townRotationCache;
+        if (cached == null) {
+            cached = TownBlueprintRotations.ofAll(townBlueprints());
+            townRotationCache = cached;
+        }
+        return cached;
     }
 
     private static TownBlueprint toTownBlueprint(BlueprintTemplate template) {
@@ -457,6 +521,8 @@ public final class BlueprintLibrary {
                     entranceX = inferredEntranceX(plotWidth, roadSide);
                     entranceZ = inferredEntranceZ(plotDepth, roadSide);
                 }
+                townBlueprintCache = null;
+                townRotationCache = null;
                 TEMPLATES.put(
                     key,
                     new BlueprintTemplate(
@@ -953,13 +1019,68 @@ public final class BlueprintLibrary {
         return input.trim().toLowerCase(Locale.ROOT);
     }
 
-    public record BuildPlan(boolean ok, String message, List<BlockState> blockStates, List<BlockPos> targets) {
+    public record TownFillContext(
+        TownPlanner.AreaModel area,
+        UUID playerId,
+        List<TownBlueprintRotations> blueprints,
+        List<TownZoneStore.Zone> zones
+    ) {
+        public TownFillContext {
+            blueprints = blueprints == null ? List.of() : blueprints;
+            zones = zones == null ? List.of() : zones;
+        }
+
+        public BuildPlan plan(String requiredZoneType, boolean lockLots, boolean includeRoads, Set<Long> reservedColumns) {
+            return plan(requiredZoneType, lockLots, includeRoads, reservedColumns, true);
+        }
+
+        /**
+         * Plan without locking lots or logging placements; the returned
+         * plan's {@link BuildPlan#claim()} must go through
+         * {@link TownPlanner#claim} on the server thread before it is built.
+         * Use this off the server thread whenever the plan may be discarded.
+         */
+        public BuildPlan planUnclaimed(String requiredZoneType, boolean lockLots, boolean includeRoads, Set<Long> reservedColumns) {
+            return plan(requiredZoneType, lockLots, includeRoads, reservedColumns, false);
+        }
+
+        private BuildPlan plan(String requiredZoneType, boolean lockLots, boolean includeRoads, Set<Long> reservedColumns, boolean claimNow) {
+            TownPlan plan = TownPlanner.plan(area, playerId, blueprints, zones, requiredZoneType, lockLots, includeRoads, reservedColumns, claimNow);
+            if (!plan.ok()) {
+                return BuildPlan.error(plan.message());
+            }
+            return BuildPlan.ok(plan.message(), plan.blockStates(), plan.targets(), plan.claim());
+        }
+    }
+
+    public record PendingTownFill(
+        TownPlanner.AreaCapture area,
+        UUID playerId,
+        List<TownBlueprintRotations> blueprints,
+        List<TownZoneStore.Zone> zones
+    ) {
+        public TownFillContext analyze() {
+            return new TownFillContext(area.analyze(), playerId, blueprints, zones);
+        }
+    }
+
+    public record BuildPlan(
+        boolean ok,
+        String message,
+        List<BlockState> blockStates,
+        List<BlockPos> targets,
+        TownPlanner.LotClaim claim
+    ) {
         public static BuildPlan ok(String message, List<BlockState> blockStates, List<BlockPos> targets) {
-            return new BuildPlan(true, message, List.copyOf(blockStates), List.copyOf(targets));
+            return ok(message, blockStates, targets, TownPlanner.LotClaim.NONE);
+        }
+
+        public static BuildPlan ok(String message, List<BlockState> blockStates, List<BlockPos> targets, TownPlanner.LotClaim claim) {
+            return new BuildPlan(true, message, List.copyOf(blockStates), List.copyOf(targets), claim);
         }
 
         public static BuildPlan error(String message) {
-            return new BuildPlan(false, message, List.of(), List.of());
+            return new BuildPlan(false, message, List.of(), List.of(), TownPlanner.LotClaim.NONE);
         }
 
         public List<Block> blocks() {
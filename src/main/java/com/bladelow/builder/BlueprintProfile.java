@@ -0,0 +1,257 @@
+package com.bladelow.builder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Derived shape, palette and tag features of one {@link TownBlueprint}.
+ *
+ * Computed once when the blueprint is built so intent and style scoring in the
+ * planner's lot x blueprint x origin loop is plain field comparison instead of
+ * rescanning placements and string-matching block ids.
+ */
+public record BlueprintProfile(
+    int width,
+    int height,
+    int depth,
+    String archetype,
+    String sizeClass,
+    int floors,
+    String roofFamily,
+    String paletteProfile,
+    String detailDensity,
+    Set<String> tags
+) {
+    public BlueprintProfile {
+        tags = tags == null ? Set.of() : Set.copyOf(tags);
+    }
+
+    public static BlueprintProfile of(
+        List<TownBlueprint.Placement> placements,
+        int plotWidth,
+        int plotDepth,
+        List<String> themeTags,
+        List<String> tags
+    ) {
+        Set<String> allTags = new HashSet<>();
+        if (tags != null) {
+            allTags.addAll(tags);
+        }
+        if (themeTags != null) {
+            allTags.addAll(themeTags);
+        }
+
+        int width = 0;
+        int height = 0;
+        int depth = 0;
+        int stone = 0;
+        int wood = 0;
+        int market = 0;
+        int plaster = 0;
+        int detail = 0;
+        if (placements != null && !placements.isEmpty()) {
+            int minX = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int minY = Integer.MAX_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            int minZ = Integer.MAX_VALUE;
+            int maxZ = Integer.MIN_VALUE;
+            for (TownBlueprint.Placement placement : placements) {
+                minX = Math.min(minX, placement.x());
+                maxX = Math.max(maxX, placement.x());
+                minY = Math.min(minY, placement.y());
+                maxY = Math.max(maxY, placement.y());
+                minZ = Math.min(minZ, placement.z());
+                maxZ = Math.max(maxZ, placement.z());
+
+                String block = placement.blockId().toLowerCase(Locale.ROOT);
+                if (isDetail(block)) {
+                    detail++;
+                }
+                if (block.contains("glass")) {
+                    continue;
+                }
+                if (isStone(block)) {
+                    stone++;
+                } else if (isWood(block)) {
+                    wood++;
+                } else if (block.contains("wool") || block.contains("terracotta") || block.contains("banner") || block.contains("copper")) {
+                    market++;
+                } else if (block.contains("quartz") || block.contains("calcite") || block.contains("white_concrete")) {
+                    plaster++;
+                }
+            }
+            width = maxX - minX + 1;
+            height = maxY - minY + 1;
+            depth = maxZ - minZ + 1;
+        }
+
+        int placementCount = placements == null ? 0 : placements.size();
+        return new BlueprintProfile(
+            width,
+            height,
+            depth,
+            archetype(allTags),
+            sizeClass(plotWidth, plotDepth),
+            floors(height),
+            roofFamily(height, plotWidth, plotDepth),
+            placementCount == 0 ? "" : paletteProfile(stone, wood, market, plaster),
+            placementCount == 0 ? "" : detailDensity(detail, placementCount),
+            allTags
+        );
+    }
+
+    /**
+     * Profile of the same blueprint after {@code turns} clockwise quarter
+     * turns. Only the horizontal extents change.
+     */
+    public BlueprintProfile rotated(int turns) {
+        if (Math.floorMod(turns, 2) == 0) {
+            return this;
+        }
+        return new BlueprintProfile(depth, height, width, archetype, sizeClass, floors, roofFamily, paletteProfile, detailDensity, tags);
+    }
+
+    public boolean hasTag(String tag) {
+        // trim/toLowerCase return the same instance for already-normalised
+        // tags, so the common case does not allocate.
+        return tag != null && tags.contains(tag.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String archetype(Set<String> tags) {
+        if (containsAny(tags, "civic", "hall", "keep", "plaza", "church", "tower")) {
+            return "civic";
+        }
+        if (containsAny(tags, "market", "stall", "shop", "inn", "tavern")) {
+            return "market";
+        }
+        if (containsAny(tags, "smithy", "workshop", "utility", "storage", "farm")) {
+            return "workshop";
+        }
+        if (containsAny(tags, "house", "residential")) {
+            return "residential";
+        }
+        return "mixed";
+    }
+
+    private static String sizeClass(int plotWidth, int plotDepth) {
+        int area = Math.max(1, plotWidth * plotDepth);
+        if (area <= 49) {
+            return "small";
+        }
+        if (area <= 120) {
+            return "medium";
+        }
+        return "large";
+    }
+
+    private static int floors(int height) {
+        int clamped = Math.max(0, height);
+        if (clamped <= 5) {
+            return 1;
+        }
+        if (clamped <= 9) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static String roofFamily(int height, int plotWidth, int plotDepth) {
+        int footprint = Math.max(1, Math.max(plotWidth, plotDepth));
+        double steepness = Math.max(0, height) / (double) footprint;
+        if (steepness >= 0.5) {
+            return "steep";
+        }
+        if (steepness >= 0.28) {
+            return "gable";
+        }
+        return "low";
+    }
+
+    private static String paletteProfile(int stone, int wood, int market, int plaster) {
+        String first = "";
+        String second = "";
+        for (String part : new String[]{
+            stone > 0 ? "stone" : "",
+            wood > 0 ? "oak" : "",
+            market > 0 ? "market" : "",
+            plaster > 0 ? "plaster" : ""
+        }) {
+            if (part.isBlank()) {
+                continue;
+            }
+            if (first.isBlank()) {
+                first = part;
+            } else if (second.isBlank()) {
+                second = part;
+            }
+        }
+        if (first.isBlank()) {
+            return "";
+        }
+        return second.isBlank() ? first : first + "_" + second;
+    }
+
+    private static String detailDensity(int detail, int placementCount) {
+        double ratio = detail / (double) Math.max(1, placementCount);
+        if (ratio >= 0.18) {
+            return "high";
+        }
+        if (ratio >= 0.08) {
+            return "medium";
+        }
+        return "low";
+    }
+
+    private static boolean containsAny(Set<String> tags, String... candidates) {
+        for (String candidate : candidates) {
+            if (tags.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDetail(String block) {
+        return block.contains("stairs")
+            || block.contains("slab")
+            || block.contains("wall")
+            || block.contains("fence")
+            || block.contains("trapdoor")
+            || block.contains("lantern")
+            || block.contains("chain");
+    }
+
+    private static boolean isStone(String block) {
+        return block.contains("stone")
+            || block.contains("cobbl")
+            || block.contains("brick")
+            || block.contains("andesite")
+            || block.contains("diorite")
+            || block.contains("granite")
+            || block.contains("deepslate")
+            || block.contains("tuff")
+            || block.contains("blackstone")
+            || block.contains("basalt");
+    }
+
+    private static boolean isWood(String block) {
+        return block.contains("oak")
+            || block.contains("spruce")
+            || block.contains("birch")
+            || block.contains("dark_oak")
+            || block.contains("acacia")
+            || block.contains("mangrove")
+            || block.contains("cherry")
+            || block.contains("jungle")
+            || block.contains("bamboo")
+            || block.contains("crimson")
+            || block.contains("warped")
+            || block.contains("planks")
+            || block.contains("log")
+            || block.contains("wood")
+            || block.contains("stripped_");
+    }
+}
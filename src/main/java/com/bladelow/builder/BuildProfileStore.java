@@ -54,6 +54,8 @@ public final class BuildProfileStore {
         p.setProperty(n + ".autoResume", Boolean.toString(BuildRuntimeSettings.autoResumeEnabled()));
         p.setProperty(n + ".trace", Boolean.toString(BuildRuntimeSettings.pathTraceEnabled()));
         p.setProperty(n + ".traceParticles", Boolean.toString(BuildRuntimeSettings.pathTraceParticles()));
+        p.setProperty(n + ".townOptimizerMs", Integer.toString(BuildRuntimeSettings.townOptimizerBudgetMillis()));
+        p.setProperty(n + ".telemetryTicks", Integer.toString(BuildRuntimeSettings.telemetryIntervalTicks()));
         return storeProps(server, p, "saved profile " + n);
     }
 
@@ -70,6 +72,8 @@ public final class BuildProfileStore {
             BuildRuntimeSettings.setAutoResumeEnabled(true);
             BuildRuntimeSettings.setPathTraceEnabled(false);
             BuildRuntimeSettings.setPathTraceParticles(false);
+            BuildRuntimeSettings.setTownOptimizerBudgetMillis(150);
+            BuildRuntimeSettings.setTelemetryIntervalTicks(5);
             return "loaded profile builder";
         }
         if ("safe".equals(n)) {
@@ -81,6 +85,8 @@ public final class BuildProfileStore {
             BuildRuntimeSettings.setAutoResumeEnabled(true);
             BuildRuntimeSettings.setPathTraceEnabled(false);
             BuildRuntimeSettings.setPathTraceParticles(false);
+            BuildRuntimeSettings.setTownOptimizerBudgetMillis(150);
+            BuildRuntimeSettings.setTelemetryIntervalTicks(5);
             return "loaded profile safe";
         }
         if ("fast".equals(n)) {
@@ -92,6 +98,8 @@ public final class BuildProfileStore {
             BuildRuntimeSettings.setAutoResumeEnabled(true);
             BuildRuntimeSettings.setPathTraceEnabled(false);
             BuildRuntimeSettings.setPathTraceParticles(false);
+            BuildRuntimeSettings.setTownOptimizerBudgetMillis(0);
+            BuildRuntimeSettings.setTelemetryIntervalTicks(5);
             return "loaded profile fast";
         }
 
@@ -112,6 +120,16 @@ public final class BuildProfileStore {
         BuildRuntimeSettings.setAutoResumeEnabled(Boolean.parseBoolean(p.getProperty(n + ".autoResume", "true")));
         BuildRuntimeSettings.setPathTraceEnabled(Boolean.parseBoolean(p.getProperty(n + ".trace", "false")));
         BuildRuntimeSettings.setPathTraceParticles(Boolean.parseBoolean(p.getProperty(n + ".traceParticles", "false")));
+        try {
+            BuildRuntimeSettings.setTownOptimizerBudgetMillis(Integer.parseInt(p.getProperty(n + ".townOptimizerMs", "0")));
+        } catch (NumberFormatException ignored) {
+            BuildRuntimeSettings.setTownOptimizerBudgetMillis(0);
+        }
+        try {
+            BuildRuntimeSettings.setTelemetryIntervalTicks(Integer.parseInt(p.getProperty(n + ".telemetryTicks", "5")));
+        } catch (NumberFormatException ignored) {
+            BuildRuntimeSettings.setTelemetryIntervalTicks(5);
+        }
         return "loaded profile " + n;
     }
 
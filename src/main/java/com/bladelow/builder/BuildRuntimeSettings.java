@@ -29,6 +29,11 @@ public final class BuildRuntimeSettings {
     private static boolean autoResumeEnabled = true;
     private static boolean pathTraceEnabled = false;
     private static boolean pathTraceParticles = false;
+    // Town planning: wall-clock budget for the whole-plan lot optimiser; 0 keeps the greedy plan.
+    // Plans made on the server thread always keep the greedy plan.
+    private static int townOptimizerBudgetMillis = 0;
+    // HUD telemetry: minimum server ticks between two progress packets to one player.
+    private static int telemetryIntervalTicks = 5;
 
     private BuildRuntimeSettings() {
     }
@@ -145,6 +150,22 @@ public final class BuildRuntimeSettings {
         pathTraceParticles = enabled;
     }
 
+    public static synchronized int townOptimizerBudgetMillis() {
+        return townOptimizerBudgetMillis;
+    }
+
+    public static synchronized void setTownOptimizerBudgetMillis(int millis) {
+        townOptimizerBudgetMillis = Math.max(0, Math.min(2000, millis));
+    }
+
+    public static synchronized int telemetryIntervalTicks() {
+        return telemetryIntervalTicks;
+    }
+
+    public static synchronized void setTelemetryIntervalTicks(int ticks) {
+        telemetryIntervalTicks = Math.max(1, Math.min(100, ticks));
+    }
+
     public static synchronized String summary() {
         return snapshot().summary();
     }
@@ -5,7 +5,6 @@ import net.minecraft.registry.Registries;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.Heightmap;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -25,8 +24,8 @@ import java.util.Set;
  * footprints, and rough material themes so later systems can score "fit" fast.
  */
 public final class BuildSiteAnalyzer {
-    private static final int SCAN_MARGIN = 24;
-    private static final int STYLE_SCAN_HEIGHT = 20;
+    static final int SCAN_MARGIN = 24;
+    static final int STYLE_SCAN_HEIGHT = 20;
     private static final int MIN_STRUCTURE_COLUMNS = 8;
     private static final Set<String> TERRAIN_EXACT = Set.of(
         "grass_block",
@@ -57,6 +56,27 @@ public final class BuildSiteAnalyzer {
         if (world == null || from == null || to == null) {
             return BuildSiteScan.EMPTY;
         }
+        WorldAreaSnapshot snapshot = WorldAreaSnapshot.capture(
+            world,
+            Math.min(from.getX(), to.getX()) - SCAN_MARGIN,
+            Math.max(from.getX(), to.getX()) + SCAN_MARGIN,
+            baseY + 1,
+            baseY + STYLE_SCAN_HEIGHT,
+            Math.min(from.getZ(), to.getZ()) - SCAN_MARGIN,
+            Math.max(from.getZ(), to.getZ()) + SCAN_MARGIN
+        );
+        return scan(snapshot, from, to, baseY, ignoredColumns);
+    }
+
+    /**
+     * Scan against a captured snapshot, safe to call off the server thread.
+     * The snapshot must cover the selection plus {@link #SCAN_MARGIN} and
+     * {@link #STYLE_SCAN_HEIGHT} blocks above {@code baseY}.
+     */
+    public static BuildSiteScan scan(WorldAreaSnapshot snapshot, BlockPos from, BlockPos to, int baseY, Set<Long> ignoredColumns) {
+        if (snapshot == null || from == null || to == null) {
+            return BuildSiteScan.EMPTY;
+        }
 
         // Scan slightly outside the requested box so the planner can learn from
         // nearby context instead of only what is inside the selected plot.
@@ -77,8 +97,8 @@ public final class BuildSiteAnalyzer {
         Map<Long, ColumnSample> candidateColumns = new LinkedHashMap<>();
         for (int x = minX; x <= maxX; x++) {
             for (int z = minZ; z <= maxZ; z++) {
-                int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z) - 1;
-                if (topY < world.getBottomY()) {
+                int topY = snapshot.surfaceTopY(x, z) - 1;
+                if (topY < snapshot.getBottomY()) {
                     continue;
                 }
                 terrainMin = Math.min(terrainMin, topY);
@@ -93,7 +113,7 @@ public final class BuildSiteAnalyzer {
                     // the style profile toward circulation blocks.
                     continue;
                 }
-                ColumnSample sample = sampleColumn(world, x, z, baseY);
+                ColumnSample sample = sampleColumn(snapshot, x, z, baseY);
                 if (sample.isCandidate()) {
                     candidateColumns.put(key, sample);
                 }
@@ -140,9 +160,9 @@ public final class BuildSiteAnalyzer {
         );
     }
 
-    private static ColumnSample sampleColumn(ServerWorld world, int x, int z, int baseY) {
-        int worldTopY = world.getBottomY() + world.getHeight() - 1;
-        int minY = Math.max(world.getBottomY(), baseY + 1);
+    private static ColumnSample sampleColumn(WorldAreaSnapshot snapshot, int x, int z, int baseY) {
+        int worldTopY = snapshot.getBottomY() + snapshot.getHeight() - 1;
+        int minY = Math.max(snapshot.getBottomY(), baseY + 1);
         int maxY = Math.min(worldTopY, baseY + STYLE_SCAN_HEIGHT);
         if (maxY < minY) {
             return ColumnSample.EMPTY;
@@ -159,7 +179,7 @@ public final class BuildSiteAnalyzer {
         Map<String, Integer> familyCounts = new HashMap<>();
 
         for (int y = minY; y <= maxY; y++) {
-            BlockState state = world.getBlockState(new BlockPos(x, y, z));
+            BlockState state = snapshot.blockStateAt(x, y, z);
             if (state.isAir() || !state.getFluidState().isEmpty()) {
                 continue;
             }
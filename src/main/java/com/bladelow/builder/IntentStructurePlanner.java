@@ -12,8 +12,13 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.Heightmap;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
@@ -40,31 +45,29 @@ public final class IntentStructurePlanner {
         "andesite"
     );
 
+    // Generated geometry kept across previews, commits and autoplay plans.
+    private static final long GEOMETRY_CACHE_MAX_PLACEMENTS = 250_000L;
+    private static final GeometryCache GEOMETRY_CACHE = new GeometryCache(GEOMETRY_CACHE_MAX_PLACEMENTS);
+
     private IntentStructurePlanner() {
     }
 
-    public static GeneratedBuild planSelection(
+    /**
+     * Everything about a selection that does not depend on the variant:
+     * intent, site scan, road side, materials and a surface snapshot of the
+     * plot. Reads the world, so it must run on the server thread; the result
+     * feeds any number of {@link #generateVariant} calls.
+     */
+    public static PreparedSelection prepareSelection(
         ServerWorld world,
         UUID playerId,
         BlockPos from,
         BlockPos to,
         String plotLabel,
         List<String> slotOverrides
-    ) {
-        return planSelection(world, playerId, from, to, plotLabel, slotOverrides, 0);
-    }
-
-    public static GeneratedBuild planSelection(
-        ServerWorld world,
-        UUID playerId,
-        BlockPos from,
-        BlockPos to,
-        String plotLabel,
-        List<String> slotOverrides,
-        int variant
     ) {
         if (world == null || from == null || to == null) {
-            return GeneratedBuild.error("invalid auto-build bounds");
+            return PreparedSelection.error("invalid auto-build bounds");
         }
 
         int minX = Math.min(from.getX(), to.getX());
@@ -75,7 +78,7 @@ public final class IntentStructurePlanner {
         int plotWidth = maxX - minX + 1;
         int plotDepth = maxZ - minZ + 1;
         if (plotWidth < 5 || plotDepth < 5) {
-            return GeneratedBuild.error("selected plot is too small for auto build");
+            return PreparedSelection.error("selected plot is too small for auto build");
         }
 
         List<TownZoneStore.Zone> zones = playerId == null ? List.of() : TownZoneStore.snapshot(playerId, world.getRegistryKey());
@@ -86,7 +89,7 @@ public final class IntentStructurePlanner {
             zones
         );
         if (!suggestion.ok()) {
-            return GeneratedBuild.error(suggestion.message());
+            return PreparedSelection.error(suggestion.message());
         }
 
         BuildSiteScan scan = BuildSiteAnalyzer.scan(
@@ -97,34 +100,65 @@ public final class IntentStructurePlanner {
             Set.of()
         );
         if (overlapsExistingStructure(scan, minX, maxX, minZ, maxZ)) {
-            return GeneratedBuild.error("selected plot overlaps an existing structure");
+            return PreparedSelection.error("selected plot overlaps an existing structure");
         }
 
         BuildIntent intent = withPlotHint(suggestion.intent(), plotLabel);
-        BuildIntentContext context = suggestion.context();
         String archetype = effectiveArchetype(intent, plotLabel);
-        String roadSide = detectRoadSide(world, minX, maxX, minY, minZ, maxZ);
+        // Every footprint a variant can choose lies inside the selection, so
+        // its surface heights are all the world state generation needs.
+        WorldAreaSnapshot surface = WorldAreaSnapshot.capture(world, minX, maxX, minY, minY, minZ, maxZ);
+        return new PreparedSelection(
+            true,
+            "",
+            minX,
+            maxX,
+            minY,
+            minZ,
+            maxZ,
+            intent,
+            suggestion.context(),
+            archetype,
+            detectRoadSide(world, minX, maxX, minY, minZ, maxZ),
+            chooseMaterials(intent, scan, archetype, slotOverrides),
+            surface
+        );
+    }
+
+    /**
+     * Generate one variant of a prepared selection. Reads only the prepared
+     * snapshot, so variants can be generated off the server thread and in
+     * parallel.
+     */
+    public static GeneratedBuild generateVariant(PreparedSelection prepared, int variant) {
+        if (prepared == null || !prepared.ok()) {
+            return GeneratedBuild.error(prepared == null ? "invalid auto-build bounds" : prepared.message());
+        }
+        int plotWidth = prepared.maxX - prepared.minX + 1;
+        int plotDepth = prepared.maxZ - prepared.minZ + 1;
+        BuildIntent intent = prepared.intent;
+        String roadSide = prepared.roadSide;
         int normalizedVariant = Math.max(0, variant);
-        MaterialSet materials = chooseMaterials(intent, scan, archetype, slotOverrides);
+        MaterialSet materials = prepared.materials;
 
         GenerationProfile generation = chooseGenerationProfile(
             plotWidth,
             plotDepth,
-            context,
+            prepared.context,
             intent,
-            archetype,
+            prepared.archetype,
             normalizedVariant
         );
         int bodyWidth = generation.bodyWidth();
         int bodyDepth = generation.bodyDepth();
         int floors = generation.floors();
 
-        int originX = placeOriginX(minX, maxX, bodyWidth, roadSide);
-        int originZ = placeOriginZ(minZ, maxZ, bodyDepth, roadSide);
-        int floorY = highestTerrainY(world, originX, originZ, bodyWidth, bodyDepth) + 1;
+        int originX = placeOriginX(prepared.minX, prepared.maxX, bodyWidth, roadSide);
+        int originZ = placeOriginZ(prepared.minZ, prepared.maxZ, bodyDepth, roadSide);
+        int floorY = highestTerrainY(prepared.surface, originX, originZ, bodyWidth, bodyDepth) + 1;
 
-        TownBlueprint blueprint = generateBlueprint(
-            archetype,
+        GeneratedGeometry geometry = generatedGeometry(
+            prepared.archetype,
             roadSide,
             bodyWidth,
             bodyDepth,
@@ -132,10 +166,17 @@ public final class IntentStructurePlanner {
             intent,
             materials,
             generation.designSeed(),
-            normalizedVariant,
             generation.roofLayers()
         );
-        BlueprintLibrary.BuildPlan buildPlan = resolveGeneratedPlan(world, blueprint, originX, floorY, originZ, materials.foundation());
+        if (!geometry.ok()) {
+            return GeneratedBuild.error(geometry.error());
+        }
+        // Cached geometry is shared by every variant with the same design;
+        // only the name says which variant this is.
+        TownBlueprint blueprint = geometry.blueprint().named(
+            geometry.blueprint().name() + (normalizedVariant <= 0 ? "" : "_v" + normalizedVariant)
+        );
+        BlueprintLibrary.BuildPlan buildPlan = resolveGeneratedPlan(prepared.surface, geometry, blueprint.name(), originX, floorY, originZ, materials.foundation());
         if (!buildPlan.ok()) {
             return GeneratedBuild.error(buildPlan.message());
         }
@@ -148,45 +189,109 @@ public final class IntentStructurePlanner {
             + " generator=" + (generation.learned() ? "ml" : "fallback")
             + (generation.learned() ? " preference=" + String.format(Locale.ROOT, "%.3f", generation.preference()) : "")
             + " intent=" + intent.summary();
-        return GeneratedBuild.ok(message, intent, context, blueprint, generation, originX, floorY, originZ, buildPlan.blockStates(), buildPlan.targets());
+        return GeneratedBuild.ok(message, intent, prepared.context, blueprint, generation, originX, floorY, originZ, buildPlan.blockStates(), buildPlan.targets());
+    }
+
+    /**
+     * Blueprint and resolved block states for one set of generator inputs,
+     * from {@link #GEOMETRY_CACHE} when the same design was generated before.
+     * The result is independent of where it is placed and of the variant
+     * number, so its blueprint carries the unnumbered name.
+     */
+    private static GeneratedGeometry generatedGeometry(
+        String archetype,
+        String roadSide,
+        int width,
+        int depth,
+        int floors,
+        BuildIntent intent,
+        MaterialSet materials,
+        int designSeed,
+        int roofLayerCount
+    ) {
+        GeometryKey key = new GeometryKey(
+            archetype,
+            roadSide,
+            width,
+            depth,
+            floors,
+            intent.primaryArchetype(),
+            intent.sizeClass(),
+            intent.detailDensity(),
+            intent.primaryTheme(),
+            intent.secondaryTheme(),
+            materials,
+            designSeed,
+            roofLayerCount
+        );
+        GeneratedGeometry cached = GEOMETRY_CACHE.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        TownBlueprint blueprint = generateBlueprint(archetype, roadSide, width, depth, floors, intent, materials, designSeed, roofLayerCount);
+        List<TownBlueprint.Placement> placements = blueprint.placements();
+        Map<String, BlockState> parsed = new HashMap<>();
+        BlockState[] states = new BlockState[placements.size()];
+        int[] offsets = new int[placements.size() * 3];
+        GeneratedGeometry geometry = null;
+        for (int i = 0; i < placements.size(); i++) {
+            TownBlueprint.Placement placement = placements.get(i);
+            BlockState state = parsed.computeIfAbsent(placement.blockId(), BlueprintStateCodec::tryParse);
+            if (state == null) {
+                geometry = GeneratedGeometry.error("invalid generated block: " + placement.blockId());
+                break;
+            }
+            states[i] = state;
+            offsets[i * 3] = placement.x();
+            offsets[i * 3 + 1] = placement.y();
+            offsets[i * 3 + 2] = placement.z();
+        }
+        if (geometry == null) {
+            geometry = new GeneratedGeometry(blueprint, offsets, states, "");
+        }
+        GEOMETRY_CACHE.put(key, geometry);
+        return geometry;
     }
 
     private static BlueprintLibrary.BuildPlan resolveGeneratedPlan(
-        ServerWorld world,
-        TownBlueprint blueprint,
+        WorldAreaSnapshot surface,
+        GeneratedGeometry geometry,
+        String name,
         int originX,
         int floorY,
         int originZ,
         String foundationBlock
     ) {
-        List<BlockState> states = new ArrayList<>();
-        List<BlockPos> targets = new ArrayList<>();
+        TownBlueprint blueprint = geometry.blueprint();
+        List<BlockState> states = new ArrayList<>(geometry.states().length);
+        List<BlockPos> targets = new ArrayList<>(geometry.states().length);
 
+        BlockState foundation = null;
         for (int x = 0; x < blueprint.plotWidth(); x++) {
             for (int z = 0; z < blueprint.plotDepth(); z++) {
                 int worldX = originX + x;
                 int worldZ = originZ + z;
-                int topY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, worldX, worldZ) - 1;
+                int topY = surface.surfaceTopY(worldX, worldZ) - 1;
                 for (int y = topY + 1; y < floorY; y++) {
-                    BlockState state = BlueprintStateCodec.tryParse(foundationBlock);
-                    if (state == null) {
-                        return BlueprintLibrary.BuildPlan.error("invalid generated foundation block: " + foundationBlock);
+                    if (foundation == null) {
+                        foundation = BlueprintStateCodec.tryParse(foundationBlock);
+                        if (foundation == null) {
+                            return BlueprintLibrary.BuildPlan.error("invalid generated foundation block: " + foundationBlock);
+                        }
                     }
-                    states.add(state);
+                    states.add(foundation);
                     targets.add(new BlockPos(worldX, y, worldZ));
                 }
             }
         }
 
-        for (TownBlueprint.Placement placement : blueprint.placements()) {
-            BlockState state = BlueprintStateCodec.tryParse(placement.blockId());
-            if (state == null) {
-                return BlueprintLibrary.BuildPlan.error("invalid generated block: " + placement.blockId());
-            }
-            states.add(state);
-            targets.add(new BlockPos(originX + placement.x(), floorY + placement.y(), originZ + placement.z()));
+        Collections.addAll(states, geometry.states());
+        int[] offsets = geometry.offsets();
+        for (int i = 0; i < offsets.length; i += 3) {
+            targets.add(new BlockPos(originX + offsets[i], floorY + offsets[i + 1], originZ + offsets[i + 2]));
         }
-        return BlueprintLibrary.BuildPlan.ok(blueprint.name(), states, targets);
+        return BlueprintLibrary.BuildPlan.ok(name, states, targets);
     }
 
     private static TownBlueprint generateBlueprint(
@@ -198,7 +303,6 @@ public final class IntentStructurePlanner {
         BuildIntent intent,
         MaterialSet materials,
         int designSeed,
-        int displayVariant,
         int roofLayerCount
     ) {
         List<TownBlueprint.Placement> placements = new ArrayList<>();
@@ -245,7 +349,7 @@ public final class IntentStructurePlanner {
         addRoof(placements, width, depth, bodyTop + 1, roofLayerCount, materials, designSeed);
         addEntranceDetail(placements, roadSide, width, depth, doorOffset, materials, archetype);
 
-        String name = "generated_" + archetype + "_" + intent.sizeClass() + (displayVariant <= 0 ? "" : "_v" + displayVariant);
+        String name = "generated_" + archetype + "_" + intent.sizeClass();
         return new TownBlueprint(
             name,
             "generated",
@@ -535,11 +639,11 @@ public final class IntentStructurePlanner {
         };
     }
 
-    private static int highestTerrainY(ServerWorld world, int originX, int originZ, int width, int depth) {
-        int highest = world.getBottomY();
+    private static int highestTerrainY(WorldAreaSnapshot surface, int originX, int originZ, int width, int depth) {
+        int highest = surface.getBottomY();
         for (int x = originX; x < originX + width; x++) {
             for (int z = originZ; z < originZ + depth; z++) {
-                highest = Math.max(highest, world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z) - 1);
+                highest = Math.max(highest, surface.surfaceTopY(x, z) - 1);
             }
         }
         return highest;
@@ -872,6 +976,83 @@ public final class IntentStructurePlanner {
         return value.trim().toLowerCase(Locale.ROOT);
     }
 
+    /**
+     * Everything {@link #generateBlueprint} reads. Only the intent fields it
+     * uses are part of the key, so houses that differ just in intent
+     * confidence share one geometry.
+     */
+    private record GeometryKey(
+        String archetype,
+        String roadSide,
+        int width,
+        int depth,
+        int floors,
+        String intentArchetype,
+        String sizeClass,
+        String detailDensity,
+        String primaryTheme,
+        String secondaryTheme,
+        MaterialSet materials,
+        int designSeed,
+        int roofLayers
+    ) {
+    }
+
+    /**
+     * Generated blueprint with its placements flattened to offsets and
+     * resolved states, or the error that stopped resolution. Shared between
+     * plans, so never modified.
+     */
+    private record GeneratedGeometry(TownBlueprint blueprint, int[] offsets, BlockState[] states, String error) {
+        private static GeneratedGeometry error(String message) {
+            return new GeneratedGeometry(null, new int[0], new BlockState[0], message);
+        }
+
+        private boolean ok() {
+            return blueprint != null;
+        }
+
+        private int weight() {
+            return Math.max(1, states.length);
+        }
+    }
+
+    /**
+     * Least-recently-used geometry cache bounded by the total number of
+     * cached placements rather than entry count, since one civic hall
+     * outweighs a dozen stalls.
+     */
+    private static final class GeometryCache {
+        private final long maxPlacements;
+        private final LinkedHashMap<GeometryKey, GeneratedGeometry> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long placements;
+
+        private GeometryCache(long maxPlacements) {
+            this.maxPlacements = maxPlacements;
+        }
+
+        private synchronized GeneratedGeometry get(GeometryKey key) {
+            return entries.get(key);
+        }
+
+        private synchronized void put(GeometryKey key, GeneratedGeometry geometry) {
+            GeneratedGeometry previous = entries.put(key, geometry);
+            if (previous != null) {
+                placements -= previous.weight();
+            }
+            placements += geometry.weight();
+            Iterator<Map.Entry<GeometryKey, GeneratedGeometry>> eldest = entries.entrySet().iterator();
+            while (placements > maxPlacements && eldest.hasNext()) {
+                Map.Entry<GeometryKey, GeneratedGeometry> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                placements -= entry.getValue().weight();
+                eldest.remove();
+            }
+        }
+    }
+
     private record MaterialSet(
         String foundation,
         String floor,
@@ -885,6 +1066,77 @@ public final class IntentStructurePlanner {
     ) {
     }
 
+    /**
+     * Variant-independent part of an auto-build plan; see
+     * {@link #prepareSelection}. Immutable.
+     */
+    public static final class PreparedSelection {
+        private final boolean ok;
+        private final String message;
+        private final int minX;
+        private final int maxX;
+        private final int minY;
+        private final int minZ;
+        private final int maxZ;
+        private final BuildIntent intent;
+        private final BuildIntentContext context;
+        private final String archetype;
+        private final String roadSide;
+        private final MaterialSet materials;
+        private final WorldAreaSnapshot surface;
+
+        private PreparedSelection(
+            boolean ok,
+            String message,
+            int minX,
+            int maxX,
+            int minY,
+            int minZ,
+            int maxZ,
+            BuildIntent intent,
+            BuildIntentContext context,
+            String archetype,
+            String roadSide,
+            MaterialSet materials,
+            WorldAreaSnapshot surface
+        ) {
+            this.ok = ok;
+            this.message = message;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+            this.intent = intent;
+            this.context = context;
+            this.archetype = archetype;
+            this.roadSide = roadSide;
+            this.materials = materials;
+            this.surface = surface;
+        }
+
+        public static PreparedSelection error(String message) {
+            return new PreparedSelection(false, message, 0, 0, 0, 0, 0, BuildIntent.NONE, null, "", "", null, null);
+        }
+
+        public boolean ok() {
+            return ok;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        public boolean matches(BlockPos from, BlockPos to) {
+            return ok
+                && minX == Math.min(from.getX(), to.getX())
+                && maxX == Math.max(from.getX(), to.getX())
+                && minY == Math.min(from.getY(), to.getY())
+                && minZ == Math.min(from.getZ(), to.getZ())
+                && maxZ == Math.max(from.getZ(), to.getZ());
+        }
+    }
+
     public record GenerationProfile(
         int designSeed,
         int bodyWidth,
@@ -0,0 +1,174 @@
+package com.bladelow.builder;
+
+/**
+ * Dense column bitmap over one town area's bounding box.
+ *
+ * Each X row is a run of 64-bit words along Z, so a rectangle test touches
+ * one or two words per row instead of hashing every column. Columns outside
+ * the box are never occupied; writes there are dropped. For cells that stop
+ * changing once planning starts, {@link #prefixSums()} freezes the grid into
+ * a {@link PrefixSums} that answers rectangle queries in O(1).
+ *
+ * Column keys use the planner's {@code (x << 32) ^ (z & 0xffffffff)} encoding.
+ */
+final class OccupancyGrid {
+    private final int minX;
+    private final int minZ;
+    private final int width;
+    private final int depth;
+    private final int wordsPerRow;
+    private final long[] words;
+
+    OccupancyGrid(int minX, int maxX, int minZ, int maxZ) {
+        this.minX = Math.min(minX, maxX);
+        this.minZ = Math.min(minZ, maxZ);
+        this.width = Math.abs(maxX - minX) + 1;
+        this.depth = Math.abs(maxZ - minZ) + 1;
+        this.wordsPerRow = (depth + 63) >>> 6;
+        this.words = new long[width * wordsPerRow];
+    }
+
+    void set(int x, int z) {
+        int lx = x - minX;
+        int lz = z - minZ;
+        if (lx < 0 || lx >= width || lz < 0 || lz >= depth) {
+            return;
+        }
+        words[lx * wordsPerRow + (lz >>> 6)] |= 1L << lz;
+    }
+
+    void setColumns(Iterable<Long> columnKeys) {
+        if (columnKeys == null) {
+            return;
+        }
+        for (long key : columnKeys) {
+            set((int) (key >> 32), (int) key);
+        }
+    }
+
+    boolean get(int x, int z) {
+        int lx = x - minX;
+        int lz = z - minZ;
+        if (lx < 0 || lx >= width || lz < 0 || lz >= depth) {
+            return false;
+        }
+        return (words[lx * wordsPerRow + (lz >>> 6)] & (1L << lz)) != 0L;
+    }
+
+    /**
+     * Mark every column of the inclusive rectangle, clipped to the box.
+     */
+    void setRect(int x0, int z0, int x1, int z1) {
+        int fromX = Math.max(0, x0 - minX);
+        int toX = Math.min(width - 1, x1 - minX);
+        int fromZ = Math.max(0, z0 - minZ);
+        int toZ = Math.min(depth - 1, z1 - minZ);
+        if (fromX > toX || fromZ > toZ) {
+            return;
+        }
+        int firstWord = fromZ >>> 6;
+        int lastWord = toZ >>> 6;
+        for (int lx = fromX; lx <= toX; lx++) {
+            int row = lx * wordsPerRow;
+            for (int w = firstWord; w <= lastWord; w++) {
+                words[row + w] |= wordMask(w, firstWord, lastWord, fromZ, toZ);
+            }
+        }
+    }
+
+    /**
+     * True when any column of the inclusive rectangle is occupied.
+     */
+    boolean anyInRect(int x0, int z0, int x1, int z1) {
+        int fromX = Math.max(0, x0 - minX);
+        int toX = Math.min(width - 1, x1 - minX);
+        int fromZ = Math.max(0, z0 - minZ);
+        int toZ = Math.min(depth - 1, z1 - minZ);
+        if (fromX > toX || fromZ > toZ) {
+            return false;
+        }
+        int firstWord = fromZ >>> 6;
+        int lastWord = toZ >>> 6;
+        for (int lx = fromX; lx <= toX; lx++) {
+            int row = lx * wordsPerRow;
+            for (int w = firstWord; w <= lastWord; w++) {
+                if ((words[row + w] & wordMask(w, firstWord, lastWord, fromZ, toZ)) != 0L) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Freeze the current contents into 2D prefix counts. Later writes to this
+     * grid are not reflected.
+     */
+    PrefixSums prefixSums() {
+        int stride = depth + 1;
+        int[] sums = new int[(width + 1) * stride];
+        for (int lx = 0; lx < width; lx++) {
+            int rowSum = 0;
+            int row = lx * wordsPerRow;
+            for (int lz = 0; lz < depth; lz++) {
+                if ((words[row + (lz >>> 6)] & (1L << lz)) != 0L) {
+                    rowSum++;
+                }
+                sums[(lx + 1) * stride + lz + 1] = sums[lx * stride + lz + 1] + rowSum;
+            }
+        }
+        return new PrefixSums(minX, minZ, width, depth, sums);
+    }
+
+    private static long wordMask(int word, int firstWord, int lastWord, int fromZ, int toZ) {
+        long mask = -1L;
+        if (word == firstWord) {
+            mask &= -1L << (fromZ & 63);
+        }
+        if (word == lastWord) {
+            mask &= -1L >>> (63 - (toZ & 63));
+        }
+        return mask;
+    }
+
+    /**
+     * Immutable summed-area table over an {@link OccupancyGrid}.
+     */
+    static final class PrefixSums {
+        private final int minX;
+        private final int minZ;
+        private final int width;
+        private final int depth;
+        private final int[] sums;
+
+        private PrefixSums(int minX, int minZ, int width, int depth, int[] sums) {
+            this.minX = minX;
+            this.minZ = minZ;
+            this.width = width;
+            this.depth = depth;
+            this.sums = sums;
+        }
+
+        /**
+         * Occupied columns in the inclusive rectangle, clipped to the box.
+         */
+        int count(int x0, int z0, int x1, int z1) {
+            int fromX = Math.max(0, x0 - minX);
+            int toX = Math.min(width - 1, x1 - minX);
+            int fromZ = Math.max(0, z0 - minZ);
+            int toZ = Math.min(depth - 1, z1 - minZ);
+            if (fromX > toX || fromZ > toZ) {
+                return 0;
+            }
+            int stride = depth + 1;
+            return sums[(toX + 1) * stride + toZ + 1]
+                - sums[fromX * stride + toZ + 1]
+                - sums[(toX + 1) * stride + fromZ]
+                + sums[fromX * stride + fromZ];
+        }
+
+        boolean anyInRect(int x0, int z0, int x1, int z1) {
+            return count(x0, z0, x1, z1) > 0;
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class PlacementJob {
     private final List<Entry> entries;
     private final String tag;
     private final BuildRuntimeSettings.Snapshot runtimeSettings;
+    private final int baseY;
 
     private int cursor;
     private int placed;
@@ -70,9 +71,12 @@ public class PlacementJob {
         this.playerId = playerId;
         this.worldKey = worldKey;
         this.entries = new ArrayList<>(targets.size());
+        int lowestY = Integer.MAX_VALUE;
         for (int i = 0; i < targets.size(); i++) {
             this.entries.add(new Entry(blockStates.get(i), targets.get(i)));
+            lowestY = Math.min(lowestY, targets.get(i).getY());
         }
+        this.baseY = targets.isEmpty() ? 0 : lowestY;
         this.tag = tag;
         this.runtimeSettings = runtimeSettings;
     }
@@ -93,6 +97,14 @@ public class PlacementJob {
         return runtimeSettings;
     }
 
+    /**
+     * Lowest target Y in the job, used as the height reference for placement
+     * features.
+     */
+    public int baseY() {
+        return baseY;
+    }
+
     public int totalTargets() {
         return entries.size();
     }
@@ -189,6 +201,10 @@ public class PlacementJob {
         return entries.get(idx).target;
     }
 
+    public BlockState stateAt(int idx) {
+        return entries.get(idx).blockState;
+    }
+
     public void advance() {
         cursor++;
         resetTaskNode();
@@ -437,10 +453,6 @@ public class PlacementJob {
         ticks++;
     }
 
-    public boolean shouldReportProgress() {
-        return ticks % 40 == 0;
-    }
-
     public boolean isComplete() {
         return cursor >= entries.size();
     }
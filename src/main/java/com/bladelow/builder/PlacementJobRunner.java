@@ -2,6 +2,11 @@ package com.bladelow.builder;
 
 import com.bladelow.ml.BladelowLearning;
 import com.bladelow.ml.PlacementFeatureExtractor;
+import com.bladelow.ml.PlacementFeatures;
+import com.bladelow.ml.PlacementModel;
+import com.bladelow.network.HudTelemetrySync;
+import com.bladelow.network.PreviewGeometryStreamer;
+import com.bladelow.network.ProgressReporter;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -74,7 +79,9 @@ public final class PlacementJobRunner {
     }
 
     private static boolean submit(PlacementJob job) {
-        return JOBS.put(job.playerId(), job) != null;
+        PlacementJob replaced = JOBS.put(job.playerId(), job);
+        ProgressReporter.forget(job.playerId(), replaced);
+        return replaced != null;
     }
 
     public static void saveCheckpoint(MinecraftServer server) {
@@ -139,9 +146,11 @@ public final class PlacementJobRunner {
         boolean pending = pendingJob != null;
         boolean changed = active || pending;
         if (activeJob != null) {
+            ProgressReporter.forget(playerId, activeJob);
             rememberSnapshot(playerId, "canceled-active", activeJob, detailSummary("canceled", activeJob));
         } else if (pendingJob != null) {
             rememberSnapshot(playerId, "canceled-pending", pendingJob, detailSummary("canceled", pendingJob));
+            clearPreview(server, playerId);
         }
         if (changed) {
             saveCheckpoint(server);
@@ -154,6 +163,7 @@ public final class PlacementJobRunner {
         if (active == null) {
             return false;
         }
+        ProgressReporter.forget(playerId, active);
         AUTO_RESUME_READY_AT.remove(playerId);
         TARGET_PRESSURE.remove(playerId);
         STUCK.remove(playerId);
@@ -181,6 +191,7 @@ public final class PlacementJobRunner {
         BuildNavigation.invalidateCachedPath(playerId);
         JOBS.put(playerId, pending);
         saveCheckpoint(server);
+        clearPreview(server, playerId);
         return true;
     }
 
@@ -197,6 +208,7 @@ public final class PlacementJobRunner {
         BuildNavigation.invalidateCachedPath(playerId);
         JOBS.put(playerId, pending);
         saveCheckpoint(server);
+        clearPreview(server, playerId);
         return true;
     }
 
@@ -301,6 +313,7 @@ public final class PlacementJobRunner {
             ServerPlayerEntity player = server.getPlayerManager().getPlayer(job.playerId());
             if (player == null) {
                 PENDING.put(job.playerId(), job);
+                ProgressReporter.forget(job.playerId(), job);
                 it.remove();
                 AUTO_RESUME_READY_AT.remove(job.playerId());
                 TARGET_PRESSURE.remove(job.playerId());
@@ -332,6 +345,7 @@ public final class PlacementJobRunner {
             if (world == null) {
                 player.sendMessage(blueText("[Bladelow] Target world unavailable. Build canceled."), false);
                 rememberSnapshot(job.playerId(), "aborted-world", job, detailSummary("aborted", job));
+                ProgressReporter.forget(job.playerId(), job);
                 it.remove();
                 AUTO_RESUME_READY_AT.remove(job.playerId());
                 TARGET_PRESSURE.remove(job.playerId());
@@ -354,9 +368,8 @@ public final class PlacementJobRunner {
                 }
                 trackStuckAndRecover(world, player, job);
                 runProgressWatchdog(world, player, job, server.getTicks());
-                if (job.shouldReportProgress()) {
-                    player.sendMessage(blueText(job.compactProgressSummary()), true);
-                }
+                HudTelemetrySync.progress(player, job);
+                ProgressReporter.record(player, job);
                 continue;
             }
             runTaskNode(world, player, job);
@@ -366,10 +379,8 @@ public final class PlacementJobRunner {
             }
             trackStuckAndRecover(world, player, job);
             runProgressWatchdog(world, player, job, server.getTicks());
-
-            if (job.shouldReportProgress()) {
-                player.sendMessage(blueText(job.compactProgressSummary()), true);
-            }
+            HudTelemetrySync.progress(player, job);
+            ProgressReporter.record(player, job);
 
             if (job.isComplete()) {
                 finishJob(player, job);
@@ -630,6 +641,23 @@ public final class PlacementJobRunner {
             job.noteEvent("defer(pressure=" + pressure + ") target=" + shortTarget(target));
             return;
         }
+        if (job.runtimeSettings().deferUnreachableTargets()
+            && job.currentDeferrals() < job.runtimeSettings().maxTargetDeferrals()
+            && placementModel(world, job).predictsFailure(PlacementFeatureExtractor.probe(
+                world,
+                player,
+                target,
+                job.currentBlockState(),
+                job.baseY(),
+                job.currentAttempts()
+            ))
+            && job.deferCurrentToTail()) {
+            // Context model expects this placement to fail right now; push it
+            // back before spending a path solve on it.
+            job.recordMlRejected();
+            job.noteEvent("defer(ml_predicted_fail) target=" + shortTarget(target));
+            return;
+        }
 
         double reach = job.runtimeSettings().reachDistance();
         double currentDistance = distanceTo(player, target);
@@ -758,13 +786,13 @@ public final class PlacementJobRunner {
     private static void nodePlace(net.minecraft.server.world.ServerWorld world, ServerPlayerEntity player, PlacementJob job) {
         BlockPos target = job.currentTarget();
         var desiredState = job.currentBlockState();
-        var features = PlacementFeatureExtractor.extract(world, player, target);
-        var model = BladelowLearning.model();
+        var features = placementFeatures(world, player, job, target);
+        var model = placementModel(world, job);
         double score = model.score(features);
         job.addScore(score);
 
         if (!model.shouldPlace(features)) {
-            model.train(features, false);
+            model.penalize(features);
             job.noteRetryReason("ml_rejected");
             job.startRecover(PlacementJob.RecoverReason.ML_REJECTED, "target=" + shortTarget(target));
             return;
@@ -786,6 +814,24 @@ public final class PlacementJobRunner {
         job.startRecover(PlacementJob.RecoverReason.PLACE_FAILED, "target=" + shortTarget(target));
     }
 
+    private static PlacementModel.WeightSet placementModel(net.minecraft.server.world.ServerWorld world, PlacementJob job) {
+        return BladelowLearning.model().weightsFor(world.getRegistryKey().getValue().toString(), job.playerId());
+    }
+
+    private static PlacementFeatures placementFeatures(net.minecraft.server.world.ServerWorld world,
+                                                       ServerPlayerEntity player,
+                                                       PlacementJob job,
+                                                       BlockPos target) {
+        return PlacementFeatureExtractor.extract(
+            world,
+            player,
+            target,
+            job.currentBlockState(),
+            job.baseY(),
+            job.currentAttempts()
+        );
+    }
+
     /**
      * RECOVER node: translate categorized failures into retries, deferrals,
      * skips, or fallback actions without bloating the main nodes.
@@ -1446,6 +1492,8 @@ public final class PlacementJobRunner {
     }
 
     private static void finishJob(ServerPlayerEntity player, PlacementJob job) {
+        HudTelemetrySync.progress(player, job);
+        ProgressReporter.finish(player, job);
         player.sendMessage(blueText(job.compactCompletionSummary()), false);
         rememberSnapshot(job.playerId(), "completed", job, detailSummary("completed", job));
         BladelowLearning.buildEvaluationLogger().recordCompletion(player, job);
@@ -1585,15 +1633,39 @@ public final class PlacementJobRunner {
 
     /**
      * Preview mode paints the pending job without mutating the world so the
-     * player can confirm or cancel before execution begins.
+     * player can confirm or cancel before execution begins. Clients with the
+     * geometry channel get every remaining placement as a ghost; others, and
+     * previews over the streaming cap, see particles over the first targets.
      */
     private static void preview(PlacementJob job, MinecraftServer server, ServerPlayerEntity player) {
         var world = server.getWorld(job.worldKey());
         if (world == null) {
             return;
         }
+        int remaining = job.totalTargets() - job.cursor();
+        if (PreviewGeometryStreamer.supports(player)) {
+            List<BlockPos> targets = new ArrayList<>(Math.min(remaining, PreviewGeometryStreamer.maxStreamedBlocks()));
+            List<BlockState> states = new ArrayList<>(Math.min(remaining, PreviewGeometryStreamer.maxStreamedBlocks()));
+            if (remaining <= PreviewGeometryStreamer.maxStreamedBlocks()) {
+                for (int i = job.cursor(); i < job.totalTargets(); i++) {
+                    targets.add(job.targetAt(i));
+                    states.add(job.stateAt(i));
+                }
+            }
+            // An over-cap preview streams only a clear for the old ghost.
+            if (PreviewGeometryStreamer.start(player, targets, states)) {
+                player.sendMessage(blueText("[Bladelow] preview ghost sent: " + targets.size() + " blocks"), false);
+                return;
+            }
+            if (remaining > PreviewGeometryStreamer.maxStreamedBlocks()) {
+                player.sendMessage(blueText(
+                    "[Bladelow] preview has " + remaining + " blocks, over the ghost limit of "
+                        + PreviewGeometryStreamer.maxStreamedBlocks() + "; showing markers instead"
+                ), false);
+            }
+        }
         int shown = 0;
-        for (int i = 0; i < Math.min(job.totalTargets(), 250); i++) {
+        for (int i = job.cursor(); i < Math.min(job.totalTargets(), job.cursor() + 250); i++) {
             BlockPos p = job.targetAt(i);
             world.spawnParticles(
                 ParticleTypes.END_ROD,
@@ -1611,6 +1683,13 @@ public final class PlacementJobRunner {
         player.sendMessage(blueText("[Bladelow] preview markers shown: " + shown), false);
     }
 
+    private static void clearPreview(MinecraftServer server, UUID playerId) {
+        ServerPlayerEntity player = server.getPlayerManager().getPlayer(playerId);
+        if (player != null) {
+            PreviewGeometryStreamer.clear(player);
+        }
+    }
+
     private static boolean hasPlacementItemIfNeeded(ServerPlayerEntity player, net.minecraft.block.Block block) {
         if (player.getAbilities().creativeMode) {
             return true;
@@ -0,0 +1,122 @@
+package com.bladelow.builder;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-plan clearance raster for town plots.
+ *
+ * One pass over the area records, for every column, how many blocks above
+ * the base plane stay free (zero when the ground itself is not solid and
+ * dry). Each plot height the plan will ask about is then turned into prefix
+ * counts of blocked columns, so a plot test is one rectangle lookup instead
+ * of a walk over every block of the plot.
+ */
+final class PlotClearance {
+    private final int minX;
+    private final int minZ;
+    private final int width;
+    private final int depth;
+    private final short[] freeAbove;
+    private final Map<Integer, OccupancyGrid.PrefixSums> blockedByHeight;
+
+    private PlotClearance(int minX, int minZ, int width, int depth, short[] freeAbove, Map<Integer, OccupancyGrid.PrefixSums> blockedByHeight) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.width = width;
+        this.depth = depth;
+        this.freeAbove = freeAbove;
+        this.blockedByHeight = blockedByHeight;
+    }
+
+    /**
+     * Blocks above {@code baseY} that must be free for a blueprint to fit;
+     * matches the range the planner has always checked.
+     */
+    static int clearHeightFor(TownBlueprint blueprint) {
+        return Math.max(2, blueprint.height() + 1);
+    }
+
+    /**
+     * Build the raster over the inclusive box, with prefix counts for each
+     * of {@code clearHeights}. Reads only the snapshot, so it may run off the
+     * server thread.
+     */
+    static PlotClearance compute(WorldAreaSnapshot world, int minX, int maxX, int minZ, int maxZ, int baseY, Set<Integer> clearHeights) {
+        int width = maxX - minX + 1;
+        int depth = maxZ - minZ + 1;
+        int scanHeight = 0;
+        for (int height : clearHeights) {
+            scanHeight = Math.max(scanHeight, height);
+        }
+        scanHeight = Math.min(scanHeight, Short.MAX_VALUE - 1);
+
+        short[] freeAbove = new short[width * depth];
+        BlockPos.Mutable groundPos = new BlockPos.Mutable();
+        for (int lx = 0; lx < width; lx++) {
+            int x = minX + lx;
+            for (int lz = 0; lz < depth; lz++) {
+                int z = minZ + lz;
+                groundPos.set(x, baseY, z);
+                BlockState ground = world.blockStateAt(x, baseY, z);
+                if (ground.getCollisionShape(world, groundPos).isEmpty() || !ground.getFluidState().isEmpty()) {
+                    continue;
+                }
+                int free = 0;
+                while (free < scanHeight) {
+                    BlockState state = world.blockStateAt(x, baseY + 1 + free, z);
+                    if (!state.isAir() && !state.isReplaceable()) {
+                        break;
+                    }
+                    free++;
+                }
+                freeAbove[lx * depth + lz] = (short) free;
+            }
+        }
+
+        Map<Integer, OccupancyGrid.PrefixSums> blockedByHeight = new HashMap<>();
+        for (int height : clearHeights) {
+            OccupancyGrid blocked = new OccupancyGrid(minX, maxX, minZ, maxZ);
+            for (int lx = 0; lx < width; lx++) {
+                for (int lz = 0; lz < depth; lz++) {
+                    if (freeAbove[lx * depth + lz] < height) {
+                        blocked.set(minX + lx, minZ + lz);
+                    }
+                }
+            }
+            blockedByHeight.put(height, blocked.prefixSums());
+        }
+        return new PlotClearance(minX, minZ, width, depth, freeAbove, Map.copyOf(blockedByHeight));
+    }
+
+    /**
+     * True when every column of the plot has solid, dry ground and
+     * {@code clearHeight} free blocks above it. Columns outside the raster
+     * count as blocked.
+     */
+    boolean isClear(int originX, int originZ, int plotWidth, int plotDepth, int clearHeight) {
+        int lx0 = originX - minX;
+        int lz0 = originZ - minZ;
+        if (lx0 < 0 || lz0 < 0 || lx0 + plotWidth > width || lz0 + plotDepth > depth) {
+            return false;
+        }
+        OccupancyGrid.PrefixSums blocked = blockedByHeight.get(clearHeight);
+        if (blocked != null) {
+            return !blocked.anyInRect(originX, originZ, originX + plotWidth - 1, originZ + plotDepth - 1);
+        }
+        // A height nobody asked for up front: answered from the raster, which
+        // conservatively treats anything above the scanned range as blocked.
+        for (int lx = lx0; lx < lx0 + plotWidth; lx++) {
+            for (int lz = lz0; lz < lz0 + plotDepth; lz++) {
+                if (freeAbove[lx * depth + lz] < clearHeight) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
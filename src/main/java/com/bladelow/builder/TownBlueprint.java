@@ -3,12 +3,15 @@ package com.bladelow.builder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * Planner-friendly representation of a reusable town structure.
  *
  * This wraps raw placements with plot size, entrance, road-facing orientation,
- * and tags so the town planner can score it directly.
+ * and tags so the town planner can score it directly. The derived
+ * {@link BlueprintProfile} is computed once on construction and carried across
+ * rotations.
  */
 public record TownBlueprint(
     String name,
@@ -22,7 +25,8 @@ public record TownBlueprint(
     String roadSide,
     int rotationTurns,
     List<String> themeTags,
-    List<String> tags
+    List<String> tags,
+    BlueprintProfile profile
 ) {
     public TownBlueprint {
         category = normalize(category);
@@ -31,45 +35,38 @@ public record TownBlueprint(
         placements = placements == null ? List.of() : List.copyOf(placements);
         themeTags = themeTags == null ? List.of() : List.copyOf(themeTags);
         tags = tags == null ? List.of() : List.copyOf(tags);
+        if (profile == null) {
+            profile = BlueprintProfile.of(placements, plotWidth, plotDepth, themeTags, tags);
+        }
+    }
+
+    public TownBlueprint(
+        String name,
+        String category,
+        List<Placement> placements,
+        int plotWidth,
+        int plotDepth,
+        int priority,
+        int entranceX,
+        int entranceZ,
+        String roadSide,
+        int rotationTurns,
+        List<String> themeTags,
+        List<String> tags
+    ) {
+        this(name, category, placements, plotWidth, plotDepth, priority, entranceX, entranceZ, roadSide, rotationTurns, themeTags, tags, null);
     }
 
     public int width() {
-        if (placements.isEmpty()) {
-            return 0;
-        }
-        int minX = Integer.MAX_VALUE;
-        int maxX = Integer.MIN_VALUE;
-        for (Placement placement : placements) {
-            minX = Math.min(minX, placement.x());
-            maxX = Math.max(maxX, placement.x());
-        }
-        return maxX - minX + 1;
+        return profile.width();
     }
 
     public int height() {
-        if (placements.isEmpty()) {
-            return 0;
-        }
-        int minY = Integer.MAX_VALUE;
-        int maxY = Integer.MIN_VALUE;
-        for (Placement placement : placements) {
-            minY = Math.min(minY, placement.y());
-            maxY = Math.max(maxY, placement.y());
-        }
-        return maxY - minY + 1;
+        return profile.height();
     }
 
     public int depth() {
-        if (placements.isEmpty()) {
-            return 0;
-        }
-        int minZ = Integer.MAX_VALUE;
-        int maxZ = Integer.MIN_VALUE;
-        for (Placement placement : placements) {
-            minZ = Math.min(minZ, placement.z());
-            maxZ = Math.max(maxZ, placement.z());
-        }
-        return maxZ - minZ + 1;
+        return profile.depth();
     }
 
     public int entranceOffsetX() {
@@ -80,6 +77,31 @@ public record TownBlueprint(
         return clamp(entranceZ, 0, Math.max(0, plotDepth - 1));
     }
 
+    /**
+     * The same structure under another name; placements and the derived
+     * profile are shared, not copied.
+     */
+    public TownBlueprint named(String newName) {
+        if (Objects.equals(name, newName)) {
+            return this;
+        }
+        return new TownBlueprint(
+            newName,
+            category,
+            placements,
+            plotWidth,
+            plotDepth,
+            priority,
+            entranceX,
+            entranceZ,
+            roadSide,
+            rotationTurns,
+            themeTags,
+            tags,
+            profile
+        );
+    }
+
     public TownBlueprint orientedForRoadSide(String targetSide) {
         String normalizedTarget = normalizeSide(targetSide);
         if (normalizedTarget.isBlank()) {
@@ -119,7 +141,8 @@ public record TownBlueprint(
             normalizedTarget,
             Math.floorMod(rotationTurns + turns, 4),
             themeTags,
-            tags
+            tags,
+            profile.rotated(turns)
         );
     }
 
@@ -132,7 +155,7 @@ public record TownBlueprint(
             if (normalized.isBlank()) {
                 continue;
             }
-            if (tags.contains(normalized) || themeTags.contains(normalized)) {
+            if (profile.hasTag(normalized)) {
                 return true;
             }
         }
@@ -0,0 +1,123 @@
+package com.bladelow.builder;
+
+import net.minecraft.block.BlockState;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The four road-facing orientations of one {@link TownBlueprint}, built once.
+ *
+ * Each orientation carries the rotated blueprint (footprint, entrance offsets,
+ * profile) plus its placements flattened into an offset array and a parallel
+ * array of resolved, already-rotated block states. The planner looks an
+ * orientation up per lot instead of rotating placement lists, and turns a
+ * chosen plot into targets with one pass over the arrays.
+ *
+ * Block states are resolved against the registries, so build this on the
+ * server thread; the result is immutable and safe to read from any thread.
+ */
+public final class TownBlueprintRotations {
+    private static final List<String> SIDES = List.of("north", "east", "south", "west");
+
+    private final TownBlueprint base;
+    private final Oriented unoriented;
+    private final Oriented[] bySide;
+
+    private TownBlueprintRotations(TownBlueprint base, Oriented unoriented, Oriented[] bySide) {
+        this.base = base;
+        this.unoriented = unoriented;
+        this.bySide = bySide;
+    }
+
+    static TownBlueprintRotations of(TownBlueprint blueprint) {
+        if (blueprint == null) {
+            throw new IllegalArgumentException("blueprint is required");
+        }
+        List<TownBlueprint.Placement> placements = blueprint.placements();
+        // Parse each distinct block id once; rotations then only turn states.
+        Map<String, BlockState> parsed = new HashMap<>();
+        BlockState[] baseStates = new BlockState[placements.size()];
+        for (int i = 0; i < placements.size(); i++) {
+            String blockId = placements.get(i).blockId();
+            BlockState state = parsed.computeIfAbsent(blockId, BlueprintStateCodec::tryParse);
+            if (state == null) {
+                baseStates = null;
+                break;
+            }
+            baseStates[i] = state;
+        }
+
+        Oriented unoriented = orient(blueprint, baseStates);
+        Oriented[] bySide = new Oriented[SIDES.size()];
+        for (int i = 0; i < SIDES.size(); i++) {
+            TownBlueprint oriented = blueprint.orientedForRoadSide(SIDES.get(i));
+            bySide[i] = oriented == blueprint ? unoriented : orient(oriented, baseStates);
+        }
+        return new TownBlueprintRotations(blueprint, unoriented, bySide);
+    }
+
+    /**
+     * Rotations for a whole library. Only BlueprintLibrary builds these, once
+     * per load; planners take its cached list instead of rebuilding it.
+     */
+    static List<TownBlueprintRotations> ofAll(List<TownBlueprint> blueprints) {
+        if (blueprints == null) {
+            return List.of();
+        }
+        return blueprints.stream()
+            .filter(blueprint -> blueprint != null)
+            .map(TownBlueprintRotations::of)
+            .toList();
+    }
+
+    public TownBlueprint base() {
+        return base;
+    }
+
+    /**
+     * Same orientation {@link TownBlueprint#orientedForRoadSide} would give;
+     * an unknown or blank side keeps the captured orientation.
+     */
+    public Oriented forRoadSide(String side) {
+        int index = side == null ? -1 : SIDES.indexOf(side);
+        return index < 0 ? unoriented : bySide[index];
+    }
+
+    private static Oriented orient(TownBlueprint oriented, BlockState[] baseStates) {
+        // orientedForRoadSide keeps placement order, so index i is the same
+        // block in every orientation.
+        List<TownBlueprint.Placement> placements = oriented.placements();
+        int[] offsets = new int[placements.size() * 3];
+        for (int i = 0; i < placements.size(); i++) {
+            TownBlueprint.Placement placement = placements.get(i);
+            offsets[i * 3] = placement.x();
+            offsets[i * 3 + 1] = placement.y();
+            offsets[i * 3 + 2] = placement.z();
+        }
+        BlockState[] states = null;
+        if (baseStates != null) {
+            states = new BlockState[baseStates.length];
+            for (int i = 0; i < baseStates.length; i++) {
+                states[i] = BlueprintStateCodec.rotate(baseStates[i], oriented.rotationTurns());
+            }
+        }
+        return new Oriented(oriented, offsets, states);
+    }
+
+    /**
+     * One orientation. {@code offsets} holds x, y, z per placement relative
+     * to the plot origin; {@code states} is null when a block id did not
+     * resolve, in which case the orientation cannot be placed.
+     */
+    public record Oriented(TownBlueprint blueprint, int[] offsets, BlockState[] states) {
+        public boolean placeable() {
+            return states != null;
+        }
+
+        public int blockCount() {
+            return offsets.length / 3;
+        }
+    }
+}
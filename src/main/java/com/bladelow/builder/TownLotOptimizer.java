@@ -0,0 +1,293 @@
+package com.bladelow.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Whole-plan lot assignment search for the town planner.
+ *
+ * The greedy pass commits each lot's best candidate in lot order, so an early
+ * large plot can crowd out two better neighbours. This searches the same
+ * candidate lists with simulated annealing, starting from the greedy answer:
+ * a move puts one candidate on one lot (evicting plots it would crowd) or
+ * empties the lot. The objective is the plan's total score with the greedy
+ * pass's usage penalties, which only depend on how often each blueprint and
+ * district type is used, not on order. Plot spacing and the district cap are
+ * hard constraints.
+ *
+ * Independent chains run on the supplied executor until a wall-clock
+ * deadline; the best feasible assignment any chain saw is returned.
+ */
+final class TownLotOptimizer {
+    private static final double START_TEMPERATURE = 8.0;
+    private static final double END_TEMPERATURE = 0.05;
+    private static final int CLOCK_CHECK_INTERVAL = 128;
+    // Extra wait on top of the budget for chains to notice the deadline.
+    private static final long COLLECT_GRACE_MILLIS = 50L;
+
+    private final Candidate[][] lots;
+    private final int nameCount;
+    private final int districtCount;
+    private final double usagePenalty;
+    private final double districtPenalty;
+    private final double maxDistrictFraction;
+
+    TownLotOptimizer(List<List<Candidate>> lots, double usagePenalty, double districtPenalty, double maxDistrictFraction) {
+        this.lots = new Candidate[lots.size()][];
+        int names = 0;
+        int districts = 0;
+        for (int i = 0; i < lots.size(); i++) {
+            this.lots[i] = lots.get(i).toArray(new Candidate[0]);
+            for (Candidate candidate : this.lots[i]) {
+                names = Math.max(names, candidate.nameId() + 1);
+                districts = Math.max(districts, candidate.districtId() + 1);
+            }
+        }
+        this.nameCount = names;
+        this.districtCount = districts;
+        this.usagePenalty = usagePenalty;
+        this.districtPenalty = districtPenalty;
+        this.maxDistrictFraction = maxDistrictFraction;
+    }
+
+    /**
+     * Total score of an assignment ({@code choice[lot]} is a candidate index
+     * or -1), or NaN when plots crowd each other or the district cap is
+     * broken.
+     */
+    double score(int[] choice) {
+        Chain chain = new Chain(choice, 0L);
+        return chain.feasible() ? chain.score : Double.NaN;
+    }
+
+    /**
+     * Search from {@code seed} for at most {@code budgetMillis}. Returns the
+     * best assignment found, which is {@code seed} itself when nothing beat
+     * it. Blocks the caller for the whole budget, so never call it from the
+     * server thread.
+     */
+    int[] optimize(int[] seed, long budgetMillis, int chains, Executor executor) {
+        if (lots.length == 0 || budgetMillis <= 0L) {
+            return seed.clone();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        List<CompletableFuture<Chain>> running = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, chains); i++) {
+            long chainSeed = 0x5EEDL * (i + 1);
+            running.add(CompletableFuture.supplyAsync(() -> {
+                Chain chain = new Chain(seed, chainSeed);
+                chain.anneal(deadline);
+                return chain;
+            }, executor));
+        }
+
+        int[] best = seed.clone();
+        double bestScore = score(seed);
+        for (CompletableFuture<Chain> future : running) {
+            long waitNanos = Math.max(0L, deadline - System.nanoTime()) + TimeUnit.MILLISECONDS.toNanos(COLLECT_GRACE_MILLIS);
+            try {
+                Chain chain = future.get(waitNanos, TimeUnit.NANOSECONDS);
+                if (Double.isNaN(bestScore) || chain.bestScore > bestScore + 1.0e-6) {
+                    best = chain.best;
+                    bestScore = chain.bestScore;
+                }
+            } catch (TimeoutException ex) {
+                future.cancel(false);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ex) {
+                // A failed chain just contributes nothing.
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Buildings allowed in one district type for a plan of {@code total}
+     * buildings, excluding civic ones. This is the end-state form of the
+     * greedy cap, which refuses a district once it already holds more than
+     * {@code maxDistrictFraction} of the plots placed so far; every greedy
+     * plan satisfies it.
+     */
+    private int districtLimit(int total) {
+        return Math.max(3, (int) Math.floor(maxDistrictFraction * (total - 1)) + 1);
+    }
+
+    /**
+     * One plot option: the padded plot rectangle used for spacing, the
+     * blueprint and district ids used for usage penalties, and the
+     * usage-free score.
+     */
+    record Candidate(int minX, int minZ, int maxX, int maxZ, int nameId, int districtId, boolean civic, double baseScore) {
+        private boolean crowds(Candidate other) {
+            return minX <= other.maxX && other.minX <= maxX && minZ <= other.maxZ && other.minZ <= maxZ;
+        }
+    }
+
+    private final class Chain {
+        private final int[] choice;
+        private final int[] nameUses;
+        private final int[] districtUses;
+        private final int[] nonCivicUses;
+        private final SplittableRandom random;
+        private final int[] undoLots;
+        private final int[] undoChoices;
+        private int undoSize;
+        private int total;
+        private double score;
+        private int[] best;
+        private double bestScore;
+
+        private Chain(int[] start, long seed) {
+            this.choice = new int[lots.length];
+            Arrays.fill(choice, -1);
+            this.nameUses = new int[nameCount];
+            this.districtUses = new int[districtCount];
+            this.nonCivicUses = new int[districtCount];
+            this.random = new SplittableRandom(seed);
+            this.undoLots = new int[lots.length + 1];
+            this.undoChoices = new int[lots.length + 1];
+            for (int lot = 0; lot < lots.length; lot++) {
+                if (start[lot] >= 0) {
+                    place(lot, start[lot]);
+                }
+            }
+            this.best = choice.clone();
+            this.bestScore = score;
+        }
+
+        private void anneal(long deadline) {
+            long start = System.nanoTime();
+            double span = Math.max(1L, deadline - start);
+            double temperature = START_TEMPERATURE;
+            for (int step = 0; ; step++) {
+                if (step % CLOCK_CHECK_INTERVAL == 0) {
+                    long now = System.nanoTime();
+                    if (now >= deadline || Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    double progress = (now - start) / span;
+                    temperature = START_TEMPERATURE * Math.pow(END_TEMPERATURE / START_TEMPERATURE, progress);
+                }
+                int lot = random.nextInt(lots.length);
+                Candidate[] options = lots[lot];
+                int next = options.length == 0 || random.nextInt(8) == 0 ? -1 : random.nextInt(options.length);
+                if (next == choice[lot]) {
+                    continue;
+                }
+
+                double before = score;
+                undoSize = 0;
+                remember(lot);
+                if (choice[lot] >= 0) {
+                    remove(lot);
+                }
+                if (next >= 0) {
+                    Candidate incoming = options[next];
+                    for (int other = 0; other < lots.length; other++) {
+                        if (other != lot && choice[other] >= 0 && lots[other][choice[other]].crowds(incoming)) {
+                            remember(other);
+                            remove(other);
+                        }
+                    }
+                    place(lot, next);
+                }
+
+                double delta = score - before;
+                boolean accept = capHolds()
+                    && (delta >= 0.0 || random.nextDouble() < Math.exp(delta / temperature));
+                if (!accept) {
+                    rollback();
+                    continue;
+                }
+                if (score > bestScore + 1.0e-6) {
+                    bestScore = score;
+                    best = choice.clone();
+                }
+            }
+        }
+
+        private boolean feasible() {
+            if (!capHolds()) {
+                return false;
+            }
+            for (int a = 0; a < lots.length; a++) {
+                if (choice[a] < 0) {
+                    continue;
+                }
+                for (int b = a + 1; b < lots.length; b++) {
+                    if (choice[b] >= 0 && lots[a][choice[a]].crowds(lots[b][choice[b]])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean capHolds() {
+            int limit = districtLimit(total);
+            for (int uses : nonCivicUses) {
+                if (uses > limit) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void place(int lot, int index) {
+            Candidate candidate = lots[lot][index];
+            score += candidate.baseScore()
+                - nameUses[candidate.nameId()] * usagePenalty
+                - districtUses[candidate.districtId()] * districtPenalty;
+            nameUses[candidate.nameId()]++;
+            districtUses[candidate.districtId()]++;
+            if (!candidate.civic()) {
+                nonCivicUses[candidate.districtId()]++;
+            }
+            total++;
+            choice[lot] = index;
+        }
+
+        private void remove(int lot) {
+            Candidate candidate = lots[lot][choice[lot]];
+            nameUses[candidate.nameId()]--;
+            districtUses[candidate.districtId()]--;
+            if (!candidate.civic()) {
+                nonCivicUses[candidate.districtId()]--;
+            }
+            total--;
+            score -= candidate.baseScore()
+                - nameUses[candidate.nameId()] * usagePenalty
+                - districtUses[candidate.districtId()] * districtPenalty;
+            choice[lot] = -1;
+        }
+
+        private void remember(int lot) {
+            undoLots[undoSize] = lot;
+            undoChoices[undoSize] = choice[lot];
+            undoSize++;
+        }
+
+        private void rollback() {
+            for (int i = 0; i < undoSize; i++) {
+                if (choice[undoLots[i]] >= 0) {
+                    remove(undoLots[i]);
+                }
+            }
+            for (int i = 0; i < undoSize; i++) {
+                if (undoChoices[i] >= 0) {
+                    place(undoLots[i], undoChoices[i]);
+                }
+            }
+            undoSize = 0;
+        }
+    }
+}
@@ -11,7 +11,8 @@ import java.util.List;
  *
  * A TownPlan is still flattened into a normal placement job, but it preserves
  * enough metadata for callers to report how many buildings were chosen and
- * which blueprint names were used.
+ * which blueprint names were used. {@code claim} holds the lot locks and
+ * placement logs still to apply when the plan was made unclaimed.
  */
 public record TownPlan(
     boolean ok,
@@ -19,14 +20,22 @@ public record TownPlan(
     List<BlockState> blockStates,
     List<BlockPos> targets,
     int buildings,
-    List<String> usedBlueprints
+    List<String> usedBlueprints,
+    TownPlanner.LotClaim claim
 ) {
-    public static TownPlan ok(String message, List<BlockState> blockStates, List<BlockPos> targets, int buildings, List<String> usedBlueprints) {
-        return new TownPlan(true, message, List.copyOf(blockStates), List.copyOf(targets), buildings, List.copyOf(usedBlueprints));
+    public static TownPlan ok(
+        String message,
+        List<BlockState> blockStates,
+        List<BlockPos> targets,
+        int buildings,
+        List<String> usedBlueprints,
+        TownPlanner.LotClaim claim
+    ) {
+        return new TownPlan(true, message, List.copyOf(blockStates), List.copyOf(targets), buildings, List.copyOf(usedBlueprints), claim);
     }
 
     public static TownPlan error(String message) {
-        return new TownPlan(false, message, List.of(), List.of(), 0, List.of());
+        return new TownPlan(false, message, List.of(), List.of(), 0, List.of(), TownPlanner.LotClaim.NONE);
     }
 
     public List<Block> blocks() {
@@ -10,9 +10,9 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
-import net.minecraft.world.Heightmap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,13 +24,19 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 /**
  * High-level town generator for marked city areas.
  *
- * The planner combines roads, zones, live world scans, learned style hints, and
+ * The planner combines roads, zones, site scans, learned style hints, and
  * blueprint metadata to choose a set of non-overlapping structures and turn
- * them into one placement plan.
+ * them into one placement plan. The world is copied once on the server thread
+ * ({@link #analyzeArea}, {@link #captureAreaForAnalysis}); planning itself
+ * only reads that copy.
  */
 public final class TownPlanner {
     private static final int SCAN_INSET = 1;
@@ -51,7 +57,37 @@ public final class TownPlanner {
         "deepslate_tiles",
         "andesite"
     );
+    private static final String NO_BLUEPRINTS_MESSAGE = "no town blueprints loaded; capture or load blueprints from the HUD";
     private static final Map<LotLockScope, Set<String>> LOCKED_LOTS = new ConcurrentHashMap<>();
+    // Below this many (lot, blueprint) pairs, handing work to the pool costs
+    // more than scoring inline.
+    private static final int PARALLEL_MIN_PAIRS = 64;
+    private static final ForkJoinPool SCORING_POOL = new ForkJoinPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+        pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("bladelow-town-scoring-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        },
+        null,
+        false
+    );
+    // Annealing chains hold their workers for the whole budget, so they get a
+    // small pool of their own rather than starving lot scoring and lookahead
+    // plans on SCORING_POOL.
+    private static final ForkJoinPool OPTIMIZER_POOL = new ForkJoinPool(
+        Math.max(1, Math.min(4, (Runtime.getRuntime().availableProcessors() - 1) / 2)),
+        pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("bladelow-town-optimizer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        },
+        null,
+        false
+    );
 
     private TownPlanner() {
     }
@@ -64,10 +100,6 @@ public final class TownPlanner {
         return removed == null ? 0 : removed.size();
     }
 
-    public static TownPlan plan(ServerWorld world, BlockPos from, BlockPos to, List<TownBlueprint> blueprints, List<TownZoneStore.Zone> zones) {
-        return plan(world, null, from, to, blueprints, zones, "", false, true);
-    }
-
     public static IntentSuggestion suggestBuildIntent(
         ServerWorld world,
         BlockPos from,
@@ -78,7 +110,7 @@ public final class TownPlanner {
             return IntentSuggestion.error("invalid intent bounds");
         }
 
-        TownArea area = TownArea.analyze(world, from, to, zones);
+        TownArea area = TownArea.analyze(captureArea(world, from, to, List.of()), from, to, zones);
         if (area.width() < 5 || area.depth() < 5) {
             return IntentSuggestion.error("area too small for intent scan");
         }
@@ -94,30 +126,139 @@ public final class TownPlanner {
         return IntentSuggestion.ok(message, intent, context);
     }
 
+    /**
+     * Analyse {@code from..to} once for a series of plans over the same
+     * selection, such as every district of a city autoplay session. Must run
+     * on the server thread.
+     */
+    public static AreaModel analyzeArea(ServerWorld world, BlockPos from, BlockPos to, List<TownBlueprint> blueprints) {
+        if (world == null || from == null || to == null) {
+            throw new IllegalArgumentException("world and bounds are required");
+        }
+        return new AreaModel(TownArea.analyze(captureArea(world, from, to, blueprints), from, to, List.of()));
+    }
+
+    /**
+     * Server-thread half of {@link #analyzeArea}: copies the area and leaves
+     * the analysis, which only reads the copy, to {@link AreaCapture#analyze()}
+     * on whichever thread wants it.
+     */
+    public static AreaCapture captureAreaForAnalysis(ServerWorld world, BlockPos from, BlockPos to, List<TownBlueprint> blueprints) {
+        if (world == null || from == null || to == null) {
+            throw new IllegalArgumentException("world and bounds are required");
+        }
+        return new AreaCapture(captureArea(world, from, to, blueprints), from.toImmutable(), to.toImmutable());
+    }
+
+    /**
+     * Copy everything a town plan over {@code from..to} reads: the selection
+     * plus the site-scan margin, from just below the snap range up to the
+     * tallest blueprint or style-scan height. Must run on the server thread;
+     * the result can be planned against from any thread.
+     */
+    private static WorldAreaSnapshot captureArea(ServerWorld world, BlockPos from, BlockPos to, List<TownBlueprint> blueprints) {
+        int selectedY = Math.min(from.getY(), to.getY());
+        int tallest = 0;
+        if (blueprints != null) {
+            for (TownBlueprint blueprint : blueprints) {
+                if (blueprint != null) {
+                    tallest = Math.max(tallest, blueprint.height());
+                }
+            }
+        }
+        return WorldAreaSnapshot.capture(
+            world,
+            Math.min(from.getX(), to.getX()) - BuildSiteAnalyzer.SCAN_MARGIN,
+            Math.max(from.getX(), to.getX()) + BuildSiteAnalyzer.SCAN_MARGIN,
+            selectedY - SURFACE_SNAP_RANGE,
+            selectedY + SURFACE_SNAP_RANGE + Math.max(BuildSiteAnalyzer.STYLE_SCAN_HEIGHT, tallest + 1),
+            Math.min(from.getZ(), to.getZ()) - BuildSiteAnalyzer.SCAN_MARGIN,
+            Math.max(from.getZ(), to.getZ()) + BuildSiteAnalyzer.SCAN_MARGIN
+        );
+    }
+
+    /**
+     * Plan against an analysed area. Never touches the live world, so it may
+     * run on a background thread. {@code zones} replace the zones the area was
+     * analysed with. {@code reservedColumns} are treated like streets: no plot
+     * may use them, which keeps a plan made before another district finishes
+     * from landing on that district's footprint.
+     *
+     * With {@code claimNow} false the plan still avoids locked lots but takes
+     * none itself and logs no placements: both wait in {@link TownPlan#claim()}
+     * for {@link #claim} once the caller actually uses the plan. Background
+     * plans that may be thrown away are made that way.
+     */
     public static TownPlan plan(
-        ServerWorld world,
+        AreaModel model,
         UUID playerId,
-        BlockPos from,
-        BlockPos to,
-        List<TownBlueprint> blueprints,
+        List<TownBlueprintRotations> blueprints,
         List<TownZoneStore.Zone> zones,
         String requiredZoneType,
         boolean lockLots,
-        boolean includeRoads
+        boolean includeRoads,
+        Set<Long> reservedColumns,
+        boolean claimNow
     ) {
-        if (world == null || from == null || to == null) {
+        if (model == null) {
             return TownPlan.error("invalid townfill bounds");
         }
-        String zoneFilter = TownDistrictType.normalize(requiredZoneType);
-        List<TownBlueprint> usable = blueprints == null ? List.of() : blueprints.stream()
-            .filter(blueprint -> blueprint != null && !blueprint.placements().isEmpty())
-            .sorted(Comparator.comparingInt(TownBlueprint::priority).reversed().thenComparing(TownBlueprint::name))
-            .toList();
+        List<TownBlueprintRotations> usable = usableBlueprints(blueprints);
         if (usable.isEmpty()) {
-            return TownPlan.error("no town blueprints loaded; capture or load blueprints from the HUD");
+            return TownPlan.error(NO_BLUEPRINTS_MESSAGE);
         }
+        return plan(model.current().withZones(zones), playerId, usable, requiredZoneType, lockLots, includeRoads, reservedColumns, claimNow);
+    }
 
-        TownArea area = TownArea.analyze(world, from, to, zones);
+    /**
+     * Lock the lots of a plan made with {@code claimNow} false and log its
+     * placements. Returns false, and claims nothing, when another plan locked
+     * one of the lots in the meantime; the caller should plan again. Call on
+     * the server thread.
+     */
+    public static boolean claim(LotClaim claim) {
+        if (claim == null) {
+            return true;
+        }
+        if (!claim.lotIds().isEmpty() && claim.playerId() != null && claim.world() != null) {
+            Set<String> locked = LOCKED_LOTS.computeIfAbsent(
+                new LotLockScope(claim.playerId(), claim.world().getRegistryKey().getValue().toString()),
+                key -> ConcurrentHashMap.newKeySet()
+            );
+            for (String lotId : claim.lotIds()) {
+                if (locked.contains(lotId)) {
+                    return false;
+                }
+            }
+            locked.addAll(claim.lotIds());
+        }
+        for (LotClaim.Placement placement : claim.placements()) {
+            BladelowLearning.buildIntentLogger().recordTownPlacement("town_planner", claim.world(), placement.context(), placement.blueprint());
+        }
+        return true;
+    }
+
+    private static List<TownBlueprintRotations> usableBlueprints(List<TownBlueprintRotations> blueprints) {
+        return blueprints == null ? List.of() : blueprints.stream()
+            .filter(rotations -> rotations != null && !rotations.base().placements().isEmpty())
+            .sorted(
+                Comparator.comparingInt((TownBlueprintRotations rotations) -> rotations.base().priority()).reversed()
+                    .thenComparing(rotations -> rotations.base().name())
+            )
+            .toList();
+    }
+
+    private static TownPlan plan(
+        TownArea area,
+        UUID playerId,
+        List<TownBlueprintRotations> usable,
+        String requiredZoneType,
+        boolean lockLots,
+        boolean includeRoads,
+        Set<Long> reservedColumns,
+        boolean claimNow
+    ) {
+        String zoneFilter = TownDistrictType.normalize(requiredZoneType);
         if (area.width() < 7 || area.depth() < 7) {
             return TownPlan.error("area too small for townfill");
         }
@@ -125,8 +266,14 @@ public final class TownPlanner {
             return TownPlan.error("no " + zoneFilter + " zones in selected area");
         }
 
-        Set<Long> reserved = new HashSet<>(area.streetCells());
-        Map<String, Integer> usageCounts = new HashMap<>();
+        LotReservations reserved = new LotReservations(area, reservedColumns);
+        Set<Integer> clearHeights = new HashSet<>();
+        for (TownBlueprintRotations rotations : usable) {
+            clearHeights.add(PlotClearance.clearHeightFor(rotations.base()));
+        }
+        PlotClearance clearance = PlotClearance.compute(
+            area.snapshot(), area.minX(), area.maxX(), area.minZ(), area.maxZ(), area.baseY(), clearHeights
+        );
         LinkedHashMap<String, Integer> districtUsage = initDistrictCounters();
         LinkedHashMap<String, Integer> zoneUsage = initDistrictCounters();
         LinkedHashMap<String, Integer> intentUsage = initDistrictCounters();
@@ -138,22 +285,58 @@ public final class TownPlanner {
         int buildings = 0;
         int consumedLots = 0;
         Set<String> lockedLots = lockLots && playerId != null
-            ? LOCKED_LOTS.computeIfAbsent(new LotLockScope(playerId, world.getRegistryKey().getValue().toString()), key -> ConcurrentHashMap.newKeySet())
+            ? LOCKED_LOTS.computeIfAbsent(new LotLockScope(playerId, area.snapshot().worldId()), key -> ConcurrentHashMap.newKeySet())
             : Set.of();
 
-        for (LotCandidate lot : lots) {
-            PlotPlacement placement = chooseLotPlacement(area, lot, reserved, usable, usageCounts, districtUsage, zoneFilter, lockedLots);
+        List<LotOptions> scored = scoreLots(area, lots, reserved, clearance, usable, zoneFilter);
+        List<BlockState> roadStates = List.copyOf(blockStates);
+        List<BlockPos> roadTargets = List.copyOf(targets);
+        Map<String, Integer> usageCounts = new HashMap<>();
+        Map<String, Integer> placedDistricts = new HashMap<>();
+        List<PlotPlacement> placements = new ArrayList<>();
+        for (LotOptions options : scored) {
+            PlotPlacement placement = chooseLotPlacement(options, reserved, usageCounts, placedDistricts, lockedLots);
             if (placement == null) {
                 continue;
             }
             if (!appendPlacements(area, placement, blockStates, targets)) {
                 continue;
             }
-            reservePlot(reserved, placement.originX(), placement.originZ(), placement.blueprint().plotWidth(), placement.blueprint().plotDepth(), PLOT_SPACING);
+            reserved.reserve(placement.originX(), placement.originZ(), placement.blueprint().plotWidth(), placement.blueprint().plotDepth(), PLOT_SPACING);
             usageCounts.merge(placement.blueprint().name(), 1, Integer::sum);
+            placedDistricts.merge(districtTypeOf(placement.blueprint()), 1, Integer::sum);
+            placements.add(placement);
+        }
+
+        String optimizerSummary = "";
+        // The optimizer spends its whole budget before returning; on the
+        // server thread that is a stalled tick, so only background plans
+        // (lookahead, previews, HUD jobs) get it.
+        int budgetMillis = onServerThread(area) ? 0 : BuildRuntimeSettings.townOptimizerBudgetMillis();
+        if (budgetMillis > 0) {
+            long startedAt = System.nanoTime();
+            List<BlockState> optimizedStates = new ArrayList<>(roadStates);
+            List<BlockPos> optimizedTargets = new ArrayList<>(roadTargets);
+            List<PlotPlacement> optimized = optimizePlacements(area, scored, placements, lockedLots, budgetMillis, optimizedStates, optimizedTargets);
+            int buildingGain = optimized.size() - placements.size();
+            double scoreGain = totalScore(optimized) - totalScore(placements);
+            long tookMillis = (System.nanoTime() - startedAt) / 1_000_000L;
+            if (scoreGain > 1.0e-6) {
+                placements = optimized;
+                blockStates = optimizedStates;
+                targets = optimizedTargets;
+                optimizerSummary = String.format(Locale.ROOT, "buildings:%+d,score:%+.1f,ms:%d", buildingGain, scoreGain, tookMillis);
+            } else {
+                optimizerSummary = "kept-greedy,ms:" + tookMillis;
+            }
+        }
+
+        List<String> claimedLots = new ArrayList<>();
+        List<LotClaim.Placement> claimedPlacements = new ArrayList<>();
+        for (PlotPlacement placement : placements) {
             districtUsage.merge(districtTypeOf(placement.blueprint()), 1, Integer::sum);
             if (lockLots && playerId != null) {
-                lockedLots.add(lotLockId(placement.originX(), placement.originZ(), placement.blueprint().plotWidth(), placement.blueprint().plotDepth()));
+                claimedLots.add(lotLockId(placement.originX(), placement.originZ(), placement.blueprint().plotWidth(), placement.blueprint().plotDepth()));
             }
             String zone = area.zoneTypeAt(
                 placement.originX() + Math.max(0, placement.blueprint().plotWidth() / 2),
@@ -165,12 +348,7 @@ public final class TownPlanner {
             if (placement.intent() != null && !placement.intent().primaryArchetype().isBlank()) {
                 intentUsage.merge(placement.intent().primaryArchetype(), 1, Integer::sum);
             }
-            BladelowLearning.buildIntentLogger().recordTownPlacement(
-                "town_planner",
-                world,
-                area.intentContext(placement.lot()),
-                placement.blueprint()
-            );
+            claimedPlacements.add(new LotClaim.Placement(area.intentContext(placement.lot()), placement.blueprint()));
             if (used.size() < 8) {
                 used.add(
                     placement.blueprint().name()
@@ -193,6 +371,10 @@ public final class TownPlanner {
                     + "); use Preview Build for one lot or select a larger, flatter area for City Director"
             );
         }
+        LotClaim lotClaim = new LotClaim(playerId, area.snapshot().world(), List.copyOf(claimedLots), List.copyOf(claimedPlacements));
+        if (claimNow) {
+            claim(lotClaim);
+        }
 
         StringBuilder message = new StringBuilder();
         message.append("townfill buildings=").append(buildings)
@@ -219,12 +401,20 @@ public final class TownPlanner {
             message.append(" zoneFilter=").append(zoneFilter);
         }
         if (lockLots && playerId != null) {
-            message.append(" lockedLots=").append(lockedLots.size());
+            message.append(" lockedLots=").append(lockedLots.size() + (claimNow ? 0 : claimedLots.size()));
+        }
+        if (!optimizerSummary.isEmpty()) {
+            message.append(" optimizer=").append(optimizerSummary);
         }
         if (!used.isEmpty()) {
             message.append(" sample=").append(String.join(",", used));
         }
-        return TownPlan.ok(message.toString(), blockStates, targets, buildings, List.copyOf(used));
+        return TownPlan.ok(message.toString(), blockStates, targets, buildings, List.copyOf(used), claimNow ? LotClaim.NONE : lotClaim);
+    }
+
+    private static boolean onServerThread(TownArea area) {
+        ServerWorld world = area.snapshot().world();
+        return world != null && world.getServer() != null && world.getServer().isOnThread();
     }
 
     private static int appendRoadPlacements(TownArea area, List<BlockState> blockStates, List<BlockPos> targets) {
@@ -240,7 +430,7 @@ public final class TownPlanner {
             int x = (int) (entry.getKey() >> 32);
             int z = (int) (long) entry.getKey();
             BlockPos pos = new BlockPos(x, area.baseY(), z);
-            BlockState state = area.world().getBlockState(pos);
+            BlockState state = area.snapshot().getBlockState(pos);
             if (isRoadLikeSurface(state) || !state.getFluidState().isEmpty()) {
                 continue;
             }
@@ -296,34 +486,62 @@ public final class TownPlanner {
 
     /** Maximum fraction of buildings allowed in any single district type (40%). */
     private static final double MAX_DISTRICT_FRACTION = 0.40;
+    /** Score lost per earlier use of the same blueprint in one plan. */
+    private static final double REPEAT_BLUEPRINT_PENALTY = 14.0;
+    /** Score lost per earlier building of the same district type in one plan. */
+    private static final double DISTRICT_SATURATION_PENALTY = 4.0;
 
-    private static PlotPlacement chooseLotPlacement(
+    /**
+     * Phase one: every (lot, blueprint) pair checked against everything that
+     * does not change while lots are assigned (bounds, zone filter, streets
+     * and other fixed reservations, clearance) and given its usage-free
+     * score. Reads only the immutable area analysis, so lots are scored in
+     * parallel; results keep lot order. Lot intents come from the shared,
+     * synchronized intent predictor and are resolved up front on the caller
+     * so the workers never queue on its lock.
+     */
+    private static List<LotOptions> scoreLots(
         TownArea area,
-        LotCandidate lot,
-        Set<Long> reserved,
-        List<TownBlueprint> blueprints,
-        Map<String, Integer> usageCounts,
-        Map<String, Integer> districtUsage,
-        String zoneFilter,
-        Set<String> lockedLots
+        List<LotCandidate> lots,
+        LotReservations reserved,
+        PlotClearance clearance,
+        List<TownBlueprintRotations> blueprints,
+        String zoneFilter
     ) {
-        int totalPlaced = districtUsage.values().stream().mapToInt(Integer::intValue).sum();
-        BuildIntent lotIntent = area.intentFor(lot);
-
-        PlotPlacement best = null;
-        for (TownBlueprint blueprint : blueprints) {
-            // --- District variety cap: no more than MAX_DISTRICT_FRACTION of any type ---
-            String districtType = districtTypeOf(blueprint);
-            if (totalPlaced >= 3) {
-                int districtCount = districtUsage.getOrDefault(districtType, 0);
-                if (districtCount > 0 && (double) districtCount / totalPlaced > MAX_DISTRICT_FRACTION) {
-                    // Allow civic/plaza buildings to bypass the cap — towns need a centre
-                    boolean isCivic = blueprint.hasAnyTag("civic", "hall", "keep", "plaza", "church", "tower");
-                    if (!isCivic) continue;
-                }
+        LotOptions[] options = new LotOptions[lots.size()];
+        BuildIntent[] intents = new BuildIntent[lots.size()];
+        for (int i = 0; i < intents.length; i++) {
+            intents[i] = area.intentFor(lots.get(i));
+        }
+        if ((long) lots.size() * blueprints.size() < PARALLEL_MIN_PAIRS) {
+            for (int i = 0; i < options.length; i++) {
+                options[i] = scoreLot(area, lots.get(i), intents[i], reserved, clearance, blueprints, zoneFilter);
             }
+        } else {
+            SCORING_POOL.invoke(new ScoreLotsTask(0, options.length, i ->
+                options[i] = scoreLot(area, lots.get(i), intents[i], reserved, clearance, blueprints, zoneFilter)
+            ));
+        }
+        return List.of(options);
+    }
 
-            TownBlueprint oriented = blueprint.orientedForRoadSide(lot.side());
+    private static LotOptions scoreLot(
+        TownArea area,
+        LotCandidate lot,
+        BuildIntent lotIntent,
+        LotReservations reserved,
+        PlotClearance clearance,
+        List<TownBlueprintRotations> blueprints,
+        String zoneFilter
+    ) {
+        List<ScoredCandidate> candidates = new ArrayList<>();
+        for (TownBlueprintRotations rotations : blueprints) {
+            TownBlueprintRotations.Oriented rotation = rotations.forRoadSide(lot.side());
+            if (!rotation.placeable()) {
+                continue;
+            }
+            TownBlueprint blueprint = rotations.base();
+            TownBlueprint oriented = rotation.blueprint();
             int originX = originXForLot(lot, oriented);
             int originZ = originZForLot(lot, oriented);
             if (!fitsBounds(area, originX, originZ, oriented)) {
@@ -340,44 +558,188 @@ public final class TownPlanner {
                     continue;
                 }
             }
-            if (isReserved(originX, originZ, oriented.plotWidth(), oriented.plotDepth(), reserved, PLOT_SPACING)) {
+            if (reserved.isFixedReserved(originX, originZ, oriented.plotWidth(), oriented.plotDepth(), PLOT_SPACING)) {
                 continue;
             }
-            if (!lockedLots.isEmpty() && lockedLots.contains(lotLockId(originX, originZ, oriented.plotWidth(), oriented.plotDepth()))) {
+            if (!clearance.isClear(originX, originZ, oriented.plotWidth(), oriented.plotDepth(), PlotClearance.clearHeightFor(oriented))) {
                 continue;
             }
-            if (!isPlotClear(area.world(), originX, area.baseY(), originZ, oriented)) {
+            candidates.add(new ScoredCandidate(
+                blueprint.name(),
+                rotation,
+                originX,
+                originZ,
+                districtTypeOf(blueprint),
+                blueprint.hasAnyTag("civic", "hall", "keep", "plaza", "church", "tower"),
+                scoreBlueprint(area, originX, originZ, lot, oriented, lotIntent)
+            ));
+        }
+        return new LotOptions(lot, lotIntent, List.copyOf(candidates));
+    }
+
+    /**
+     * Phase two: pick the best candidate of one lot given the plots and
+     * usage so far. Sequential, and ties keep blueprint order, so a plan is
+     * deterministic for the same inputs.
+     */
+    private static PlotPlacement chooseLotPlacement(
+        LotOptions options,
+        LotReservations reserved,
+        Map<String, Integer> usageCounts,
+        Map<String, Integer> districtUsage,
+        Set<String> lockedLots
+    ) {
+        int totalPlaced = districtUsage.values().stream().mapToInt(Integer::intValue).sum();
+
+        PlotPlacement best = null;
+        for (ScoredCandidate candidate : options.candidates()) {
+            // --- District variety cap: no more than MAX_DISTRICT_FRACTION of any type ---
+            int districtCount = districtUsage.getOrDefault(candidate.districtType(), 0);
+            if (totalPlaced >= 3 && districtCount > 0 && (double) districtCount / totalPlaced > MAX_DISTRICT_FRACTION) {
+                // Allow civic/plaza buildings to bypass the cap — towns need a centre
+                if (!candidate.civic()) continue;
+            }
+
+            TownBlueprint oriented = candidate.blueprint();
+            if (reserved.isPlaced(candidate.originX(), candidate.originZ(), oriented.plotWidth(), oriented.plotDepth(), PLOT_SPACING)) {
                 continue;
             }
-            double score = scoreBlueprint(
-                area, originX, originZ, lot, oriented, lotIntent,
-                usageCounts.getOrDefault(blueprint.name(), 0),
-                districtUsage.getOrDefault(districtType, 0)
-            );
+            if (!lockedLots.isEmpty() && lockedLots.contains(lotLockId(candidate.originX(), candidate.originZ(), oriented.plotWidth(), oriented.plotDepth()))) {
+                continue;
+            }
+            double score = candidate.baseScore()
+                - usageCounts.getOrDefault(candidate.name(), 0) * REPEAT_BLUEPRINT_PENALTY
+                - districtCount * DISTRICT_SATURATION_PENALTY;
             if (best == null || score > best.score()) {
-                best = new PlotPlacement(oriented, lot, originX, originZ, score, lotIntent);
+                best = new PlotPlacement(candidate.oriented(), options.lot(), candidate.originX(), candidate.originZ(), score, options.intent());
             }
         }
         return best;
     }
 
+    /**
+     * Phase three, when a budget is set: search lot assignments as a whole
+     * with {@link TownLotOptimizer}, seeded with the greedy placements, and
+     * append the result to {@code blockStates}/{@code targets}. The search
+     * runs on the scoring pool; the caller waits at most about
+     * {@code budgetMillis}. Placements come back in lot order, scored the way
+     * the greedy pass would have scored them in that order.
+     */
+    private static List<PlotPlacement> optimizePlacements(
+        TownArea area,
+        List<LotOptions> scored,
+        List<PlotPlacement> greedy,
+        Set<String> lockedLots,
+        int budgetMillis,
+        List<BlockState> blockStates,
+        List<BlockPos> targets
+    ) {
+        Map<String, Integer> nameIds = new HashMap<>();
+        Map<String, Integer> districtIds = new HashMap<>();
+        List<List<TownLotOptimizer.Candidate>> options = new ArrayList<>(scored.size());
+        List<int[]> candidateIndexes = new ArrayList<>(scored.size());
+        Map<LotCandidate, Integer> lotIndexes = new HashMap<>();
+        for (int lot = 0; lot < scored.size(); lot++) {
+            List<ScoredCandidate> candidates = scored.get(lot).candidates();
+            List<TownLotOptimizer.Candidate> lotOptions = new ArrayList<>(candidates.size());
+            int[] indexes = new int[candidates.size()];
+            for (int i = 0; i < candidates.size(); i++) {
+                ScoredCandidate candidate = candidates.get(i);
+                TownBlueprint oriented = candidate.blueprint();
+                if (!lockedLots.isEmpty() && lockedLots.contains(lotLockId(candidate.originX(), candidate.originZ(), oriented.plotWidth(), oriented.plotDepth()))) {
+                    continue;
+                }
+                indexes[lotOptions.size()] = i;
+                lotOptions.add(new TownLotOptimizer.Candidate(
+                    candidate.originX() - PLOT_SPACING,
+                    candidate.originZ() - PLOT_SPACING,
+                    candidate.originX() + oriented.plotWidth() - 1 + PLOT_SPACING,
+                    candidate.originZ() + oriented.plotDepth() - 1 + PLOT_SPACING,
+                    nameIds.computeIfAbsent(candidate.name(), key -> nameIds.size()),
+                    districtIds.computeIfAbsent(candidate.districtType(), key -> districtIds.size()),
+                    candidate.civic(),
+                    candidate.baseScore()
+                ));
+            }
+            options.add(lotOptions);
+            candidateIndexes.add(indexes);
+            lotIndexes.put(scored.get(lot).lot(), lot);
+        }
+
+        int[] seed = new int[scored.size()];
+        Arrays.fill(seed, -1);
+        for (PlotPlacement placement : greedy) {
+            int lot = lotIndexes.get(placement.lot());
+            List<TownLotOptimizer.Candidate> lotOptions = options.get(lot);
+            List<ScoredCandidate> candidates = scored.get(lot).candidates();
+            for (int i = 0; i < lotOptions.size(); i++) {
+                ScoredCandidate candidate = candidates.get(candidateIndexes.get(lot)[i]);
+                if (candidate.oriented() == placement.oriented()
+                    && candidate.originX() == placement.originX()
+                    && candidate.originZ() == placement.originZ()) {
+                    seed[lot] = i;
+                    break;
+                }
+            }
+        }
+
+        TownLotOptimizer optimizer = new TownLotOptimizer(options, REPEAT_BLUEPRINT_PENALTY, DISTRICT_SATURATION_PENALTY, MAX_DISTRICT_FRACTION);
+        int[] choice = optimizer.optimize(seed, budgetMillis, OPTIMIZER_POOL.getParallelism(), OPTIMIZER_POOL);
+
+        Map<String, Integer> usageCounts = new HashMap<>();
+        Map<String, Integer> districtUsage = new HashMap<>();
+        List<PlotPlacement> placements = new ArrayList<>();
+        for (int lot = 0; lot < choice.length; lot++) {
+            if (choice[lot] < 0) {
+                continue;
+            }
+            LotOptions lotOptions = scored.get(lot);
+            ScoredCandidate candidate = lotOptions.candidates().get(candidateIndexes.get(lot)[choice[lot]]);
+            double score = candidate.baseScore()
+                - usageCounts.getOrDefault(candidate.name(), 0) * REPEAT_BLUEPRINT_PENALTY
+                - districtUsage.getOrDefault(candidate.districtType(), 0) * DISTRICT_SATURATION_PENALTY;
+            PlotPlacement placement = new PlotPlacement(candidate.oriented(), lotOptions.lot(), candidate.originX(), candidate.originZ(), score, lotOptions.intent());
+            if (!appendPlacements(area, placement, blockStates, targets)) {
+                continue;
+            }
+            usageCounts.merge(candidate.name(), 1, Integer::sum);
+            districtUsage.merge(candidate.districtType(), 1, Integer::sum);
+            placements.add(placement);
+        }
+        return placements;
+    }
+
+    private static double totalScore(List<PlotPlacement> placements) {
+        double total = 0.0;
+        for (PlotPlacement placement : placements) {
+            total += placement.score();
+        }
+        return total;
+    }
+
     private static boolean appendPlacements(TownArea area, PlotPlacement placement, List<BlockState> blockStates, List<BlockPos> targets) {
-        for (TownBlueprint.Placement blockPlacement : placement.blueprint().placements()) {
-            BlockState state = BlueprintStateCodec.tryParse(blockPlacement.blockId());
-            if (state == null) {
-                return false;
-            }
-            blockStates.add(BlueprintStateCodec.rotate(state, placement.blueprint().rotationTurns()));
-            targets.add(new BlockPos(
-                placement.originX() + blockPlacement.x(),
-                area.baseY() + blockPlacement.y(),
-                placement.originZ() + blockPlacement.z()
-            ));
+        TownBlueprintRotations.Oriented oriented = placement.oriented();
+        if (!oriented.placeable()) {
+            return false;
+        }
+        // States were resolved and rotated when the library loaded; only the
+        // positions depend on where the plot landed.
+        blockStates.addAll(Arrays.asList(oriented.states()));
+        int[] offsets = oriented.offsets();
+        int originX = placement.originX();
+        int originY = area.baseY();
+        int originZ = placement.originZ();
+        for (int i = 0; i < offsets.length; i += 3) {
+            targets.add(new BlockPos(originX + offsets[i], originY + offsets[i + 1], originZ + offsets[i + 2]));
         }
         return true;
     }
 
-    private static double scoreBlueprint(TownArea area, int originX, int originZ, LotCandidate lot, TownBlueprint blueprint, BuildIntent intent, int usedCount, int districtUsedCount) {
+    /**
+     * Placement score before usage penalties, which depend on what the plan
+     * has already placed and are applied in {@link #chooseLotPlacement}.
+     */
+    private static double scoreBlueprint(TownArea area, int originX, int originZ, LotCandidate lot, TownBlueprint blueprint, BuildIntent intent) {
         int plotCenterX = originX + Math.max(0, blueprint.plotWidth() / 2);
         int plotCenterZ = originZ + Math.max(0, blueprint.plotDepth() / 2);
         int entranceX = originX + blueprint.entranceOffsetX();
@@ -457,8 +819,6 @@ public final class TownPlanner {
         }
 
         if (!blueprint.roadSide().isBlank() && roadSideScore < 0.5) score -= 8.0;
-        score -= usedCount       * 14.0;   // penalise repeated same blueprint
-        score -= districtUsedCount *  4.0;  // penalise same district type saturation
         // Tiny deterministic jitter to break exact ties consistently
         score += Math.floorMod(originX * 17 + originZ * 13 + blueprint.name().hashCode(), 11) / 100.0;
         return score;
@@ -587,43 +947,35 @@ public final class TownPlanner {
             && endZ <= area.maxZ() - SCAN_INSET;
     }
 
-    private static boolean isPlotClear(ServerWorld world, int originX, int baseY, int originZ, TownBlueprint blueprint) {
-        int topY = baseY + Math.max(2, blueprint.height() + 1);
-        for (int x = originX; x < originX + blueprint.plotWidth(); x++) {
-            for (int z = originZ; z < originZ + blueprint.plotDepth(); z++) {
-                BlockPos groundPos = new BlockPos(x, baseY, z);
-                BlockState ground = world.getBlockState(groundPos);
-                if (ground.getCollisionShape(world, groundPos).isEmpty() || !ground.getFluidState().isEmpty()) {
-                    return false;
-                }
-                for (int y = baseY + 1; y <= topY; y++) {
-                    BlockPos pos = new BlockPos(x, y, z);
-                    BlockState state = world.getBlockState(pos);
-                    if (!state.isAir() && !state.isReplaceable()) {
-                        return false;
-                    }
-                }
-            }
+    /**
+     * Columns no new plot may touch. Streets, finished districts and caller
+     * reservations are fixed for the whole plan, so they are frozen into
+     * prefix sums; plots taken by this plan go into a bitmap. Both cover the
+     * area's box, which {@link #fitsBounds} keeps every padded plot inside.
+     */
+    private static final class LotReservations {
+        private final OccupancyGrid.PrefixSums fixed;
+        private final OccupancyGrid placed;
+
+        private LotReservations(TownArea area, Set<Long> reservedColumns) {
+            OccupancyGrid grid = new OccupancyGrid(area.minX(), area.maxX(), area.minZ(), area.maxZ());
+            grid.setColumns(area.streetCells());
+            grid.setColumns(area.builtColumns());
+            grid.setColumns(reservedColumns);
+            this.fixed = grid.prefixSums();
+            this.placed = new OccupancyGrid(area.minX(), area.maxX(), area.minZ(), area.maxZ());
         }
-        return true;
-    }
 
-    private static boolean isReserved(int originX, int originZ, int width, int depth, Set<Long> reserved, int spacing) {
-        for (int x = originX - spacing; x < originX + width + spacing; x++) {
-            for (int z = originZ - spacing; z < originZ + depth + spacing; z++) {
-                if (reserved.contains(columnKey(x, z))) {
-                    return true;
-                }
-            }
+        private boolean isFixedReserved(int originX, int originZ, int width, int depth, int spacing) {
+            return fixed.anyInRect(originX - spacing, originZ - spacing, originX + width - 1 + spacing, originZ + depth - 1 + spacing);
         }
-        return false;
-    }
 
-    private static void reservePlot(Set<Long> reserved, int originX, int originZ, int width, int depth, int spacing) {
-        for (int x = originX - spacing; x < originX + width + spacing; x++) {
-            for (int z = originZ - spacing; z < originZ + depth + spacing; z++) {
-                reserved.add(columnKey(x, z));
-            }
+        private boolean isPlaced(int originX, int originZ, int width, int depth, int spacing) {
+            return placed.anyInRect(originX - spacing, originZ - spacing, originX + width - 1 + spacing, originZ + depth - 1 + spacing);
+        }
+
+        private void reserve(int originX, int originZ, int width, int depth, int spacing) {
+            placed.setRect(originX - spacing, originZ - spacing, originX + width - 1 + spacing, originZ + depth - 1 + spacing);
         }
     }
 
@@ -659,6 +1011,20 @@ public final class TownPlanner {
         return (((long) x) << 32) ^ (z & 0xffffffffL);
     }
 
+    /**
+     * Column keys, in the planner's own encoding, of every target; pass them
+     * back as {@code reservedColumns} to keep a later plan off these cells.
+     */
+    public static Set<Long> occupiedColumns(List<BlockPos> targets) {
+        Set<Long> columns = new HashSet<>();
+        if (targets != null) {
+            for (BlockPos target : targets) {
+                columns.add(columnKey(target.getX(), target.getZ()));
+            }
+        }
+        return columns;
+    }
+
     private static boolean isRoadLikeSurface(BlockState state) {
         if (state == null || state.isAir() || !state.getFluidState().isEmpty()) {
             return false;
@@ -684,7 +1050,7 @@ public final class TownPlanner {
      * elevated selections to an unrelated surface.
      */
     private static int resolveSurfaceBaseY(
-        ServerWorld world,
+        WorldAreaSnapshot world,
         int minX,
         int maxX,
         int minZ,
@@ -698,7 +1064,7 @@ public final class TownPlanner {
             int x = sampledCoordinate(minX, maxX, ix, samplesX);
             for (int iz = 0; iz < samplesZ; iz++) {
                 int z = sampledCoordinate(minZ, maxZ, iz, samplesZ);
-                int surfaceY = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z) - 1;
+                int surfaceY = world.surfaceTopY(x, z) - 1;
                 if (surfaceY < world.getBottomY() || Math.abs(surfaceY - selectedY) > SURFACE_SNAP_RANGE) {
                     continue;
                 }
@@ -720,7 +1086,53 @@ public final class TownPlanner {
         return min + (int) Math.round((max - min) * progress);
     }
 
-    private record PlotPlacement(TownBlueprint blueprint, LotCandidate lot, int originX, int originZ, double score, BuildIntent intent) {
+    private record PlotPlacement(TownBlueprintRotations.Oriented oriented, LotCandidate lot, int originX, int originZ, double score, BuildIntent intent) {
+        private TownBlueprint blueprint() {
+            return oriented.blueprint();
+        }
+    }
+
+    private record LotOptions(LotCandidate lot, BuildIntent intent, List<ScoredCandidate> candidates) {
+    }
+
+    private record ScoredCandidate(
+        String name,
+        TownBlueprintRotations.Oriented oriented,
+        int originX,
+        int originZ,
+        String districtType,
+        boolean civic,
+        double baseScore
+    ) {
+        private TownBlueprint blueprint() {
+            return oriented.blueprint();
+        }
+    }
+
+    private static final class ScoreLotsTask extends RecursiveAction {
+        private static final int LEAF_LOTS = 4;
+
+        private final int from;
+        private final int to;
+        private final IntConsumer scoreLot;
+
+        private ScoreLotsTask(int from, int to, IntConsumer scoreLot) {
+            this.from = from;
+            this.to = to;
+            this.scoreLot = scoreLot;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_LOTS) {
+                for (int i = from; i < to; i++) {
+                    scoreLot.accept(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreLotsTask(from, mid, scoreLot), new ScoreLotsTask(mid, to, scoreLot));
+        }
     }
 
     private record LotCandidate(
@@ -738,6 +1150,50 @@ public final class TownPlanner {
     private record RoadNode(int x, int z, boolean primary) {
     }
 
+    /**
+     * Town area analysed once and shared by every plan over the same
+     * selection. Finished builds are folded in with {@link #recordPlacements}
+     * rather than rescanning the area. Plans read an immutable state, so the
+     * model may be handed to a background planner while the server thread
+     * keeps updating it.
+     */
+    public static final class AreaModel {
+        private volatile TownArea area;
+
+        private AreaModel(TownArea area) {
+            this.area = area;
+        }
+
+        public int baseY() {
+            return area.baseY();
+        }
+
+        public int builtColumns() {
+            return area.builtColumns().size();
+        }
+
+        /**
+         * Record blocks that are now in the world. Later plans see them in
+         * the area snapshot and keep their plots off these columns.
+         */
+        public synchronized void recordPlacements(List<BlockPos> targets, List<BlockState> states) {
+            if (targets == null || targets.isEmpty()) {
+                return;
+            }
+            area = area.withPlacements(targets, states);
+        }
+
+        private TownArea current() {
+            return area;
+        }
+    }
+
+    public record AreaCapture(WorldAreaSnapshot snapshot, BlockPos from, BlockPos to) {
+        public AreaModel analyze() {
+            return new AreaModel(TownArea.analyze(snapshot, from, to, List.of()));
+        }
+    }
+
     public record IntentSuggestion(boolean ok, String message, BuildIntent intent, BuildIntentContext context) {
         private static IntentSuggestion ok(String message, BuildIntent intent, BuildIntentContext context) {
             return new IntentSuggestion(true, message, intent, context);
@@ -749,7 +1205,7 @@ public final class TownPlanner {
     }
 
     private record TownArea(
-        ServerWorld world,
+        WorldAreaSnapshot snapshot,
         int minX,
         int maxX,
         int minZ,
@@ -766,9 +1222,10 @@ public final class TownPlanner {
         boolean syntheticRoads,
         BuildSiteScan siteScan,
         SiteStyleProfile styleProfile,
-        LearnedStyleHint learnedStyleHint
+        LearnedStyleHint learnedStyleHint,
+        Set<Long> builtColumns
     ) {
-        private static TownArea analyze(ServerWorld world, BlockPos from, BlockPos to, List<TownZoneStore.Zone> zones) {
+        private static TownArea analyze(WorldAreaSnapshot world, BlockPos from, BlockPos to, List<TownZoneStore.Zone> zones) {
             int minX = Math.min(from.getX(), to.getX());
             int maxX = Math.max(from.getX(), to.getX());
             int minZ = Math.min(from.getZ(), to.getZ());
@@ -779,7 +1236,7 @@ public final class TownPlanner {
             LinkedHashSet<Long> scannedRoads = new LinkedHashSet<>();
             for (int x = minX; x <= maxX; x++) {
                 for (int z = minZ; z <= maxZ; z++) {
-                    if (isRoadLikeSurface(world.getBlockState(new BlockPos(x, baseY, z)))) {
+                    if (isRoadLikeSurface(world.blockStateAt(x, baseY, z))) {
                         scannedRoads.add(columnKey(x, z));
                     }
                 }
@@ -814,7 +1271,7 @@ public final class TownPlanner {
             LearnedStyleHint learnedStyle = BladelowLearning.styleMemory().suggest(siteScan);
             BladelowLearning.environmentLogger().recordScan(
                 "town_planner",
-                world,
+                world.world(),
                 new BlockPos(minX, baseY, minZ),
                 new BlockPos(maxX, baseY, maxZ),
                 siteScan
@@ -838,7 +1295,27 @@ public final class TownPlanner {
                 synthetic,
                 siteScan,
                 style,
-                learnedStyle
+                learnedStyle,
+                Set.of()
+            );
+        }
+
+        private TownArea withZones(List<TownZoneStore.Zone> zones) {
+            return new TownArea(
+                snapshot, minX, maxX, minZ, maxZ, baseY, centerX, centerZ,
+                roadCells, plazaCells, streetCells, orderedRoads, gateCells,
+                List.copyOf(filterZones(zones, minX, maxX, minZ, maxZ)),
+                syntheticRoads, siteScan, styleProfile, learnedStyleHint, builtColumns
+            );
+        }
+
+        private TownArea withPlacements(List<BlockPos> targets, List<BlockState> states) {
+            Set<Long> built = new HashSet<>(builtColumns);
+            built.addAll(occupiedColumns(targets));
+            return new TownArea(
+                snapshot.withBlocks(targets, states), minX, maxX, minZ, maxZ, baseY, centerX, centerZ,
+                roadCells, plazaCells, streetCells, orderedRoads, gateCells, zones,
+                syntheticRoads, siteScan, styleProfile, learnedStyleHint, Set.copyOf(built)
             );
         }
 
@@ -1269,4 +1746,15 @@ public final class TownPlanner {
 
     private record LotLockScope(UUID playerId, String worldId) {
     }
+
+    /**
+     * Side effects a plan has once it is used: the lots it locks and the
+     * placement examples it logs. See {@link #claim}.
+     */
+    public record LotClaim(UUID playerId, ServerWorld world, List<String> lotIds, List<Placement> placements) {
+        public static final LotClaim NONE = new LotClaim(null, null, List.of(), List.of());
+
+        public record Placement(BuildIntentContext context, TownBlueprint blueprint) {
+        }
+    }
 }
@@ -0,0 +1,285 @@
+package com.bladelow.builder;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of the block states and surface heights of one world box.
+ *
+ * Captured on the server thread by copying the paletted block containers of
+ * the chunk sections involved, which is cheap compared with the reads a town
+ * plan performs. Planning code can then read it from any thread. Reads
+ * outside the captured box see air. Blocks placed since the capture can be
+ * layered on with {@link #withBlocks}; surface heights stay as captured.
+ *
+ * {@link #world()} is kept for identity (registry key, logging) only; never
+ * read blocks from it off the server thread.
+ */
+public final class WorldAreaSnapshot implements BlockView {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private final ServerWorld world;
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final int minZ;
+    private final int maxZ;
+    private final int bottomY;
+    private final int height;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int minSectionY;
+    private final int chunksX;
+    private final int chunksZ;
+    private final int sectionsY;
+    private final PalettedContainer<BlockState>[] sections;
+    private final int[] surfaceTopY;
+    // Blocks layered on since capture, grouped by chunk section so that
+    // adding a batch copies only the sections it touches. Never mutated once
+    // the snapshot holding it is built.
+    private final Map<Long, Map<Long, BlockState>> overlay;
+
+    private WorldAreaSnapshot(ServerWorld world, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        this.world = world;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.bottomY = world.getBottomY();
+        this.height = world.getHeight();
+        this.minChunkX = ChunkSectionPos.getSectionCoord(minX);
+        this.minChunkZ = ChunkSectionPos.getSectionCoord(minZ);
+        this.minSectionY = ChunkSectionPos.getSectionCoord(minY);
+        this.chunksX = ChunkSectionPos.getSectionCoord(maxX) - minChunkX + 1;
+        this.chunksZ = ChunkSectionPos.getSectionCoord(maxZ) - minChunkZ + 1;
+        this.sectionsY = ChunkSectionPos.getSectionCoord(maxY) - minSectionY + 1;
+        @SuppressWarnings("unchecked")
+        PalettedContainer<BlockState>[] copied = new PalettedContainer[chunksX * chunksZ * sectionsY];
+        this.sections = copied;
+        this.surfaceTopY = new int[(maxX - minX + 1) * (maxZ - minZ + 1)];
+        this.overlay = Map.of();
+    }
+
+    private WorldAreaSnapshot(WorldAreaSnapshot base, Map<Long, Map<Long, BlockState>> overlay) {
+        this.world = base.world;
+        this.minX = base.minX;
+        this.maxX = base.maxX;
+        this.minY = base.minY;
+        this.maxY = base.maxY;
+        this.minZ = base.minZ;
+        this.maxZ = base.maxZ;
+        this.bottomY = base.bottomY;
+        this.height = base.height;
+        this.minChunkX = base.minChunkX;
+        this.minChunkZ = base.minChunkZ;
+        this.minSectionY = base.minSectionY;
+        this.chunksX = base.chunksX;
+        this.chunksZ = base.chunksZ;
+        this.sectionsY = base.sectionsY;
+        // Section copies are never written after capture, so they are shared.
+        this.sections = base.sections;
+        this.surfaceTopY = base.surfaceTopY;
+        this.overlay = overlay;
+    }
+
+    /**
+     * Capture the inclusive box on the server thread. Y is clamped to the
+     * world's build height; chunks are loaded the same way a direct
+     * {@code getBlockState} scan would load them.
+     */
+    public static WorldAreaSnapshot capture(ServerWorld world, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        if (world == null) {
+            throw new IllegalArgumentException("world is required");
+        }
+        int worldTop = world.getBottomY() + world.getHeight() - 1;
+        int clampedMinY = Math.max(world.getBottomY(), Math.min(minY, maxY));
+        int clampedMaxY = Math.min(worldTop, Math.max(minY, maxY));
+        if (clampedMaxY < clampedMinY) {
+            clampedMaxY = clampedMinY;
+        }
+        WorldAreaSnapshot snapshot = new WorldAreaSnapshot(
+            world,
+            Math.min(minX, maxX),
+            Math.max(minX, maxX),
+            clampedMinY,
+            clampedMaxY,
+            Math.min(minZ, maxZ),
+            Math.max(minZ, maxZ)
+        );
+        snapshot.copySections();
+        snapshot.copySurface();
+        return snapshot;
+    }
+
+    /**
+     * A snapshot that also reads {@code states[i]} at {@code positions[i]};
+     * positions outside the captured box are ignored. Costs the number of
+     * sections already layered plus the blocks of the touched sections, not
+     * everything layered so far.
+     */
+    public WorldAreaSnapshot withBlocks(List<BlockPos> positions, List<BlockState> states) {
+        if (positions == null || states == null || positions.isEmpty()) {
+            return this;
+        }
+        Map<Long, Map<Long, BlockState>> merged = new HashMap<>(overlay);
+        Set<Long> copied = new HashSet<>();
+        int count = Math.min(positions.size(), states.size());
+        for (int i = 0; i < count; i++) {
+            BlockPos pos = positions.get(i);
+            BlockState state = states.get(i);
+            if (pos == null || state == null || !contains(pos.getX(), pos.getY(), pos.getZ())) {
+                continue;
+            }
+            long sectionKey = sectionKey(pos.getX(), pos.getY(), pos.getZ());
+            Map<Long, BlockState> section = merged.get(sectionKey);
+            if (copied.add(sectionKey)) {
+                // Earlier snapshots share the old map; copy it once per batch.
+                section = section == null ? new HashMap<>() : new HashMap<>(section);
+                merged.put(sectionKey, section);
+            }
+            section.put(pos.asLong(), state);
+        }
+        if (copied.isEmpty()) {
+            return this;
+        }
+        return new WorldAreaSnapshot(this, merged);
+    }
+
+    public ServerWorld world() {
+        return world;
+    }
+
+    public String worldId() {
+        return world.getRegistryKey().getValue().toString();
+    }
+
+    public int minY() {
+        return minY;
+    }
+
+    public int maxY() {
+        return maxY;
+    }
+
+    /**
+     * Equivalent of {@code world.getTopY(MOTION_BLOCKING_NO_LEAVES, x, z)} at
+     * capture time; the world's bottom Y outside the captured columns.
+     */
+    public int surfaceTopY(int x, int z) {
+        if (x < minX || x > maxX || z < minZ || z > maxZ) {
+            return bottomY;
+        }
+        return surfaceTopY[(x - minX) * (maxZ - minZ + 1) + (z - minZ)];
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        return blockStateAt(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public BlockState blockStateAt(int x, int y, int z) {
+        if (!contains(x, y, z)) {
+            return AIR;
+        }
+        if (!overlay.isEmpty()) {
+            Map<Long, BlockState> section = overlay.get(sectionKey(x, y, z));
+            BlockState placed = section == null ? null : section.get(BlockPos.asLong(x, y, z));
+            if (placed != null) {
+                return placed;
+            }
+        }
+        int cx = ChunkSectionPos.getSectionCoord(x) - minChunkX;
+        int cz = ChunkSectionPos.getSectionCoord(z) - minChunkZ;
+        int sy = ChunkSectionPos.getSectionCoord(y) - minSectionY;
+        PalettedContainer<BlockState> container = sections[sectionIndex(cx, sy, cz)];
+        if (container == null) {
+            return AIR;
+        }
+        return container.get(x & 15, y & 15, z & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+
+    private static long sectionKey(int x, int y, int z) {
+        return ChunkSectionPos.asLong(
+            ChunkSectionPos.getSectionCoord(x),
+            ChunkSectionPos.getSectionCoord(y),
+            ChunkSectionPos.getSectionCoord(z)
+        );
+    }
+
+    private boolean contains(int x, int y, int z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    private void copySections() {
+        for (int cx = 0; cx < chunksX; cx++) {
+            for (int cz = 0; cz < chunksZ; cz++) {
+                WorldChunk chunk = world.getChunk(minChunkX + cx, minChunkZ + cz);
+                ChunkSection[] chunkSections = chunk.getSectionArray();
+                for (int sy = 0; sy < sectionsY; sy++) {
+                    int index = chunk.sectionCoordToIndex(minSectionY + sy);
+                    if (index < 0 || index >= chunkSections.length) {
+                        continue;
+                    }
+                    ChunkSection section = chunkSections[index];
+                    if (section == null || section.isEmpty()) {
+                        // All-air sections stay null and read as air.
+                        continue;
+                    }
+                    sections[sectionIndex(cx, sy, cz)] = section.getBlockStateContainer().copy();
+                }
+            }
+        }
+    }
+
+    private void copySurface() {
+        int depth = maxZ - minZ + 1;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                surfaceTopY[(x - minX) * depth + (z - minZ)] = world.getTopY(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, x, z);
+            }
+        }
+    }
+
+    private int sectionIndex(int cx, int sy, int cz) {
+        return (cx * chunksZ + cz) * sectionsY + sy;
+    }
+}
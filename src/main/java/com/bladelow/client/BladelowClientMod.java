@@ -5,9 +5,11 @@ import com.bladelow.network.HudAction;
 import com.bladelow.network.HudCommandBridge;
 import com.bladelow.network.HudCommandPayload;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientChunkEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
 import net.fabricmc.fabric.api.client.message.v1.ClientReceiveMessageEvents;
 import net.fabricmc.fabric.api.client.message.v1.ClientSendMessageEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
@@ -44,6 +46,26 @@ public class BladelowClientMod implements ClientModInitializer {
             KeyBinding.Category.MISC
         ));
 
+        HudCommandBridge.registerClient(
+            BladelowHudTelemetry::applyTelemetry,
+            BladelowPreviewGeometry::accept,
+            BladelowHudTelemetry::applyAck
+        );
+        BladelowSelectionOverlay.register();
+        BladelowGhostRenderer.register();
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            BladelowHudTelemetry.resetConnection();
+            BladelowPreviewGeometry.reset();
+            BladelowPlanningMap.reset();
+            BladelowSelectionOverlay.reset();
+            BladelowGhostRenderer.reset();
+        });
+        ClientChunkEvents.CHUNK_LOAD.register((world, chunk) ->
+            BladelowPlanningMap.markDirty(chunk.getPos().x, chunk.getPos().z)
+        );
+        ClientChunkEvents.CHUNK_UNLOAD.register((world, chunk) ->
+            BladelowPlanningMap.forget(chunk.getPos().x, chunk.getPos().z)
+        );
         ClientReceiveMessageEvents.CHAT.register((message, signedMessage, sender, params, timestamp) ->
             BladelowHudTelemetry.recordServerMessage(message.getString())
         );
@@ -102,6 +124,7 @@ public class BladelowClientMod implements ClientModInitializer {
             return;
         }
         BladelowSelectionOverlay.tick(client);
+        BladelowPlanningMap.tick(client);
 
         while (openHudKey.wasPressed()) {
             if (client.currentScreen instanceof BladelowHudScreen) {
@@ -0,0 +1,429 @@
+package com.bladelow.client;
+
+import net.fabricmc.fabric.api.client.rendering.v1.world.WorldRenderContext;
+import net.fabricmc.fabric.api.client.rendering.v1.world.WorldRenderEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.RenderLayers;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translucent in-world ghost of the current build preview.
+ *
+ * The streamed {@link BladelowPreviewGeometry} is split into 16^3 sections.
+ * Each section keeps a packed quad mesh per level of detail, built lazily
+ * the first time it is needed and kept until the preview changes:
+ * <ul>
+ *   <li>near: every block face not hidden by another preview block,</li>
+ *   <li>mid: only the top face of each column within the section,</li>
+ *   <li>far: the section's occupied bounds as lines.</li>
+ * </ul>
+ * Sections are drawn nearest first under a per-frame quad budget, and at
+ * most a few meshes are built per frame so a district-sized preview fades in
+ * instead of stalling a frame.
+ */
+public final class BladelowGhostRenderer {
+    private static final int SECTION_SHIFT = 4;
+    private static final double NEAR_DISTANCE = 48.0;
+    private static final double MID_DISTANCE = 160.0;
+    private static final double MAX_DISTANCE = 512.0;
+    private static final int MAX_QUADS_PER_FRAME = 48_000;
+    private static final int MAX_BUILDS_PER_FRAME = 6;
+    // Face culling needs an occupancy bitmap; huge sparse previews skip it.
+    private static final long MAX_OCCUPANCY_CELLS = 1L << 24;
+    private static final int FACE_ALPHA = 0x70;
+    private static final int OUTLINE_COLOR = 0xA0B8E0FF;
+    private static final float LINE_WIDTH = 1.5f;
+
+    private static final int LOD_NEAR = 0;
+    private static final int LOD_MID = 1;
+    private static final int LOD_FAR = 2;
+
+    private static BladelowPreviewGeometry.Geometry source;
+    private static List<Section> sections = List.of();
+    private static BitSet occupancy;
+
+    private BladelowGhostRenderer() {
+    }
+
+    public static void register() {
+        WorldRenderEvents.BEFORE_DEBUG_RENDER.register(BladelowGhostRenderer::render);
+    }
+
+    public static void reset() {
+        source = null;
+        sections = List.of();
+        occupancy = null;
+    }
+
+    private static void render(WorldRenderContext context) {
+        BladelowPreviewGeometry.Geometry geometry = BladelowPreviewGeometry.current();
+        if (geometry != source) {
+            rebuild(geometry);
+        }
+        if (sections.isEmpty() || context.consumers() == null) {
+            return;
+        }
+        BladelowViewCone cone = BladelowViewCone.of(context);
+        List<Section> visible = new ArrayList<>();
+        for (Section section : sections) {
+            section.distance = cone.distanceTo(section.centerX(), section.centerY(), section.centerZ());
+            if (cone.sees(section.centerX(), section.centerY(), section.centerZ(), section.radius(), MAX_DISTANCE)) {
+                visible.add(section);
+            }
+        }
+        if (visible.isEmpty()) {
+            return;
+        }
+        visible.sort(Comparator.comparingDouble(section -> section.distance));
+
+        Vec3d cameraPos = context.worldState().cameraRenderState.pos;
+        MatrixStack matrices = context.matrices();
+        matrices.push();
+        matrices.translate(
+            source.minX() - cameraPos.x,
+            source.minY() - cameraPos.y,
+            source.minZ() - cameraPos.z
+        );
+        MatrixStack.Entry entry = matrices.peek();
+        Matrix4f matrix = entry.getPositionMatrix();
+        VertexConsumer quads = context.consumers().getBuffer(RenderLayers.debugQuads());
+        int quadBudget = MAX_QUADS_PER_FRAME;
+        int buildBudget = MAX_BUILDS_PER_FRAME;
+        List<Section> outlines = new ArrayList<>();
+        for (Section section : visible) {
+            int lod = section.distance < NEAR_DISTANCE ? LOD_NEAR : section.distance < MID_DISTANCE ? LOD_MID : LOD_FAR;
+            if (lod == LOD_FAR || quadBudget <= 0) {
+                outlines.add(section);
+                continue;
+            }
+            Mesh mesh = section.meshes[lod];
+            if (mesh == null && buildBudget > 0) {
+                mesh = section.build(lod);
+                buildBudget--;
+            }
+            if (mesh == null) {
+                // Not built yet: show a coarser mesh if one exists.
+                mesh = section.meshes[LOD_MID];
+            }
+            if (mesh == null || mesh.count() > quadBudget) {
+                outlines.add(section);
+                continue;
+            }
+            emit(quads, matrix, mesh);
+            quadBudget -= mesh.count();
+        }
+        if (!outlines.isEmpty()) {
+            VertexConsumer lines = context.consumers().getBuffer(RenderLayers.lines());
+            for (Section section : outlines) {
+                emitBounds(lines, entry, section);
+            }
+        }
+        matrices.pop();
+    }
+
+    private static void emit(VertexConsumer quads, Matrix4f matrix, Mesh mesh) {
+        float[] coords = mesh.coords();
+        int[] colors = mesh.colors();
+        for (int q = 0; q < mesh.count(); q++) {
+            int base = q * 12;
+            int color = colors[q];
+            for (int v = 0; v < 4; v++) {
+                int at = base + v * 3;
+                quads.vertex(matrix, coords[at], coords[at + 1], coords[at + 2]).color(color);
+            }
+        }
+    }
+
+    private static void emitBounds(VertexConsumer lines, MatrixStack.Entry entry, Section section) {
+        float x1 = section.minX;
+        float y1 = section.minY;
+        float z1 = section.minZ;
+        float x2 = section.maxX + 1;
+        float y2 = section.maxY + 1;
+        float z2 = section.maxZ + 1;
+        for (float y : new float[] {y1, y2}) {
+            line(lines, entry, x1, y, z1, x2, y, z1);
+            line(lines, entry, x1, y, z2, x2, y, z2);
+            line(lines, entry, x1, y, z1, x1, y, z2);
+            line(lines, entry, x2, y, z1, x2, y, z2);
+        }
+        line(lines, entry, x1, y1, z1, x1, y2, z1);
+        line(lines, entry, x2, y1, z1, x2, y2, z1);
+        line(lines, entry, x1, y1, z2, x1, y2, z2);
+        line(lines, entry, x2, y1, z2, x2, y2, z2);
+    }
+
+    private static void line(VertexConsumer lines, MatrixStack.Entry entry, float x1, float y1, float z1, float x2, float y2, float z2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float dz = z2 - z1;
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        dx /= length;
+        dy /= length;
+        dz /= length;
+        lines.vertex(entry, x1, y1, z1).color(OUTLINE_COLOR).normal(entry, dx, dy, dz).lineWidth(LINE_WIDTH);
+        lines.vertex(entry, x2, y2, z2).color(OUTLINE_COLOR).normal(entry, dx, dy, dz).lineWidth(LINE_WIDTH);
+    }
+
+    /**
+     * Bucket the preview blocks by section. Meshes are built later, on
+     * demand, so a new preview costs one linear pass here.
+     */
+    private static void rebuild(BladelowPreviewGeometry.Geometry geometry) {
+        source = geometry;
+        occupancy = null;
+        if (geometry == null || geometry.count() == 0) {
+            sections = List.of();
+            return;
+        }
+        long sizeX = geometry.maxX() - geometry.minX() + 1L;
+        long sizeY = geometry.maxY() - geometry.minY() + 1L;
+        long sizeZ = geometry.maxZ() - geometry.minZ() + 1L;
+        if (sizeX * sizeY * sizeZ <= MAX_OCCUPANCY_CELLS) {
+            occupancy = new BitSet((int) (sizeX * sizeY * sizeZ));
+        }
+        Map<Long, Section> byKey = new HashMap<>();
+        for (int i = 0; i < geometry.count(); i++) {
+            if (geometry.state(i).isAir()) {
+                continue;
+            }
+            int x = geometry.x(i);
+            int y = geometry.y(i);
+            int z = geometry.z(i);
+            if (occupancy != null) {
+                occupancy.set(cellIndex(geometry, x, y, z));
+            }
+            long key = sectionKey(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT);
+            byKey.computeIfAbsent(key, k -> new Section()).add(i, x, y, z);
+        }
+        List<Section> built = new ArrayList<>(byKey.size());
+        for (Section section : byKey.values()) {
+            section.seal(geometry);
+            built.add(section);
+        }
+        sections = built;
+    }
+
+    private static boolean occupied(int x, int y, int z) {
+        BladelowPreviewGeometry.Geometry geometry = source;
+        if (occupancy == null
+            || x < geometry.minX() || y < geometry.minY() || z < geometry.minZ()
+            || x > geometry.maxX() || y > geometry.maxY() || z > geometry.maxZ()) {
+            return false;
+        }
+        return occupancy.get(cellIndex(geometry, x, y, z));
+    }
+
+    private static int cellIndex(BladelowPreviewGeometry.Geometry geometry, int x, int y, int z) {
+        int sizeX = geometry.maxX() - geometry.minX() + 1;
+        int sizeZ = geometry.maxZ() - geometry.minZ() + 1;
+        return (x - geometry.minX()) + sizeX * ((z - geometry.minZ()) + sizeZ * (y - geometry.minY()));
+    }
+
+    private static long sectionKey(int sx, int sy, int sz) {
+        return ((long) sx & 0x3FFFFFL) | (((long) sz & 0x3FFFFFL) << 22) | (((long) sy & 0xFFFFFL) << 44);
+    }
+
+    private static int shade(int rgb, int percent) {
+        int r = ((rgb >> 16) & 0xFF) * percent / 100;
+        int g = ((rgb >> 8) & 0xFF) * percent / 100;
+        int b = (rgb & 0xFF) * percent / 100;
+        return FACE_ALPHA << 24 | r << 16 | g << 8 | b;
+    }
+
+    /**
+     * Packed quads: twelve floats (four corners) per quad relative to the
+     * preview origin, one ARGB colour each.
+     */
+    private record Mesh(float[] coords, int[] colors, int count) {
+    }
+
+    private static final class Section {
+        private int[] blocks = new int[16];
+        private int blockCount;
+        private int minX = Integer.MAX_VALUE;
+        private int minY = Integer.MAX_VALUE;
+        private int minZ = Integer.MAX_VALUE;
+        private int maxX = Integer.MIN_VALUE;
+        private int maxY = Integer.MIN_VALUE;
+        private int maxZ = Integer.MIN_VALUE;
+        private int worldMinX;
+        private int worldMinY;
+        private int worldMinZ;
+        private final Mesh[] meshes = new Mesh[2];
+        private double distance;
+
+        private void add(int index, int x, int y, int z) {
+            if (blockCount == blocks.length) {
+                blocks = Arrays.copyOf(blocks, blockCount * 2);
+            }
+            blocks[blockCount++] = index;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        /**
+         * Switch the bounds to preview-relative coordinates, matching the
+         * mesh space.
+         */
+        private void seal(BladelowPreviewGeometry.Geometry geometry) {
+            blocks = Arrays.copyOf(blocks, blockCount);
+            worldMinX = minX;
+            worldMinY = minY;
+            worldMinZ = minZ;
+            minX -= geometry.minX();
+            maxX -= geometry.minX();
+            minY -= geometry.minY();
+            maxY -= geometry.minY();
+            minZ -= geometry.minZ();
+            maxZ -= geometry.minZ();
+        }
+
+        private double centerX() {
+            return worldMinX + (maxX - minX + 1) * 0.5;
+        }
+
+        private double centerY() {
+            return worldMinY + (maxY - minY + 1) * 0.5;
+        }
+
+        private double centerZ() {
+            return worldMinZ + (maxZ - minZ + 1) * 0.5;
+        }
+
+        private double radius() {
+            double dx = maxX - minX + 1;
+            double dy = maxY - minY + 1;
+            double dz = maxZ - minZ + 1;
+            return Math.sqrt(dx * dx + dy * dy + dz * dz) * 0.5;
+        }
+
+        private Mesh build(int lod) {
+            Mesh mesh = lod == LOD_NEAR ? buildFaces() : buildTops();
+            meshes[lod] = mesh;
+            return mesh;
+        }
+
+        private Mesh buildFaces() {
+            BladelowPreviewGeometry.Geometry geometry = source;
+            MeshBuilder out = new MeshBuilder(blockCount * 2);
+            for (int b = 0; b < blockCount; b++) {
+                int i = blocks[b];
+                int x = geometry.x(i);
+                int y = geometry.y(i);
+                int z = geometry.z(i);
+                int rgb = mapColor(geometry.state(i));
+                float lx = x - geometry.minX();
+                float ly = y - geometry.minY();
+                float lz = z - geometry.minZ();
+                if (!occupied(x, y + 1, z)) {
+                    out.quad(lx, ly + 1, lz, lx, ly + 1, lz + 1, lx + 1, ly + 1, lz + 1, lx + 1, ly + 1, lz, shade(rgb, 100));
+                }
+                if (!occupied(x, y - 1, z)) {
+                    out.quad(lx, ly, lz, lx + 1, ly, lz, lx + 1, ly, lz + 1, lx, ly, lz + 1, shade(rgb, 50));
+                }
+                if (!occupied(x, y, z - 1)) {
+                    out.quad(lx, ly, lz, lx, ly + 1, lz, lx + 1, ly + 1, lz, lx + 1, ly, lz, shade(rgb, 80));
+                }
+                if (!occupied(x, y, z + 1)) {
+                    out.quad(lx, ly, lz + 1, lx + 1, ly, lz + 1, lx + 1, ly + 1, lz + 1, lx, ly + 1, lz + 1, shade(rgb, 80));
+                }
+                if (!occupied(x - 1, y, z)) {
+                    out.quad(lx, ly, lz, lx, ly, lz + 1, lx, ly + 1, lz + 1, lx, ly + 1, lz, shade(rgb, 60));
+                }
+                if (!occupied(x + 1, y, z)) {
+                    out.quad(lx + 1, ly, lz, lx + 1, ly + 1, lz, lx + 1, ly + 1, lz + 1, lx + 1, ly, lz + 1, shade(rgb, 60));
+                }
+            }
+            return out.build();
+        }
+
+        private Mesh buildTops() {
+            BladelowPreviewGeometry.Geometry geometry = source;
+            // Highest block per column of this section, indexed lz * 16 + lx.
+            int[] top = new int[256];
+            Arrays.fill(top, -1);
+            for (int b = 0; b < blockCount; b++) {
+                int i = blocks[b];
+                int column = (geometry.z(i) & 15) << 4 | (geometry.x(i) & 15);
+                if (top[column] < 0 || geometry.y(i) > geometry.y(top[column])) {
+                    top[column] = i;
+                }
+            }
+            MeshBuilder out = new MeshBuilder(256);
+            for (int i : top) {
+                if (i < 0) {
+                    continue;
+                }
+                float lx = geometry.x(i) - geometry.minX();
+                float ly = geometry.y(i) - geometry.minY() + 1;
+                float lz = geometry.z(i) - geometry.minZ();
+                int color = shade(mapColor(geometry.state(i)), 100);
+                out.quad(lx, ly, lz, lx, ly, lz + 1, lx + 1, ly, lz + 1, lx + 1, ly, lz, color);
+            }
+            return out.build();
+        }
+
+        private static int mapColor(BlockState state) {
+            return state.getBlock().getDefaultMapColor().color;
+        }
+    }
+
+    private static final class MeshBuilder {
+        private float[] coords;
+        private int[] colors;
+        private int count;
+
+        private MeshBuilder(int expectedQuads) {
+            int capacity = Math.max(16, expectedQuads);
+            coords = new float[capacity * 12];
+            colors = new int[capacity];
+        }
+
+        private void quad(
+            float x1, float y1, float z1,
+            float x2, float y2, float z2,
+            float x3, float y3, float z3,
+            float x4, float y4, float z4,
+            int color
+        ) {
+            if (count == colors.length) {
+                colors = Arrays.copyOf(colors, count * 2);
+                coords = Arrays.copyOf(coords, count * 24);
+            }
+            int base = count * 12;
+            coords[base] = x1;
+            coords[base + 1] = y1;
+            coords[base + 2] = z1;
+            coords[base + 3] = x2;
+            coords[base + 4] = y2;
+            coords[base + 5] = z2;
+            coords[base + 6] = x3;
+            coords[base + 7] = y3;
+            coords[base + 8] = z3;
+            coords[base + 9] = x4;
+            coords[base + 10] = y4;
+            coords[base + 11] = z4;
+            colors[count++] = color;
+        }
+
+        private Mesh build() {
+            return new Mesh(Arrays.copyOf(coords, count * 12), Arrays.copyOf(colors, count), count);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.bladelow.client;
+
+import com.bladelow.BladelowMod;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Optional timing probe for the HUD screen.
+ *
+ * Each {@link Section} keeps its last {@link #CAPACITY} samples of wall time
+ * and bytes allocated by the measuring thread in lock-free rings: writers
+ * claim a slot with one atomic increment, so the raster worker and the
+ * render thread never wait on each other or on a reader. Readers copy a ring
+ * and tolerate a sample being overwritten mid-copy.
+ *
+ * A section is only ever measured from one thread, which is what lets the
+ * start marks live in plain arrays. Everything is a no-op while disabled.
+ */
+public final class BladelowHudProfiler {
+    private static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+    private static final Path EXPORT_PATH = Path.of("config", "bladelow", "hud-profile.csv");
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static final Ring[] RINGS = new Ring[Section.values().length];
+    private static final long[] START_NANOS = new long[Section.values().length];
+    private static final long[] START_BYTES = new long[Section.values().length];
+    private static volatile boolean enabled;
+
+    static {
+        for (int i = 0; i < RINGS.length; i++) {
+            RINGS[i] = new Ring();
+        }
+    }
+
+    public enum Section {
+        FRAME("frame"),
+        MAP_RASTER("map raster"),
+        MAP_DRAW("map draw"),
+        PANELS("panels"),
+        TOOLTIPS("tooltips");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+    }
+
+    /**
+     * p50/p99 wall time in nanoseconds and mean bytes allocated per sample,
+     * or -1 bytes when the JVM has no per-thread allocation counter.
+     */
+    public record Stats(Section section, int samples, long p50Nanos, long p99Nanos, long meanBytes) {
+    }
+
+    private BladelowHudProfiler() {
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static boolean toggle() {
+        enabled = !enabled;
+        // Drop start marks left by a begin whose end ran while disabled, so
+        // the next end cannot pair with a mark from the previous session.
+        Arrays.fill(START_NANOS, 0L);
+        Arrays.fill(START_BYTES, 0L);
+        if (enabled) {
+            for (Ring ring : RINGS) {
+                ring.clear();
+            }
+        }
+        return enabled;
+    }
+
+    public static void begin(Section section) {
+        if (!enabled) {
+            return;
+        }
+        int index = section.ordinal();
+        START_BYTES[index] = allocatedBytes();
+        START_NANOS[index] = System.nanoTime();
+    }
+
+    public static void end(Section section) {
+        if (!enabled) {
+            return;
+        }
+        int index = section.ordinal();
+        if (START_NANOS[index] == 0L) {
+            // Enabled between begin and end; the start mark is missing.
+            return;
+        }
+        long nanos = System.nanoTime() - START_NANOS[index];
+        long bytes = Math.max(0L, allocatedBytes() - START_BYTES[index]);
+        START_NANOS[index] = 0L;
+        RINGS[index].add(nanos, bytes);
+    }
+
+    public static Stats stats(Section section) {
+        long[][] copy = RINGS[section.ordinal()].copy();
+        long[] nanos = copy[0];
+        long[] bytes = copy[1];
+        if (nanos.length == 0) {
+            return new Stats(section, 0, 0L, 0L, 0L);
+        }
+        long totalBytes = 0L;
+        for (long value : bytes) {
+            totalBytes += value;
+        }
+        Arrays.sort(nanos);
+        return new Stats(
+            section,
+            nanos.length,
+            nanos[percentileIndex(nanos.length, 0.50)],
+            nanos[percentileIndex(nanos.length, 0.99)],
+            THREADS == null ? -1L : totalBytes / nanos.length
+        );
+    }
+
+    /**
+     * Write every buffered sample as CSV under the client config dir and
+     * return a one-line status.
+     */
+    public static String exportCsv() {
+        try {
+            Files.createDirectories(EXPORT_PATH.getParent());
+            Path tmp = EXPORT_PATH.resolveSibling(EXPORT_PATH.getFileName() + ".tmp");
+            int rows = 0;
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                out.write("section,sample,nanos,alloc_bytes");
+                out.newLine();
+                for (Section section : Section.values()) {
+                    long[][] copy = RINGS[section.ordinal()].copy();
+                    for (int i = 0; i < copy[0].length; i++) {
+                        out.write(section.name().toLowerCase(Locale.ROOT) + "," + i + "," + copy[0][i] + "," + copy[1][i]);
+                        out.newLine();
+                        rows++;
+                    }
+                }
+            }
+            try {
+                Files.move(tmp, EXPORT_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp, EXPORT_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return "Exported " + rows + " samples to " + EXPORT_PATH;
+        } catch (IOException ex) {
+            BladelowMod.LOGGER.warn("Bladelow HUD profile export failed", ex);
+            return "Profile export failed: " + ex.getMessage();
+        }
+    }
+
+    public static String format(Stats stats) {
+        return String.format(
+            Locale.ROOT,
+            "%-10s p50 %6.2fms p99 %6.2fms alloc %s",
+            stats.section().label(),
+            stats.p50Nanos() / 1_000_000.0,
+            stats.p99Nanos() / 1_000_000.0,
+            formatBytes(stats.meanBytes())
+        );
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 0L) {
+            return "n/a";
+        }
+        if (bytes < 1024L) {
+            return bytes + "B";
+        }
+        if (bytes < 1024L * 1024L) {
+            return String.format(Locale.ROOT, "%.1fKB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1fMB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static int percentileIndex(int size, double percentile) {
+        return Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS == null) {
+            return 0L;
+        }
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (RuntimeException | LinkageError ex) {
+            BladelowMod.LOGGER.debug("Bladelow HUD profiler has no allocation counter", ex);
+        }
+        return null;
+    }
+
+    private static final class Ring {
+        private final AtomicLongArray nanos = new AtomicLongArray(CAPACITY);
+        private final AtomicLongArray bytes = new AtomicLongArray(CAPACITY);
+        private final AtomicLong written = new AtomicLong();
+
+        private void add(long sampleNanos, long sampleBytes) {
+            int slot = (int) (written.getAndIncrement() & MASK);
+            nanos.set(slot, sampleNanos);
+            bytes.set(slot, sampleBytes);
+        }
+
+        private void clear() {
+            written.set(0L);
+        }
+
+        /**
+         * Samples oldest first.
+         */
+        private long[][] copy() {
+            long total = written.get();
+            int count = (int) Math.min(CAPACITY, total);
+            int first = total > CAPACITY ? (int) (total & MASK) : 0;
+            long[] outNanos = new long[count];
+            long[] outBytes = new long[count];
+            for (int i = 0; i < count; i++) {
+                int slot = (first + i) & MASK;
+                outNanos[i] = nanos.get(slot);
+                outBytes[i] = bytes.get(slot);
+            }
+            return new long[][] {outNanos, outBytes};
+        }
+    }
+}
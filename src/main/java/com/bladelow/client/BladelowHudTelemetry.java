@@ -1,28 +1,37 @@
 package com.bladelow.client;
 
+import com.bladelow.network.HudAckPayload;
+import com.bladelow.network.HudTelemetryPayload;
+
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Client-side parser for Bladelow status output.
+ * Client-side store for Bladelow status output.
  *
- * The HUD uses this as a lightweight telemetry stream so it can display build
- * progress and preview metadata without needing a heavier custom sync layer for
- * every small status update.
+ * Progress, task node, path debug, preview footprint and intent arrive as
+ * deltas on {@link HudTelemetryPayload}. Servers without that channel still
+ * send them as "[Bladelow] ..." chat lines, which are parsed here until the
+ * first structured packet of a connection arrives. Batched HUD requests are
+ * answered with a {@link HudAckPayload}; the most recent acks are kept by
+ * request id.
  */
 public final class BladelowHudTelemetry {
     private static final int MAX_LOG_LINES = 24;
+    private static final int MAX_ACKS = 32;
 
     private static final Pattern PROGRESS_PATTERN = Pattern.compile("progress\\s+(\\d+)/(\\d+)");
     private static final Pattern COUNTER_PATTERN = Pattern.compile("(placed|skipped|failed)(?:=|\\s+)(-?\\d+)");
 
     private static final Deque<String> LINES = new ArrayDeque<>();
+    private static final LinkedHashMap<Integer, HudAckPayload> ACKS = new LinkedHashMap<>();
 
     private static int done;
     private static int total;
@@ -32,6 +41,10 @@ public final class BladelowHudTelemetry {
     private static String latestIntent = "";
     private static String latestPreviewSummary = "";
     private static PreviewSnapshot latestPreview;
+    private static ActivitySnapshot latestActivity;
+    // Set once the server speaks the telemetry channel; chat lines are then
+    // only logged, not parsed.
+    private static boolean structured;
 
     private BladelowHudTelemetry() {
     }
@@ -57,11 +70,86 @@ public final class BladelowHudTelemetry {
         }
 
         appendLine(line);
+        if (structured) {
+            return;
+        }
         parseProgress(line);
         parseIntent(line);
         parsePreview(line);
     }
 
+    public static synchronized void applyTelemetry(HudTelemetryPayload payload) {
+        if (payload == null) {
+            return;
+        }
+        structured = true;
+        if (payload.has(HudTelemetryPayload.PROGRESS)) {
+            HudTelemetryPayload.Progress progress = payload.progress();
+            done = progress.done();
+            total = progress.total();
+            placed = progress.placed();
+            skipped = progress.skipped();
+            failed = progress.failed();
+        }
+        if (payload.has(HudTelemetryPayload.ACTIVITY) || payload.has(HudTelemetryPayload.PATH)) {
+            ActivitySnapshot previous = latestActivity == null ? ActivitySnapshot.IDLE : latestActivity;
+            latestActivity = previous.with(payload.activity(), payload.path());
+        }
+        if (payload.has(HudTelemetryPayload.PREVIEW)) {
+            HudTelemetryPayload.Preview preview = payload.preview();
+            latestPreviewSummary = preview == null ? "" : preview.summary();
+            latestPreview = preview == null ? null : new PreviewSnapshot(
+                preview.selMinX(),
+                preview.selMinZ(),
+                preview.selMaxX(),
+                preview.selMaxZ(),
+                preview.minX(),
+                preview.minZ(),
+                preview.maxX(),
+                preview.maxZ(),
+                preview.doorX(),
+                preview.doorZ(),
+                preview.variant(),
+                preview.label(),
+                preview.summary()
+            );
+        }
+        if (payload.has(HudTelemetryPayload.INTENT)) {
+            latestIntent = payload.intent();
+        }
+    }
+
+    public static synchronized void applyAck(HudAckPayload payload) {
+        if (payload == null) {
+            return;
+        }
+        ACKS.remove(payload.requestId());
+        ACKS.put(payload.requestId(), payload);
+        while (ACKS.size() > MAX_ACKS) {
+            ACKS.remove(ACKS.keySet().iterator().next());
+        }
+        String status = payload.ok() ? "ok" : "failed after " + payload.completedSteps();
+        String detail = payload.message().isBlank() ? "" : " " + payload.message();
+        appendLine("ack #" + payload.requestId() + " " + status + detail);
+    }
+
+    /**
+     * Ack for a batch request id, or null while it is still in flight.
+     */
+    public static synchronized HudAckPayload ack(int requestId) {
+        return ACKS.get(requestId);
+    }
+
+    /**
+     * Forget per-connection state so the next server is parsed from chat
+     * until it proves it has the telemetry channel.
+     */
+    public static synchronized void resetConnection() {
+        structured = false;
+        latestActivity = null;
+        ACKS.clear();
+    }
+
     public static synchronized void recordLocalMessage(String localLine) {
         if (localLine == null) {
             return;
@@ -113,6 +201,10 @@ public final class BladelowHudTelemetry {
         return latestPreview;
     }
 
+    public static synchronized ActivitySnapshot latestActivity() {
+        return latestActivity;
+    }
+
     private static void appendLine(String line) {
         LINES.addLast(line);
         while (LINES.size() > MAX_LOG_LINES) {
@@ -222,6 +314,31 @@ public final class BladelowHudTelemetry {
         }
     }
 
+    /**
+     * Current task node and the last approach solve of the active build.
+     */
+    public record ActivitySnapshot(
+        String node,
+        String recoverReason,
+        int candidates,
+        int selected,
+        float score,
+        String label
+    ) {
+        private static final ActivitySnapshot IDLE = new ActivitySnapshot("", "", 0, 0, Float.NaN, "");
+
+        private ActivitySnapshot with(HudTelemetryPayload.Activity activity, HudTelemetryPayload.PathDebug path) {
+            return new ActivitySnapshot(
+                activity == null ? node : activity.node().name().toLowerCase(Locale.ROOT),
+                activity == null ? recoverReason : activity.reason().name().toLowerCase(Locale.ROOT),
+                path == null ? candidates : path.candidates(),
+                path == null ? selected : path.selected(),
+                path == null ? score : path.score(),
+                path == null ? label : path.label()
+            );
+        }
+    }
+
     public record PreviewSnapshot(
         int selMinX,
         int selMinZ,
@@ -0,0 +1,268 @@
+package com.bladelow.client;
+
+import com.bladelow.BladelowMod;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Planning-map column tiles for one world and dimension.
+ *
+ * Tiles are the sampled top height and surface code of each column of one
+ * chunk. Recently used tiles stay in an LRU in memory; everything sampled is
+ * also written to deflated region files of 32x32 tiles under the client
+ * config dir, so an established city shows up as soon as the map opens and
+ * stays visible after its chunks unload.
+ *
+ * Not thread-safe: the planning map only touches it from its worker thread.
+ */
+final class BladelowMapTileCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAGIC = 0x424C4D54;
+    private static final int MAX_RESIDENT_TILES = 16384;
+    private static final long FLUSH_INTERVAL_MS = 30_000L;
+
+    private final Path directory;
+    private final LinkedHashMap<Long, Tile> resident = new LinkedHashMap<>(256, 0.75f, true);
+    private final Set<Long> dirtyTiles = new HashSet<>();
+    private final Set<Long> regionsOnDisk = new HashSet<>();
+    private final Set<Long> regionsLoaded = new HashSet<>();
+    private long lastFlushMs = System.currentTimeMillis();
+
+    BladelowMapTileCache(Path directory) {
+        this.directory = directory;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.forEach(path -> {
+                Long region = parseRegionName(path.getFileName().toString());
+                if (region != null) {
+                    regionsOnDisk.add(region);
+                }
+            });
+        } catch (IOException ex) {
+            BladelowMod.LOGGER.warn("Bladelow map cache listing failed for {}", directory, ex);
+        }
+    }
+
+    Tile get(int chunkX, int chunkZ) {
+        long key = key(chunkX, chunkZ);
+        Tile tile = resident.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        long region = key(chunkX >> 5, chunkZ >> 5);
+        if (!regionsOnDisk.contains(region) || regionsLoaded.contains(region)) {
+            return null;
+        }
+        regionsLoaded.add(region);
+        for (Map.Entry<Long, Tile> entry : readRegion(region).entrySet()) {
+            resident.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        evictOverflow();
+        return resident.get(key);
+    }
+
+    void put(int chunkX, int chunkZ, Tile tile) {
+        long key = key(chunkX, chunkZ);
+        resident.put(key, tile);
+        dirtyTiles.add(key);
+        evictOverflow();
+    }
+
+    /**
+     * Write regions with changed tiles once the flush interval has passed.
+     */
+    void maybeFlush() {
+        if (System.currentTimeMillis() - lastFlushMs >= FLUSH_INTERVAL_MS) {
+            flush();
+        }
+    }
+
+    void flush() {
+        lastFlushMs = System.currentTimeMillis();
+        if (dirtyTiles.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> byRegion = new HashMap<>();
+        for (long key : dirtyTiles) {
+            byRegion.computeIfAbsent(regionOf(key), region -> new ArrayList<>()).add(key);
+        }
+        dirtyTiles.clear();
+        for (Map.Entry<Long, List<Long>> entry : byRegion.entrySet()) {
+            Map<Long, Tile> changed = new HashMap<>();
+            for (long key : entry.getValue()) {
+                Tile tile = resident.get(key);
+                if (tile != null) {
+                    changed.put(key, tile);
+                }
+            }
+            writeRegion(entry.getKey(), changed);
+        }
+    }
+
+    private void evictOverflow() {
+        if (resident.size() <= MAX_RESIDENT_TILES) {
+            return;
+        }
+        Map<Long, List<Long>> dirtyEvicted = new HashMap<>();
+        Map<Long, Tile> evictedTiles = new HashMap<>();
+        Iterator<Map.Entry<Long, Tile>> it = resident.entrySet().iterator();
+        while (resident.size() > MAX_RESIDENT_TILES && it.hasNext()) {
+            Map.Entry<Long, Tile> eldest = it.next();
+            long key = eldest.getKey();
+            long region = regionOf(key);
+            // The region has to be read again before this tile can come back.
+            regionsLoaded.remove(region);
+            if (dirtyTiles.remove(key)) {
+                dirtyEvicted.computeIfAbsent(region, r -> new ArrayList<>()).add(key);
+                evictedTiles.put(key, eldest.getValue());
+            }
+            it.remove();
+        }
+        for (Map.Entry<Long, List<Long>> entry : dirtyEvicted.entrySet()) {
+            Map<Long, Tile> changed = new HashMap<>();
+            for (long key : entry.getValue()) {
+                changed.put(key, evictedTiles.get(key));
+            }
+            writeRegion(entry.getKey(), changed);
+        }
+    }
+
+    private Map<Long, Tile> readRegion(long region) {
+        Map<Long, Tile> tiles = new HashMap<>();
+        Path file = directory.resolve(regionName(region));
+        if (!Files.exists(file)) {
+            return tiles;
+        }
+        int baseChunkX = regionX(region) << 5;
+        int baseChunkZ = regionZ(region) << 5;
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return tiles;
+            }
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                int local = in.readUnsignedShort();
+                Tile tile = new Tile();
+                for (int c = 0; c < 256; c++) {
+                    tile.topY[c] = in.readShort();
+                }
+                in.readFully(tile.codes);
+                tiles.put(key(baseChunkX + (local & 31), baseChunkZ + ((local >> 5) & 31)), tile);
+            }
+        } catch (EOFException ex) {
+            BladelowMod.LOGGER.warn("Bladelow map cache region {} is truncated", file);
+        } catch (IOException ex) {
+            BladelowMod.LOGGER.warn("Bladelow map cache read failed for {}", file, ex);
+        }
+        return tiles;
+    }
+
+    /**
+     * Merge {@code changed} into the region file. A temporary file is written
+     * first so a crash mid-write keeps the previous region.
+     */
+    private void writeRegion(long region, Map<Long, Tile> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Map<Long, Tile> merged = readRegion(region);
+        merged.putAll(changed);
+        Path file = directory.resolve(regionName(region));
+        try {
+            Files.createDirectories(directory);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeShort(merged.size());
+                for (Map.Entry<Long, Tile> entry : merged.entrySet()) {
+                    int localX = chunkX(entry.getKey()) & 31;
+                    int localZ = chunkZ(entry.getKey()) & 31;
+                    out.writeShort(localZ << 5 | localX);
+                    for (short y : entry.getValue().topY) {
+                        out.writeShort(y);
+                    }
+                    out.write(entry.getValue().codes);
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            regionsOnDisk.add(region);
+        } catch (IOException ex) {
+            BladelowMod.LOGGER.warn("Bladelow map cache write failed for {}", file, ex);
+        }
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x & 0xFFFFFFFFL) | (((long) z & 0xFFFFFFFFL) << 32);
+    }
+
+    private static int chunkX(long key) {
+        return (int) key;
+    }
+
+    private static int chunkZ(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static long regionOf(long key) {
+        return key(chunkX(key) >> 5, chunkZ(key) >> 5);
+    }
+
+    private static int regionX(long region) {
+        return (int) region;
+    }
+
+    private static int regionZ(long region) {
+        return (int) (region >>> 32);
+    }
+
+    private static String regionName(long region) {
+        return "r." + regionX(region) + "." + regionZ(region) + ".bin";
+    }
+
+    private static Long parseRegionName(String name) {
+        if (!name.startsWith("r.") || !name.endsWith(".bin")) {
+            return null;
+        }
+        String[] parts = name.substring(2, name.length() - 4).split("\\.");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return key(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * One chunk of sampled columns, indexed {@code localZ * 16 + localX}.
+     */
+    static final class Tile {
+        final short[] topY = new short[256];
+        final byte[] codes = new byte[256];
+    }
+}
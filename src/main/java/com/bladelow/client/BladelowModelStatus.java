@@ -1,26 +1,48 @@
 package com.bladelow.client;
 
+import com.bladelow.BladelowMod;
 import com.bladelow.ml.BladelowLearning;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 /**
  * Lightweight client-side view of local training assets.
  *
  * The HUD uses this to show dataset counts and top learned themes without
- * waiting for a server command round-trip.
+ * waiting for a server command round-trip. {@link #snapshot()} never touches
+ * the disk: it returns the last good value and, at most every
+ * {@link #REFRESH_INTERVAL_MS}, queues a refresh on a background thread.
+ *
+ * The JSONL datasets are append-only, so each one keeps a small index (bytes
+ * scanned, rows, theme votes, and a checksum of the head) persisted next to
+ * them. A refresh reads only what was appended since; a file that shrank or
+ * whose head changed is rescanned from the start.
  */
 public final class BladelowModelStatus {
     private static final Gson GSON = new Gson();
@@ -35,43 +57,75 @@ public final class BladelowModelStatus {
     private static final Path MEMORY_DIR = Path.of("config", "bladelow", "memory");
     private static final Path WORLD_CONTEXT_MEMORY = MEMORY_DIR.resolve("world_context.jsonl");
     private static final Path STRUCTURE_MEMORY_DIR = MEMORY_DIR.resolve("structures");
+    private static final Path INDEX_PATH = ML_DIR.resolve("dataset_index.json");
+    private static final int INDEX_VERSION = 1;
+    private static final int HEAD_CHECK_BYTES = 4096;
+    private static final long REFRESH_INTERVAL_MS = 2_000L;
+    private static final ExecutorService REFRESHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bladelow-model-status");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final AtomicBoolean REFRESHING = new AtomicBoolean();
 
-    private static long fingerprint = Long.MIN_VALUE;
-    private static Snapshot cached = Snapshot.empty();
+    private static volatile Snapshot cached = Snapshot.empty();
+    private static volatile long lastRefreshMs = Long.MIN_VALUE / 2;
+    // Refresher thread only.
+    private static IndexFile index;
 
     private BladelowModelStatus() {
     }
 
-    public static synchronized Snapshot snapshot() {
-        long currentFingerprint = fingerprint();
-        if (currentFingerprint != fingerprint) {
-            fingerprint = currentFingerprint;
-            cached = loadSnapshot();
+    /**
+     * Last computed snapshot; schedules a background refresh when the
+     * current one is older than the refresh interval.
+     */
+    public static Snapshot snapshot() {
+        long now = System.currentTimeMillis();
+        if (now - lastRefreshMs >= REFRESH_INTERVAL_MS && REFRESHING.compareAndSet(false, true)) {
+            lastRefreshMs = now;
+            REFRESHER.execute(() -> {
+                try {
+                    cached = loadSnapshot();
+                } catch (RuntimeException ex) {
+                    BladelowMod.LOGGER.warn("Bladelow model status refresh failed", ex);
+                } finally {
+                    REFRESHING.set(false);
+                }
+            });
         }
         return cached;
     }
 
     private static Snapshot loadSnapshot() {
-        long placement = countLines(PLACEMENT_DATASET);
-        long environment = countLines(ENVIRONMENT_DATASET);
-        long intent = countLines(BUILD_INTENT_DATASET);
-        long styleExamples = countLines(STYLE_EXAMPLES_DATASET);
-        long previewFeedback = countLines(PREVIEW_FEEDBACK_DATASET);
-        long buildEvaluations = countLines(BUILD_EVALUATIONS_DATASET);
-        long worldContext = countLines(WORLD_CONTEXT_MEMORY);
+        if (index == null) {
+            index = readIndex();
+        }
+        boolean changed = false;
+        changed |= refresh(PLACEMENT_DATASET, 0);
+        changed |= refresh(ENVIRONMENT_DATASET, 1);
+        changed |= refresh(BUILD_INTENT_DATASET, 0);
+        changed |= refresh(STYLE_EXAMPLES_DATASET, 3);
+        changed |= refresh(PREVIEW_FEEDBACK_DATASET, 0);
+        changed |= refresh(BUILD_EVALUATIONS_DATASET, 0);
+        changed |= refresh(WORLD_CONTEXT_MEMORY, 0);
+        if (changed) {
+            writeIndex(index);
+        }
         long structureMemories = countJsonFiles(STRUCTURE_MEMORY_DIR);
         long refs = countImages(STYLE_REFS_DIR);
-        List<String> rawThemes = topThemesFromRawData();
+        List<String> rawThemes = topThemesFromIndex();
         var offline = BladelowLearning.offlineModel().snapshot();
         List<String> learnedThemes = offline.topThemes().isEmpty() ? rawThemes : offline.topThemes();
         return new Snapshot(
-            placement,
-            environment,
-            intent,
-            styleExamples,
-            previewFeedback,
-            buildEvaluations,
-            worldContext,
+            rows(PLACEMENT_DATASET),
+            rows(ENVIRONMENT_DATASET),
+            rows(BUILD_INTENT_DATASET),
+            rows(STYLE_EXAMPLES_DATASET),
+            rows(PREVIEW_FEEDBACK_DATASET),
+            rows(BUILD_EVALUATIONS_DATASET),
+            rows(WORLD_CONTEXT_MEMORY),
             structureMemories,
             refs,
             offline.trained(),
@@ -83,52 +137,147 @@ public final class BladelowModelStatus {
         );
     }
 
-    private static long fingerprint() {
-        return fingerprintFor(PLACEMENT_DATASET)
-            ^ fingerprintFor(ENVIRONMENT_DATASET)
-            ^ fingerprintFor(BUILD_INTENT_DATASET)
-            ^ fingerprintFor(STYLE_EXAMPLES_DATASET)
-            ^ fingerprintFor(PREVIEW_FEEDBACK_DATASET)
-            ^ fingerprintFor(BUILD_EVALUATIONS_DATASET)
-            ^ fingerprintFor(WORLD_CONTEXT_MEMORY)
-            ^ fingerprintForDirectory(STRUCTURE_MEMORY_DIR)
-            ^ fingerprintForDirectory(STYLE_REFS_DIR)
-            ^ BladelowLearning.offlineModel().snapshot().generatedAt().hashCode();
+    private static long rows(Path path) {
+        DatasetIndex entry = index.datasets.get(path.toString());
+        return entry == null ? 0L : entry.rows + (entry.partialTail ? 1L : 0L);
     }
 
-    private static long fingerprintFor(Path path) {
+    /**
+     * Bring one dataset's index up to date. {@code themeWeight} above zero
+     * also collects theme votes from the rows read. Returns whether the index
+     * changed.
+     */
+    private static boolean refresh(Path path, int themeWeight) {
+        String key = path.toString();
+        DatasetIndex entry = index.datasets.get(key);
         if (!Files.exists(path)) {
-            return 0L;
+            return index.datasets.remove(key) != null;
         }
         try {
-            return Files.getLastModifiedTime(path).toMillis() ^ Files.size(path);
+            long size = Files.size(path);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (entry != null && entry.size == size && entry.modified == modified) {
+                return false;
+            }
+            if (entry == null || size < entry.scanned || entry.headChecksum != headChecksum(path, entry.headLength)) {
+                entry = new DatasetIndex();
+                index.datasets.put(key, entry);
+            }
+            scanAppended(path, entry, themeWeight);
+            entry.size = size;
+            entry.modified = modified;
+            return true;
         } catch (IOException ex) {
-            return path.toString().hashCode();
+            return false;
         }
     }
 
-    private static long fingerprintForDirectory(Path path) {
-        if (!Files.isDirectory(path)) {
-            return 0L;
+    /**
+     * Count complete rows after {@code entry.scanned}. A last line without a
+     * newline still counts as a row, but is read again next time in case it
+     * was still being written.
+     */
+    private static void scanAppended(Path path, DatasetIndex entry, int themeWeight) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.position(entry.scanned);
+            InputStream in = Channels.newInputStream(channel);
+            byte[] buffer = new byte[64 * 1024];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = entry.scanned;
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    position++;
+                    if (b != '\n') {
+                        if (themeWeight > 0) {
+                            line.write(b);
+                        } else if (line.size() == 0) {
+                            line.write(b);
+                        }
+                        continue;
+                    }
+                    if (themeWeight > 0) {
+                        voteLine(entry, line.toString(StandardCharsets.UTF_8), themeWeight);
+                    }
+                    entry.rows++;
+                    entry.scanned = position;
+                    line.reset();
+                }
+            }
+            entry.partialTail = line.size() > 0;
         }
-        try (Stream<Path> stream = Files.list(path)) {
-            return stream
-                .filter(Files::isRegularFile)
-                .mapToLong(BladelowModelStatus::fingerprintFor)
-                .sum();
-        } catch (IOException ex) {
-            return path.toString().hashCode();
+        if (entry.headLength < HEAD_CHECK_BYTES) {
+            entry.headLength = (int) Math.min(HEAD_CHECK_BYTES, entry.scanned);
+            entry.headChecksum = headChecksum(path, entry.headLength);
         }
     }
 
-    private static long countLines(Path path) {
-        if (!Files.exists(path)) {
+    private static long headChecksum(Path path, int length) throws IOException {
+        if (length <= 0) {
             return 0L;
         }
-        try (var lines = Files.lines(path)) {
-            return lines.count();
+        byte[] head = new byte[length];
+        try (InputStream in = Files.newInputStream(path)) {
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(head, offset, length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head);
+        return crc.getValue();
+    }
+
+    private static void voteLine(DatasetIndex entry, String line, int weight) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            JsonObject json = GSON.fromJson(line, JsonObject.class);
+            if (json == null) {
+                return;
+            }
+            voteTheme(entry.themes, readString(json, "primaryTheme"), weight * 2);
+            voteTheme(entry.themes, readString(json, "secondaryTheme"), weight);
+        } catch (JsonSyntaxException ignored) {
+        }
+    }
+
+    private static IndexFile readIndex() {
+        if (Files.exists(INDEX_PATH)) {
+            try (Reader reader = Files.newBufferedReader(INDEX_PATH)) {
+                IndexFile file = GSON.fromJson(reader, IndexFile.class);
+                if (file != null && file.version == INDEX_VERSION && file.datasets != null) {
+                    return file;
+                }
+            } catch (IOException | RuntimeException ex) {
+                BladelowMod.LOGGER.warn("Bladelow dataset index unreadable, rescanning: {}", ex.getMessage());
+            }
+        }
+        IndexFile file = new IndexFile();
+        file.version = INDEX_VERSION;
+        return file;
+    }
+
+    private static void writeIndex(IndexFile file) {
+        try {
+            Files.createDirectories(INDEX_PATH.getParent());
+            Path tmp = INDEX_PATH.resolveSibling(INDEX_PATH.getFileName() + ".tmp");
+            try (Writer out = Files.newBufferedWriter(tmp)) {
+                GSON.toJson(file, out);
+            }
+            try {
+                Files.move(tmp, INDEX_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp, INDEX_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException ex) {
-            return 0L;
+            BladelowMod.LOGGER.warn("Bladelow dataset index write failed: {}", ex.getMessage());
         }
     }
 
@@ -160,10 +309,14 @@ public final class BladelowModelStatus {
         }
     }
 
-    private static List<String> topThemesFromRawData() {
+    private static List<String> topThemesFromIndex() {
         Map<String, Integer> counts = new HashMap<>();
-        accumulateThemes(ENVIRONMENT_DATASET, counts, 1);
-        accumulateThemes(STYLE_EXAMPLES_DATASET, counts, 3);
+        for (Path path : List.of(ENVIRONMENT_DATASET, STYLE_EXAMPLES_DATASET)) {
+            DatasetIndex entry = index.datasets.get(path.toString());
+            if (entry != null) {
+                entry.themes.forEach((theme, votes) -> counts.merge(theme, votes, Integer::sum));
+            }
+        }
         return counts.entrySet().stream()
             .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
             .limit(4)
@@ -171,29 +324,6 @@ public final class BladelowModelStatus {
             .toList();
     }
 
-    private static void accumulateThemes(Path path, Map<String, Integer> counts, int weight) {
-        if (!Files.exists(path)) {
-            return;
-        }
-        try (var lines = Files.lines(path)) {
-            lines.forEach(line -> {
-                if (line == null || line.isBlank()) {
-                    return;
-                }
-                try {
-                    JsonObject json = GSON.fromJson(line, JsonObject.class);
-                    if (json == null) {
-                        return;
-                    }
-                    voteTheme(counts, readString(json, "primaryTheme"), weight * 2);
-                    voteTheme(counts, readString(json, "secondaryTheme"), weight);
-                } catch (JsonSyntaxException ignored) {
-                }
-            });
-        } catch (IOException ignored) {
-        }
-    }
-
     private static void voteTheme(Map<String, Integer> counts, String theme, int weight) {
         String normalized = normalize(theme);
         if (normalized.isBlank()) {
@@ -225,6 +355,22 @@ public final class BladelowModelStatus {
         return text.trim().toLowerCase(Locale.ROOT);
     }
 
+    private static final class IndexFile {
+        private int version;
+        private Map<String, DatasetIndex> datasets = new LinkedHashMap<>();
+    }
+
+    private static final class DatasetIndex {
+        private long scanned;
+        private long size;
+        private long modified;
+        private int headLength;
+        private long headChecksum;
+        private long rows;
+        private boolean partialTail;
+        private Map<String, Integer> themes = new HashMap<>();
+    }
+
     public record Snapshot(
         long placementSamples,
         long environmentSamples,
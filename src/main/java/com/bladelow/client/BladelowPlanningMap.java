@@ -0,0 +1,492 @@
+package com.bladelow.client;
+
+import com.bladelow.BladelowMod;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.RenderPipelines;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.texture.NativeImage;
+import net.minecraft.client.texture.NativeImageBackedTexture;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background-rendered terrain layer of the HUD planning map.
+ *
+ * Columns are sampled per chunk (heightmap top plus a cached surface class
+ * per block state) on a single low-priority worker into a
+ * {@link BladelowMapTileCache} per world and dimension, so the render thread
+ * never does height lookups and chunks outside render distance still show
+ * what they looked like when last loaded. Chunks that load or change are
+ * sampled from the client tick whether or not the HUD is open, so the map is
+ * already current when it opens. A draw pass re-samples only loaded chunks in
+ * view that are still new or dirty, composes the raster for the requested
+ * view, and hands it back; the render thread uploads it into one texture and
+ * draws it as a single quad. While a pass is running the last raster is drawn
+ * shifted to the current view.
+ *
+ * Chunks are read off-thread without locking. A torn read costs at most a
+ * wrong pixel until the next block update marks the chunk dirty again.
+ */
+public final class BladelowPlanningMap {
+    private static final Identifier TEXTURE_ID = Identifier.of(BladelowMod.MOD_ID, "planning_map");
+    private static final Path TILE_ROOT = Path.of("config", "bladelow", "map-tiles");
+    private static final int VOID_COLOR = 0xFF101720;
+    private static final byte VOID_CODE = -1;
+    // Chunks sampled per pass; the rest of a large view fills in over the
+    // next few frames.
+    private static final int MAX_CHUNKS_PER_PASS = 96;
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bladelow-map-raster");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private static final Map<BlockState, Byte> SURFACE_CODES = new ConcurrentHashMap<>();
+    private static final Set<Long> DIRTY = ConcurrentHashMap.newKeySet();
+    // Loaded chunks sampled since the current world was entered.
+    private static final Set<Long> SAMPLED = ConcurrentHashMap.newKeySet();
+    private static final AtomicBoolean BUSY = new AtomicBoolean();
+
+    private static volatile int epoch;
+    private static volatile Raster published;
+
+    // Worker thread only.
+    private static BladelowMapTileCache cache;
+
+    // Render thread only.
+    private static ClientWorld trackedWorld;
+    private static Request requested;
+    private static NativeImageBackedTexture texture;
+    private static Raster uploaded;
+
+    private BladelowPlanningMap() {
+    }
+
+    public enum MapCellType {
+        WATER,
+        ROAD,
+        BUILDING,
+        VEGETATION,
+        OPEN_GROUND,
+        TERRAIN
+    }
+
+    /**
+     * World bounds and sample grid of one planning-map frame. The grid is
+     * also the texture size.
+     */
+    public record Request(int minX, int maxX, int minZ, int maxZ, int baseY, int samplesX, int samplesZ) {
+    }
+
+    public static void markDirty(int chunkX, int chunkZ) {
+        DIRTY.add(ChunkPos.toLong(chunkX, chunkZ));
+    }
+
+    /**
+     * Stop tracking an unloaded chunk. Its tile stays in the cache; the
+     * chunk is sampled again when it loads.
+     */
+    public static void forget(int chunkX, int chunkZ) {
+        long key = ChunkPos.toLong(chunkX, chunkZ);
+        SAMPLED.remove(key);
+        DIRTY.remove(key);
+    }
+
+    public static void reset() {
+        openScope(null);
+        trackedWorld = null;
+    }
+
+    /**
+     * Sample chunks that loaded or changed since their last pass into the
+     * tile cache, at most {@link #MAX_CHUNKS_PER_PASS} per tick. Call once
+     * per client tick on the render thread.
+     */
+    public static void tick(MinecraftClient client) {
+        ClientWorld world = client.world;
+        if (world == null || DIRTY.isEmpty() || BUSY.get()) {
+            return;
+        }
+        trackWorld(world);
+        List<WorldChunk> chunks = new ArrayList<>();
+        Iterator<Long> it = DIRTY.iterator();
+        while (it.hasNext() && chunks.size() < MAX_CHUNKS_PER_PASS) {
+            long key = it.next();
+            it.remove();
+            WorldChunk chunk = world.getChunkManager().getChunk(ChunkPos.getPackedX(key), ChunkPos.getPackedZ(key), ChunkStatus.FULL, false);
+            if (chunk == null) {
+                // Unloaded since it was marked; sampled again when it loads.
+                continue;
+            }
+            SAMPLED.add(key);
+            chunks.add(chunk);
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+        // The next draw recomposes, since its tiles may have changed.
+        requested = null;
+        submitPass(world, chunks, null);
+    }
+
+    /**
+     * Draw the terrain layer into the given screen rectangle, scheduling a
+     * background pass when the view moved or chunks in it changed. Call on
+     * the render thread.
+     */
+    public static void draw(DrawContext context, ClientWorld world, int screenX, int screenY, int screenW, int screenH, Request request) {
+        trackWorld(world);
+        schedule(world, request);
+
+        Raster raster = published;
+        if (raster != null && raster != uploaded) {
+            upload(raster);
+        }
+        if (uploaded == null || texture == null) {
+            return;
+        }
+        Request shown = uploaded.request();
+        double pixelsPerBlockX = screenW / (double) Math.max(1, request.maxX() - request.minX() + 1);
+        double pixelsPerBlockZ = screenH / (double) Math.max(1, request.maxZ() - request.minZ() + 1);
+        int x1 = screenX + (int) Math.floor((shown.minX() - request.minX()) * pixelsPerBlockX);
+        int y1 = screenY + (int) Math.floor((shown.minZ() - request.minZ()) * pixelsPerBlockZ);
+        int x2 = screenX + (int) Math.ceil((shown.maxX() + 1 - request.minX()) * pixelsPerBlockX);
+        int y2 = screenY + (int) Math.ceil((shown.maxZ() + 1 - request.minZ()) * pixelsPerBlockZ);
+        context.enableScissor(screenX, screenY, screenX + screenW, screenY + screenH);
+        context.drawTexture(
+            RenderPipelines.GUI_TEXTURED,
+            TEXTURE_ID,
+            x1,
+            y1,
+            0.0F,
+            0.0F,
+            Math.max(1, x2 - x1),
+            Math.max(1, y2 - y1),
+            shown.samplesX(),
+            shown.samplesZ(),
+            shown.samplesX(),
+            shown.samplesZ()
+        );
+        context.disableScissor();
+    }
+
+    /**
+     * Surface class of a column whose top is {@code topY}; roads only count
+     * near the reference height so stone roofs do not read as streets.
+     */
+    public static MapCellType classify(BlockState state, int topY, int referenceY) {
+        return typeFor(surfaceCode(state), topY, referenceY);
+    }
+
+    public static int columnColor(MapCellType type, int topY, int referenceY) {
+        int rawShade = Math.max(-24, Math.min(24, (topY - referenceY) * 3));
+        int shade = (int) Math.round(rawShade / 6.0) * 6;
+        return shadeColor(colorFor(type), shade);
+    }
+
+    public static int colorFor(MapCellType type) {
+        return switch (type) {
+            case WATER -> 0xFF286DA8;
+            case ROAD -> 0xFFD0A05E;
+            case BUILDING -> 0xFFB55F59;
+            case VEGETATION -> 0xFF47884F;
+            case OPEN_GROUND -> 0xFFB79B68;
+            case TERRAIN -> 0xFF697785;
+        };
+    }
+
+    /**
+     * Switch the tile cache to another world or dimension, flushing the old
+     * one on the worker; {@code directory} null only closes the current one.
+     */
+    private static void openScope(Path directory) {
+        epoch++;
+        SAMPLED.clear();
+        published = null;
+        requested = null;
+        uploaded = null;
+        WORKER.execute(() -> {
+            if (cache != null) {
+                cache.flush();
+            }
+            cache = directory == null ? null : new BladelowMapTileCache(directory);
+        });
+    }
+
+    private static void trackWorld(ClientWorld world) {
+        if (world != trackedWorld) {
+            openScope(scopeDirectory(world));
+            trackedWorld = world;
+        }
+    }
+
+    private static Path scopeDirectory(ClientWorld world) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        String server;
+        if (client.getServer() != null) {
+            server = "local_" + client.getServer().getSaveProperties().getLevelName();
+        } else if (client.getCurrentServerEntry() != null) {
+            server = client.getCurrentServerEntry().address;
+        } else {
+            server = "unknown";
+        }
+        Identifier dimension = world.getRegistryKey().getValue();
+        return client.runDirectory.toPath()
+            .resolve(TILE_ROOT)
+            .resolve(safeName(server))
+            .resolve(safeName(dimension.getNamespace() + "_" + dimension.getPath()));
+    }
+
+    private static String safeName(String raw) {
+        String cleaned = raw.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9._-]", "_");
+        return cleaned.isBlank() ? "unknown" : cleaned;
+    }
+
+    private static void schedule(ClientWorld world, Request request) {
+        if (BUSY.get()) {
+            return;
+        }
+        List<WorldChunk> chunks = new ArrayList<>();
+        int minChunkX = request.minX() >> 4;
+        int maxChunkX = request.maxX() >> 4;
+        int minChunkZ = request.minZ() >> 4;
+        int maxChunkZ = request.maxZ() >> 4;
+        for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ && chunks.size() < MAX_CHUNKS_PER_PASS; chunkZ++) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX && chunks.size() < MAX_CHUNKS_PER_PASS; chunkX++) {
+                long key = ChunkPos.toLong(chunkX, chunkZ);
+                if (SAMPLED.contains(key) && !DIRTY.contains(key)) {
+                    continue;
+                }
+                WorldChunk chunk = world.getChunkManager().getChunk(chunkX, chunkZ, ChunkStatus.FULL, false);
+                if (chunk == null) {
+                    continue;
+                }
+                DIRTY.remove(key);
+                SAMPLED.add(key);
+                chunks.add(chunk);
+            }
+        }
+        if (chunks.isEmpty() && request.equals(requested)) {
+            return;
+        }
+        requested = request;
+        submitPass(world, chunks, request);
+    }
+
+    /**
+     * Sample {@code chunks} on the worker and, when {@code request} is not
+     * null, compose and publish the raster for it.
+     */
+    private static void submitPass(ClientWorld world, List<WorldChunk> chunks, Request request) {
+        int bottomY = world.getBottomY();
+        int passEpoch = epoch;
+        BUSY.set(true);
+        WORKER.execute(() -> {
+            BladelowHudProfiler.begin(BladelowHudProfiler.Section.MAP_RASTER);
+            try {
+                if (cache == null) {
+                    return;
+                }
+                for (WorldChunk chunk : chunks) {
+                    cache.put(chunk.getPos().x, chunk.getPos().z, sampleChunk(chunk, bottomY));
+                }
+                if (request != null) {
+                    Raster raster = compose(cache, request);
+                    if (passEpoch == epoch) {
+                        published = raster;
+                    }
+                }
+                cache.maybeFlush();
+            } catch (RuntimeException ex) {
+                BladelowMod.LOGGER.warn("Bladelow planning map pass failed", ex);
+            } finally {
+                BladelowHudProfiler.end(BladelowHudProfiler.Section.MAP_RASTER);
+                BUSY.set(false);
+            }
+        });
+    }
+
+    private static BladelowMapTileCache.Tile sampleChunk(WorldChunk chunk, int bottomY) {
+        BladelowMapTileCache.Tile tile = new BladelowMapTileCache.Tile();
+        int baseX = chunk.getPos().getStartX();
+        int baseZ = chunk.getPos().getStartZ();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int localZ = 0; localZ < 16; localZ++) {
+            for (int localX = 0; localX < 16; localX++) {
+                int index = localZ * 16 + localX;
+                int topY = chunk.sampleHeightmap(Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, localX, localZ) - 1;
+                if (topY < bottomY) {
+                    tile.topY[index] = (short) bottomY;
+                    tile.codes[index] = VOID_CODE;
+                    continue;
+                }
+                tile.topY[index] = (short) topY;
+                tile.codes[index] = surfaceCode(chunk.getBlockState(pos.set(baseX + localX, topY, baseZ + localZ)));
+            }
+        }
+        return tile;
+    }
+
+    private static Raster compose(BladelowMapTileCache source, Request request) {
+        int width = request.samplesX();
+        int height = request.samplesZ();
+        int spanX = Math.max(1, request.maxX() - request.minX() + 1);
+        int spanZ = Math.max(1, request.maxZ() - request.minZ() + 1);
+        int[] pixels = new int[width * height];
+        long cachedKey = Long.MIN_VALUE;
+        BladelowMapTileCache.Tile cached = null;
+        for (int sampleZ = 0; sampleZ < height; sampleZ++) {
+            int worldZ = sampleCoordinate(request.minZ(), spanZ, sampleZ, height);
+            for (int sampleX = 0; sampleX < width; sampleX++) {
+                int worldX = sampleCoordinate(request.minX(), spanX, sampleX, width);
+                long key = ChunkPos.toLong(worldX >> 4, worldZ >> 4);
+                if (key != cachedKey) {
+                    cachedKey = key;
+                    cached = source.get(worldX >> 4, worldZ >> 4);
+                }
+                int index = (worldZ & 15) * 16 + (worldX & 15);
+                if (cached == null || cached.codes[index] == VOID_CODE) {
+                    pixels[sampleZ * width + sampleX] = VOID_COLOR;
+                    continue;
+                }
+                int topY = cached.topY[index];
+                MapCellType type = typeFor(cached.codes[index], topY, request.baseY());
+                pixels[sampleZ * width + sampleX] = columnColor(type, topY, request.baseY());
+            }
+        }
+        return new Raster(request, pixels);
+    }
+
+    private static void upload(Raster raster) {
+        int width = raster.request().samplesX();
+        int height = raster.request().samplesZ();
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (texture == null || texture.getImage() == null
+            || texture.getImage().getWidth() != width || texture.getImage().getHeight() != height) {
+            if (texture != null) {
+                client.getTextureManager().destroyTexture(TEXTURE_ID);
+            }
+            texture = new NativeImageBackedTexture(() -> "bladelow planning map", width, height, false);
+            client.getTextureManager().registerTexture(TEXTURE_ID, texture);
+        }
+        NativeImage image = texture.getImage();
+        int[] pixels = raster.pixels();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setColorArgb(x, y, pixels[y * width + x]);
+            }
+        }
+        texture.upload();
+        uploaded = raster;
+    }
+
+    private static int sampleCoordinate(int minimum, int span, int sample, int sampleCount) {
+        int offset = (int) Math.floor((sample + 0.5) * span / Math.max(1.0, sampleCount));
+        return minimum + Math.max(0, Math.min(Math.max(0, span - 1), offset));
+    }
+
+    /**
+     * Surface class of a block state near and away from the reference height,
+     * packed as two nibbles. Classifying means a registry lookup and a string
+     * scan, so the result is cached per state.
+     */
+    private static byte surfaceCode(BlockState state) {
+        return SURFACE_CODES.computeIfAbsent(state, key -> {
+            String path = Registries.BLOCK.getId(key.getBlock()).getPath();
+            boolean fluid = !key.getFluidState().isEmpty();
+            MapCellType near = classify(path, fluid, true);
+            MapCellType far = classify(path, fluid, false);
+            return (byte) ((near.ordinal() << 4) | far.ordinal());
+        });
+    }
+
+    private static MapCellType typeFor(byte code, int topY, int referenceY) {
+        boolean nearGround = Math.abs(topY - referenceY) <= 4;
+        int ordinal = nearGround ? (code >> 4) & 0x0F : code & 0x0F;
+        return MapCellType.values()[ordinal];
+    }
+
+    private static MapCellType classify(String path, boolean fluid, boolean nearGround) {
+        String lowered = path == null ? "" : path.toLowerCase(Locale.ROOT);
+        if (fluid || lowered.contains("water") || lowered.contains("kelp") || lowered.contains("seagrass")) {
+            return MapCellType.WATER;
+        }
+        boolean roadMaterial = lowered.contains("path")
+            || lowered.contains("gravel")
+            || lowered.contains("road")
+            || lowered.contains("farmland")
+            || lowered.contains("packed_mud")
+            || lowered.contains("cobblestone")
+            || lowered.contains("andesite")
+            || lowered.contains("stone_bricks");
+        if (lowered.contains("path") || lowered.contains("gravel") || (nearGround && roadMaterial)) {
+            return MapCellType.ROAD;
+        }
+        if (lowered.contains("leaf") || lowered.contains("vine") || lowered.contains("crop")
+            || lowered.contains("grass") || lowered.contains("moss") || lowered.contains("bush")
+            || lowered.contains("flower") || lowered.contains("sapling")) {
+            return MapCellType.VEGETATION;
+        }
+        if (looksLikeStructureSurface(lowered)) {
+            return MapCellType.BUILDING;
+        }
+        if (lowered.contains("sand") || lowered.contains("clay") || lowered.contains("dirt") || lowered.contains("mud")) {
+            return MapCellType.OPEN_GROUND;
+        }
+        return MapCellType.TERRAIN;
+    }
+
+    private static boolean looksLikeStructureSurface(String path) {
+        return path.contains("planks")
+            || path.contains("brick")
+            || path.contains("stone_bricks")
+            || path.contains("cobble")
+            || path.contains("quartz")
+            || path.contains("glass")
+            || path.contains("terracotta")
+            || path.contains("concrete")
+            || path.contains("wool")
+            || path.contains("log")
+            || path.contains("wood")
+            || path.contains("fence")
+            || path.contains("wall")
+            || path.contains("door")
+            || path.contains("trapdoor")
+            || path.contains("stairs")
+            || path.contains("slab")
+            || path.contains("copper")
+            || path.contains("deepslate_tiles")
+            || path.contains("polished")
+            || path.contains("cut_");
+    }
+
+    private static int shadeColor(int argb, int amount) {
+        int a = (argb >>> 24) & 0xFF;
+        int r = Math.max(0, Math.min(255, ((argb >>> 16) & 0xFF) + amount));
+        int g = Math.max(0, Math.min(255, ((argb >>> 8) & 0xFF) + amount));
+        int b = Math.max(0, Math.min(255, (argb & 0xFF) + amount));
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private record Raster(Request request, int[] pixels) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.bladelow.client;
+
+import com.bladelow.network.PreviewGeometryPayload;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client copy of the block list behind the current build preview.
+ *
+ * {@link PreviewGeometryPayload} chunks are assembled per preview id; the
+ * geometry is published once its last chunk arrives, so readers never see a
+ * half-built preview. The stored form is a shared palette plus one linear
+ * cell index per block, with a per-column top colour raster precomputed for
+ * the planning map.
+ */
+public final class BladelowPreviewGeometry {
+    // Client-side guard against a malformed stream; well above the server cap.
+    private static final int MAX_BLOCKS = 1 << 20;
+
+    private static Assembly assembling;
+    private static Geometry current;
+
+    private BladelowPreviewGeometry() {
+    }
+
+    public static synchronized void accept(PreviewGeometryPayload payload) {
+        if (payload == null) {
+            return;
+        }
+        if (payload.isClear()) {
+            assembling = null;
+            current = null;
+            return;
+        }
+        if (assembling == null || assembling.previewId != payload.previewId()) {
+            if (payload.chunkIndex() != 0 || payload.totalBlocks() > MAX_BLOCKS) {
+                return;
+            }
+            assembling = new Assembly(payload);
+        }
+        if (!assembling.append(payload)) {
+            assembling = null;
+            return;
+        }
+        if (assembling.complete()) {
+            current = assembling.build();
+            assembling = null;
+        }
+    }
+
+    public static synchronized Geometry current() {
+        return current;
+    }
+
+    public static synchronized void reset() {
+        assembling = null;
+        current = null;
+    }
+
+    /**
+     * Immutable preview blocks. Block {@code i} sits at
+     * {@link #x(int)}, {@link #y(int)}, {@link #z(int)} with {@link #state(int)}.
+     */
+    public static final class Geometry {
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final int[] cells;
+        private final int[] stateIndices;
+        private final BlockState[] palette;
+        private final int[] columnColors;
+
+        private Geometry(
+            int originX,
+            int originY,
+            int originZ,
+            int sizeX,
+            int sizeY,
+            int sizeZ,
+            int[] cells,
+            int[] stateIndices,
+            BlockState[] palette
+        ) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.cells = cells;
+            this.stateIndices = stateIndices;
+            this.palette = palette;
+            this.columnColors = new int[sizeX * sizeZ];
+            // Cells are sorted Y-major, so the last solid block seen in a
+            // column is its top.
+            for (int i = 0; i < cells.length; i++) {
+                BlockState state = palette[stateIndices[i]];
+                if (state.isAir()) {
+                    continue;
+                }
+                int column = cells[i] % (sizeX * sizeZ);
+                columnColors[column] = 0xFF000000 | state.getBlock().getDefaultMapColor().color;
+            }
+        }
+
+        public int count() {
+            return cells.length;
+        }
+
+        public int x(int i) {
+            return originX + cells[i] % sizeX;
+        }
+
+        public int y(int i) {
+            return originY + cells[i] / (sizeX * sizeZ);
+        }
+
+        public int z(int i) {
+            return originZ + (cells[i] / sizeX) % sizeZ;
+        }
+
+        public BlockState state(int i) {
+            return palette[stateIndices[i]];
+        }
+
+        public int minX() {
+            return originX;
+        }
+
+        public int minY() {
+            return originY;
+        }
+
+        public int minZ() {
+            return originZ;
+        }
+
+        public int maxX() {
+            return originX + sizeX - 1;
+        }
+
+        public int maxY() {
+            return originY + sizeY - 1;
+        }
+
+        public int maxZ() {
+            return originZ + sizeZ - 1;
+        }
+
+        /**
+         * Map colour of the highest block in the column, or 0 when the
+         * preview places nothing visible there.
+         */
+        public int columnColor(int worldX, int worldZ) {
+            int lx = worldX - originX;
+            int lz = worldZ - originZ;
+            if (lx < 0 || lz < 0 || lx >= sizeX || lz >= sizeZ) {
+                return 0;
+            }
+            return columnColors[lz * sizeX + lx];
+        }
+
+        public boolean intersects(int minX, int minZ, int maxX, int maxZ) {
+            return originX <= maxX && minX <= maxX() && originZ <= maxZ && minZ <= maxZ();
+        }
+    }
+
+    private static final class Assembly {
+        private final int previewId;
+        private final int chunkCount;
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final int[] cells;
+        private final int[] stateIndices;
+        private final Map<Integer, Integer> paletteByRawId = new HashMap<>();
+        private final List<BlockState> palette = new ArrayList<>();
+        private int received;
+        private int nextChunk;
+
+        private Assembly(PreviewGeometryPayload first) {
+            this.previewId = first.previewId();
+            this.chunkCount = first.chunkCount();
+            this.originX = first.originX();
+            this.originY = first.originY();
+            this.originZ = first.originZ();
+            this.sizeX = Math.max(1, first.sizeX());
+            this.sizeY = Math.max(1, first.sizeY());
+            this.sizeZ = Math.max(1, first.sizeZ());
+            this.cells = new int[first.totalBlocks()];
+            this.stateIndices = new int[first.totalBlocks()];
+        }
+
+        /**
+         * Add the next chunk; false when the stream is out of order or does
+         * not fit what the first chunk announced.
+         */
+        private boolean append(PreviewGeometryPayload chunk) {
+            if (chunk.chunkIndex() != nextChunk || received + chunk.cells().length > cells.length) {
+                return false;
+            }
+            int[] localToShared = new int[chunk.palette().length];
+            for (int i = 0; i < localToShared.length; i++) {
+                int rawId = chunk.palette()[i];
+                localToShared[i] = paletteByRawId.computeIfAbsent(rawId, id -> {
+                    palette.add(Block.getStateFromRawId(id));
+                    return palette.size() - 1;
+                });
+            }
+            for (int i = 0; i < chunk.cells().length; i++) {
+                int index = chunk.paletteIndices()[i];
+                if (index < 0 || index >= localToShared.length) {
+                    return false;
+                }
+                cells[received] = chunk.cells()[i];
+                stateIndices[received] = localToShared[index];
+                received++;
+            }
+            nextChunk++;
+            return true;
+        }
+
+        private boolean complete() {
+            return nextChunk >= chunkCount;
+        }
+
+        private Geometry build() {
+            int[] finalCells = received == cells.length ? cells : Arrays.copyOf(cells, received);
+            int[] finalStates = received == stateIndices.length ? stateIndices : Arrays.copyOf(stateIndices, received);
+            return new Geometry(
+                originX,
+                originY,
+                originZ,
+                sizeX,
+                sizeY,
+                sizeZ,
+                finalCells,
+                finalStates,
+                palette.toArray(new BlockState[0])
+            );
+        }
+    }
+}
@@ -2,19 +2,44 @@ package com.bladelow.client;
 
 import com.bladelow.network.HudAction;
 import com.bladelow.network.HudCommandPayload;
+import net.fabricmc.fabric.api.client.rendering.v1.world.WorldRenderContext;
+import net.fabricmc.fabric.api.client.rendering.v1.world.WorldRenderEvents;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.RenderLayers;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.util.math.MatrixStack;
 import net.minecraft.client.world.ClientWorld;
 import net.minecraft.particle.DustParticleEffect;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
- * World-space particle overlay for current selection markers.
+ * World-space overlay for the current selection markers and saved districts.
  *
  * This mirrors HUD/command selection state so the player can see the planned
- * box directly in the world while moving around.
+ * box directly in the world while moving around. The box, marker cubes and
+ * district outlines are kept as one cached segment list, rebuilt only when
+ * the markers or zones change, and emitted each frame into the lines layer
+ * after a cheap view-cone cull. Dust particles are only used when world
+ * rendering has not called back recently, e.g. under a replaced pipeline.
  */
 public final class BladelowSelectionOverlay {
     private static final int DEFAULT_HEIGHT = 1;
+    private static final int MAX_ZONES = 64;
+    // Long edges are split so culling can drop the parts behind the camera.
+    private static final int MAX_SEGMENT_LENGTH = 16;
+    private static final double MAX_RENDER_DISTANCE = 512.0;
+    private static final float LINE_WIDTH = 2.0f;
+    private static final int RENDER_STALE_TICKS = 20;
+
+    private static final int WHITE = 0xFFF5F5F5;
+    private static final int BLUE = 0xFF4CB8FF;
+    private static final int RED = 0xFFFF6262;
 
     private static final DustParticleEffect WHITE_MARK = new DustParticleEffect(0xF5F5F5, 1.0f);
     private static final DustParticleEffect BLUE_MARK = new DustParticleEffect(0x4CB8FF, 1.0f);
@@ -23,21 +48,40 @@ public final class BladelowSelectionOverlay {
     private static BlockPos markerA;
     private static BlockPos markerB;
     private static int markerHeight = DEFAULT_HEIGHT;
+    private static final List<Zone> ZONES = new ArrayList<>();
     private static int tickCooldown;
 
+    private static Segments segments = Segments.EMPTY;
+    private static boolean dirty;
+    private static int ticksSinceRender = RENDER_STALE_TICKS;
+
     private BladelowSelectionOverlay() {
     }
 
+    public static void register() {
+        WorldRenderEvents.BEFORE_DEBUG_RENDER.register(BladelowSelectionOverlay::render);
+    }
+
     public static void clear() {
         markerA = null;
         markerB = null;
         markerHeight = DEFAULT_HEIGHT;
+        dirty = true;
+    }
+
+    /**
+     * Forget markers and mirrored districts, e.g. when leaving a world.
+     */
+    public static void reset() {
+        clear();
+        ZONES.clear();
     }
 
     public static void setMarkers(BlockPos a, BlockPos b, int height) {
         markerA = a;
         markerB = b;
         markerHeight = Math.max(1, height);
+        dirty = true;
     }
 
     public static void setDraftMarkers(BlockPos a, BlockPos b, int heightHint) {
@@ -46,6 +90,7 @@ public final class BladelowSelectionOverlay {
         if (heightHint > 0) {
             markerHeight = heightHint;
         }
+        dirty = true;
     }
 
     public static void applyHudAction(HudCommandPayload payload) {
@@ -56,6 +101,23 @@ public final class BladelowSelectionOverlay {
             clear();
             return;
         }
+        if (payload.action() == HudAction.ZONE_SET && !payload.args().isEmpty()) {
+            // The server stores the current selection under this type.
+            if (markerA != null && markerB != null) {
+                addZone(payload.args().get(0), markerA, markerB, markerHeight);
+            }
+            return;
+        }
+        if (payload.action() == HudAction.ZONE_CLEAR) {
+            if (payload.args().isEmpty()) {
+                ZONES.clear();
+            } else {
+                String type = payload.args().get(0).trim().toLowerCase(Locale.ROOT);
+                ZONES.removeIf(zone -> zone.type().equals(type));
+            }
+            dirty = true;
+            return;
+        }
         if (payload.action() == HudAction.SELECTION_MARKER_BOX && payload.args().size() >= 7) {
             // Mirror the selection marker payload so the in-world overlay stays
             // in sync with the HUD without reparsing a fake command string.
@@ -74,6 +136,10 @@ public final class BladelowSelectionOverlay {
     }
 
     public static void tick(MinecraftClient client) {
+        if (ticksSinceRender < RENDER_STALE_TICKS) {
+            ticksSinceRender++;
+            return;
+        }
         if (client == null || client.world == null || client.player == null) {
             return;
         }
@@ -99,6 +165,145 @@ public final class BladelowSelectionOverlay {
         }
     }
 
+    private static void render(WorldRenderContext context) {
+        ticksSinceRender = 0;
+        if (dirty) {
+            segments = buildSegments();
+            dirty = false;
+        }
+        if (segments.count() == 0 || context.consumers() == null) {
+            return;
+        }
+        Vec3d cameraPos = context.worldState().cameraRenderState.pos;
+        BladelowViewCone cone = BladelowViewCone.of(context);
+
+        MatrixStack matrices = context.matrices();
+        matrices.push();
+        matrices.translate(
+            segments.originX() - cameraPos.x,
+            segments.originY() - cameraPos.y,
+            segments.originZ() - cameraPos.z
+        );
+        MatrixStack.Entry entry = matrices.peek();
+        VertexConsumer lines = context.consumers().getBuffer(RenderLayers.lines());
+        float[] coords = segments.coords();
+        int[] colors = segments.colors();
+        for (int i = 0; i < segments.count(); i++) {
+            int base = i * 6;
+            float x1 = coords[base];
+            float y1 = coords[base + 1];
+            float z1 = coords[base + 2];
+            float x2 = coords[base + 3];
+            float y2 = coords[base + 4];
+            float z2 = coords[base + 5];
+            float dx = x2 - x1;
+            float dy = y2 - y1;
+            float dz = z2 - z1;
+            float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (length <= 0.0f) {
+                continue;
+            }
+            boolean visible = cone.sees(
+                segments.originX() + (x1 + x2) * 0.5,
+                segments.originY() + (y1 + y2) * 0.5,
+                segments.originZ() + (z1 + z2) * 0.5,
+                length * 0.5 + 1.0,
+                MAX_RENDER_DISTANCE
+            );
+            if (!visible) {
+                continue;
+            }
+            dx /= length;
+            dy /= length;
+            dz /= length;
+            lines.vertex(entry, x1, y1, z1).color(colors[i]).normal(entry, dx, dy, dz).lineWidth(LINE_WIDTH);
+            lines.vertex(entry, x2, y2, z2).color(colors[i]).normal(entry, dx, dy, dz).lineWidth(LINE_WIDTH);
+        }
+        matrices.pop();
+    }
+
+    private static void addZone(String type, BlockPos a, BlockPos b, int height) {
+        String normalized = type == null ? "" : type.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        Zone zone = new Zone(
+            normalized,
+            Math.min(a.getX(), b.getX()),
+            Math.min(a.getY(), b.getY()),
+            Math.min(a.getZ(), b.getZ()),
+            Math.max(a.getX(), b.getX()),
+            Math.max(1, height),
+            Math.max(a.getZ(), b.getZ())
+        );
+        ZONES.removeIf(existing -> existing.sameArea(zone));
+        ZONES.add(zone);
+        while (ZONES.size() > MAX_ZONES) {
+            ZONES.remove(0);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Flatten the markers, selection box and districts into line segments
+     * relative to a shared integer origin, keeping float coordinates precise
+     * far from world zero.
+     */
+    private static Segments buildSegments() {
+        BlockPos anchor = markerA != null ? markerA : markerB;
+        if (anchor == null && ZONES.isEmpty()) {
+            return Segments.EMPTY;
+        }
+        if (anchor == null) {
+            Zone first = ZONES.get(0);
+            anchor = new BlockPos(first.minX(), first.minY(), first.minZ());
+        }
+        SegmentBuilder builder = new SegmentBuilder(anchor.getX(), anchor.getY(), anchor.getZ());
+        for (Zone zone : ZONES) {
+            int color = districtColor(zone.type());
+            double minY = zone.minY() + 0.02;
+            double topY = zone.minY() + zone.height();
+            builder.rectangle(zone.minX(), zone.minZ(), zone.maxX() + 1, zone.maxZ() + 1, minY, color);
+            builder.rectangle(zone.minX(), zone.minZ(), zone.maxX() + 1, zone.maxZ() + 1, topY, color);
+        }
+        if (markerA != null && markerB != null) {
+            int minX = Math.min(markerA.getX(), markerB.getX());
+            int maxX = Math.max(markerA.getX(), markerB.getX()) + 1;
+            int minY = Math.min(markerA.getY(), markerB.getY());
+            int minZ = Math.min(markerA.getZ(), markerB.getZ());
+            int maxZ = Math.max(markerA.getZ(), markerB.getZ()) + 1;
+            int topY = minY + Math.max(1, markerHeight);
+            for (double y : new double[] {minY + 0.01, topY}) {
+                builder.line(minX, y, minZ, maxX, y, minZ, WHITE);
+                builder.line(minX, y, maxZ, maxX, y, maxZ, WHITE);
+                builder.line(minX, y, minZ, minX, y, maxZ, BLUE);
+                builder.line(maxX, y, minZ, maxX, y, maxZ, BLUE);
+            }
+            builder.line(minX, minY, minZ, minX, topY, minZ, RED);
+            builder.line(maxX, minY, minZ, maxX, topY, minZ, RED);
+            builder.line(minX, minY, maxZ, minX, topY, maxZ, RED);
+            builder.line(maxX, minY, maxZ, maxX, topY, maxZ, RED);
+        }
+        if (markerA != null) {
+            builder.cube(markerA, WHITE);
+        }
+        if (markerB != null) {
+            builder.cube(markerB, BLUE);
+        }
+        return builder.build();
+    }
+
+    private static int districtColor(String type) {
+        return switch (type) {
+            case "residential" -> 0xFFE0A15B;
+            case "market" -> 0xFF57B7FF;
+            case "workshop" -> 0xFFC377FF;
+            case "civic" -> 0xFF5DDA7A;
+            case "mixed" -> 0xFFE8DE72;
+            default -> 0xFFFF6A6A;
+        };
+    }
+
     private static void spawnMarker(ClientWorld world, BlockPos pos, DustParticleEffect color) {
         world.addParticleClient(color, pos.getX() + 0.5, pos.getY() + 1.04, pos.getZ() + 0.5, 0.0, 0.0, 0.0);
         world.addParticleClient(color, pos.getX() + 0.5, pos.getY() + 0.1, pos.getZ() + 0.5, 0.0, 0.0, 0.0);
@@ -154,4 +359,90 @@ public final class BladelowSelectionOverlay {
             return null;
         }
     }
+
+    private record Zone(String type, int minX, int minY, int minZ, int maxX, int height, int maxZ) {
+        private boolean sameArea(Zone other) {
+            return minX == other.minX && minY == other.minY && minZ == other.minZ
+                && maxX == other.maxX && maxZ == other.maxZ;
+        }
+    }
+
+    /**
+     * Packed segments: six floats per segment relative to the origin, one ARGB
+     * colour each.
+     */
+    private record Segments(int originX, int originY, int originZ, float[] coords, int[] colors, int count) {
+        private static final Segments EMPTY = new Segments(0, 0, 0, new float[0], new int[0], 0);
+    }
+
+    private static final class SegmentBuilder {
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private float[] coords = new float[6 * 64];
+        private int[] colors = new int[64];
+        private int count;
+
+        private SegmentBuilder(int originX, int originY, int originZ) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+        }
+
+        private void rectangle(double minX, double minZ, double maxX, double maxZ, double y, int color) {
+            line(minX, y, minZ, maxX, y, minZ, color);
+            line(minX, y, maxZ, maxX, y, maxZ, color);
+            line(minX, y, minZ, minX, y, maxZ, color);
+            line(maxX, y, minZ, maxX, y, maxZ, color);
+        }
+
+        private void cube(BlockPos pos, int color) {
+            double inset = 0.002;
+            double minX = pos.getX() - inset;
+            double minY = pos.getY() - inset;
+            double minZ = pos.getZ() - inset;
+            double maxX = pos.getX() + 1 + inset;
+            double maxY = pos.getY() + 1 + inset;
+            double maxZ = pos.getZ() + 1 + inset;
+            rectangle(minX, minZ, maxX, maxZ, minY, color);
+            rectangle(minX, minZ, maxX, maxZ, maxY, color);
+            line(minX, minY, minZ, minX, maxY, minZ, color);
+            line(maxX, minY, minZ, maxX, maxY, minZ, color);
+            line(minX, minY, maxZ, minX, maxY, maxZ, color);
+            line(maxX, minY, maxZ, maxX, maxY, maxZ, color);
+        }
+
+        private void line(double x1, double y1, double z1, double x2, double y2, double z2, int color) {
+            double length = Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1) + (z2 - z1) * (z2 - z1));
+            int pieces = Math.max(1, (int) Math.ceil(length / MAX_SEGMENT_LENGTH));
+            for (int p = 0; p < pieces; p++) {
+                double t0 = (double) p / pieces;
+                double t1 = (double) (p + 1) / pieces;
+                add(
+                    x1 + (x2 - x1) * t0, y1 + (y2 - y1) * t0, z1 + (z2 - z1) * t0,
+                    x1 + (x2 - x1) * t1, y1 + (y2 - y1) * t1, z1 + (z2 - z1) * t1,
+                    color
+                );
+            }
+        }
+
+        private void add(double x1, double y1, double z1, double x2, double y2, double z2, int color) {
+            if (count == colors.length) {
+                colors = Arrays.copyOf(colors, count * 2);
+                coords = Arrays.copyOf(coords, count * 12);
+            }
+            int base = count * 6;
+            coords[base] = (float) (x1 - originX);
+            coords[base + 1] = (float) (y1 - originY);
+            coords[base + 2] = (float) (z1 - originZ);
+            coords[base + 3] = (float) (x2 - originX);
+            coords[base + 4] = (float) (y2 - originY);
+            coords[base + 5] = (float) (z2 - originZ);
+            colors[count++] = color;
+        }
+
+        private Segments build() {
+            return new Segments(originX, originY, originZ, coords, colors, count);
+        }
+    }
 }
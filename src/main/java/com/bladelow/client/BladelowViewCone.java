@@ -0,0 +1,52 @@
+package com.bladelow.client;
+
+import net.fabricmc.fabric.api.client.rendering.v1.world.WorldRenderContext;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.state.CameraRenderState;
+import org.joml.Vector3f;
+
+/**
+ * Conservative view cone around the camera's forward axis, widened to the
+ * screen diagonal, for culling world overlays by bounding sphere.
+ */
+record BladelowViewCone(double x, double y, double z, float fx, float fy, float fz, double halfAngle) {
+    static BladelowViewCone of(WorldRenderContext context) {
+        MinecraftClient client = MinecraftClient.getInstance();
+        CameraRenderState camera = context.worldState().cameraRenderState;
+        Vector3f forward = camera.orientation.transform(new Vector3f(0.0f, 0.0f, -1.0f));
+        double fovY = Math.toRadians(client.options.getFov().getValue());
+        double width = client.getWindow().getFramebufferWidth();
+        double height = Math.max(1, client.getWindow().getFramebufferHeight());
+        double tanHalf = Math.tan(fovY / 2.0);
+        // Dynamic FOV effects (sprinting) can widen the view a little.
+        double halfAngle = Math.atan(tanHalf * Math.sqrt(1.0 + (width / height) * (width / height))) * 1.15;
+        return new BladelowViewCone(camera.pos.x, camera.pos.y, camera.pos.z, forward.x, forward.y, forward.z, halfAngle);
+    }
+
+    /**
+     * True when a sphere around the world point may be on screen and within
+     * {@code maxDistance} of the camera.
+     */
+    boolean sees(double cx, double cy, double cz, double radius, double maxDistance) {
+        double dx = cx - x;
+        double dy = cy - y;
+        double dz = cz - z;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (distance <= radius) {
+            return true;
+        }
+        if (distance - radius > maxDistance) {
+            return false;
+        }
+        double cos = (dx * fx + dy * fy + dz * fz) / distance;
+        double angle = Math.acos(Math.max(-1.0, Math.min(1.0, cos)));
+        return angle - Math.asin(Math.min(1.0, radius / distance)) <= halfAngle;
+    }
+
+    double distanceTo(double cx, double cy, double cz) {
+        double dx = cx - x;
+        double dy = cy - y;
+        double dz = cz - z;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -1,9 +1,15 @@
 package com.bladelow.client.ui;
 
+import com.bladelow.client.BladelowHudProfiler;
 import com.bladelow.client.BladelowHudTelemetry;
 import com.bladelow.client.BladelowModelStatus;
+import com.bladelow.client.BladelowPlanningMap;
+import com.bladelow.client.BladelowPlanningMap.MapCellType;
+import com.bladelow.client.BladelowPreviewGeometry;
 import com.bladelow.client.BladelowSelectionOverlay;
+import com.bladelow.network.HudAckPayload;
 import com.bladelow.network.HudAction;
+import com.bladelow.network.HudBatchPayload;
 import com.bladelow.network.HudCommandBridge;
 import com.bladelow.network.HudCommandPayload;
 import net.minecraft.block.Block;
@@ -93,8 +99,9 @@ public class BladelowHudScreen extends Screen {
     private static final int PANEL_MIN_WIDTH = 920;
     private static final int PANEL_MIN_HEIGHT = 540;
     private static final int MINIMAP_BASE_RADIUS = 72;
+    // Each zoom step doubles the radius; the outer steps rely on cached tiles.
+    private static final int MINIMAP_MAX_ZOOM = 3;
     private static final int MINIMAP_MAX_SAMPLES_PER_AXIS = 160;
-    private static final long MINIMAP_CACHE_TICKS = 20L;
     private static final int MAX_SUGGESTED_PLOTS = 6;
 
     private static final Path HUD_STATE_PATH = Path.of("config", "bladelow", "hud-state.properties");
@@ -134,6 +141,7 @@ public class BladelowHudScreen extends Screen {
         private static String favorites = "minecraft:stone|minecraft:cobblestone|minecraft:oak_planks|minecraft:glass";
         private static String recent = "";
         private static int scaleIndex = 1;
+        private static int mapZoom = 0;
         private static boolean slotMiniIcons = true;
         private static String markerA = "";
         private static String markerB = "";
@@ -203,6 +211,7 @@ public class BladelowHudScreen extends Screen {
     private ButtonWidget reachPlusButton;
     private ButtonWidget profileButton;
     private ButtonWidget statusDetailButton;
+    private ButtonWidget modelTrainButton;
 
     private ButtonWidget presetLineXButton;
     private ButtonWidget presetLineZButton;
@@ -269,6 +278,7 @@ public class BladelowHudScreen extends Screen {
     private int activeSlot;
     private int profileIndex;
     private int uiScaleIndex;
+    private int mapZoom;
 
     private String activeMode;
     private String activeFlow;
@@ -286,6 +296,12 @@ public class BladelowHudScreen extends Screen {
     private double uiScale = 1.0;
 
     private String statusText = "Ready";
+    // Actions sent while a batch is open travel as one HudBatchPayload.
+    private List<HudCommandPayload> openBatch;
+    private int batchDepth;
+    private int nextBatchRequestId;
+    private int awaitingAckId = -1;
+    private boolean visibilityAnnounced;
     private String validationText = "";
     private String hoveredBlockId;
     private boolean suppressFieldCallbacks;
@@ -295,7 +311,6 @@ public class BladelowHudScreen extends Screen {
     private boolean planningDragActive;
     private BlockPos planningDragOrigin;
     private MinimapView planningDragView;
-    private MinimapRaster minimapRaster;
     private List<SuggestedPlot> suggestedPlots = List.of();
     private int selectedSuggestedPlot = -1;
     private boolean showModelStatusPage;
@@ -328,6 +343,7 @@ public class BladelowHudScreen extends Screen {
         this.pageIndex = UiState.pageIndex;
         this.activeSlot = UiState.activeSlot;
         this.uiScaleIndex = clamp(UiState.scaleIndex, 0, SCALE_VALUES.length - 1);
+        this.mapZoom = clamp(UiState.mapZoom, 0, MINIMAP_MAX_ZOOM);
 
         System.arraycopy(UiState.selectedSlots, 0, this.selectedSlots, 0, SLOT_COUNT);
 
@@ -343,6 +359,7 @@ public class BladelowHudScreen extends Screen {
 
     @Override
     protected void init() {
+        announceVisibility(true);
         favoriteButtons.clear();
         recentButtons.clear();
         blockButtons.clear();
@@ -640,6 +657,11 @@ public class BladelowHudScreen extends Screen {
         this.statusDetailButton = addDrawableChild(ButtonWidget.builder(Text.literal("Model Details"), b -> toggleModelStatusPage())
             .dimensions(rightX + sideW + rowGap, rightRowY + buttonH + rowGap, sideW, buttonH)
             .build());
+        // Drawn manually on top of the model page, so register it for input
+        // only instead of as a regular drawable child.
+        this.modelTrainButton = addSelectableChild(ButtonWidget.builder(Text.literal("Train Model"), b -> runOfflineTraining())
+            .dimensions(rightX, hiddenY, sx(1), buttonH)
+            .build());
         this.reachMinusButton = addDrawableChild(ButtonWidget.builder(Text.literal("-"), b -> adjustReach(-0.25))
             .dimensions(rightX, hiddenY, sx(1), buttonH)
             .build());
@@ -777,14 +799,19 @@ public class BladelowHudScreen extends Screen {
 
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        BladelowHudProfiler.begin(BladelowHudProfiler.Section.FRAME);
         maybeAutofillSlotsFromIntent();
         refreshCityAutoBuildButtonLabel();
         refreshPreviewActionButtons();
+        pollBatchAck();
         drawPanelBackground(context);
         if (showPlanningMap()) {
+            BladelowHudProfiler.begin(BladelowHudProfiler.Section.MAP_DRAW);
             drawPlanningMap(context, mouseX, mouseY);
+            BladelowHudProfiler.end(BladelowHudProfiler.Section.MAP_DRAW);
         }
 
+        BladelowHudProfiler.begin(BladelowHudProfiler.Section.PANELS);
         super.render(context, mouseX, mouseY, delta);
 
         hoveredBlockId = null;
@@ -793,10 +820,40 @@ public class BladelowHudScreen extends Screen {
         drawStatusPanel(context);
         if (showModelStatusPage) {
             drawModelStatusPage(context);
+            modelTrainButton.render(context, mouseX, mouseY, delta);
         }
+        BladelowHudProfiler.end(BladelowHudProfiler.Section.PANELS);
 
         if (hoveredBlockId != null) {
+            BladelowHudProfiler.begin(BladelowHudProfiler.Section.TOOLTIPS);
             drawBlockTooltip(context, mouseX, mouseY, hoveredBlockId);
+            BladelowHudProfiler.end(BladelowHudProfiler.Section.TOOLTIPS);
+        }
+        BladelowHudProfiler.end(BladelowHudProfiler.Section.FRAME);
+
+        if (BladelowHudProfiler.enabled()) {
+            drawProfilerOverlay(context);
+        }
+    }
+
+    /**
+     * Debug readout of the HUD section timings; F8 toggles, Shift+F8 exports.
+     */
+    private void drawProfilerOverlay(DrawContext context) {
+        BladelowHudProfiler.Section[] sections = BladelowHudProfiler.Section.values();
+        int lineH = this.textRenderer.fontHeight + 2;
+        int x = 4;
+        int y = 4;
+        int w = 0;
+        String[] lines = new String[sections.length];
+        for (int i = 0; i < sections.length; i++) {
+            lines[i] = BladelowHudProfiler.format(BladelowHudProfiler.stats(sections[i]));
+            w = Math.max(w, this.textRenderer.getWidth(lines[i]));
+        }
+        context.fill(x - 2, y - 2, x + w + 2, y + lines.length * lineH, 0xC0000000);
+        for (String line : lines) {
+            context.drawText(this.textRenderer, Text.literal(line), x, y, 0xFF9FE8A0, false);
+            y += lineH;
         }
     }
 
@@ -843,18 +900,9 @@ public class BladelowHudScreen extends Screen {
         context.fill(view.screenX(), view.screenY(), view.screenX() + view.screenW(), view.screenY() + view.screenH(), 0xCC18212B);
         drawBorder(context, view.screenX(), view.screenY(), view.screenW(), view.screenH(), 0xFF8AA4C4);
 
-        // Cache a denser world raster so narrow roads and small structures stay
-        // visible without running thousands of height lookups every render tick.
-        MinimapRaster raster = minimapRaster(view, this.client.world);
-        double cellW = (double) view.screenW() / raster.samplesX();
-        double cellH = (double) view.screenH() / raster.samplesZ();
-        for (MinimapRun run : raster.runs()) {
-            int x1 = view.screenX() + (int) Math.floor(run.startX() * cellW);
-            int y1 = view.screenY() + (int) Math.floor(run.z() * cellH);
-            int x2 = view.screenX() + (int) Math.ceil(run.endXExclusive() * cellW);
-            int y2 = view.screenY() + (int) Math.ceil((run.z() + 1) * cellH);
-            context.fill(x1, y1, x2, y2, run.color());
-        }
+        // The terrain layer is sampled per chunk and composed off-thread, then
+        // drawn as one textured quad so panning large areas keeps frame rate.
+        BladelowPlanningMap.draw(context, this.client.world, view.screenX(), view.screenY(), view.screenW(), view.screenH(), planningMapRequest(view));
 
         int gridColor = 0x334D5D73;
         context.fill(view.screenX() + view.screenW() / 2, view.screenY(), view.screenX() + view.screenW() / 2 + 1, view.screenY() + view.screenH(), gridColor);
@@ -944,73 +992,18 @@ public class BladelowHudScreen extends Screen {
         if (topY < world.getBottomY()) {
             return new MinimapCell(MapCellType.TERRAIN, 0xFF101720, "void", world.getBottomY());
         }
-        BlockPos pos = new BlockPos(worldX, topY, worldZ);
-        BlockState state = world.getBlockState(pos);
-        String path = Registries.BLOCK.getId(state.getBlock()).getPath();
-        MapCellType type = classifyMinimapCell(path, !state.getFluidState().isEmpty(), topY, referenceY);
-        int base = colorForSurface(type);
-        int rawShade = clamp((topY - referenceY) * 3, -24, 24);
-        int shade = (int) Math.round(rawShade / 6.0) * 6;
-        return new MinimapCell(type, shadeColor(base, shade), minimapLabel(type), topY);
+        BlockState state = world.getBlockState(new BlockPos(worldX, topY, worldZ));
+        MapCellType type = BladelowPlanningMap.classify(state, topY, referenceY);
+        return new MinimapCell(type, BladelowPlanningMap.columnColor(type, topY, referenceY), minimapLabel(type), topY);
     }
 
-    private MinimapRaster minimapRaster(MinimapView view, ClientWorld world) {
+    private BladelowPlanningMap.Request planningMapRequest(MinimapView view) {
         int worldWidth = Math.max(1, view.maxX() - view.minX() + 1);
         int worldDepth = Math.max(1, view.maxZ() - view.minZ() + 1);
         int samplePixelSize = Math.max(1, sx(3));
         int samplesX = Math.max(1, Math.min(worldWidth, Math.min(MINIMAP_MAX_SAMPLES_PER_AXIS, view.screenW() / samplePixelSize)));
         int samplesZ = Math.max(1, Math.min(worldDepth, Math.min(MINIMAP_MAX_SAMPLES_PER_AXIS, view.screenH() / samplePixelSize)));
-        long worldTick = world.getTime();
-
-        if (minimapRaster != null
-            && minimapRaster.matches(view, samplesX, samplesZ)
-            && worldTick >= minimapRaster.sampledAtTick()
-            && worldTick - minimapRaster.sampledAtTick() < MINIMAP_CACHE_TICKS) {
-            return minimapRaster;
-        }
-
-        List<MinimapCell> cells = new ArrayList<>(samplesX * samplesZ);
-        for (int sampleZ = 0; sampleZ < samplesZ; sampleZ++) {
-            int worldZ = sampleCoordinate(view.minZ(), worldDepth, sampleZ, samplesZ);
-            for (int sampleX = 0; sampleX < samplesX; sampleX++) {
-                int worldX = sampleCoordinate(view.minX(), worldWidth, sampleX, samplesX);
-                cells.add(sampleMinimapCell(world, worldX, worldZ, view.baseY()));
-            }
-        }
-        minimapRaster = new MinimapRaster(
-            view.minX(),
-            view.maxX(),
-            view.minZ(),
-            view.maxZ(),
-            view.baseY(),
-            samplesX,
-            samplesZ,
-            worldTick,
-            createMinimapRuns(cells, samplesX, samplesZ)
-        );
-        return minimapRaster;
-    }
-
-    private List<MinimapRun> createMinimapRuns(List<MinimapCell> cells, int samplesX, int samplesZ) {
-        List<MinimapRun> runs = new ArrayList<>();
-        for (int z = 0; z < samplesZ; z++) {
-            int startX = 0;
-            int color = cells.get(z * samplesX).color();
-            for (int x = 1; x <= samplesX; x++) {
-                int nextColor = x < samplesX ? cells.get(z * samplesX + x).color() : Integer.MIN_VALUE;
-                if (x == samplesX || nextColor != color) {
-                    runs.add(new MinimapRun(startX, x, z, color));
-                    startX = x;
-                    color = nextColor;
-                }
-            }
-        }
-        return List.copyOf(runs);
-    }
-
-    private int sampleCoordinate(int minimum, int span, int sample, int sampleCount) {
-        int offset = (int) Math.floor((sample + 0.5) * span / Math.max(1.0, sampleCount));
-        return minimum + clamp(offset, 0, Math.max(0, span - 1));
+        return new BladelowPlanningMap.Request(view.minX(), view.maxX(), view.minZ(), view.maxZ(), view.baseY(), samplesX, samplesZ);
     }
 
     private void drawMapOrientationAndScale(DrawContext context, MinimapView view) {
@@ -1051,70 +1044,8 @@ public class BladelowHudScreen extends Screen {
         return power;
     }
 
-    private MapCellType classifyMinimapCell(String path, boolean fluid, int topY, int referenceY) {
-        String lowered = path == null ? "" : path.toLowerCase(Locale.ROOT);
-        if (fluid || lowered.contains("water") || lowered.contains("kelp") || lowered.contains("seagrass")) {
-            return MapCellType.WATER;
-        }
-        boolean nearGround = Math.abs(topY - referenceY) <= 4;
-        boolean roadMaterial = lowered.contains("path")
-            || lowered.contains("gravel")
-            || lowered.contains("road")
-            || lowered.contains("farmland")
-            || lowered.contains("packed_mud")
-            || lowered.contains("cobblestone")
-            || lowered.contains("andesite")
-            || lowered.contains("stone_bricks");
-        if (lowered.contains("path") || lowered.contains("gravel") || (nearGround && roadMaterial)) {
-            return MapCellType.ROAD;
-        }
-        if (lowered.contains("leaf") || lowered.contains("vine") || lowered.contains("crop")
-            || lowered.contains("grass") || lowered.contains("moss") || lowered.contains("bush")
-            || lowered.contains("flower") || lowered.contains("sapling")) {
-            return MapCellType.VEGETATION;
-        }
-        if (looksLikeStructureSurface(lowered)) {
-            return MapCellType.BUILDING;
-        }
-        if (lowered.contains("sand") || lowered.contains("clay") || lowered.contains("dirt") || lowered.contains("mud")) {
-            return MapCellType.OPEN_GROUND;
-        }
-        return MapCellType.TERRAIN;
-    }
-
-    private boolean looksLikeStructureSurface(String path) {
-        return path.contains("planks")
-            || path.contains("brick")
-            || path.contains("stone_bricks")
-            || path.contains("cobble")
-            || path.contains("quartz")
-            || path.contains("glass")
-            || path.contains("terracotta")
-            || path.contains("concrete")
-            || path.contains("wool")
-            || path.contains("log")
-            || path.contains("wood")
-            || path.contains("fence")
-            || path.contains("wall")
-            || path.contains("door")
-            || path.contains("trapdoor")
-            || path.contains("stairs")
-            || path.contains("slab")
-            || path.contains("copper")
-            || path.contains("deepslate_tiles")
-            || path.contains("polished")
-            || path.contains("cut_");
-    }
-
     private int colorForSurface(MapCellType type) {
-        return switch (type) {
-            case WATER -> 0xFF286DA8;
-            case ROAD -> 0xFFD0A05E;
-            case BUILDING -> 0xFFB55F59;
-            case VEGETATION -> 0xFF47884F;
-            case OPEN_GROUND -> 0xFFB79B68;
-            case TERRAIN -> 0xFF697785;
-        };
+        return BladelowPlanningMap.colorFor(type);
     }
 
     private String minimapLabel(MapCellType type) {
@@ -1196,6 +1127,7 @@ public class BladelowHudScreen extends Screen {
         int bottom = Math.max(worldToMapZ(view, preview.minZ()), worldToMapZ(view, preview.maxZ()));
 
         context.fill(left, top, right + 1, bottom + 1, 0x3344B8FF);
+        drawPreviewGeometry(context, view, preview);
         drawBorder(context, left, top, Math.max(1, right - left + 1), Math.max(1, bottom - top + 1), 0xFF67D6FF);
 
         int doorX = worldToMapX(view, preview.doorX());
@@ -1213,12 +1145,45 @@ public class BladelowHudScreen extends Screen {
         context.drawText(this.textRenderer, Text.literal(this.textRenderer.trimToWidth(label, boxW - sx(6))), boxX + sx(3), boxY + sx(2), 0xFFE7F8FF, false);
     }
 
-    private int shadeColor(int argb, int amount) {
-        int a = (argb >>> 24) & 0xFF;
-        int r = clamp(((argb >>> 16) & 0xFF) + amount, 0, 255);
-        int g = clamp(((argb >>> 8) & 0xFF) + amount, 0, 255);
-        int b = clamp((argb & 0xFF) + amount, 0, 255);
-        return (a << 24) | (r << 16) | (g << 8) | b;
+    /**
+     * Fill the preview footprint with the top block colour of each column
+     * once the streamed geometry for it has arrived. Equal neighbouring
+     * columns are merged into one fill per row, and a zoomed-out map samples
+     * one column per screen pixel.
+     */
+    private void drawPreviewGeometry(DrawContext context, MinimapView view, BladelowHudTelemetry.PreviewSnapshot preview) {
+        BladelowPreviewGeometry.Geometry geometry = BladelowPreviewGeometry.current();
+        if (geometry == null || !geometry.intersects(preview.minX(), preview.minZ(), preview.maxX(), preview.maxZ())) {
+            return;
+        }
+        int minX = Math.max(geometry.minX(), view.minX());
+        int maxX = Math.min(geometry.maxX(), view.maxX());
+        int minZ = Math.max(geometry.minZ(), view.minZ());
+        int maxZ = Math.min(geometry.maxZ(), view.maxZ());
+        if (minX > maxX || minZ > maxZ) {
+            return;
+        }
+        int stepX = Math.max(1, (view.maxX() - view.minX()) / Math.max(1, view.screenW()));
+        int stepZ = Math.max(1, (view.maxZ() - view.minZ()) / Math.max(1, view.screenH()));
+        for (int z = minZ; z <= maxZ; z += stepZ) {
+            int rowTop = worldToMapZ(view, z);
+            int rowBottom = Math.max(rowTop + 1, worldToMapZ(view, Math.min(maxZ + 1, z + stepZ)));
+            int runStart = minX;
+            int runColor = geometry.columnColor(minX, z);
+            for (int x = minX + stepX; x <= maxX + stepX; x += stepX) {
+                int color = x <= maxX ? geometry.columnColor(x, z) : 0;
+                if (x <= maxX && color == runColor) {
+                    continue;
+                }
+                if (runColor != 0) {
+                    int runLeft = worldToMapX(view, runStart);
+                    int runRight = Math.max(runLeft + 1, worldToMapX(view, Math.min(maxX + 1, x)));
+                    context.fill(runLeft, rowTop, runRight, rowBottom, (runColor & 0x00FFFFFF) | 0xD0000000);
+                }
+                runStart = x;
+                runColor = color;
+            }
+        }
     }
 
     private void drawMapSelectionRect(DrawContext context, MinimapView view, BlockPos a, BlockPos b, int color) {
@@ -1305,10 +1270,11 @@ public class BladelowHudScreen extends Screen {
             centerZ = 0;
         }
 
-        int minX = centerX - MINIMAP_BASE_RADIUS;
-        int maxX = centerX + MINIMAP_BASE_RADIUS;
-        int minZ = centerZ - MINIMAP_BASE_RADIUS;
-        int maxZ = centerZ + MINIMAP_BASE_RADIUS;
+        int radius = MINIMAP_BASE_RADIUS << mapZoom;
+        int minX = centerX - radius;
+        int maxX = centerX + radius;
+        int minZ = centerZ - radius;
+        int maxZ = centerZ + radius;
         if (markerA != null && markerB != null) {
             int selectionMinX = Math.min(markerA.getX(), markerB.getX());
             int selectionMaxX = Math.max(markerA.getX(), markerB.getX());
@@ -1368,47 +1334,21 @@ public class BladelowHudScreen extends Screen {
             || GLFW.glfwGetKey(handle, GLFW.GLFW_KEY_RIGHT_SHIFT) == GLFW.GLFW_PRESS;
     }
 
-    private record MinimapView(int screenX, int screenY, int screenW, int screenH, int minX, int maxX, int minZ, int maxZ, int baseY) {
+    private boolean isControlPressed() {
+        if (this.client == null || this.client.getWindow() == null) {
+            return false;
+        }
+        long handle = this.client.getWindow().getHandle();
+        return GLFW.glfwGetKey(handle, GLFW.GLFW_KEY_LEFT_CONTROL) == GLFW.GLFW_PRESS
+            || GLFW.glfwGetKey(handle, GLFW.GLFW_KEY_RIGHT_CONTROL) == GLFW.GLFW_PRESS;
     }
 
-    private enum MapCellType {
-        WATER,
-        ROAD,
-        BUILDING,
-        VEGETATION,
-        OPEN_GROUND,
-        TERRAIN
+    private record MinimapView(int screenX, int screenY, int screenW, int screenH, int minX, int maxX, int minZ, int maxZ, int baseY) {
     }
 
     private record MinimapCell(MapCellType type, int color, String label, int topY) {
     }
 
-    private record MinimapRaster(
-        int minX,
-        int maxX,
-        int minZ,
-        int maxZ,
-        int baseY,
-        int samplesX,
-        int samplesZ,
-        long sampledAtTick,
-        List<MinimapRun> runs
-    ) {
-        private boolean matches(MinimapView view, int expectedSamplesX, int expectedSamplesZ) {
-            return minX == view.minX()
-                && maxX == view.maxX()
-                && minZ == view.minZ()
-                && maxZ == view.maxZ()
-                && baseY == view.baseY()
-                && samplesX == expectedSamplesX
-                && samplesZ == expectedSamplesZ;
-        }
-
-    }
-
-    private record MinimapRun(int startX, int endXExclusive, int z, int color) {
-    }
-
     private record PlotEvaluation(boolean accepted, double score, String label) {
         private static PlotEvaluation reject() {
             return new PlotEvaluation(false, Double.NEGATIVE_INFINITY, "");
@@ -1614,12 +1554,29 @@ public class BladelowHudScreen extends Screen {
         }
     }
 
-    private void drawModelStatusPage(DrawContext context) {
-        BladelowModelStatus.Snapshot snapshot = BladelowModelStatus.snapshot();
+    private int[] modelStatusPageBounds() {
         int width = Math.min(panelW - sx(64), sx(560));
         int height = Math.min(panelH - sx(80), sx(170));
-        int x = panelX + (panelW - width) / 2;
-        int y = panelY + sx(44);
+        return new int[]{panelX + (panelW - width) / 2, panelY + sx(44), width, height};
+    }
+
+    private void layoutModelTrainButton() {
+        if (modelTrainButton == null) {
+            return;
+        }
+        int[] page = modelStatusPageBounds();
+        int buttonW = sx(110);
+        setButtonBounds(modelTrainButton, page[0] + page[2] - buttonW - sx(8), page[1] + page[3] - buttonH - sx(6), buttonW, buttonH);
+        setVisible(modelTrainButton, showModelStatusPage);
+    }
+
+    private void drawModelStatusPage(DrawContext context) {
+        BladelowModelStatus.Snapshot snapshot = BladelowModelStatus.snapshot();
+        int[] page = modelStatusPageBounds();
+        int x = page[0];
+        int y = page[1];
+        int width = page[2];
+        int height = page[3];
 
         context.fill(x, y, x + width, y + height, 0xEA121923);
         drawBorder(context, x, y, width, height, 0xFF7FA2CF);
@@ -1631,7 +1588,7 @@ public class BladelowHudScreen extends Screen {
             String clipped = this.textRenderer.trimToWidth(line, width - sx(16));
             context.drawText(this.textRenderer, Text.literal(clipped), x + sx(8), lineY, 0xFFD8E6F8, false);
             lineY += sx(14);
-            if (lineY > y + height - sx(18)) {
+            if (lineY > y + height - buttonH - sx(10)) {
                 break;
             }
         }
@@ -1849,6 +1806,7 @@ public class BladelowHudScreen extends Screen {
 
         layoutFlowButtons();
         layoutStatusDetailButton(source, cityMode, run);
+        layoutModelTrainButton();
         updateFlowButtons();
         updateBlockButtons();
         updateSlotButtons();
@@ -2405,70 +2363,95 @@ public class BladelowHudScreen extends Screen {
     }
 
     private void runCityPreview() {
-        if (!ensureMarkerSelection()) {
-            return;
+        beginBatch();
+        try {
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            citySummary = "preview requested";
+            sendAction(HudAction.TOWN_PREVIEW_SELECTION);
+        } finally {
+            endBatch();
         }
-        citySummary = "preview requested";
-        sendAction(HudAction.TOWN_PREVIEW_SELECTION);
     }
 
     private void runCityAutoZones() {
-        if (!ensureMarkerSelection()) {
-            return;
+        beginBatch();
+        try {
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            citySummary = "auto zones";
+            sendAction(HudAction.ZONE_AUTO_LAYOUT, cityLayoutPreset);
+        } finally {
+            endBatch();
         }
-        citySummary = "auto zones";
-        sendAction(HudAction.ZONE_AUTO_LAYOUT, cityLayoutPreset);
     }
 
     private void runCityAutoCity() {
-        if (!ensureMarkerSelection()) {
-            return;
+        beginBatch();
+        try {
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            citySummary = "director start";
+            sendAction(HudAction.CITY_AUTOPLAY_START, cityLayoutPreset);
+        } finally {
+            endBatch();
         }
-        citySummary = "director start";
-        sendAction(HudAction.CITY_AUTOPLAY_START, cityLayoutPreset);
     }
 
     private void runCityAutoBuild() {
-        SuggestedPlot plot = preferredSuggestedPlot();
-        if (plot != null && !selectionMatchesPlot(plot)) {
-            snapToSuggestedPlot(plot);
-        } else if (markerA == null || markerB == null) {
-            statusText = "Select an area or suggested plot first";
-            return;
-        }
-        if (!ensureMarkerSelection()) {
-            return;
-        }
-        String label = plot == null || plot.label() == null || plot.label().isBlank() ? "auto" : plot.label();
-        if (hasMatchingPreview()) {
-            citySummary = "build preview commit";
-            sendAction(HudAction.CITY_BUILD_COMMIT);
-            return;
+        beginBatch();
+        try {
+            SuggestedPlot plot = preferredSuggestedPlot();
+            if (plot != null && !selectionMatchesPlot(plot)) {
+                snapToSuggestedPlot(plot);
+            } else if (markerA == null || markerB == null) {
+                statusText = "Select an area or suggested plot first";
+                return;
+            }
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            String label = plot == null || plot.label() == null || plot.label().isBlank() ? "auto" : plot.label();
+            if (hasMatchingPreview()) {
+                citySummary = "build preview commit";
+                sendAction(HudAction.CITY_BUILD_COMMIT);
+                return;
+            }
+            citySummary = plot == null ? "preview generating" : "preview " + plot.label();
+            sendAction(
+                HudAction.CITY_BUILD_PREVIEW,
+                label,
+                slotOverrideArg(0),
+                slotOverrideArg(1),
+                slotOverrideArg(2)
+            );
+        } finally {
+            endBatch();
         }
-        citySummary = plot == null ? "preview generating" : "preview " + plot.label();
-        sendAction(
-            HudAction.CITY_BUILD_PREVIEW,
-            label,
-            slotOverrideArg(0),
-            slotOverrideArg(1),
-            slotOverrideArg(2)
-        );
     }
 
     private void runCityRerollPreview() {
-        if (!ensureMarkerSelection()) {
-            return;
+        beginBatch();
+        try {
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            SuggestedPlot plot = preferredSuggestedPlot();
+            String label = plot == null || plot.label() == null || plot.label().isBlank() ? "auto" : plot.label();
+            citySummary = "preview reroll";
+            sendAction(
+                HudAction.CITY_BUILD_REROLL,
+                label,
+                slotOverrideArg(0),
+                slotOverrideArg(1),
+                slotOverrideArg(2)
+            );
+        } finally {
+            endBatch();
         }
-        SuggestedPlot plot = preferredSuggestedPlot();
-        String label = plot == null || plot.label() == null || plot.label().isBlank() ? "auto" : plot.label();
-        citySummary = "preview reroll";
-        sendAction(
-            HudAction.CITY_BUILD_REROLL,
-            label,
-            slotOverrideArg(0),
-            slotOverrideArg(1),
-            slotOverrideArg(2)
-        );
     }
 
     private void runCityRejectPreview() {
@@ -2533,10 +2516,27 @@ public class BladelowHudScreen extends Screen {
 
     private void toggleModelStatusPage() {
         showModelStatusPage = !showModelStatusPage;
+        layoutModelTrainButton();
         refreshButtonLabels();
         statusText = showModelStatusPage ? "Opened model status page" : "Closed model status page";
     }
 
+    private void runOfflineTraining() {
+        if (isControlPressed()) {
+            // Ctrl-click cycles placement weights between global, per-world
+            // and per-player scopes.
+            sendAction(HudAction.MODEL_SET_SCOPE, "next");
+            return;
+        }
+        if (isShiftPressed()) {
+            // Shift-click toggles background retraining instead of training now.
+            sendAction(HudAction.MODEL_TRAIN_OFFLINE, "auto");
+            return;
+        }
+        citySummary = "model training";
+        sendAction(HudAction.MODEL_TRAIN_OFFLINE);
+    }
+
     private void cycleCityPreset() {
         int idx = 0;
         for (int i = 0; i < CITY_LAYOUT_PRESETS.length; i++) {
@@ -2566,31 +2566,36 @@ public class BladelowHudScreen extends Screen {
     }
 
     private void runSelectionBuild() {
-        Integer height = parseInt(heightField.getText());
-        if (height == null || height < 1 || height > 256) {
-            statusText = "Height must be 1..256";
-            return;
-        }
-        if (markerA == null || markerB == null) {
-            statusText = "Set marker A and marker B first";
-            return;
-        }
-        String blockSpec = selectedBlockSpec();
-        if (blockSpec == null) {
-            statusText = "Select at least one block";
-            return;
+        beginBatch();
+        try {
+            Integer height = parseInt(heightField.getText());
+            if (height == null || height < 1 || height > 256) {
+                statusText = "Height must be 1..256";
+                return;
+            }
+            if (markerA == null || markerB == null) {
+                statusText = "Set marker A and marker B first";
+                return;
+            }
+            String blockSpec = selectedBlockSpec();
+            if (blockSpec == null) {
+                statusText = "Select at least one block";
+                return;
+            }
+            sendAction(HudAction.SELECTION_MARKER_BOX,
+                Integer.toString(markerA.getX()),
+                Integer.toString(markerA.getY()),
+                Integer.toString(markerA.getZ()),
+                Integer.toString(markerB.getX()),
+                Integer.toString(markerB.getY()),
+                Integer.toString(markerB.getZ()),
+                Integer.toString(height),
+                "solid"
+            );
+            sendAction(HudAction.SELECTION_BUILD_HEIGHT, Integer.toString(height), blockSpec);
+        } finally {
+            endBatch();
         }
-        sendAction(HudAction.SELECTION_MARKER_BOX,
-            Integer.toString(markerA.getX()),
-            Integer.toString(markerA.getY()),
-            Integer.toString(markerA.getZ()),
-            Integer.toString(markerB.getX()),
-            Integer.toString(markerB.getY()),
-            Integer.toString(markerB.getZ()),
-            Integer.toString(height),
-            "solid"
-        );
-        sendAction(HudAction.SELECTION_BUILD_HEIGHT, Integer.toString(height), blockSpec);
     }
 
     private void markSelection() {
@@ -2639,31 +2644,36 @@ public class BladelowHudScreen extends Screen {
     }
 
     private void applyMarkerBox() {
-        if (markerA == null || markerB == null) {
-            statusText = "Set marker A and marker B first";
-            return;
-        }
-        Integer height = parseInt(heightField.getText());
-        if (height == null || height < 1 || height > 256) {
-            statusText = "Height must be 1..256";
-            return;
-        }
-        sendAction(HudAction.SELECTION_MARKER_BOX,
-            Integer.toString(markerA.getX()),
-            Integer.toString(markerA.getY()),
-            Integer.toString(markerA.getZ()),
-            Integer.toString(markerB.getX()),
-            Integer.toString(markerB.getY()),
-            Integer.toString(markerB.getZ()),
-            Integer.toString(height),
-            "solid"
-        );
-        refreshSuggestedPlots();
-        if (MODE_CITY.equals(activeMode)) {
-            citySummary = "intent scan";
-            sendAction(HudAction.MODEL_SCAN_INTENT);
+        beginBatch();
+        try {
+            if (markerA == null || markerB == null) {
+                statusText = "Set marker A and marker B first";
+                return;
+            }
+            Integer height = parseInt(heightField.getText());
+            if (height == null || height < 1 || height > 256) {
+                statusText = "Height must be 1..256";
+                return;
+            }
+            sendAction(HudAction.SELECTION_MARKER_BOX,
+                Integer.toString(markerA.getX()),
+                Integer.toString(markerA.getY()),
+                Integer.toString(markerA.getZ()),
+                Integer.toString(markerB.getX()),
+                Integer.toString(markerB.getY()),
+                Integer.toString(markerB.getZ()),
+                Integer.toString(height),
+                "solid"
+            );
+            refreshSuggestedPlots();
+            if (MODE_CITY.equals(activeMode)) {
+                citySummary = "intent scan";
+                sendAction(HudAction.MODEL_SCAN_INTENT);
+            }
+            BladelowSelectionOverlay.setMarkers(markerA, markerB, height);
+        } finally {
+            endBatch();
         }
-        BladelowSelectionOverlay.setMarkers(markerA, markerB, height);
     }
 
     private boolean ensureMarkerSelection() {
@@ -2681,12 +2691,17 @@ public class BladelowHudScreen extends Screen {
     }
 
     private void saveZoneFromMarkers(String type) {
-        if (!ensureMarkerSelection()) {
-            return;
+        beginBatch();
+        try {
+            if (!ensureMarkerSelection()) {
+                return;
+            }
+            bumpDistrictCount(type);
+            citySummary = "district saved";
+            sendAction(HudAction.ZONE_SET, type);
+        } finally {
+            endBatch();
         }
-        bumpDistrictCount(type);
-        citySummary = "district saved";
-        sendAction(HudAction.ZONE_SET, type);
     }
 
     private void setDistrictBrush(String type) {
@@ -3281,6 +3296,11 @@ public class BladelowHudScreen extends Screen {
             return;
         }
         BladelowSelectionOverlay.applyHudAction(payload);
+        if (openBatch != null) {
+            openBatch.add(payload);
+            statusText = actionStatus(payload);
+            return;
+        }
         if (!HudCommandBridge.sendClientPayload(payload)) {
             BladelowHudTelemetry.recordLocalMessage("[bridge-unavailable] " + payload.describe());
             statusText = "Bladelow HUD bridge unavailable";
@@ -3290,6 +3310,59 @@ public class BladelowHudScreen extends Screen {
         statusText = actionStatus(payload);
     }
 
+    /**
+     * Collect the actions of one user gesture until the matching
+     * {@link #endBatch()}; calls nest, the outermost one sends.
+     */
+    private void beginBatch() {
+        if (batchDepth++ == 0) {
+            openBatch = new ArrayList<>();
+        }
+    }
+
+    private void endBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) {
+            return;
+        }
+        List<HudCommandPayload> actions = openBatch;
+        openBatch = null;
+        if (actions == null || actions.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < actions.size(); from += HudBatchPayload.MAX_STEPS) {
+            List<HudCommandPayload> slice = actions.subList(from, Math.min(actions.size(), from + HudBatchPayload.MAX_STEPS));
+            HudBatchPayload batch = slice.size() > 1 ? HudBatchPayload.of(++nextBatchRequestId, slice) : null;
+            if (batch != null && HudCommandBridge.sendClientBatch(batch)) {
+                awaitingAckId = batch.requestId();
+                BladelowHudTelemetry.recordLocalMessage("[hud] " + batch.describe());
+                continue;
+            }
+            // Single action or older server: one payload per action.
+            for (HudCommandPayload payload : slice) {
+                if (!HudCommandBridge.sendClientPayload(payload)) {
+                    BladelowHudTelemetry.recordLocalMessage("[bridge-unavailable] " + payload.describe());
+                    statusText = "Bladelow HUD bridge unavailable";
+                    return;
+                }
+                BladelowHudTelemetry.recordLocalMessage("[hud] " + payload.describe());
+            }
+        }
+    }
+
+    private void pollBatchAck() {
+        if (awaitingAckId < 0) {
+            return;
+        }
+        HudAckPayload ack = BladelowHudTelemetry.ack(awaitingAckId);
+        if (ack == null) {
+            return;
+        }
+        awaitingAckId = -1;
+        if (!ack.ok()) {
+            statusText = "Step " + (ack.completedSteps() + 1) + " failed: " + ack.message();
+        }
+    }
+
     private String actionStatus(HudCommandPayload payload) {
         return switch (payload.action()) {
             case BLUEPRINT_LOAD -> "Loading blueprint...";
@@ -3365,11 +3438,17 @@ public class BladelowHudScreen extends Screen {
                 citySummary = "style example saved";
                 yield "Saving selected area as a style example...";
             }
+            case MODEL_TRAIN_OFFLINE -> payload.args().isEmpty()
+                ? "Training offline model in the background..."
+                : "Toggling offline auto retrain...";
+            case MODEL_SET_SCOPE -> "Switching placement weight scope...";
             case STATUS, STATUS_DETAIL -> "Checking build status...";
             case PAUSE_BUILD -> "Build paused";
             case CONTINUE_BUILD -> "Continuing build...";
             case MOVE_SMART_ENABLE, MOVE_SMART_DISABLE, MOVE_SET_MODE, MOVE_SET_REACH,
-                 SAFETY_SET_PREVIEW, PROFILE_LOAD -> "Runtime updated";
+                 SAFETY_SET_PREVIEW, PROFILE_LOAD, TOWN_SET_OPTIMIZER_BUDGET -> "Runtime updated";
+            case JOB_STATUS -> "Checking planner jobs...";
+            case JOB_CANCEL -> "Canceling planner jobs...";
             default -> "Ran: " + payload.describe();
         };
     }
@@ -3733,6 +3812,7 @@ public class BladelowHudScreen extends Screen {
         UiState.favorites = readProfileValue(profile, "favorites", "minecraft:stone|minecraft:cobblestone|minecraft:oak_planks|minecraft:glass");
         UiState.recent = readProfileValue(profile, "recent", "");
         UiState.scaleIndex = readProfileInt(profile, "scaleIndex", 1);
+        UiState.mapZoom = readProfileInt(profile, "mapZoom", 0);
         UiState.slotMiniIcons = readProfileBoolean(profile, "slotMiniIcons", true);
         UiState.markerA = readProfileValue(profile, "markerA", "");
         UiState.markerB = readProfileValue(profile, "markerB", "");
@@ -3757,6 +3837,7 @@ public class BladelowHudScreen extends Screen {
         UiState.pageIndex = pageIndex;
         UiState.activeSlot = activeSlot;
         UiState.scaleIndex = uiScaleIndex;
+        UiState.mapZoom = mapZoom;
         UiState.slotMiniIcons = slotMiniIconsEnabled;
         UiState.markerA = encodePos(markerA);
         UiState.markerB = encodePos(markerB);
@@ -3817,6 +3898,7 @@ public class BladelowHudScreen extends Screen {
         writeProfileValue(profileKey, "favorites", UiState.favorites);
         writeProfileValue(profileKey, "recent", UiState.recent);
         writeProfileValue(profileKey, "scaleIndex", Integer.toString(UiState.scaleIndex));
+        writeProfileValue(profileKey, "mapZoom", Integer.toString(UiState.mapZoom));
         writeProfileValue(profileKey, "slotMiniIcons", Boolean.toString(UiState.slotMiniIcons));
         writeProfileValue(profileKey, "markerA", UiState.markerA);
         writeProfileValue(profileKey, "markerB", UiState.markerB);
@@ -3858,6 +3940,18 @@ public class BladelowHudScreen extends Screen {
         return super.mouseDragged(click, deltaX, deltaY);
     }
 
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double horizontalAmount, double verticalAmount) {
+        MinimapView view = showPlanningMap() && !planningDragActive ? currentMinimapView() : null;
+        if (view != null && verticalAmount != 0.0
+            && isInside(mouseX, mouseY, view.screenX(), view.screenY(), view.screenW(), view.screenH())) {
+            mapZoom = clamp(mapZoom + (verticalAmount < 0.0 ? 1 : -1), 0, MINIMAP_MAX_ZOOM);
+            statusText = "Map zoom: " + (1 << mapZoom) + "x area";
+            return true;
+        }
+        return super.mouseScrolled(mouseX, mouseY, horizontalAmount, verticalAmount);
+    }
+
     @Override
     public boolean mouseReleased(net.minecraft.client.gui.Click click) {
         if (planningDragActive && click.button() == GLFW.GLFW_MOUSE_BUTTON_LEFT) {
@@ -3919,21 +4013,26 @@ public class BladelowHudScreen extends Screen {
     }
 
     private void finalizePlanningMapSelection() {
-        planningDragOrigin = null;
-        planningDragView = null;
-        updateMarkerButtonLabels();
-        syncOverlayDraft();
-        updateRunGuard();
-        if (markerA == null || markerB == null) {
-            return;
-        }
-        applyMarkerBox();
-        if (MODE_CITY.equals(activeMode) && FLOW_SOURCE.equals(activeFlow) && !districtBrush.isBlank()) {
-            saveZoneFromMarkers(districtBrush);
-            statusText = "Saved " + districtBrush + " district from map selection";
-            return;
+        beginBatch();
+        try {
+            planningDragOrigin = null;
+            planningDragView = null;
+            updateMarkerButtonLabels();
+            syncOverlayDraft();
+            updateRunGuard();
+            if (markerA == null || markerB == null) {
+                return;
+            }
+            applyMarkerBox();
+            if (MODE_CITY.equals(activeMode) && FLOW_SOURCE.equals(activeFlow) && !districtBrush.isBlank()) {
+                saveZoneFromMarkers(districtBrush);
+                statusText = "Saved " + districtBrush + " district from map selection";
+                return;
+            }
+            statusText = "Selected area on planning map";
+        } finally {
+            endBatch();
         }
-        statusText = "Selected area on planning map";
     }
 
     @Override
@@ -3943,6 +4042,14 @@ public class BladelowHudScreen extends Screen {
             close();
             return true;
         }
+        if (keyCode == GLFW.GLFW_KEY_F8) {
+            if (isShiftPressed()) {
+                statusText = BladelowHudProfiler.exportCsv();
+            } else {
+                statusText = BladelowHudProfiler.toggle() ? "HUD profiler on (Shift+F8 exports CSV)" : "HUD profiler off";
+            }
+            return true;
+        }
 
         boolean typing = this.getFocused() instanceof TextFieldWidget;
         if (!typing) {
@@ -3976,9 +4083,22 @@ public class BladelowHudScreen extends Screen {
     @Override
     public void removed() {
         saveUiState();
+        announceVisibility(false);
         super.removed();
     }
 
+    /**
+     * Tell the server whether the HUD is showing so it can trade the action
+     * bar for denser telemetry. Not recorded in the HUD log.
+     */
+    private void announceVisibility(boolean open) {
+        if (visibilityAnnounced == open) {
+            return;
+        }
+        visibilityAnnounced = open;
+        HudCommandBridge.sendClientPayload(HudCommandPayload.of(HudAction.HUD_VISIBILITY, open ? "open" : "closed"));
+    }
+
     @Override
     public boolean shouldPause() {
         return false;
@@ -0,0 +1,21 @@
+package com.bladelow.mixin.client;
+
+import com.bladelow.client.BladelowPlanningMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Marks planning-map chunks dirty when the server changes a block.
+ */
+@Mixin(ClientWorld.class)
+public abstract class ClientWorldMixin {
+    @Inject(method = "handleBlockUpdate", at = @At("HEAD"))
+    private void bladelow$onBlockUpdate(BlockPos pos, BlockState state, int flags, CallbackInfo ci) {
+        BladelowPlanningMap.markDirty(pos.getX() >> 4, pos.getZ() >> 4);
+    }
+}
@@ -27,6 +27,7 @@ public final class BladelowLearning {
     private static final StyleReferenceLibrary STYLE_REFERENCES = new StyleReferenceLibrary();
     private static final EnvironmentStyleMemory STYLE_MEMORY = new EnvironmentStyleMemory(STYLE_REFERENCES);
     private static final OfflineTrainingModel OFFLINE_MODEL = new OfflineTrainingModel();
+    private static final OfflineModelTrainer OFFLINE_TRAINER = new OfflineModelTrainer(OFFLINE_MODEL);
     private static final BuildIntentPredictor BUILD_INTENT_PREDICTOR = new BuildIntentPredictor();
     private static final Path MODEL_PATH = Path.of("config", "bladelow", "model.properties");
 
@@ -77,6 +78,10 @@ public final class BladelowLearning {
         return OFFLINE_MODEL;
     }
 
+    public static OfflineModelTrainer offlineTrainer() {
+        return OFFLINE_TRAINER;
+    }
+
     public static Path modelPath() {
         return MODEL_PATH;
     }
@@ -85,6 +90,7 @@ public final class BladelowLearning {
         try {
             Files.createDirectories(MODEL_PATH.getParent());
             Properties p = MODEL.toProperties();
+            p.setProperty("offline.autoRetrain", Boolean.toString(OFFLINE_TRAINER.autoRetrain()));
             try (OutputStream out = Files.newOutputStream(MODEL_PATH)) {
                 p.store(out, "Bladelow ML model state");
             }
@@ -103,6 +109,7 @@ public final class BladelowLearning {
             Properties p = new Properties();
             p.load(in);
             MODEL.fromProperties(p);
+            OFFLINE_TRAINER.setAutoRetrain(Boolean.parseBoolean(p.getProperty("offline.autoRetrain", "false")));
             return "loaded from " + MODEL_PATH;
         } catch (IOException ex) {
             return "load failed: " + ex.getMessage();
@@ -123,6 +130,7 @@ public final class BladelowLearning {
             + " " + STYLE_REFERENCES.summary()
             + " " + STYLE_MEMORY.summary()
             + " " + OFFLINE_MODEL.summary()
+            + " " + OFFLINE_TRAINER.summary()
             + " " + BUILD_INTENT_PREDICTOR.summary();
     }
 }
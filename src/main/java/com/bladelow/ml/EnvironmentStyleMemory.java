@@ -27,6 +27,17 @@ import java.util.Map;
 public final class EnvironmentStyleMemory {
     private static final Gson GSON = new Gson();
     private static final int MAX_MATCHES = 8;
+    // Reference pictures are also matched on how they look. A fit below the
+    // floor counts for nothing, and a perfect one weighs less than one tag.
+    private static final double VISUAL_FIT_FLOOR = 0.6;
+    private static final double VISUAL_FIT_WEIGHT = 1.0;
+    // Rough look of a reference image for each site theme BuildSiteAnalyzer
+    // reports: mean saturation, edge density and where the hue sits.
+    private static final Map<String, ThemeLook> THEME_LOOKS = Map.of(
+        "stone", new ThemeLook(0.12, 0.30, HueFit.ANY),
+        "oak", new ThemeLook(0.45, 0.20, HueFit.WARM),
+        "market", new ThemeLook(0.60, 0.22, HueFit.VARIED)
+    );
 
     private final StyleReferenceLibrary referenceLibrary;
     private long fingerprint = Long.MIN_VALUE;
@@ -172,9 +183,27 @@ public final class EnvironmentStyleMemory {
         if (!secondary.isBlank() && label.contains(secondary)) {
             score += 0.75;
         }
+        score += visualFit(reference, primary) + visualFit(reference, secondary) * 0.5;
         return score;
     }
 
+    /**
+     * How well the image's extracted colour and edge features fit what a
+     * picture of {@code theme} usually looks like, scaled to
+     * 0..{@link #VISUAL_FIT_WEIGHT}. Lets untagged screenshots match too.
+     */
+    private static double visualFit(StyleReferenceLibrary.StyleReference reference, String theme) {
+        ThemeLook look = theme == null ? null : THEME_LOOKS.get(theme);
+        if (look == null || reference.hueHistogram().isEmpty()) {
+            return 0.0;
+        }
+        double miss = Math.min(1.0, Math.abs(reference.saturation() - look.saturation()) / 0.5)
+            + Math.min(1.0, Math.abs(reference.edgeDensity() - look.edgeDensity()) / 0.3)
+            + (1.0 - look.hue().fit(reference.hueHistogram()));
+        double fit = 1.0 - miss / 3.0;
+        return Math.max(0.0, fit - VISUAL_FIT_FLOOR) / (1.0 - VISUAL_FIT_FLOOR) * VISUAL_FIT_WEIGHT;
+    }
+
     private static double similarity(BuildSiteScan scan, Observation observation) {
         SiteStyleProfile profile = scan.styleProfile();
         double distance = 0.0;
@@ -337,4 +366,31 @@ public final class EnvironmentStyleMemory {
 
     private record ScoredObservation(Observation observation, double score) {
     }
+
+    private record ThemeLook(double saturation, double edgeDensity, HueFit hue) {
+    }
+
+    private enum HueFit {
+        ANY,
+        // Browns and oranges: the first two 30-degree bins from red.
+        WARM,
+        // Many colours at once, measured as normalized hue entropy.
+        VARIED;
+
+        private double fit(List<Double> histogram) {
+            return switch (this) {
+                case ANY -> 1.0;
+                case WARM -> histogram.get(0) + (histogram.size() > 1 ? histogram.get(1) : 0.0);
+                case VARIED -> {
+                    double entropy = 0.0;
+                    for (double share : histogram) {
+                        if (share > 0.0) {
+                            entropy -= share * Math.log(share);
+                        }
+                    }
+                    yield histogram.size() <= 1 ? 0.0 : entropy / Math.log(histogram.size());
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,152 @@
+package com.bladelow.ml;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Feature-hashed logistic model over placement context.
+ *
+ * Block id, solid-neighbour bitmask, height above base and attempt count (plus
+ * a few crosses of them) are hashed into one fixed {@code float[]}. Scoring
+ * walks the slots inline, so evaluation never allocates. Updates come only
+ * from the owning {@link PlacementModel.WeightSet} drain, which keeps this a
+ * single-writer structure; readers may observe a half-applied update, which is
+ * harmless for an online model.
+ */
+final class HashedPlacementModel {
+    private static final int BITS = 14;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int SLOTS = 9;
+    private static final int MIN_TRAINED_UPDATES = 64;
+    private static final float LEARNING_RATE = 0.08f;
+    private static final float WEIGHT_CLAMP = 6.0f;
+
+    private final float[] weights;
+    private volatile long updates;
+
+    HashedPlacementModel() {
+        this.weights = new float[SIZE];
+    }
+
+    HashedPlacementModel(HashedPlacementModel source) {
+        this.weights = source.weights.clone();
+        this.updates = source.updates;
+    }
+
+    boolean trained() {
+        return updates >= MIN_TRAINED_UPDATES;
+    }
+
+    long updates() {
+        return updates;
+    }
+
+    double probability(PlacementContext f) {
+        return sigmoid(logit(f));
+    }
+
+    /**
+     * One SGD step on the logistic loss. Must only be called by the single
+     * writer that owns this model.
+     */
+    void update(PlacementFeatures f, boolean success) {
+        float gradient = (float) ((success ? 1.0 : 0.0) - sigmoid(logit(f))) * LEARNING_RATE;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int hash = hash(slot, f);
+            int index = hash & MASK;
+            float signed = hash < 0 ? -gradient : gradient;
+            weights[index] = Math.max(-WEIGHT_CLAMP, Math.min(WEIGHT_CLAMP, weights[index] + signed));
+        }
+        updates = updates + 1;
+    }
+
+    void store(Properties p, String prefix) {
+        StringBuilder sparse = new StringBuilder();
+        for (int i = 0; i < SIZE; i++) {
+            if (weights[i] != 0.0f) {
+                if (!sparse.isEmpty()) {
+                    sparse.append(',');
+                }
+                sparse.append(i).append(':').append(weights[i]);
+            }
+        }
+        p.setProperty(prefix + "hashed.updates", Long.toString(updates));
+        p.setProperty(prefix + "hashed.weights", sparse.toString());
+    }
+
+    void load(Properties p, String prefix) {
+        Arrays.fill(weights, 0.0f);
+        updates = 0L;
+        String sparse = p.getProperty(prefix + "hashed.weights", "");
+        for (String entry : sparse.split(",")) {
+            int split = entry.indexOf(':');
+            if (split <= 0) {
+                continue;
+            }
+            try {
+                int index = Integer.parseInt(entry.substring(0, split));
+                float value = Float.parseFloat(entry.substring(split + 1));
+                if (index >= 0 && index < SIZE && Float.isFinite(value)) {
+                    weights[index] = Math.max(-WEIGHT_CLAMP, Math.min(WEIGHT_CLAMP, value));
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        try {
+            updates = Math.max(0L, Long.parseLong(p.getProperty(prefix + "hashed.updates", "0")));
+        } catch (NumberFormatException ex) {
+            updates = 0L;
+        }
+    }
+
+    private double logit(PlacementContext f) {
+        double total = 0.0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int hash = hash(slot, f);
+            float weight = weights[hash & MASK];
+            total += hash < 0 ? -weight : weight;
+        }
+        return total;
+    }
+
+    private static int hash(int slot, PlacementContext f) {
+        int block = f.blockHash();
+        int neighbors = f.neighborMask();
+        int height = Math.min(f.heightAboveBase(), 31);
+        int attempts = Math.min(f.attempts(), 7);
+        int replaceable = f.replaceable() > 0.5 ? 1 : 0;
+        return switch (slot) {
+            case 0 -> mix(slot, 0, 0);
+            case 1 -> mix(slot, block, 0);
+            case 2 -> mix(slot, neighbors, 0);
+            case 3 -> mix(slot, height, 0);
+            case 4 -> mix(slot, attempts, 0);
+            case 5 -> mix(slot, block, neighbors);
+            case 6 -> mix(slot, block, height);
+            case 7 -> mix(slot, neighbors, attempts);
+            default -> mix(slot, block, replaceable);
+        };
+    }
+
+    private static int mix(int slot, int a, int b) {
+        // murmur3 fmix32 over a cheap combination of the slot and its inputs;
+        // the top bit doubles as the sign to cancel collision bias.
+        int h = slot * 0x9E3779B9 ^ a * 0x85EBCA6B ^ Integer.rotateLeft(b * 0xC2B2AE35, 13);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static double sigmoid(double value) {
+        if (value >= 0.0) {
+            double exp = Math.exp(-value);
+            return 1.0 / (1.0 + exp);
+        }
+        double exp = Math.exp(value);
+        return exp / (1.0 + exp);
+    }
+}
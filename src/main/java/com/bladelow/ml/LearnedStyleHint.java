@@ -1,5 +1,6 @@
 package com.bladelow.ml;
 
+import com.bladelow.builder.BlueprintProfile;
 import com.bladelow.builder.TownBlueprint;
 
 import java.util.List;
@@ -43,24 +44,37 @@ public record LearnedStyleHint(
 
         // Reward theme and rough size agreement. This keeps the learned signal
         // interpretable and stops it from overpowering the rest of the planner.
+        BlueprintProfile profile = blueprint.profile();
         double score = 0.0;
-        if (!primaryTheme.isBlank() && blueprint.hasAnyTag(primaryTheme)) {
+        if (!primaryTheme.isBlank() && profile.hasTag(primaryTheme)) {
             score += 8.0 * confidence;
         }
-        if (!secondaryTheme.isBlank() && blueprint.hasAnyTag(secondaryTheme)) {
+        if (!secondaryTheme.isBlank() && profile.hasTag(secondaryTheme)) {
             score += 3.0 * confidence;
         }
-        if (referenceTags != null && !referenceTags.isEmpty() && blueprint.hasAnyTag(referenceTags.toArray(String[]::new))) {
+        if (matchesReferenceTag(profile)) {
             score += 2.5 * confidence;
         }
         if (matchedObservations > 0) {
             score += sizeFit(blueprint.plotWidth(), averageWidth) * 4.0 * confidence;
             score += sizeFit(blueprint.plotDepth(), averageDepth) * 3.5 * confidence;
-            score += sizeFit(blueprint.height(), averageHeight) * 2.5 * confidence;
+            score += sizeFit(profile.height(), averageHeight) * 2.5 * confidence;
         }
         return score;
     }
 
+    private boolean matchesReferenceTag(BlueprintProfile profile) {
+        if (referenceTags == null) {
+            return false;
+        }
+        for (String tag : referenceTags) {
+            if (profile.hasTag(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public String summary() {
         if (confidence <= 0.0 || primaryTheme.isBlank()) {
             return "none";
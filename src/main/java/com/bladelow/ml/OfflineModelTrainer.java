@@ -0,0 +1,894 @@
+package com.bladelow.ml;
+
+import com.bladelow.BladelowMod;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-process replacement for {@code scripts/train_bladelow_model.py}.
+ *
+ * Training runs on the trainer's own low-priority pool so the server tick
+ * never waits on dataset I/O and the common pool is left alone. Each JSONL
+ * dataset is parsed as a parallel line stream, and the finished model is
+ * written to a temp file and moved over {@code offline_model.json} so
+ * {@link OfflineTrainingModel} only ever sees a complete file on its next
+ * fingerprint refresh.
+ *
+ * Auto retrain is opt-in. When enabled it counts the rows appended to the
+ * training datasets since the last pass, reading only the bytes past the last
+ * scanned offset, and retrains once {@link #AUTO_RETRAIN_MIN_NEW_ROWS} have
+ * accumulated. The placement log grows with every placed block but only feeds
+ * a sample count, so it never triggers a pass on its own.
+ */
+public final class OfflineModelTrainer {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+    private static final Path ML_DIR = Path.of("config", "bladelow", "ml");
+    private static final Path OUTPUT_PATH = ML_DIR.resolve("offline_model.json");
+    private static final Path PLACEMENT_DATASET = ML_DIR.resolve("placement_style_events.jsonl");
+    private static final Path ENVIRONMENT_DATASET = ML_DIR.resolve("environment_observations.jsonl");
+    private static final Path BUILD_INTENT_DATASET = ML_DIR.resolve("build_intent_examples.jsonl");
+    private static final Path STYLE_EXAMPLES_DATASET = ML_DIR.resolve("style_examples.jsonl");
+    private static final Path PREVIEW_FEEDBACK_DATASET = ML_DIR.resolve("preview_feedback.jsonl");
+    private static final Path STYLE_REFS_DIR = ML_DIR.resolve("style_refs");
+    private static final int MODEL_VERSION = 2;
+    private static final int MIN_GENERATION_SAMPLES = 8;
+    private static final int GENERATION_STEPS = 900;
+    private static final int TOP_NAMED_LIMIT = 6;
+    private static final int AUTO_RETRAIN_INTERVAL_TICKS = 20 * 60 * 5;
+    private static final long AUTO_RETRAIN_MIN_NEW_ROWS = 200L;
+    private static final int SCAN_BUFFER_BYTES = 64 * 1024;
+    // Datasets whose new rows can change the model, in sampleCounts order.
+    private static final List<Path> TRAINING_DATASETS = List.of(
+        ENVIRONMENT_DATASET,
+        BUILD_INTENT_DATASET,
+        STYLE_EXAMPLES_DATASET,
+        PREVIEW_FEEDBACK_DATASET
+    );
+
+    // Parallel streams and supplyAsync calls made from a worker of this pool
+    // run on it too, so training never occupies the common pool.
+    private final ForkJoinPool executor = new ForkJoinPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+        pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("bladelow-offline-trainer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        },
+        null,
+        false
+    );
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final OfflineTrainingModel target;
+    // Parsed row counts per dataset; only touched by the pass holding `running`.
+    private final Map<Path, RowCursor> cursors = new HashMap<>();
+    private final Map<Path, Long> trainedRows = new HashMap<>();
+    private boolean trainedRowsSeeded;
+
+    private volatile boolean autoRetrain = false;
+    private volatile long pendingRows;
+    private volatile TrainingResult lastResult;
+    private volatile String lastError = "";
+    private int ticksUntilAutoCheck = AUTO_RETRAIN_INTERVAL_TICKS;
+
+    public OfflineModelTrainer(OfflineTrainingModel target) {
+        this.target = Objects.requireNonNull(target, "target");
+    }
+
+    public static Path outputPath() {
+        return OUTPUT_PATH;
+    }
+
+    public boolean running() {
+        return running.get();
+    }
+
+    public boolean autoRetrain() {
+        return autoRetrain;
+    }
+
+    public void setAutoRetrain(boolean enabled) {
+        autoRetrain = enabled;
+    }
+
+    /**
+     * Queue one training pass. Returns {@code false} when a pass is already in
+     * flight; callers should treat that as "the newest data will be picked up
+     * by the running pass or the next auto retrain".
+     */
+    public boolean requestTraining(String reason, Consumer<TrainingResult> onComplete) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        String normalizedReason = reason == null || reason.isBlank() ? "manual" : reason.trim();
+        CompletableFuture
+            .supplyAsync(() -> trainNow(normalizedReason), executor)
+            .whenComplete((result, failure) -> {
+                running.set(false);
+                TrainingResult finished = failure == null
+                    ? result
+                    : TrainingResult.failed(normalizedReason, rootMessage(failure));
+                lastResult = finished;
+                lastError = finished.ok() ? "" : finished.message();
+                if (!finished.ok()) {
+                    BladelowMod.LOGGER.warn("Bladelow offline training failed ({}): {}", normalizedReason, finished.message());
+                }
+                if (onComplete != null) {
+                    onComplete.accept(finished);
+                }
+            });
+        return true;
+    }
+
+    /**
+     * Called once per server tick. With auto retrain on, every few minutes it
+     * counts the rows appended since the last pass on the trainer pool and
+     * retrains there once enough have accumulated.
+     */
+    public void tick() {
+        if (!autoRetrain || --ticksUntilAutoCheck > 0) {
+            return;
+        }
+        ticksUntilAutoCheck = AUTO_RETRAIN_INTERVAL_TICKS;
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture
+            .supplyAsync(() -> countNewRows() >= AUTO_RETRAIN_MIN_NEW_ROWS ? trainNow("auto") : null, executor)
+            .whenComplete((result, failure) -> {
+                running.set(false);
+                if (failure != null) {
+                    lastError = rootMessage(failure);
+                    BladelowMod.LOGGER.warn("Bladelow offline auto retrain failed: {}", lastError);
+                } else if (result != null) {
+                    lastResult = result;
+                    lastError = result.ok() ? "" : result.message();
+                    if (!result.ok()) {
+                        BladelowMod.LOGGER.warn("Bladelow offline training failed (auto): {}", result.message());
+                    }
+                }
+            });
+    }
+
+    public String summary() {
+        TrainingResult result = lastResult;
+        StringBuilder out = new StringBuilder();
+        out.append("trainer[state=").append(running.get() ? "running" : "idle")
+            .append(" auto=").append(autoRetrain ? "on" : "off")
+            .append(" newRows=").append(pendingRows);
+        if (result != null) {
+            out.append(" last=").append(result.ok() ? "ok" : "failed")
+                .append(" reason=").append(result.reason())
+                .append(" intent=").append(result.intentExamples())
+                .append(" feedback=").append(result.previewFeedback())
+                .append(" generation=").append(result.generationTrained() ? "trained" : "fallback")
+                .append(" ms=").append(result.elapsedMillis());
+        }
+        out.append("]");
+        if (!lastError.isBlank()) {
+            out.append(" trainerError=").append(lastError);
+        }
+        return out.toString();
+    }
+
+    private TrainingResult trainNow(String reason) {
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(ML_DIR);
+            // Rows appended while this pass reads count toward the next one.
+            countNewRows();
+            Map<Path, Long> rowsAtStart = new HashMap<>();
+            for (Path dataset : TRAINING_DATASETS) {
+                rowsAtStart.put(dataset, cursor(dataset).rows);
+            }
+
+            // Datasets are independent, so read them concurrently; each read
+            // additionally splits its file into parallel line segments.
+            CompletableFuture<Long> placementCount = CompletableFuture.supplyAsync(() -> scanRows(PLACEMENT_DATASET), executor);
+            CompletableFuture<List<JsonObject>> environmentRows = CompletableFuture.supplyAsync(() -> readRows(ENVIRONMENT_DATASET), executor);
+            CompletableFuture<List<JsonObject>> intentRows = CompletableFuture.supplyAsync(() -> readRows(BUILD_INTENT_DATASET), executor);
+            CompletableFuture<List<JsonObject>> styleRows = CompletableFuture.supplyAsync(() -> readRows(STYLE_EXAMPLES_DATASET), executor);
+            CompletableFuture<List<JsonObject>> feedbackRows = CompletableFuture.supplyAsync(() -> readRows(PREVIEW_FEEDBACK_DATASET), executor);
+
+            List<JsonObject> environment = environmentRows.join();
+            List<JsonObject> intent = intentRows.join();
+            List<JsonObject> style = styleRows.join();
+            List<JsonObject> feedback = feedbackRows.join();
+
+            Map<String, Integer> themeCounts = weightedThemeCounts(environment, style);
+            Map<String, Integer> paletteCounts = new LinkedHashMap<>();
+            for (JsonObject row : intent) {
+                String palette = string(row, "paletteProfile");
+                if (!palette.isBlank()) {
+                    paletteCounts.merge(palette, 1, Integer::sum);
+                }
+            }
+
+            GenerationPreferenceFile generation = buildGenerationPreference(feedback);
+            ModelFile model = new ModelFile(
+                MODEL_VERSION,
+                Instant.now().toString(),
+                new SampleCounts(
+                    placementCount.join(),
+                    environment.size(),
+                    intent.size(),
+                    style.size(),
+                    feedback.size(),
+                    countImages(STYLE_REFS_DIR)
+                ),
+                topNamedCounts(themeCounts, TOP_NAMED_LIMIT),
+                topNamedCounts(paletteCounts, TOP_NAMED_LIMIT),
+                buildZonePriors(intent),
+                buildThemePriors(intent),
+                generation
+            );
+            publish(model);
+            trainedRows.putAll(rowsAtStart);
+            pendingRows = pendingRowCount();
+            return new TrainingResult(
+                true,
+                reason,
+                "trained offline model -> " + OUTPUT_PATH,
+                intent.size(),
+                feedback.size(),
+                model.zonePriors().size(),
+                generation.enabled(),
+                (System.nanoTime() - started) / 1_000_000L
+            );
+        } catch (IOException | UncheckedIOException ex) {
+            return TrainingResult.failed(reason, ex.getMessage());
+        }
+    }
+
+    private void publish(ModelFile model) throws IOException {
+        Path tmp = OUTPUT_PATH.resolveSibling(OUTPUT_PATH.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            GSON.toJson(model, out);
+            out.write('\n');
+        }
+        try {
+            Files.move(tmp, OUTPUT_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(tmp, OUTPUT_PATH, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // mtime^size can collide when a retrain lands in the same millisecond
+        // with an identical byte count, so force the next refresh to reload.
+        target.invalidate();
+    }
+
+    private static List<JsonObject> readRows(Path path) {
+        if (!Files.exists(path)) {
+            return List.of();
+        }
+        try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines.parallel()
+                .map(OfflineModelTrainer::parseRow)
+                .filter(Objects::nonNull)
+                .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Bring every training dataset's row count up to date and return how
+     * many rows the published model has not seen.
+     */
+    private long countNewRows() {
+        seedTrainedRows();
+        for (Path dataset : TRAINING_DATASETS) {
+            scanRows(dataset);
+        }
+        pendingRows = pendingRowCount();
+        return pendingRows;
+    }
+
+    private long pendingRowCount() {
+        long pending = 0L;
+        for (Path dataset : TRAINING_DATASETS) {
+            pending += Math.max(0L, cursor(dataset).rows - trainedRows.getOrDefault(dataset, 0L));
+        }
+        return pending;
+    }
+
+    /**
+     * Seed the trained row counts from the model on disk, so a restart does
+     * not retrain on data the last pass already covered.
+     */
+    private void seedTrainedRows() {
+        if (trainedRowsSeeded) {
+            return;
+        }
+        trainedRowsSeeded = true;
+        if (!Files.exists(OUTPUT_PATH)) {
+            return;
+        }
+        try {
+            JsonObject root = GSON.fromJson(Files.readString(OUTPUT_PATH, StandardCharsets.UTF_8), JsonObject.class);
+            JsonObject counts = root == null || !root.has("sampleCounts") || !root.get("sampleCounts").isJsonObject()
+                ? null
+                : root.getAsJsonObject("sampleCounts");
+            if (counts == null) {
+                return;
+            }
+            trainedRows.put(ENVIRONMENT_DATASET, (long) intValue(counts, "environmentObservations", 0));
+            trainedRows.put(BUILD_INTENT_DATASET, (long) intValue(counts, "buildIntentExamples", 0));
+            trainedRows.put(STYLE_EXAMPLES_DATASET, (long) intValue(counts, "styleExamples", 0));
+            trainedRows.put(PREVIEW_FEEDBACK_DATASET, (long) intValue(counts, "previewFeedback", 0));
+        } catch (IOException | RuntimeException ex) {
+            BladelowMod.LOGGER.debug("Bladelow could not read trained sample counts from {}", OUTPUT_PATH, ex);
+        }
+    }
+
+    private RowCursor cursor(Path path) {
+        return cursors.computeIfAbsent(path, ignored -> new RowCursor());
+    }
+
+    /**
+     * Count the rows of an append-only JSONL file that parse as JSON objects,
+     * reading only the bytes written since the previous call. Malformed lines
+     * are stepped over without being counted, so the totals match what
+     * {@link #readRows} hands to training. A file that shrank was rotated or
+     * cleared and is counted again from the start.
+     */
+    private long scanRows(Path path) {
+        RowCursor cursor = cursor(path);
+        if (!Files.exists(path)) {
+            cursor.reset();
+            return 0L;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < cursor.offset) {
+                cursor.reset();
+                trainedRows.remove(path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = cursor.offset;
+            while (position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) != '\n') {
+                        continue;
+                    }
+                    line.write(buffer.array(), lineStart, i - lineStart);
+                    if (parseRow(line.toString(StandardCharsets.UTF_8)) != null) {
+                        cursor.rows++;
+                    }
+                    line.reset();
+                    lineStart = i + 1;
+                    cursor.offset = position + lineStart;
+                }
+                line.write(buffer.array(), lineStart, read - lineStart);
+                position += read;
+            }
+            // A partial last line stays unread until its newline is written.
+            return cursor.rows;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static JsonObject parseRow(String line) {
+        if (line == null || line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonElement element = GSON.fromJson(line, JsonElement.class);
+            return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
+        } catch (JsonSyntaxException ex) {
+            return null;
+        }
+    }
+
+    private static long countImages(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return 0L;
+        }
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(path -> {
+                    String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+                    return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg");
+                })
+                .count();
+        } catch (IOException ex) {
+            return 0L;
+        }
+    }
+
+    private static Map<String, Integer> weightedThemeCounts(List<JsonObject> environmentRows, List<JsonObject> styleRows) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (JsonObject row : environmentRows) {
+            vote(counts, string(row, "primaryTheme"), 2);
+            vote(counts, string(row, "secondaryTheme"), 1);
+        }
+        for (JsonObject row : styleRows) {
+            vote(counts, string(row, "primaryTheme"), 6);
+            vote(counts, string(row, "secondaryTheme"), 3);
+            vote(counts, string(row, "label"), 2);
+        }
+        return counts;
+    }
+
+    private static void vote(Map<String, Integer> counts, String key, int weight) {
+        if (!key.isBlank()) {
+            counts.merge(key, weight, Integer::sum);
+        }
+    }
+
+    private static Map<String, PriorFile> buildZonePriors(List<JsonObject> intentRows) {
+        Map<String, List<JsonObject>> grouped = new LinkedHashMap<>();
+        for (JsonObject row : intentRows) {
+            String zone = string(row, "zoneType");
+            if (!zone.isBlank()) {
+                grouped.computeIfAbsent(zone, ignored -> new ArrayList<>()).add(row);
+            }
+        }
+        return summarizeGroups(grouped);
+    }
+
+    private static Map<String, PriorFile> buildThemePriors(List<JsonObject> intentRows) {
+        Map<String, List<JsonObject>> grouped = new LinkedHashMap<>();
+        for (JsonObject row : intentRows) {
+            String learned = string(row, "learnedPrimaryTheme");
+            String theme = learned.isBlank() ? string(row, "stylePrimaryTheme") : learned;
+            if (!theme.isBlank()) {
+                grouped.computeIfAbsent(theme, ignored -> new ArrayList<>()).add(row);
+            }
+        }
+        return summarizeGroups(grouped);
+    }
+
+    private static Map<String, PriorFile> summarizeGroups(Map<String, List<JsonObject>> grouped) {
+        // Groups are independent, so summarize them in parallel and then
+        // re-insert in first-seen order to keep the output deterministic.
+        Map<String, PriorFile> summaries = new LinkedHashMap<>();
+        List<Map.Entry<String, List<JsonObject>>> entries = new ArrayList<>(grouped.entrySet());
+        List<PriorFile> results = entries.parallelStream()
+            .map(entry -> buildGroupSummary(entry.getValue()))
+            .toList();
+        for (int i = 0; i < entries.size(); i++) {
+            if (results.get(i) != null) {
+                summaries.put(entries.get(i).getKey(), results.get(i));
+            }
+        }
+        return summaries;
+    }
+
+    private static PriorFile buildGroupSummary(List<JsonObject> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        int samples = rows.size();
+        Map<String, Integer> archetypes = new LinkedHashMap<>();
+        Map<String, Integer> sizeClasses = new LinkedHashMap<>();
+        Map<String, Integer> roofs = new LinkedHashMap<>();
+        Map<String, Integer> palettes = new LinkedHashMap<>();
+        Map<String, Integer> details = new LinkedHashMap<>();
+        Map<String, Integer> primaryThemes = new LinkedHashMap<>();
+        Map<String, Integer> secondaryThemes = new LinkedHashMap<>();
+        long floorTotal = 0L;
+
+        for (JsonObject row : rows) {
+            vote(archetypes, string(row, "archetype"), 1);
+            vote(sizeClasses, string(row, "sizeClass"), 1);
+            vote(roofs, string(row, "roofFamily"), 1);
+            vote(palettes, string(row, "paletteProfile"), 1);
+            vote(details, string(row, "detailDensity"), 1);
+
+            String learnedPrimary = string(row, "learnedPrimaryTheme");
+            String learnedSecondary = string(row, "learnedSecondaryTheme");
+            String primary = learnedPrimary.isBlank() ? string(row, "stylePrimaryTheme") : learnedPrimary;
+            String secondary = learnedSecondary.isBlank() ? string(row, "styleSecondaryTheme") : learnedSecondary;
+            vote(primaryThemes, primary, 1);
+            if (!secondary.equals(primary)) {
+                vote(secondaryThemes, secondary, 1);
+            }
+            floorTotal += intValue(row, "floors", 1);
+        }
+
+        Map.Entry<String, Integer> archetype = mostCommon(archetypes);
+        Map.Entry<String, Integer> palette = mostCommon(palettes);
+        Map.Entry<String, Integer> roof = mostCommon(roofs);
+        Map.Entry<String, Integer> sizeClass = mostCommon(sizeClasses);
+        Map.Entry<String, Integer> detail = mostCommon(details);
+        int meanFloors = Math.max(1, (int) Math.rint(floorTotal / (double) samples));
+
+        double purity = (ratio(archetype.getValue(), samples)
+            + ratio(palette.getValue(), samples)
+            + ratio(roof.getValue(), samples)
+            + ratio(sizeClass.getValue(), samples)
+            + ratio(detail.getValue(), samples)) / 5.0;
+        double confidence = Math.min(0.95, 0.35 + purity * 0.40 + Math.min(1.0, samples / 12.0) * 0.20);
+
+        return new PriorFile(
+            archetype.getKey(),
+            sizeClass.getKey(),
+            meanFloors,
+            roof.getKey(),
+            palette.getKey(),
+            detail.getKey(),
+            mostCommon(primaryThemes).getKey(),
+            mostCommon(secondaryThemes).getKey(),
+            round(confidence, 4),
+            samples
+        );
+    }
+
+    private static GenerationPreferenceFile buildGenerationPreference(List<JsonObject> previewRows) {
+        int featureCount = OfflineTrainingModel.generationFeatureNames().size();
+        List<double[]> features = new ArrayList<>();
+        List<Integer> labels = new ArrayList<>();
+        for (JsonObject row : previewRows) {
+            String outcome = string(row, "outcome");
+            if (!outcome.equals("accepted") && !outcome.equals("rejected") && !outcome.equals("rerolled")) {
+                continue;
+            }
+            double[] values = generationFeatures(row);
+            if (values != null) {
+                features.add(values);
+                labels.add(outcome.equals("accepted") ? 1 : 0);
+            }
+        }
+
+        int samples = features.size();
+        int positives = 0;
+        for (int label : labels) {
+            positives += label;
+        }
+        int negatives = samples - positives;
+        boolean enabled = samples >= MIN_GENERATION_SAMPLES && positives >= 2 && negatives >= 2;
+        double[] means = new double[featureCount];
+        double[] scales = new double[featureCount];
+        double[] weights = new double[featureCount];
+        Arrays.fill(scales, 1.0);
+        double bias = 0.0;
+        double balancedAccuracy = 0.0;
+        double logLoss = 0.0;
+
+        if (samples > 0) {
+            for (int i = 0; i < featureCount; i++) {
+                double sum = 0.0;
+                for (double[] row : features) {
+                    sum += row[i];
+                }
+                means[i] = sum / samples;
+                double variance = 0.0;
+                for (double[] row : features) {
+                    double delta = row[i] - means[i];
+                    variance += delta * delta;
+                }
+                scales[i] = Math.max(0.05, Math.sqrt(variance / samples));
+            }
+        }
+
+        if (enabled) {
+            double[][] normalized = new double[samples][featureCount];
+            for (int s = 0; s < samples; s++) {
+                for (int i = 0; i < featureCount; i++) {
+                    normalized[s][i] = (features.get(s)[i] - means[i]) / scales[i];
+                }
+            }
+            bias = Math.log((positives + 1.0) / (negatives + 1.0));
+            double positiveWeight = samples / (2.0 * positives);
+            double negativeWeight = samples / (2.0 * negatives);
+
+            double[] gradient = new double[featureCount];
+            for (int step = 0; step < GENERATION_STEPS; step++) {
+                Arrays.fill(gradient, 0.0);
+                double biasGradient = 0.0;
+                double totalSampleWeight = 0.0;
+                for (int s = 0; s < samples; s++) {
+                    int label = labels.get(s);
+                    double sampleWeight = label == 1 ? positiveWeight : negativeWeight;
+                    double error = sigmoid(bias + dot(weights, normalized[s])) - label;
+                    biasGradient += error * sampleWeight;
+                    for (int i = 0; i < featureCount; i++) {
+                        gradient[i] += error * normalized[s][i] * sampleWeight;
+                    }
+                    totalSampleWeight += sampleWeight;
+                }
+
+                double learningRate = 0.12 / (1.0 + step / 450.0);
+                double denominator = Math.max(1.0, totalSampleWeight);
+                bias -= learningRate * biasGradient / denominator;
+                for (int i = 0; i < featureCount; i++) {
+                    weights[i] -= learningRate * (gradient[i] / denominator + 0.04 * weights[i]);
+                }
+            }
+
+            int truePositive = 0;
+            int trueNegative = 0;
+            double lossTotal = 0.0;
+            for (int s = 0; s < samples; s++) {
+                int label = labels.get(s);
+                double probability = clamp(sigmoid(bias + dot(weights, normalized[s])), 1.0e-8, 1.0 - 1.0e-8);
+                int prediction = probability >= 0.5 ? 1 : 0;
+                truePositive += label == 1 && prediction == 1 ? 1 : 0;
+                trueNegative += label == 0 && prediction == 0 ? 1 : 0;
+                lossTotal += -(label * Math.log(probability) + (1 - label) * Math.log(1.0 - probability));
+            }
+            balancedAccuracy = 0.5 * (truePositive / (double) positives + trueNegative / (double) negatives);
+            logLoss = lossTotal / samples;
+        }
+
+        return new GenerationPreferenceFile(
+            enabled,
+            MIN_GENERATION_SAMPLES,
+            samples,
+            positives,
+            negatives,
+            OfflineTrainingModel.generationFeatureNames(),
+            roundAll(means, 8),
+            roundAll(scales, 8),
+            roundAll(weights, 8),
+            round(bias, 8),
+            round(balancedAccuracy, 4),
+            round(logLoss, 6)
+        );
+    }
+
+    private static double[] generationFeatures(JsonObject row) {
+        int selectionWidth = intValue(row, "selMaxX", 0) - intValue(row, "selMinX", 0) + 1;
+        int selectionDepth = intValue(row, "selMaxZ", 0) - intValue(row, "selMinZ", 0) + 1;
+        int previewWidth = intValue(row, "bodyWidth", 0);
+        int previewDepth = intValue(row, "bodyDepth", 0);
+        if (previewWidth <= 0) {
+            previewWidth = intValue(row, "previewMaxX", 0) - intValue(row, "previewMinX", 0) + 1;
+        }
+        if (previewDepth <= 0) {
+            previewDepth = intValue(row, "previewMaxZ", 0) - intValue(row, "previewMinZ", 0) + 1;
+        }
+        if (Math.min(Math.min(selectionWidth, selectionDepth), Math.min(previewWidth, previewDepth)) <= 0) {
+            return null;
+        }
+
+        int floors = Math.max(1, intValue(row, "actualFloors", intValue(row, "floors", 1)));
+        int maxRoofLayers = Math.max(1, Math.min(previewWidth, previewDepth) / 2);
+        int roofLayers = intValue(row, "roofLayers", 0);
+        if (roofLayers <= 0) {
+            int requested = switch (string(row, "roofFamily")) {
+                case "low" -> 2;
+                case "steep" -> 4;
+                default -> 3;
+            };
+            roofLayers = Math.min(maxRoofLayers, requested);
+        }
+
+        double widthFill = clamp(previewWidth / (double) selectionWidth, 0.0, 1.25);
+        double depthFill = clamp(previewDepth / (double) selectionDepth, 0.0, 1.25);
+        return new double[]{
+            widthFill,
+            depthFill,
+            clamp(widthFill * depthFill, 0.0, 1.5),
+            Math.min(previewWidth, previewDepth) / (double) Math.max(previewWidth, previewDepth),
+            clamp(floors, 1.0, 4.0),
+            clamp(roofLayers / (double) maxRoofLayers, 0.0, 1.0)
+        };
+    }
+
+    private static List<NamedCountFile> topNamedCounts(Map<String, Integer> counts, int limit) {
+        return mostCommonOrder(counts).stream()
+            .limit(limit)
+            .map(entry -> new NamedCountFile(entry.getKey(), entry.getValue()))
+            .toList();
+    }
+
+    /**
+     * Descending by count; ties keep first-seen order, matching Python's
+     * {@code Counter.most_common}.
+     */
+    private static List<Map.Entry<String, Integer>> mostCommonOrder(Map<String, Integer> counts) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((left, right) -> Integer.compare(right.getValue(), left.getValue()));
+        return entries;
+    }
+
+    private static Map.Entry<String, Integer> mostCommon(Map<String, Integer> counts) {
+        Map.Entry<String, Integer> best = Map.entry("", 0);
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > best.getValue()) {
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    private static String string(JsonObject row, String key) {
+        JsonElement value = row.get(key);
+        if (value == null || value.isJsonNull() || !value.isJsonPrimitive()) {
+            return "";
+        }
+        return value.getAsString().trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static int intValue(JsonObject row, String key, int fallback) {
+        JsonElement value = row.get(key);
+        if (value == null || value.isJsonNull() || !value.isJsonPrimitive()) {
+            return fallback;
+        }
+        try {
+            return value.getAsInt();
+        } catch (RuntimeException ex) {
+            return fallback;
+        }
+    }
+
+    private static double ratio(int numerator, int denominator) {
+        return denominator <= 0 ? 0.0 : numerator / (double) denominator;
+    }
+
+    private static double dot(double[] left, double[] right) {
+        double total = 0.0;
+        for (int i = 0; i < left.length; i++) {
+            total += left[i] * right[i];
+        }
+        return total;
+    }
+
+    private static double sigmoid(double value) {
+        if (value >= 0.0) {
+            double exp = Math.exp(-value);
+            return 1.0 / (1.0 + exp);
+        }
+        double exp = Math.exp(value);
+        return exp / (1.0 + exp);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double round(double value, int digits) {
+        double scale = Math.pow(10.0, digits);
+        return Math.rint(value * scale) / scale;
+    }
+
+    private static double[] roundAll(double[] values, int digits) {
+        double[] rounded = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            rounded[i] = round(values[i], digits);
+        }
+        return rounded;
+    }
+
+    private static String rootMessage(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+    }
+
+    public record TrainingResult(
+        boolean ok,
+        String reason,
+        String message,
+        int intentExamples,
+        int previewFeedback,
+        int zonePriors,
+        boolean generationTrained,
+        long elapsedMillis
+    ) {
+        private static TrainingResult failed(String reason, String message) {
+            return new TrainingResult(false, reason, message == null ? "unknown error" : message, 0, 0, 0, false, 0L);
+        }
+
+        public String summary() {
+            if (!ok) {
+                return "offline training failed: " + message;
+            }
+            return "offline model trained intent=" + intentExamples
+                + " feedback=" + previewFeedback
+                + " zones=" + zonePriors
+                + " generation=" + (generationTrained ? "trained" : "fallback")
+                + " in " + elapsedMillis + "ms";
+        }
+    }
+
+    // Field names mirror offline_model.json as written by the Python trainer.
+    private record ModelFile(
+        int version,
+        String generatedAt,
+        SampleCounts sampleCounts,
+        List<NamedCountFile> topThemes,
+        List<NamedCountFile> topPalettes,
+        Map<String, PriorFile> zonePriors,
+        Map<String, PriorFile> themePriors,
+        GenerationPreferenceFile generationPreference
+    ) {
+    }
+
+    private static final class RowCursor {
+        // Byte offset just past the last complete line.
+        private long offset;
+        private long rows;
+
+        private void reset() {
+            offset = 0L;
+            rows = 0L;
+        }
+    }
+
+    private record SampleCounts(
+        long placementEvents,
+        long environmentObservations,
+        long buildIntentExamples,
+        long styleExamples,
+        long previewFeedback,
+        long styleReferenceImages
+    ) {
+    }
+
+    private record NamedCountFile(String name, int count) {
+    }
+
+    private record PriorFile(
+        String archetype,
+        String sizeClass,
+        int floors,
+        String roofFamily,
+        String paletteProfile,
+        String detailDensity,
+        String primaryTheme,
+        String secondaryTheme,
+        double confidence,
+        int samples
+    ) {
+    }
+
+    private record GenerationPreferenceFile(
+        boolean enabled,
+        int minimumSamples,
+        int samples,
+        int positiveSamples,
+        int negativeSamples,
+        List<String> featureNames,
+        double[] means,
+        double[] scales,
+        double[] weights,
+        double bias,
+        double balancedAccuracy,
+        double logLoss
+    ) {
+    }
+}
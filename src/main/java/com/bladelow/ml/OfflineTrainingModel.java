@@ -87,6 +87,18 @@ public final class OfflineTrainingModel {
         return new GenerationScore(true, probability, preference.samples, preference.balancedAccuracy);
     }
 
+    /**
+     * Forget the current fingerprint so the next call reloads the model file
+     * even if its mtime and size happen to match the previous one.
+     */
+    public synchronized void invalidate() {
+        fingerprint = Long.MIN_VALUE;
+    }
+
+    static List<String> generationFeatureNames() {
+        return GENERATION_FEATURE_NAMES;
+    }
+
     public synchronized Snapshot snapshot() {
         refreshIfNeeded();
         return new Snapshot(
@@ -0,0 +1,24 @@
+package com.bladelow.ml;
+
+/**
+ * The placement-context values the hashed model reads.
+ *
+ * Implemented by the immutable {@link PlacementFeatures} that training keeps,
+ * and by the per-thread {@link PlacementFeatureExtractor.Scratch} that
+ * evaluation fills in place so a prediction allocates nothing.
+ */
+public interface PlacementContext {
+    double replaceable();
+
+    int blockHash();
+
+    int neighborMask();
+
+    int heightAboveBase();
+
+    int attempts();
+
+    default boolean hasContext() {
+        return blockHash() >= 0;
+    }
+}
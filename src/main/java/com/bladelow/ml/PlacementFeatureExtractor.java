@@ -1,8 +1,11 @@
 package com.bladelow.ml;
 
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
 
 /**
  * Extracts the tiny feature vector used by the current placement model.
@@ -11,6 +14,9 @@ import net.minecraft.util.math.BlockPos;
  * compute every tick during active building.
  */
 public final class PlacementFeatureExtractor {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     private PlacementFeatureExtractor() {
     }
 
@@ -21,18 +27,126 @@ public final class PlacementFeatureExtractor {
         var belowState = world.getBlockState(target.down());
         boolean support = !belowState.isAir();
 
+        return new PlacementFeatures(
+            1.0,
+            replaceable ? 1.0 : 0.0,
+            support ? 1.0 : 0.0,
+            normalizedDistance(player, target)
+        );
+    }
+
+    /**
+     * Full feature vector for one job target, including the hashed-model
+     * context: desired block, solid-neighbour bitmask, height above the job's
+     * base, and how often this target has already been retried. Use this
+     * when the features outlive the call, e.g. to train on them.
+     */
+    public static PlacementFeatures extract(
+        ServerWorld world,
+        ServerPlayerEntity player,
+        BlockPos target,
+        BlockState desiredState,
+        int baseY,
+        int attempts
+    ) {
+        return probe(world, player, target, desiredState, baseY, attempts).toFeatures();
+    }
+
+    /**
+     * Same values as {@link #extract(ServerWorld, ServerPlayerEntity, BlockPos, BlockState, int, int)},
+     * written into this thread's scratch buffer instead of a new object. The
+     * result is only valid until the thread's next probe, so use it for an
+     * immediate prediction and never keep it.
+     */
+    public static Scratch probe(
+        ServerWorld world,
+        ServerPlayerEntity player,
+        BlockPos target,
+        BlockState desiredState,
+        int baseY,
+        int attempts
+    ) {
+        Scratch scratch = SCRATCH.get();
+        var currentState = world.getBlockState(target);
+        boolean replaceable = currentState.isAir() || currentState.isReplaceable();
+
+        int neighborMask = 0;
+        boolean support = false;
+        for (Direction direction : DIRECTIONS) {
+            BlockState neighbor = world.getBlockState(scratch.cursor.set(target, direction));
+            if (direction == Direction.DOWN) {
+                support = !neighbor.isAir();
+            }
+            if (!neighbor.isAir() && !neighbor.isReplaceable()) {
+                neighborMask |= 1 << direction.ordinal();
+            }
+        }
+
+        scratch.replaceable = replaceable ? 1.0 : 0.0;
+        scratch.support = support ? 1.0 : 0.0;
+        scratch.distance = normalizedDistance(player, target);
+        scratch.blockHash = desiredState == null ? 0 : Registries.BLOCK.getId(desiredState.getBlock()).hashCode() & Integer.MAX_VALUE;
+        scratch.neighborMask = neighborMask;
+        scratch.heightAboveBase = Math.max(0, target.getY() - baseY);
+        scratch.attempts = Math.max(0, attempts);
+        return scratch;
+    }
+
+    private static double normalizedDistance(ServerPlayerEntity player, BlockPos target) {
         double distance = Math.sqrt(player.squaredDistanceTo(
             target.getX() + 0.5,
             target.getY() + 0.5,
             target.getZ() + 0.5
         ));
-        double normalizedDistance = Math.min(distance / 8.0, 1.0);
+        return Math.min(distance / 8.0, 1.0);
+    }
 
-        return new PlacementFeatures(
-            1.0,
-            replaceable ? 1.0 : 0.0,
-            support ? 1.0 : 0.0,
-            normalizedDistance
-        );
+    /**
+     * One thread's reusable feature buffer, refilled by every {@link #probe}.
+     */
+    public static final class Scratch implements PlacementContext {
+        private final BlockPos.Mutable cursor = new BlockPos.Mutable();
+        private double replaceable;
+        private double support;
+        private double distance;
+        private int blockHash;
+        private int neighborMask;
+        private int heightAboveBase;
+        private int attempts;
+
+        private Scratch() {
+        }
+
+        @Override
+        public double replaceable() {
+            return replaceable;
+        }
+
+        @Override
+        public int blockHash() {
+            return blockHash;
+        }
+
+        @Override
+        public int neighborMask() {
+            return neighborMask;
+        }
+
+        @Override
+        public int heightAboveBase() {
+            return heightAboveBase;
+        }
+
+        @Override
+        public int attempts() {
+            return attempts;
+        }
+
+        /**
+         * Immutable copy that may be kept, queued for training or logged.
+         */
+        public PlacementFeatures toFeatures() {
+            return new PlacementFeatures(1.0, replaceable, support, distance, blockHash, neighborMask, heightAboveBase, attempts);
+        }
     }
 }
@@ -2,6 +2,22 @@ package com.bladelow.ml;
 
 /**
  * Minimal numeric feature vector for placement decisions.
+ *
+ * The four dense values feed the perceptron. The integer context fields feed
+ * the feature-hashed model; {@code blockHash < 0} marks a vector without
+ * placement context (for example the planner-level signals in AutoPlanner).
  */
-public record PlacementFeatures(double bias, double replaceable, double support, double distance) {
+public record PlacementFeatures(
+    double bias,
+    double replaceable,
+    double support,
+    double distance,
+    int blockHash,
+    int neighborMask,
+    int heightAboveBase,
+    int attempts
+) implements PlacementContext {
+    public PlacementFeatures(double bias, double replaceable, double support, double distance) {
+        this(bias, replaceable, support, distance, -1, 0, 0, 0);
+    }
 }
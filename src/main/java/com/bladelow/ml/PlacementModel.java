@@ -1,110 +1,378 @@
 package com.bladelow.ml;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Lightweight online model for deciding whether to attempt a placement now.
  *
  * It behaves like a tiny perceptron so Bladelow can adapt from live build
  * outcomes without dragging in a heavy ML runtime.
+ *
+ * Scoring never locks: each weight set publishes an immutable {@link Weights}
+ * snapshot through a volatile field. Training applies steps under a drain
+ * flag; when another thread holds it, the step is queued and the holder
+ * applies the whole batch before publishing the next snapshot.
+ *
+ * Each set also owns a {@link HashedPlacementModel} over block/neighbourhood
+ * context. It is trained on every observed outcome and can rescue placements
+ * the perceptron would reject or flag likely failures ahead of MOVE.
  */
 public final class PlacementModel {
-    private static final double DEFAULT_BIAS_WEIGHT = 0.20;
-    private static final double DEFAULT_REPLACEABLE_WEIGHT = 0.65;
-    private static final double DEFAULT_SUPPORT_WEIGHT = 0.35;
-    private static final double DEFAULT_DISTANCE_WEIGHT = -0.30;
     private static final double DEFAULT_THRESHOLD = 0.10;
     private static final double DEFAULT_LEARNING_RATE = 0.05;
     private static final double WEIGHT_CLAMP = 5.0;
+    // The hashed model may overrule a perceptron rejection only when it is
+    // confident the placement succeeds, and flags targets as likely failures
+    // before any MOVE work is spent on them.
+    private static final double HASHED_ACCEPT_PROBABILITY = 0.65;
+    private static final double HASHED_FAILURE_PROBABILITY = 0.12;
+    // Scoped sets are created per dimension or player and would otherwise
+    // accumulate forever; the least recently used ones are dropped past this.
+    private static final int MAX_SCOPED_SETS = 64;
+
+    /**
+     * Which weight set a placement trains: one shared set, one per dimension,
+     * or one per player.
+     */
+    public enum ScopeMode {
+        GLOBAL,
+        WORLD,
+        PLAYER;
+
+        public static ScopeMode parse(String value, ScopeMode fallback) {
+            if (value == null || value.isBlank()) {
+                return fallback;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                return fallback;
+            }
+        }
 
-    private double biasWeight = DEFAULT_BIAS_WEIGHT;
-    private double replaceableWeight = DEFAULT_REPLACEABLE_WEIGHT;
-    private double supportWeight = DEFAULT_SUPPORT_WEIGHT;
-    private double distanceWeight = DEFAULT_DISTANCE_WEIGHT;
+        public ScopeMode next() {
+            ScopeMode[] modes = values();
+            return modes[(ordinal() + 1) % modes.length];
+        }
+    }
 
-    private double threshold = DEFAULT_THRESHOLD;
-    private double learningRate = DEFAULT_LEARNING_RATE;
+    private final WeightSet global = new WeightSet(Weights.DEFAULTS, new HashedPlacementModel());
+    private final Map<String, WeightSet> scoped = new ConcurrentHashMap<>();
+    private final AtomicLong useClock = new AtomicLong();
 
-    private long updates;
+    private volatile ScopeMode scopeMode = ScopeMode.GLOBAL;
+    private volatile double threshold = DEFAULT_THRESHOLD;
+    private volatile double learningRate = DEFAULT_LEARNING_RATE;
 
-    public synchronized double score(PlacementFeatures f) {
-        return (f.bias() * biasWeight)
-            + (f.replaceable() * replaceableWeight)
-            + (f.support() * supportWeight)
-            + (f.distance() * distanceWeight);
+    public double score(PlacementFeatures f) {
+        return global.score(f);
     }
 
-    public synchronized boolean shouldPlace(PlacementFeatures f) {
-        return score(f) >= threshold;
+    public boolean shouldPlace(PlacementFeatures f) {
+        return global.shouldPlace(f);
     }
 
-    public synchronized void train(PlacementFeatures f, boolean success) {
-        // Online update: reward successful patterns and penalize repeated
-        // failures while keeping the model simple enough for live gameplay.
-        int label = success ? 1 : -1;
-        int predicted = score(f) >= threshold ? 1 : -1;
-        int error = label - predicted;
-        if (error == 0) {
-            return;
-        }
+    public void train(PlacementFeatures f, boolean success) {
+        global.train(f, success);
+    }
+
+    /**
+     * Resolve the weight set for one placement according to the configured
+     * scope mode. Scoped sets start from a copy of the current global weights;
+     * only the {@link #MAX_SCOPED_SETS} most recently used are kept.
+     */
+    public WeightSet weightsFor(String worldKey, UUID playerId) {
+        return switch (scopeMode) {
+            case GLOBAL -> global;
+            case WORLD -> scoped("world:" + (worldKey == null ? "" : worldKey));
+            case PLAYER -> scoped("player:" + (playerId == null ? "" : playerId));
+        };
+    }
+
+    public ScopeMode scopeMode() {
+        return scopeMode;
+    }
 
-        biasWeight = clamp(biasWeight + learningRate * error * f.bias(), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        replaceableWeight = clamp(replaceableWeight + learningRate * error * f.replaceable(), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        supportWeight = clamp(supportWeight + learningRate * error * f.support(), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        distanceWeight = clamp(distanceWeight + learningRate * error * f.distance(), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        updates++;
+    public void setScopeMode(ScopeMode mode) {
+        scopeMode = mode == null ? ScopeMode.GLOBAL : mode;
     }
 
-    public synchronized void reset() {
-        biasWeight = DEFAULT_BIAS_WEIGHT;
-        replaceableWeight = DEFAULT_REPLACEABLE_WEIGHT;
-        supportWeight = DEFAULT_SUPPORT_WEIGHT;
-        distanceWeight = DEFAULT_DISTANCE_WEIGHT;
+    public void reset() {
         threshold = DEFAULT_THRESHOLD;
         learningRate = DEFAULT_LEARNING_RATE;
-        updates = 0;
+        scoped.clear();
+        global.replace(Weights.DEFAULTS, new Properties(), "");
     }
 
-    public synchronized void configure(double threshold, double learningRate) {
+    public void configure(double threshold, double learningRate) {
         this.threshold = threshold;
         this.learningRate = learningRate;
     }
 
-    public synchronized Properties toProperties() {
+    public Properties toProperties() {
         Properties p = new Properties();
-        p.setProperty("biasWeight", Double.toString(biasWeight));
-        p.setProperty("replaceableWeight", Double.toString(replaceableWeight));
-        p.setProperty("supportWeight", Double.toString(supportWeight));
-        p.setProperty("distanceWeight", Double.toString(distanceWeight));
+        global.store(p, "");
         p.setProperty("threshold", Double.toString(threshold));
         p.setProperty("learningRate", Double.toString(learningRate));
-        p.setProperty("updates", Long.toString(updates));
+        p.setProperty("scopeMode", scopeMode.name().toLowerCase(Locale.ROOT));
+        List<Map.Entry<String, WeightSet>> entries = new ArrayList<>(scoped.entrySet());
+        // Most recently used first, so a reload keeps the same LRU order.
+        entries.sort(Comparator.comparingLong((Map.Entry<String, WeightSet> entry) -> entry.getValue().lastUsed).reversed());
+        if (entries.size() > MAX_SCOPED_SETS) {
+            entries = entries.subList(0, MAX_SCOPED_SETS);
+        }
+        p.setProperty("scope.count", Integer.toString(entries.size()));
+        for (int i = 0; i < entries.size(); i++) {
+            String prefix = "scope." + i + ".";
+            p.setProperty(prefix + "key", entries.get(i).getKey());
+            entries.get(i).getValue().store(p, prefix);
+        }
         return p;
     }
 
-    public synchronized void fromProperties(Properties p) {
-        biasWeight = clamp(parseDouble(p, "biasWeight", DEFAULT_BIAS_WEIGHT), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        replaceableWeight = clamp(parseDouble(p, "replaceableWeight", DEFAULT_REPLACEABLE_WEIGHT), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        supportWeight = clamp(parseDouble(p, "supportWeight", DEFAULT_SUPPORT_WEIGHT), -WEIGHT_CLAMP, WEIGHT_CLAMP);
-        distanceWeight = clamp(parseDouble(p, "distanceWeight", DEFAULT_DISTANCE_WEIGHT), -WEIGHT_CLAMP, WEIGHT_CLAMP);
+    public void fromProperties(Properties p) {
         threshold = parseDouble(p, "threshold", DEFAULT_THRESHOLD);
         learningRate = parseDouble(p, "learningRate", DEFAULT_LEARNING_RATE);
-        updates = parseLong(p, "updates", 0L);
+        scopeMode = ScopeMode.parse(p.getProperty("scopeMode"), ScopeMode.GLOBAL);
+        global.load(p, "");
+        scoped.clear();
+        int count = (int) Math.min(MAX_SCOPED_SETS, Math.max(0L, parseLong(p, "scope.count", 0L)));
+        useClock.set(count);
+        for (int i = 0; i < count; i++) {
+            String prefix = "scope." + i + ".";
+            String key = p.getProperty(prefix + "key");
+            if (key != null && !key.isBlank()) {
+                WeightSet set = new WeightSet(Weights.DEFAULTS, new HashedPlacementModel());
+                set.load(p, prefix);
+                set.lastUsed = count - i;
+                scoped.put(key, set);
+            }
+        }
     }
 
-    public synchronized String summary() {
+    public String summary() {
+        Weights weights = global.current();
         return String.format(
-            "threshold=%.3f lr=%.3f weights[bias=%.3f replaceable=%.3f support=%.3f distance=%.3f] updates=%d",
+            Locale.ROOT,
+            "threshold=%.3f lr=%.3f weights[bias=%.3f replaceable=%.3f support=%.3f distance=%.3f] updates=%d hashed=%d%s scope=%s scopedSets=%d",
             threshold,
             learningRate,
-            biasWeight,
-            replaceableWeight,
-            supportWeight,
-            distanceWeight,
-            updates
+            weights.bias(),
+            weights.replaceable(),
+            weights.support(),
+            weights.distance(),
+            weights.updates(),
+            global.hashed.updates(),
+            global.hashed.trained() ? "(trained)" : "(learning)",
+            scopeMode.name().toLowerCase(Locale.ROOT),
+            scoped.size()
         );
     }
 
+    private WeightSet scoped(String key) {
+        WeightSet set = scoped.get(key);
+        if (set == null) {
+            set = scoped.computeIfAbsent(key, ignored -> new WeightSet(global.current(), new HashedPlacementModel(global.hashed)));
+            if (scoped.size() > MAX_SCOPED_SETS) {
+                evictLeastRecentlyUsed(set);
+            }
+        }
+        set.lastUsed = useClock.incrementAndGet();
+        return set;
+    }
+
+    private void evictLeastRecentlyUsed(WeightSet keep) {
+        while (scoped.size() > MAX_SCOPED_SETS) {
+            Map.Entry<String, WeightSet> oldest = null;
+            for (Map.Entry<String, WeightSet> entry : scoped.entrySet()) {
+                if (entry.getValue() != keep && (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed)) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            scoped.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * One independently trained set of perceptron weights.
+     */
+    public final class WeightSet {
+        private volatile Weights current;
+        private final HashedPlacementModel hashed;
+        private final Queue<Step> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // useClock tick of the last weightsFor lookup; orders scoped eviction.
+        private volatile long lastUsed;
+
+        private WeightSet(Weights initial, HashedPlacementModel hashed) {
+            this.current = initial;
+            this.hashed = hashed;
+        }
+
+        public double score(PlacementFeatures f) {
+            return current.score(f);
+        }
+
+        public boolean shouldPlace(PlacementFeatures f) {
+            if (current.score(f) >= threshold) {
+                return true;
+            }
+            return f.hasContext() && hashed.trained() && hashed.probability(f) >= HASHED_ACCEPT_PROBABILITY;
+        }
+
+        /**
+         * True when the context model is trained and expects this target to
+         * fail, so the runner can defer it before pathing towards it.
+         */
+        public boolean predictsFailure(PlacementContext f) {
+            return f.hasContext() && hashed.trained() && hashed.probability(f) < HASHED_FAILURE_PROBABILITY;
+        }
+
+        /**
+         * Train both models on an observed placement outcome.
+         */
+        public void train(PlacementFeatures f, boolean success) {
+            submit(f, success ? 1 : -1, true);
+        }
+
+        /**
+         * Perceptron-only penalty for a placement the model itself rejected.
+         * No placement was attempted, so the context model learns nothing.
+         */
+        public void penalize(PlacementFeatures f) {
+            submit(f, -1, false);
+        }
+
+        private void submit(PlacementFeatures f, int label, boolean observed) {
+            // Online update: reward successful patterns and penalize repeated
+            // failures while keeping the model simple enough for live gameplay.
+            boolean trainHashed = observed && f.hasContext();
+            int predicted = current.score(f) >= threshold ? 1 : -1;
+            if (label == predicted && !trainHashed) {
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                // Uncontended fast path: apply in place without queueing.
+                try {
+                    current = apply(current, new Step(f, label, trainHashed));
+                } finally {
+                    draining.set(false);
+                }
+            } else {
+                pending.add(new Step(f, label, trainHashed));
+            }
+            drain();
+        }
+
+        private Weights current() {
+            return current;
+        }
+
+        private void drain() {
+            while (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                try {
+                    Weights working = current;
+                    Step step;
+                    while ((step = pending.poll()) != null) {
+                        working = apply(working, step);
+                    }
+                    current = working;
+                } finally {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private Weights apply(Weights working, Step step) {
+            // Re-check against the working weights so a batch applies exactly
+            // what sequential updates would have.
+            int predicted = working.score(step.features()) >= threshold ? 1 : -1;
+            int error = step.label() - predicted;
+            if (step.trainHashed()) {
+                hashed.update(step.features(), step.label() > 0);
+            }
+            return error == 0 ? working : working.step(step.features(), learningRate * error);
+        }
+
+        private void store(Properties p, String prefix) {
+            current.store(p, prefix);
+            hashed.store(p, prefix);
+        }
+
+        private void load(Properties p, String prefix) {
+            replace(Weights.load(p, prefix), p, prefix);
+        }
+
+        private void replace(Weights weights, Properties hashedSource, String prefix) {
+            while (!draining.compareAndSet(false, true)) {
+                Thread.onSpinWait();
+            }
+            try {
+                pending.clear();
+                hashed.load(hashedSource, prefix);
+                current = weights;
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    private record Step(PlacementFeatures features, int label, boolean trainHashed) {
+    }
+
+    private record Weights(double bias, double replaceable, double support, double distance, long updates) {
+        private static final Weights DEFAULTS = new Weights(0.20, 0.65, 0.35, -0.30, 0L);
+
+        private double score(PlacementFeatures f) {
+            return (f.bias() * bias)
+                + (f.replaceable() * replaceable)
+                + (f.support() * support)
+                + (f.distance() * distance);
+        }
+
+        private Weights step(PlacementFeatures f, double delta) {
+            return new Weights(
+                clamp(bias + delta * f.bias(), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(replaceable + delta * f.replaceable(), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(support + delta * f.support(), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(distance + delta * f.distance(), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                updates + 1
+            );
+        }
+
+        private void store(Properties p, String prefix) {
+            p.setProperty(prefix + "biasWeight", Double.toString(bias));
+            p.setProperty(prefix + "replaceableWeight", Double.toString(replaceable));
+            p.setProperty(prefix + "supportWeight", Double.toString(support));
+            p.setProperty(prefix + "distanceWeight", Double.toString(distance));
+            p.setProperty(prefix + "updates", Long.toString(updates));
+        }
+
+        private static Weights load(Properties p, String prefix) {
+            return new Weights(
+                clamp(parseDouble(p, prefix + "biasWeight", DEFAULTS.bias()), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(parseDouble(p, prefix + "replaceableWeight", DEFAULTS.replaceable()), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(parseDouble(p, prefix + "supportWeight", DEFAULTS.support()), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                clamp(parseDouble(p, prefix + "distanceWeight", DEFAULTS.distance()), -WEIGHT_CLAMP, WEIGHT_CLAMP),
+                parseLong(p, prefix + "updates", 0L)
+            );
+        }
+    }
+
     private static double parseDouble(Properties p, String key, double fallback) {
         String value = p.getProperty(key);
         if (value == null) {
@@ -2,17 +2,37 @@ package com.bladelow.ml;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 /**
@@ -21,13 +41,41 @@ import java.util.stream.Stream;
  * Bladelow does not try to reconstruct exact geometry from these images yet.
  * Instead, it treats them as lightweight style anchors and extracts cheap image
  * features plus optional hand-authored labels/tags from sidecar JSON files.
+ *
+ * Extracted features are persisted in {@code style_ref_features.json} keyed by
+ * size, mtime and content hash, so a refresh only decodes new or changed
+ * images; hashing and decoding run in parallel on a small worker pool. The
+ * directory is watched with a {@link WatchService}; a listing fingerprint is
+ * only used when the platform cannot watch it.
  */
 public final class StyleReferenceLibrary {
     private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
     private static final Path IMAGE_DIR = Path.of("config", "bladelow", "ml", "style_refs");
+    private static final Path FEATURE_CACHE_PATH = Path.of("config", "bladelow", "ml", "style_ref_features.json");
+    private static final int CACHE_VERSION = 1;
+    private static final int HUE_BINS = 12;
+    private static final int SAMPLE_GRID = 64;
+    private static final double EDGE_THRESHOLD = 0.12;
+    private static final AtomicInteger DECODE_THREAD_IDS = new AtomicInteger();
+    private static final ExecutorService DECODE_POOL = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)),
+        runnable -> {
+            Thread thread = new Thread(runnable, "bladelow-style-decode-" + DECODE_THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    );
 
     private long fingerprint = Long.MIN_VALUE;
+    private boolean loaded;
+    private WatchService watcher;
+    private WatchKey watchKey;
+    private boolean watchUnsupported;
     private String lastError = "";
+    private int lastDecoded;
+    private int lastReused;
+    private Map<String, CachedFeatures> featureCache;
     private List<StyleReference> cache = List.of();
 
     public synchronized List<StyleReference> references() {
@@ -38,7 +86,12 @@ public final class StyleReferenceLibrary {
     public synchronized String summary() {
         refreshIfNeeded();
         StringBuilder out = new StringBuilder();
-        out.append("refs[path=").append(IMAGE_DIR).append(" images=").append(cache.size()).append("]");
+        out.append("refs[path=").append(IMAGE_DIR)
+            .append(" images=").append(cache.size())
+            .append(" decoded=").append(lastDecoded)
+            .append(" cached=").append(lastReused)
+            .append(" watch=").append(watchKey != null ? "on" : "off")
+            .append("]");
         if (!lastError.isBlank()) {
             out.append(" refError=").append(lastError);
         }
@@ -48,18 +101,68 @@ public final class StyleReferenceLibrary {
     private void refreshIfNeeded() {
         try {
             Files.createDirectories(IMAGE_DIR);
-            long currentFingerprint = fingerprint(IMAGE_DIR);
-            if (currentFingerprint == fingerprint) {
+            if (!directoryChanged()) {
                 return;
             }
-            fingerprint = currentFingerprint;
-            cache = loadReferences();
             lastError = "";
+            cache = loadReferences();
+            loaded = true;
         } catch (IOException ex) {
             lastError = ex.getMessage();
         }
     }
 
+    /**
+     * True when the reference directory may have changed since the last load.
+     * Watch events are drained without touching the filesystem; the listing
+     * fingerprint is only computed when no watch could be registered.
+     */
+    private boolean directoryChanged() throws IOException {
+        if (ensureWatch()) {
+            List<WatchEvent<?>> events = watchKey.pollEvents();
+            if (!watchKey.reset()) {
+                // Directory was removed or the key cancelled; re-register on
+                // the next call and reload whatever is there now.
+                watchKey = null;
+                return true;
+            }
+            return !loaded || !events.isEmpty();
+        }
+        long currentFingerprint = fingerprint(IMAGE_DIR);
+        if (loaded && currentFingerprint == fingerprint) {
+            return false;
+        }
+        fingerprint = currentFingerprint;
+        return true;
+    }
+
+    private boolean ensureWatch() {
+        if (watchKey != null) {
+            return true;
+        }
+        if (watchUnsupported) {
+            return false;
+        }
+        try {
+            if (watcher == null) {
+                watcher = IMAGE_DIR.getFileSystem().newWatchService();
+            }
+            watchKey = IMAGE_DIR.register(
+                watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+            );
+            // Anything that happened before registration is unseen, so force
+            // one full reconcile against the feature cache.
+            loaded = false;
+            return true;
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+            watchUnsupported = true;
+            return false;
+        }
+    }
+
     private List<StyleReference> loadReferences() throws IOException {
         List<Path> files;
         try (Stream<Path> stream = Files.list(IMAGE_DIR)) {
@@ -70,42 +173,99 @@ public final class StyleReferenceLibrary {
                 .toList();
         }
 
-        List<StyleReference> references = new ArrayList<>();
+        Map<String, CachedFeatures> previous = featureCache();
+        Map<String, CachedFeatures> byHash = new HashMap<>();
+        for (CachedFeatures cached : previous.values()) {
+            byHash.putIfAbsent(cached.sha256(), cached);
+        }
+
+        // Resolve every file against the cache first, then hash and decode
+        // only the stale ones in parallel.
+        List<CompletableFuture<CachedFeatures>> pending = new ArrayList<>(files.size());
+        AtomicInteger renamed = new AtomicInteger();
+        int reused = 0;
+        int stale = 0;
         for (Path file : files) {
-            StyleReference reference = loadReference(file);
-            if (reference != null) {
-                references.add(reference);
+            String fileName = file.getFileName().toString();
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            CachedFeatures cached = previous.get(fileName);
+            if (cached != null && cached.size() == size && cached.modifiedMillis() == modified) {
+                pending.add(CompletableFuture.completedFuture(cached));
+                reused++;
+                continue;
+            }
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                String hash = sha256(file);
+                CachedFeatures sameContent = byHash.get(hash);
+                if (sameContent != null) {
+                    // Touched or renamed but byte-identical: keep the features.
+                    renamed.incrementAndGet();
+                    return sameContent.relocated(fileName, size, modified);
+                }
+                return decode(file, fileName, size, modified, hash);
+            }, DECODE_POOL));
+            stale++;
+        }
+
+        Map<String, CachedFeatures> next = new HashMap<>();
+        List<StyleReference> references = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            CachedFeatures features;
+            try {
+                features = pending.get(i).join();
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                lastError = cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage();
+                continue;
             }
+            if (features == null) {
+                continue;
+            }
+            next.put(features.fileName(), features);
+            references.add(toReference(files.get(i), features));
+        }
+        lastDecoded = stale - renamed.get();
+        lastReused = reused + renamed.get();
+
+        if (!next.equals(previous)) {
+            featureCache = next;
+            saveFeatureCache(next);
         }
         return List.copyOf(references);
     }
 
-    private StyleReference loadReference(Path imagePath) {
+    private static StyleReference toReference(Path imagePath, CachedFeatures features) {
+        // Sidecar labels are tiny and may change without the image changing,
+        // so they are always re-read rather than cached with the features.
+        StyleReferenceMeta meta = loadMeta(imagePath);
+        return new StyleReference(
+            features.fileName(),
+            features.width(),
+            features.height(),
+            features.averageRed(),
+            features.averageGreen(),
+            features.averageBlue(),
+            features.brightness(),
+            features.saturation(),
+            features.edgeDensity(),
+            features.hueHistogram() == null ? List.of() : List.copyOf(features.hueHistogram()),
+            meta == null ? "" : normalize(meta.label),
+            meta == null ? List.of() : normalizeTags(meta.tags)
+        );
+    }
+
+    private static CachedFeatures decode(Path imagePath, String fileName, long size, long modified, String hash) {
+        BufferedImage image;
         try {
-            BufferedImage image = ImageIO.read(imagePath.toFile());
-            if (image == null || image.getWidth() <= 0 || image.getHeight() <= 0) {
-                return null;
-            }
-            StyleReferenceMeta meta = loadMeta(imagePath);
-            // The feature extractor stays intentionally simple for now so the
-            // reference library is cheap to refresh at runtime.
-            StyleImageFeatures features = extract(image);
-            return new StyleReference(
-                imagePath.getFileName().toString(),
-                features.width(),
-                features.height(),
-                features.averageRed(),
-                features.averageGreen(),
-                features.averageBlue(),
-                features.brightness(),
-                features.saturation(),
-                meta == null ? "" : normalize(meta.label),
-                meta == null ? List.of() : normalizeTags(meta.tags)
-            );
+            image = ImageIO.read(imagePath.toFile());
         } catch (IOException ex) {
-            lastError = ex.getMessage();
+            throw new CompletionException(ex);
+        }
+        if (image == null || image.getWidth() <= 0 || image.getHeight() <= 0) {
             return null;
         }
+        return extract(image, fileName, size, modified, hash);
     }
 
     private static StyleReferenceMeta loadMeta(Path imagePath) {
@@ -118,26 +278,34 @@ public final class StyleReferenceLibrary {
         }
         try (Reader reader = Files.newBufferedReader(metaPath)) {
             return GSON.fromJson(reader, StyleReferenceMeta.class);
-        } catch (IOException ex) {
+        } catch (IOException | JsonParseException ex) {
             return null;
         }
     }
 
-    private static StyleImageFeatures extract(BufferedImage image) {
+    private static CachedFeatures extract(BufferedImage image, String fileName, long size, long modified, String hash) {
+        // Sample at a capped grid instead of every pixel so large screenshots do
+        // not slow the game down just because they were dropped into style_refs.
+        int stepX = Math.max(1, image.getWidth() / SAMPLE_GRID);
+        int stepY = Math.max(1, image.getHeight() / SAMPLE_GRID);
+        int columns = (image.getWidth() + stepX - 1) / stepX;
+        int rows = (image.getHeight() + stepY - 1) / stepY;
+        float[] luma = new float[columns * rows];
+        double[] hue = new double[HUE_BINS];
+        int[] row = new int[image.getWidth()];
+
         long red = 0L;
         long green = 0L;
         long blue = 0L;
         double brightness = 0.0;
         double saturation = 0.0;
+        double hueWeight = 0.0;
         int count = 0;
-
-        // Sample at a capped grid instead of every pixel so large screenshots do
-        // not slow the game down just because they were dropped into style_refs.
-        int stepX = Math.max(1, image.getWidth() / 64);
-        int stepY = Math.max(1, image.getHeight() / 64);
-        for (int y = 0; y < image.getHeight(); y += stepY) {
-            for (int x = 0; x < image.getWidth(); x += stepX) {
-                int rgb = image.getRGB(x, y);
+        for (int sy = 0; sy < rows; sy++) {
+            // One bulk row read per sampled row instead of a getRGB call per pixel.
+            image.getRGB(0, sy * stepY, image.getWidth(), 1, row, 0, image.getWidth());
+            for (int sx = 0; sx < columns; sx++) {
+                int rgb = row[sx * stepX];
                 int r = (rgb >> 16) & 0xFF;
                 int g = (rgb >> 8) & 0xFF;
                 int b = rgb & 0xFF;
@@ -146,26 +314,137 @@ public final class StyleReferenceLibrary {
                 blue += b;
                 int max = Math.max(r, Math.max(g, b));
                 int min = Math.min(r, Math.min(g, b));
+                double sat = max == 0 ? 0.0 : (max - min) / (double) max;
                 brightness += max / 255.0;
-                saturation += max == 0 ? 0.0 : (max - min) / (double) max;
+                saturation += sat;
+                luma[sy * columns + sx] = (0.299f * r + 0.587f * g + 0.114f * b) / 255.0f;
+                if (max > min) {
+                    // Saturation-weighted hue histogram so greys do not swamp it.
+                    hue[hueBin(r, g, b, max, min)] += sat;
+                    hueWeight += sat;
+                }
                 count++;
             }
         }
 
+        int edges = 0;
+        int edgeSamples = 0;
+        for (int sy = 0; sy + 1 < rows; sy++) {
+            for (int sx = 0; sx + 1 < columns; sx++) {
+                float here = luma[sy * columns + sx];
+                float gradient = Math.abs(luma[sy * columns + sx + 1] - here) + Math.abs(luma[(sy + 1) * columns + sx] - here);
+                if (gradient > EDGE_THRESHOLD) {
+                    edges++;
+                }
+                edgeSamples++;
+            }
+        }
+
+        List<Double> histogram = new ArrayList<>(HUE_BINS);
+        for (double bin : hue) {
+            histogram.add(hueWeight <= 0.0 ? 0.0 : bin / hueWeight);
+        }
         if (count <= 0) {
-            return new StyleImageFeatures(image.getWidth(), image.getHeight(), 0, 0, 0, 0.0, 0.0);
+            return new CachedFeatures(fileName, size, modified, hash, image.getWidth(), image.getHeight(), 0, 0, 0, 0.0, 0.0, 0.0, histogram);
         }
-        return new StyleImageFeatures(
+        return new CachedFeatures(
+            fileName,
+            size,
+            modified,
+            hash,
             image.getWidth(),
             image.getHeight(),
             (int) Math.round(red / (double) count),
             (int) Math.round(green / (double) count),
             (int) Math.round(blue / (double) count),
             brightness / count,
-            saturation / count
+            saturation / count,
+            edgeSamples <= 0 ? 0.0 : edges / (double) edgeSamples,
+            histogram
         );
     }
 
+    private static int hueBin(int r, int g, int b, int max, int min) {
+        double delta = max - min;
+        double hue;
+        if (max == r) {
+            hue = ((g - b) / delta) % 6.0;
+        } else if (max == g) {
+            hue = (b - r) / delta + 2.0;
+        } else {
+            hue = (r - g) / delta + 4.0;
+        }
+        if (hue < 0.0) {
+            hue += 6.0;
+        }
+        return Math.min(HUE_BINS - 1, (int) (hue / 6.0 * HUE_BINS));
+    }
+
+    private Map<String, CachedFeatures> featureCache() {
+        if (featureCache != null) {
+            return featureCache;
+        }
+        Map<String, CachedFeatures> loadedCache = new HashMap<>();
+        if (Files.exists(FEATURE_CACHE_PATH)) {
+            try (Reader reader = Files.newBufferedReader(FEATURE_CACHE_PATH, StandardCharsets.UTF_8)) {
+                FeatureCacheFile file = GSON.fromJson(reader, FeatureCacheFile.class);
+                if (file != null && file.version == CACHE_VERSION && file.entries != null) {
+                    for (CachedFeatures entry : file.entries) {
+                        if (entry != null && entry.fileName() != null && entry.sha256() != null) {
+                            loadedCache.put(entry.fileName(), entry);
+                        }
+                    }
+                }
+            } catch (IOException | JsonParseException ex) {
+                // A broken cache only costs one full decode pass.
+                lastError = "feature cache: " + ex.getMessage();
+            }
+        }
+        featureCache = loadedCache;
+        return loadedCache;
+    }
+
+    private void saveFeatureCache(Map<String, CachedFeatures> entries) {
+        FeatureCacheFile file = new FeatureCacheFile();
+        file.version = CACHE_VERSION;
+        file.entries = entries.values().stream()
+            .sorted(Comparator.comparing(CachedFeatures::fileName))
+            .toList();
+        Path tmp = FEATURE_CACHE_PATH.resolveSibling(FEATURE_CACHE_PATH.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(FEATURE_CACHE_PATH.getParent());
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                GSON.toJson(file, out);
+            }
+            try {
+                Files.move(tmp, FEATURE_CACHE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                Files.move(tmp, FEATURE_CACHE_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            lastError = "feature cache: " + ex.getMessage();
+        }
+    }
+
+    private static String sha256(Path file) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new CompletionException(new IOException("SHA-256 unavailable", ex));
+        }
+        byte[] buffer = new byte[16 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
     private static long fingerprint(Path dir) throws IOException {
         try (Stream<Path> stream = Files.list(dir)) {
             return stream
@@ -216,20 +495,50 @@ public final class StyleReferenceLibrary {
         int averageBlue,
         double brightness,
         double saturation,
+        double edgeDensity,
+        List<Double> hueHistogram,
         String label,
         List<String> tags
     ) {
     }
 
-    private record StyleImageFeatures(
+    private record CachedFeatures(
+        String fileName,
+        long size,
+        long modifiedMillis,
+        String sha256,
         int width,
         int height,
         int averageRed,
         int averageGreen,
         int averageBlue,
         double brightness,
-        double saturation
+        double saturation,
+        double edgeDensity,
+        List<Double> hueHistogram
     ) {
+        private CachedFeatures relocated(String newFileName, long newSize, long newModified) {
+            return new CachedFeatures(
+                newFileName,
+                newSize,
+                newModified,
+                sha256,
+                width,
+                height,
+                averageRed,
+                averageGreen,
+                averageBlue,
+                brightness,
+                saturation,
+                edgeDensity,
+                hueHistogram
+            );
+        }
+    }
+
+    private static final class FeatureCacheFile {
+        int version;
+        List<CachedFeatures> entries;
     }
 
     private static final class StyleReferenceMeta {
@@ -0,0 +1,42 @@
+package com.bladelow.network;
+
+import com.bladelow.BladelowMod;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Internal server->client acknowledgement of one {@link HudBatchPayload}.
+ *
+ * {@code completedSteps} is how many steps ran before the batch stopped; a
+ * rejected batch reports zero and the reason in {@code message}.
+ */
+public record HudAckPayload(int requestId, boolean ok, int completedSteps, String message) implements CustomPayload {
+    public static final CustomPayload.Id<HudAckPayload> ID =
+        new CustomPayload.Id<>(Identifier.of(BladelowMod.MOD_ID, "hud_ack"));
+    public static final PacketCodec<ByteBuf, HudAckPayload> CODEC =
+        PacketCodec.of(HudAckPayload::write, HudAckPayload::read);
+
+    public HudAckPayload {
+        message = message == null ? "" : message;
+    }
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+
+    private void write(ByteBuf buf) {
+        VarInts.write(buf, requestId);
+        buf.writeBoolean(ok);
+        VarInts.write(buf, completedSteps);
+        PacketCodecs.STRING.encode(buf, message);
+    }
+
+    private static HudAckPayload read(ByteBuf buf) {
+        return new HudAckPayload(VarInts.read(buf), buf.readBoolean(), VarInts.read(buf), PacketCodecs.STRING.decode(buf));
+    }
+}
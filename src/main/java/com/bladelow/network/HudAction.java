@@ -47,7 +47,15 @@ public enum HudAction {
     SAFETY_SET_PREVIEW("safety_set_preview"),
     PROFILE_LOAD("profile_load"),
     MODEL_SCAN_INTENT("model_scan_intent"),
-    MODEL_SAVE_STYLE_EXAMPLE("model_save_style_example");
+    MODEL_SAVE_STYLE_EXAMPLE("model_save_style_example"),
+    MODEL_TRAIN_OFFLINE("model_train_offline"),
+
+    // Appended so existing ordinals on the wire keep their meaning.
+    JOB_STATUS("job_status"),
+    JOB_CANCEL("job_cancel"),
+    HUD_VISIBILITY("hud_visibility"),
+    TOWN_SET_OPTIMIZER_BUDGET("town_set_optimizer_budget"),
+    MODEL_SET_SCOPE("model_set_scope");
 
     private final String wireId;
 
@@ -0,0 +1,243 @@
+package com.bladelow.network;
+
+import com.bladelow.BladelowMod;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Background execution of heavy HUD actions.
+ *
+ * A heavy action runs in three steps. The handler captures whatever world
+ * state it needs on the server thread, the compute step runs on the planner
+ * pool, and the completion step goes back onto the server thread to queue
+ * builds and send feedback. Each submission gets a handle id that the HUD can
+ * poll with {@link HudAction#JOB_STATUS} or drop with {@link HudAction#JOB_CANCEL}.
+ *
+ * Repeated clicks are coalesced per player and action. A request with the
+ * same key as a job that is still running joins that job. A request with a
+ * different key supersedes it, and the older job's result is thrown away.
+ */
+public final class HudActionJobs {
+    private static final int KEEP_FINISHED_PER_PLAYER = 8;
+    private static final AtomicInteger PLANNER_THREAD_IDS = new AtomicInteger();
+    private static final ExecutorService PLANNER_POOL = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)),
+        runnable -> {
+            Thread thread = new Thread(runnable, "bladelow-hud-planner-" + PLANNER_THREAD_IDS.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    );
+    private static final AtomicLong JOB_IDS = new AtomicLong();
+    private static final Map<UUID, List<Job>> JOBS = new ConcurrentHashMap<>();
+
+    private HudActionJobs() {
+    }
+
+    /**
+     * Run {@code compute} on the planner pool, then {@code complete} with its
+     * result on the server thread unless the job was cancelled, superseded or
+     * the player left. A failure in either step goes to {@code failed}, also
+     * on the server thread. {@code key} identifies the request for
+     * coalescing, so it should include the selection as well as the arguments.
+     */
+    public static synchronized <T> Submission submit(
+        MinecraftServer server,
+        ServerPlayerEntity player,
+        HudAction action,
+        String key,
+        Supplier<T> compute,
+        Consumer<T> complete,
+        Consumer<Throwable> failed
+    ) {
+        if (server == null || player == null || action == null || compute == null || complete == null || failed == null) {
+            throw new IllegalArgumentException("job context unavailable");
+        }
+        UUID playerId = player.getUuid();
+        String normalizedKey = key == null ? "" : key;
+        List<Job> jobs = JOBS.computeIfAbsent(playerId, id -> new ArrayList<>());
+        Job superseded = null;
+        for (Job job : jobs) {
+            if (job.action != action || job.state.finished()) {
+                continue;
+            }
+            if (job.key.equals(normalizedKey)) {
+                return new Submission(job.id, true, null);
+            }
+            job.finish(State.SUPERSEDED, "replaced by a newer request");
+            superseded = job;
+        }
+
+        Job job = new Job(JOB_IDS.incrementAndGet(), action, normalizedKey);
+        jobs.add(job);
+        trim(jobs);
+        CompletableFuture.supplyAsync(() -> {
+            job.markRunning();
+            return compute.get();
+        }, PLANNER_POOL).whenComplete((result, failure) -> server.execute(() -> {
+            if (job.state.finished()) {
+                return;
+            }
+            if (player.isRemoved()) {
+                job.finish(State.CANCELLED, "player left");
+                return;
+            }
+            if (failure != null) {
+                Throwable cause = failure.getCause() == null ? failure : failure.getCause();
+                BladelowMod.LOGGER.error("HUD job #{} {} failed for {}", job.id, action.wireId(), player.getName().getString(), cause);
+                job.finish(State.FAILED, String.valueOf(cause.getMessage()));
+                failed.accept(cause);
+                return;
+            }
+            try {
+                complete.accept(result);
+                job.finish(State.DONE, "");
+            } catch (RuntimeException ex) {
+                job.finish(State.FAILED, String.valueOf(ex.getMessage()));
+                failed.accept(ex);
+            }
+        }));
+        return new Submission(job.id, false, superseded == null ? null : superseded.id);
+    }
+
+    /**
+     * One status line per tracked job of the player, newest last, or only
+     * the job with {@code jobId} when it is positive.
+     */
+    public static synchronized List<String> status(UUID playerId, long jobId) {
+        List<Job> jobs = playerId == null ? null : JOBS.get(playerId);
+        if (jobs == null) {
+            return List.of();
+        }
+        List<String> lines = new ArrayList<>();
+        for (Job job : jobs) {
+            if (jobId <= 0L || job.id == jobId) {
+                lines.add(job.summary());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Cancel the player's job {@code jobId}, or every unfinished job when it
+     * is not positive. Work already on the pool runs to the end, but its
+     * result is dropped. Returns how many jobs were cancelled.
+     */
+    public static synchronized int cancel(UUID playerId, long jobId) {
+        List<Job> jobs = playerId == null ? null : JOBS.get(playerId);
+        if (jobs == null) {
+            return 0;
+        }
+        int cancelled = 0;
+        for (Job job : jobs) {
+            if ((jobId <= 0L || job.id == jobId) && !job.state.finished()) {
+                job.finish(State.CANCELLED, "cancelled");
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    public static synchronized void cancelAll() {
+        for (UUID playerId : JOBS.keySet()) {
+            cancel(playerId, 0L);
+        }
+        JOBS.clear();
+    }
+
+    private static void trim(List<Job> jobs) {
+        int finished = 0;
+        for (Job job : jobs) {
+            if (job.state.finished()) {
+                finished++;
+            }
+        }
+        for (int i = 0; i < jobs.size() && finished > KEEP_FINISHED_PER_PLAYER; ) {
+            if (jobs.get(i).state.finished()) {
+                jobs.remove(i);
+                finished--;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Result of {@link #submit}: the handle to report, whether the request
+     * joined a job already running, and the id of a job it replaced (or null).
+     */
+    public record Submission(long jobId, boolean joined, Long supersededId) {
+    }
+
+    private enum State {
+        QUEUED,
+        RUNNING,
+        DONE,
+        FAILED,
+        CANCELLED,
+        SUPERSEDED;
+
+        private boolean finished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private static final class Job {
+        private final long id;
+        private final HudAction action;
+        private final String key;
+        private final long submittedAt = System.currentTimeMillis();
+        private volatile State state = State.QUEUED;
+        private volatile long finishedAt;
+        private volatile String detail = "";
+
+        private Job(long id, HudAction action, String key) {
+            this.id = id;
+            this.action = action;
+            this.key = key;
+        }
+
+        private void markRunning() {
+            synchronized (HudActionJobs.class) {
+                if (state == State.QUEUED) {
+                    state = State.RUNNING;
+                }
+            }
+        }
+
+        private void finish(State next, String reason) {
+            synchronized (HudActionJobs.class) {
+                if (state.finished()) {
+                    return;
+                }
+                state = next;
+                detail = reason == null ? "" : reason;
+                finishedAt = System.currentTimeMillis();
+            }
+        }
+
+        private String summary() {
+            long end = state.finished() ? finishedAt : System.currentTimeMillis();
+            String line = "job #" + id
+                + " " + action.wireId()
+                + " " + state.name().toLowerCase(Locale.ROOT)
+                + " " + String.format(Locale.ROOT, "%.1fs", (end - submittedAt) / 1000.0);
+            return detail.isBlank() ? line : line + " (" + detail + ")";
+        }
+    }
+}
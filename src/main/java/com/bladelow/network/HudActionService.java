@@ -2,6 +2,7 @@ package com.bladelow.network;
 
 import com.bladelow.BladelowMod;
 import com.bladelow.auto.CityAutoplayDirector;
+import com.bladelow.auto.CityPreviewQueue;
 import com.bladelow.auto.AutonomousBuildService;
 import com.bladelow.builder.BuildSiteAnalyzer;
 import com.bladelow.builder.BuildSiteScan;
@@ -17,10 +18,13 @@ import com.bladelow.builder.TownZoneStore;
 import com.bladelow.command.MaterialResolver;
 import com.bladelow.command.PaletteAssigner;
 import com.bladelow.ml.BladelowLearning;
+import com.bladelow.ml.OfflineModelTrainer;
+import com.bladelow.ml.PlacementModel;
 import com.bladelow.command.PlacementPipeline;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.particle.ParticleTypes;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
@@ -35,6 +39,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Direct HUD/server action dispatcher.
@@ -45,7 +51,13 @@ import java.util.UUID;
  */
 public final class HudActionService {
     private static final int MAX_SELECTION_BOX_BLOCKS = 131072;
+    // How long a reroll waits on the planner pool for a variant still being
+    // generated before asking the player to try again.
+    private static final long REROLL_WAIT_MILLIS = 5_000L;
     private static final Map<UUID, CachedPreview> CITY_BUILD_PREVIEWS = new HashMap<>();
+    // Status of the batch step being run, so handlers that report a problem
+    // with error(...) and carry on still fail the step. Server thread only.
+    private static StepStatus runningStep;
 
     private HudActionService() {
     }
@@ -55,45 +67,9 @@ public final class HudActionService {
             return false;
         }
         String normalized = payload.describe();
-        List<String> args = payload.args();
         ServerCommandSource source = player.getCommandSource();
         try {
-            return switch (payload.action()) {
-                case PAUSE_BUILD -> {
-                    handlePause(source, player);
-                    yield true;
-                }
-                case CONTINUE_BUILD -> {
-                    handleContinue(source, player);
-                    yield true;
-                }
-                case CANCEL_BUILD -> {
-                    handleCancel(source, player);
-                    yield true;
-                }
-                case STATUS -> {
-                    handleStatus(source, player, false);
-                    yield true;
-                }
-                case STATUS_DETAIL -> {
-                    handleStatus(source, player, true);
-                    yield true;
-                }
-                case SELECTION_CLEAR, SELECTION_MARKER_BOX, SELECTION_BUILD_HEIGHT ->
-                    handleSelection(source, player, payload.action(), args);
-                case ZONE_SET, ZONE_LIST, ZONE_CLEAR, ZONE_AUTO_LAYOUT ->
-                    handleZone(source, player, payload.action(), args);
-                case BLUEPRINT_LOAD, BLUEPRINT_BUILD, BLUEPRINT_CAPTURE, TOWN_FILL_SELECTION, TOWN_PREVIEW_SELECTION,
-                      CITY_BUILD_PREVIEW, CITY_BUILD_REROLL, CITY_BUILD_REJECT, CITY_BUILD_COMMIT, CITY_BUILD_AUTO,
-                     CITY_AUTOPLAY_START, CITY_AUTOPLAY_STATUS, CITY_AUTOPLAY_STOP,
-                     CITY_AUTOPLAY_CONTINUE, CITY_AUTOPLAY_CANCEL ->
-                    handleBlueprint(source, player, payload.action(), args);
-                case MOVE_SMART_ENABLE, MOVE_SMART_DISABLE, MOVE_SET_MODE, MOVE_SET_REACH ->
-                    handleMove(source, payload.action(), args);
-                case SAFETY_SET_PREVIEW -> handleSafety(source, args);
-                case PROFILE_LOAD -> handleProfile(source, player, args);
-                case MODEL_SCAN_INTENT, MODEL_SAVE_STYLE_EXAMPLE -> handleModel(source, player, payload.action(), args);
-            };
+            return dispatch(source, player, payload.action(), payload.args());
         } catch (IllegalArgumentException ex) {
             error(source, "[Bladelow] " + ex.getMessage());
             return true;
@@ -104,12 +80,227 @@ public final class HudActionService {
         }
     }
 
+    /**
+     * Run a batch of HUD steps and describe the outcome for the client.
+     *
+     * Every step's arguments are checked before the first one runs, so a
+     * batch with a malformed step changes nothing. Conditions that depend on
+     * earlier steps, such as an empty selection, can only be checked as the
+     * step runs. Steps run in order on the server thread; a step fails when
+     * it throws or reports an error, the first failure stops the rest, and
+     * the ack reports how many completed. Work a step hands to the
+     * background planner is acknowledged as queued, not as finished.
+     */
+    public static HudAckPayload executeBatch(ServerPlayerEntity player, HudBatchPayload batch) {
+        ServerCommandSource source = player.getCommandSource();
+        if (batch.version() != HudBatchPayload.VERSION) {
+            String message = "unsupported HUD batch version " + batch.version();
+            error(source, "[Bladelow] " + message);
+            return new HudAckPayload(batch.requestId(), false, 0, message);
+        }
+        List<Runnable> prepared = new ArrayList<>(batch.steps().size());
+        try {
+            for (HudBatchPayload.Step step : batch.steps()) {
+                prepared.add(prepareStep(source, player, step));
+            }
+        } catch (IllegalArgumentException ex) {
+            error(source, "[Bladelow] " + ex.getMessage());
+            return new HudAckPayload(batch.requestId(), false, 0, ex.getMessage());
+        }
+        for (int i = 0; i < prepared.size(); i++) {
+            StepStatus status = new StepStatus();
+            runningStep = status;
+            try {
+                prepared.get(i).run();
+            } catch (IllegalArgumentException ex) {
+                error(source, "[Bladelow] " + ex.getMessage());
+                return new HudAckPayload(batch.requestId(), false, i, ex.getMessage());
+            } catch (Exception ex) {
+                BladelowMod.LOGGER.error("HUD batch step failed for {}: {}", player.getName().getString(), batch.describe(), ex);
+                error(source, "[Bladelow] action failed: " + ex.getMessage());
+                return new HudAckPayload(batch.requestId(), false, i, "action failed: " + ex.getMessage());
+            } finally {
+                runningStep = null;
+            }
+            if (status.failure != null) {
+                return new HudAckPayload(batch.requestId(), false, i, status.failure);
+            }
+        }
+        return new HudAckPayload(batch.requestId(), true, prepared.size(), "");
+    }
+
+    /**
+     * Validate one batch step and bind it to its handler. Steps with typed
+     * arguments call the service directly; the rest go through the string
+     * dispatcher.
+     */
+    private static Runnable prepareStep(ServerCommandSource source, ServerPlayerEntity player, HudBatchPayload.Step step) {
+        List<HudArg> args = step.args();
+        switch (step.action()) {
+            case SELECTION_MARKER_BOX -> {
+                if (args.size() >= 3
+                    && args.get(0) instanceof HudArg.Pos from
+                    && args.get(1) instanceof HudArg.Pos to
+                    && args.get(2) instanceof HudArg.Int height) {
+                    boolean hollow = args.size() > 3 && "hollow".equalsIgnoreCase(args.get(3).asText());
+                    validateMarkerBox(from.value(), to.value(), height.value());
+                    return () -> applyMarkerBox(source, player, from.value(), to.value(), height.value(), hollow);
+                }
+            }
+            case SELECTION_BUILD_HEIGHT -> {
+                if (args.size() >= 2 && args.get(0) instanceof HudArg.Int height) {
+                    requireHeight(height.value());
+                    List<String> spec = step.legacyArgs();
+                    String blockSpec = remainder(spec, 1);
+                    return () -> runSelectionBuildHeight(source, player, height.value(), blockSpec);
+                }
+            }
+            case MOVE_SET_REACH -> {
+                if (args.size() == 1 && args.get(0) instanceof HudArg.Decimal reach) {
+                    return () -> {
+                        BuildRuntimeSettings.setReachDistance(reach.value());
+                        feedback(source, "[Bladelow] reach distance set to " + String.format(Locale.ROOT, "%.2f", BuildRuntimeSettings.reachDistance()));
+                    };
+                }
+            }
+            default -> {
+            }
+        }
+        List<String> legacy = step.legacyArgs();
+        validateArgs(step.action(), legacy);
+        return () -> {
+            if (!dispatch(source, player, step.action(), legacy)) {
+                throw new IllegalArgumentException("unsupported HUD action: " + step.action().wireId());
+            }
+        };
+    }
+
+    /**
+     * The argument checks a handler makes before it touches anything, run
+     * ahead of a batch so a malformed step is rejected before earlier steps
+     * have run. Keep in step with the handlers below.
+     */
+    private static void validateArgs(HudAction action, List<String> args) {
+        switch (action) {
+            case SELECTION_MARKER_BOX -> {
+                requireArgs(args, 8, "markerbox needs from/to coords and height");
+                validateMarkerBox(parsePos(args, 0), parsePos(args, 3), parseInt(args.get(6), "marker height"));
+            }
+            case SELECTION_BUILD_HEIGHT -> {
+                requireArgs(args, 2, "buildh needs height and block ids");
+                requireHeight(parseInt(args.get(0), "selection height"));
+            }
+            case ZONE_SET -> requireArgs(args, 1, "district type required");
+            case ZONE_AUTO_LAYOUT -> requireArgs(args, 1, "autolayout needs a preset");
+            case BLUEPRINT_LOAD -> requireArgs(args, 1, "blueprint name required");
+            case BLUEPRINT_BUILD -> {
+                requireArgs(args, 3, "blueprint build needs coords");
+                if (isInteger(args.get(0))) {
+                    parsePos(args, 0);
+                } else {
+                    requireArgs(args, 4, "blueprint build needs name and coords");
+                    parsePos(args, 1);
+                }
+            }
+            case BLUEPRINT_CAPTURE -> {
+                requireArgs(args, 2, "blueprint capture needs name and height");
+                requireHeight(parseInt(args.get(1), "capture height"));
+            }
+            case CITY_AUTOPLAY_START -> requireArgs(args, 1, "cityautoplay needs a preset");
+            case MOVE_SET_MODE -> requireArgs(args, 1, "move mode required");
+            case MOVE_SET_REACH -> {
+                requireArgs(args, 1, "reach distance required");
+                parseDouble(args.get(0), "reach distance");
+            }
+            case SAFETY_SET_PREVIEW -> {
+                if (args.isEmpty() || parseOnOff(args.get(0)) == null) {
+                    throw new IllegalArgumentException("use on|off");
+                }
+            }
+            case PROFILE_LOAD -> requireArgs(args, 1, "profile name required");
+            case MODEL_SET_SCOPE -> {
+                requireArgs(args, 1, "use global|world|player|next");
+                if (!"next".equalsIgnoreCase(args.get(0)) && PlacementModel.ScopeMode.parse(args.get(0), null) == null) {
+                    throw new IllegalArgumentException("use global|world|player|next");
+                }
+            }
+            case TOWN_SET_OPTIMIZER_BUDGET -> {
+                requireArgs(args, 1, "optimizer budget required (ms, 0 = off)");
+                parseInt(args.get(0), "optimizer budget");
+            }
+            case JOB_STATUS, JOB_CANCEL -> {
+                if (!args.isEmpty()) {
+                    parseJobId(args.get(0));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void requireArgs(List<String> args, int count, String message) {
+        if (args.size() < count) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static void requireHeight(int height) {
+        if (height < 1 || height > 256) {
+            throw new IllegalArgumentException("height must be 1..256");
+        }
+    }
+
+    private static boolean dispatch(ServerCommandSource source, ServerPlayerEntity player, HudAction action, List<String> args) {
+        return switch (action) {
+            case PAUSE_BUILD -> {
+                handlePause(source, player);
+                yield true;
+            }
+            case CONTINUE_BUILD -> {
+                handleContinue(source, player);
+                yield true;
+            }
+            case CANCEL_BUILD -> {
+                handleCancel(source, player);
+                yield true;
+            }
+            case STATUS -> {
+                handleStatus(source, player, false);
+                yield true;
+            }
+            case STATUS_DETAIL -> {
+                handleStatus(source, player, true);
+                yield true;
+            }
+            case SELECTION_CLEAR, SELECTION_MARKER_BOX, SELECTION_BUILD_HEIGHT ->
+                handleSelection(source, player, action, args);
+            case ZONE_SET, ZONE_LIST, ZONE_CLEAR, ZONE_AUTO_LAYOUT ->
+                handleZone(source, player, action, args);
+            case BLUEPRINT_LOAD, BLUEPRINT_BUILD, BLUEPRINT_CAPTURE, TOWN_FILL_SELECTION, TOWN_PREVIEW_SELECTION,
+                  CITY_BUILD_PREVIEW, CITY_BUILD_REROLL, CITY_BUILD_REJECT, CITY_BUILD_COMMIT, CITY_BUILD_AUTO,
+                 CITY_AUTOPLAY_START, CITY_AUTOPLAY_STATUS, CITY_AUTOPLAY_STOP,
+                 CITY_AUTOPLAY_CONTINUE, CITY_AUTOPLAY_CANCEL ->
+                handleBlueprint(source, player, action, args);
+            case MOVE_SMART_ENABLE, MOVE_SMART_DISABLE, MOVE_SET_MODE, MOVE_SET_REACH ->
+                handleMove(source, action, args);
+            case SAFETY_SET_PREVIEW -> handleSafety(source, args);
+            case TOWN_SET_OPTIMIZER_BUDGET -> handleOptimizerBudget(source, args);
+            case PROFILE_LOAD -> handleProfile(source, player, args);
+            case MODEL_SCAN_INTENT, MODEL_SAVE_STYLE_EXAMPLE, MODEL_TRAIN_OFFLINE, MODEL_SET_SCOPE -> handleModel(source, player, action, args);
+            case JOB_STATUS, JOB_CANCEL -> handleJob(source, player, action, args);
+            case HUD_VISIBILITY -> {
+                ProgressReporter.setHudOpen(player.getUuid(), !args.isEmpty() && "open".equalsIgnoreCase(args.get(0)));
+                yield true;
+            }
+        };
+    }
+
     private static boolean handleSelection(ServerCommandSource source, ServerPlayerEntity player, HudAction action, List<String> args) {
         return switch (action) {
             case SELECTION_CLEAR -> {
                 SelectionState.clear(player.getUuid(), source.getWorld().getRegistryKey());
                 clearCityPreview(player.getUuid());
-                feedback(source, "[Bladelow] preview-clear");
+                hidePreview(source, player);
                 feedback(source, "[Bladelow] selection cleared");
                 yield true;
             }
@@ -197,9 +388,6 @@ public final class HudActionService {
                     throw new IllegalArgumentException("autolayout needs a preset");
                 }
                 BlockPos[] bounds = selectionBounds2d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 boolean clearExisting = !(args.size() > 1 && "append".equalsIgnoreCase(args.get(1)));
                 TownAutoLayoutPlanner.ApplyResult result = TownAutoLayoutPlanner.apply(
                     player.getUuid(),
@@ -243,55 +431,56 @@ public final class HudActionService {
                 runBlueprintCapture(source, player, args);
                 yield true;
             }
-            case TOWN_FILL_SELECTION -> {
+            case TOWN_FILL_SELECTION, TOWN_PREVIEW_SELECTION -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
-                BlueprintLibrary.BuildPlan plan = BlueprintLibrary.resolveTownFill(source.getWorld(), player.getUuid(), bounds[0], bounds[1]);
-                if (!plan.ok()) {
-                    error(source, "[Bladelow] " + plan.message());
-                } else {
-                    feedback(source, "[Bladelow] townfill area from=" + bounds[0].toShortString() + " to=" + bounds[1].toShortString());
-                    PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "blueprint:" + plan.message(), false);
-                }
-                yield true;
-            }
-            case TOWN_PREVIEW_SELECTION -> {
-                BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
-                BlueprintLibrary.BuildPlan plan = BlueprintLibrary.resolveTownFill(source.getWorld(), player.getUuid(), bounds[0], bounds[1], "", false);
-                if (!plan.ok()) {
-                    error(source, "[Bladelow] " + plan.message());
-                } else {
-                    feedback(source, "[Bladelow] townpreview area from=" + bounds[0].toShortString() + " to=" + bounds[1].toShortString());
-                    PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "blueprint:" + plan.message(), true);
-                }
+                boolean preview = action == HudAction.TOWN_PREVIEW_SELECTION;
+                BlueprintLibrary.PendingTownFill pending = BlueprintLibrary.captureTownFill(source.getWorld(), player.getUuid(), bounds[0], bounds[1]);
+                submitJob(source, player, action, jobKey(bounds, args),
+                    // The preview leaves lots unlocked, as it always has. Locks
+                    // and placement logs are applied below, on the server
+                    // thread, so a canceled or superseded fill takes none.
+                    () -> pending.analyze().planUnclaimed("", !preview, true, Set.of()),
+                    plan -> {
+                        if (!plan.ok()) {
+                            error(source, "[Bladelow] " + plan.message());
+                            return;
+                        }
+                        if (!TownPlanner.claim(plan.claim())) {
+                            error(source, "[Bladelow] townfill lots were locked by another plan meanwhile; run it again");
+                            return;
+                        }
+                        feedback(source, "[Bladelow] " + (preview ? "townpreview" : "townfill")
+                            + " area from=" + bounds[0].toShortString() + " to=" + bounds[1].toShortString());
+                        PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "blueprint:" + plan.message(), preview);
+                    }
+                );
                 yield true;
             }
             case CITY_BUILD_PREVIEW -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
-                IntentStructurePlanner.GeneratedBuild plan = generateCityPlan(source, player, bounds, args, 0);
-                if (!plan.ok()) {
+                IntentStructurePlanner.PreparedSelection prepared = prepareCityPlan(source, player, bounds, args);
+                if (!prepared.ok()) {
                     clearCityPreview(player.getUuid());
-                    error(source, "[Bladelow] " + plan.message());
-                } else {
-                    rememberCityPreview(player.getUuid(), bounds[0], bounds[1], 0, plan);
-                    feedback(source, "[Bladelow] preview plan " + previewSummary(plan, 0));
-                    feedback(source, "[Bladelow] " + previewMapLine(bounds[0], bounds[1], 0, plan));
+                    error(source, "[Bladelow] " + prepared.message());
+                    yield true;
                 }
+                submitJob(source, player, action, jobKey(bounds, args),
+                    () -> IntentStructurePlanner.generateVariant(prepared, 0),
+                    plan -> {
+                        if (!plan.ok()) {
+                            clearCityPreview(player.getUuid());
+                            error(source, "[Bladelow] " + plan.message());
+                            return;
+                        }
+                        rememberCityPreview(player.getUuid(), bounds[0], bounds[1], 0, plan);
+                        CityPreviewQueue.start(player.getUuid(), prepared, args, 0, plan);
+                        showPreview(source, player, bounds[0], bounds[1], 0, plan);
+                    }
+                );
                 yield true;
             }
             case CITY_BUILD_REROLL -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 CachedPreview previous = CITY_BUILD_PREVIEWS.get(player.getUuid());
                 boolean matchingPrevious = previous != null && previous.matches(bounds[0], bounds[1]);
                 int nextVariant = matchingPrevious ? previous.variant() + 1 : 1;
@@ -306,28 +495,50 @@ public final class HudActionService {
                         previous.variant()
                     );
                 }
-                IntentStructurePlanner.GeneratedBuild plan = generateCityPlan(source, player, bounds, args, nextVariant);
-                if (!plan.ok()) {
-                    if (!matchingPrevious) {
-                        clearCityPreview(player.getUuid());
-                    }
-                    error(source, "[Bladelow] " + plan.message());
+                // Served from the speculative queue when it has a finished
+                // variant of this selection. While its variants are still
+                // generating, wait for them on the planner pool instead of
+                // replanning here and discarding them; plan directly only
+                // when there is no live queue for this selection.
+                CityPreviewQueue.Take queued = matchingPrevious
+                    ? CityPreviewQueue.take(player.getUuid(), bounds[0], bounds[1], args)
+                    : CityPreviewQueue.Take.MISS;
+                if (queued.pending()) {
+                    int fallbackVariant = nextVariant;
+                    feedback(source, "[Bladelow] generating the next variant...");
+                    submitJob(source, player, action, jobKey(bounds, args),
+                        () -> {
+                            CityPreviewQueue.await(queued, REROLL_WAIT_MILLIS);
+                            return Boolean.TRUE;
+                        },
+                        ignored -> {
+                            if (CITY_BUILD_PREVIEWS.get(player.getUuid()) != previous) {
+                                // Committed, rejected or replaced while waiting.
+                                return;
+                            }
+                            CityPreviewQueue.Take ready = CityPreviewQueue.take(player.getUuid(), bounds[0], bounds[1], args);
+                            if (ready.pending()) {
+                                error(source, "[Bladelow] variants are still generating; reroll again in a moment");
+                            } else if (ready.variant() != null) {
+                                showReroll(source, player, bounds, ready.variant().variant(), ready.variant().plan(), true);
+                            } else {
+                                rerollDirect(source, player, bounds, args, fallbackVariant, true);
+                            }
+                        }
+                    );
+                } else if (queued.variant() != null) {
+                    showReroll(source, player, bounds, queued.variant().variant(), queued.variant().plan(), matchingPrevious);
                 } else {
-                    rememberCityPreview(player.getUuid(), bounds[0], bounds[1], nextVariant, plan);
-                    feedback(source, "[Bladelow] preview plan " + previewSummary(plan, nextVariant));
-                    feedback(source, "[Bladelow] " + previewMapLine(bounds[0], bounds[1], nextVariant, plan));
+                    rerollDirect(source, player, bounds, args, nextVariant, matchingPrevious);
                 }
                 yield true;
             }
             case CITY_BUILD_REJECT -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 CachedPreview preview = CITY_BUILD_PREVIEWS.get(player.getUuid());
                 if (preview == null || !preview.matches(bounds[0], bounds[1])) {
                     clearCityPreview(player.getUuid());
-                    feedback(source, "[Bladelow] preview-clear");
+                    hidePreview(source, player);
                     error(source, "[Bladelow] no matching preview to reject");
                     yield true;
                 }
@@ -341,15 +552,12 @@ public final class HudActionService {
                     preview.variant()
                 );
                 clearCityPreview(player.getUuid());
-                feedback(source, "[Bladelow] preview-clear");
+                hidePreview(source, player);
                 feedback(source, "[Bladelow] preview rejected");
                 yield true;
             }
             case CITY_BUILD_COMMIT -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 CachedPreview preview = CITY_BUILD_PREVIEWS.get(player.getUuid());
                 if (preview == null) {
                     error(source, "[Bladelow] no cached preview; preview a plot first");
@@ -357,7 +565,7 @@ public final class HudActionService {
                 }
                 if (!preview.matches(bounds[0], bounds[1])) {
                     clearCityPreview(player.getUuid());
-                    feedback(source, "[Bladelow] preview-clear");
+                    hidePreview(source, player);
                     error(source, "[Bladelow] selection changed; preview the plot again before building");
                     yield true;
                 }
@@ -378,31 +586,37 @@ public final class HudActionService {
                     plan.blueprint()
                 );
                 feedback(source, "[Bladelow] build queued from preview " + plan.blueprint().name());
-                feedback(source, "[Bladelow] preview-clear");
+                hidePreview(source, player);
                 clearCityPreview(player.getUuid());
                 PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "autobuild:" + plan.blueprint().name(), false);
                 yield true;
             }
             case CITY_BUILD_AUTO -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
+                IntentStructurePlanner.PreparedSelection prepared = prepareCityPlan(source, player, bounds, args);
+                if (!prepared.ok()) {
+                    error(source, "[Bladelow] " + prepared.message());
                     yield true;
                 }
-                IntentStructurePlanner.GeneratedBuild plan = generateCityPlan(source, player, bounds, args, 0);
-                if (!plan.ok()) {
-                    error(source, "[Bladelow] " + plan.message());
-                } else {
-                    BladelowLearning.buildIntentLogger().recordTownPlacement(
-                        "auto_build_direct",
-                        source.getWorld(),
-                        plan.context(),
-                        plan.blueprint()
-                    );
-                    feedback(source, "[Bladelow] " + plan.message());
-                    feedback(source, "[Bladelow] preview-clear");
-                    clearCityPreview(player.getUuid());
-                    PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "autobuild:" + plan.blueprint().name(), false);
-                }
+                submitJob(source, player, action, jobKey(bounds, args),
+                    () -> IntentStructurePlanner.generateVariant(prepared, 0),
+                    plan -> {
+                        if (!plan.ok()) {
+                            error(source, "[Bladelow] " + plan.message());
+                            return;
+                        }
+                        BladelowLearning.buildIntentLogger().recordTownPlacement(
+                            "auto_build_direct",
+                            source.getWorld(),
+                            plan.context(),
+                            plan.blueprint()
+                        );
+                        feedback(source, "[Bladelow] " + plan.message());
+                        hidePreview(source, player);
+                        clearCityPreview(player.getUuid());
+                        PlacementPipeline.queue(source, player, plan.blockStates(), plan.targets(), "autobuild:" + plan.blueprint().name(), false);
+                    }
+                );
                 yield true;
             }
             case CITY_AUTOPLAY_START -> {
@@ -410,9 +624,6 @@ public final class HudActionService {
                     throw new IllegalArgumentException("cityautoplay needs a preset");
                 }
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 boolean clearExisting = !(args.size() > 1 && "append".equalsIgnoreCase(args.get(1)));
                 CityAutoplayDirector.StartResult result = CityAutoplayDirector.start(
                     source,
@@ -498,6 +709,16 @@ public final class HudActionService {
         return true;
     }
 
+    private static boolean handleOptimizerBudget(ServerCommandSource source, List<String> args) {
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("optimizer budget required (ms, 0 = off)");
+        }
+        BuildRuntimeSettings.setTownOptimizerBudgetMillis(parseInt(args.get(0), "optimizer budget"));
+        int budget = BuildRuntimeSettings.townOptimizerBudgetMillis();
+        feedback(source, "[Bladelow] town optimizer budget set to " + (budget == 0 ? "off" : budget + "ms"));
+        return true;
+    }
+
     private static boolean handleProfile(ServerCommandSource source, ServerPlayerEntity player, List<String> args) {
         if (args.isEmpty()) {
             throw new IllegalArgumentException("profile name required");
@@ -519,14 +740,15 @@ public final class HudActionService {
                     error(source, "[Bladelow] " + result.message());
                 } else {
                     feedback(source, "[Bladelow] " + result.message());
+                    String summary = result.snapshot().summary();
+                    if (summary != null && summary.startsWith("intent ")) {
+                        HudTelemetrySync.intent(player, summary.substring("intent ".length()).trim());
+                    }
                 }
                 yield true;
             }
             case MODEL_SAVE_STYLE_EXAMPLE -> {
                 BlockPos[] bounds = selectionBounds3d(player, source);
-                if (bounds == null) {
-                    yield true;
-                }
                 BuildSiteScan scan = BuildSiteAnalyzer.scan(source.getWorld(), bounds[0], bounds[1], bounds[0].getY(), Set.of());
                 if (scan == BuildSiteScan.EMPTY) {
                     error(source, "[Bladelow] could not extract a style scan from the selected area");
@@ -555,6 +777,72 @@ public final class HudActionService {
                 feedback(source, "[Bladelow] saved style example " + normalizedLabel + " => " + scan.summary());
                 yield true;
             }
+            case MODEL_SET_SCOPE -> {
+                if (args.isEmpty()) {
+                    throw new IllegalArgumentException("use global|world|player|next");
+                }
+                PlacementModel model = BladelowLearning.model();
+                PlacementModel.ScopeMode mode = "next".equalsIgnoreCase(args.get(0))
+                    ? model.scopeMode().next()
+                    : PlacementModel.ScopeMode.parse(args.get(0), null);
+                if (mode == null) {
+                    throw new IllegalArgumentException("use global|world|player|next");
+                }
+                model.setScopeMode(mode);
+                String saved = BladelowLearning.save();
+                feedback(source, "[Bladelow] placement weights scoped " + mode.name().toLowerCase(Locale.ROOT) + " (" + saved + ")");
+                yield true;
+            }
+            case MODEL_TRAIN_OFFLINE -> {
+                if (!args.isEmpty() && "auto".equalsIgnoreCase(args.get(0))) {
+                    OfflineModelTrainer trainer = BladelowLearning.offlineTrainer();
+                    trainer.setAutoRetrain(!trainer.autoRetrain());
+                    String saved = BladelowLearning.save();
+                    feedback(source, "[Bladelow] offline auto retrain " + (trainer.autoRetrain() ? "on" : "off") + " (" + saved + ")");
+                    yield true;
+                }
+                // Training reads every dataset, so it runs on the trainer's own
+                // thread and reports back through the server thread when done.
+                boolean started = BladelowLearning.offlineTrainer().requestTraining(
+                    "hud:" + player.getName().getString(),
+                    result -> source.getServer().execute(() -> {
+                        if (result.ok()) {
+                            feedback(source, "[Bladelow] " + result.summary());
+                        } else {
+                            error(source, "[Bladelow] " + result.summary());
+                        }
+                    })
+                );
+                if (started) {
+                    feedback(source, "[Bladelow] offline training started");
+                } else {
+                    error(source, "[Bladelow] offline training is already running");
+                }
+                yield true;
+            }
+            default -> false;
+        };
+    }
+
+    private static boolean handleJob(ServerCommandSource source, ServerPlayerEntity player, HudAction action, List<String> args) {
+        long jobId = args.isEmpty() ? 0L : parseJobId(args.get(0));
+        return switch (action) {
+            case JOB_STATUS -> {
+                List<String> lines = HudActionJobs.status(player.getUuid(), jobId);
+                if (lines.isEmpty()) {
+                    feedback(source, "[Bladelow] " + (jobId > 0L ? "no job #" + jobId : "no jobs"));
+                    yield true;
+                }
+                for (String line : lines) {
+                    feedback(source, "[Bladelow] " + line);
+                }
+                yield true;
+            }
+            case JOB_CANCEL -> {
+                int cancelled = HudActionJobs.cancel(player.getUuid(), jobId);
+                feedback(source, "[Bladelow] cancelled jobs=" + cancelled);
+                yield true;
+            }
             default -> false;
         };
     }
@@ -593,6 +881,7 @@ public final class HudActionService {
 
         List<Block> override = MaterialResolver.parseBlockSpec(blockSpec, source);
         if (override.isEmpty()) {
+            markStepFailed("invalid block spec: " + blockSpec);
             return;
         }
         List<Block> blocks = PaletteAssigner.applyOverride(plan.blocks(), plan.targets(), override);
@@ -610,20 +899,32 @@ public final class HudActionService {
         }
         boolean includeAir = args.size() > 2 && "air".equalsIgnoreCase(args.get(2));
 
-        AutonomousBuildService.CaptureResult result = AutonomousBuildService.captureSelectedStructure(
-            source.getServer(),
+        // The blocks are copied here; writing the files and reloading the
+        // library happen off the server thread.
+        AutonomousBuildService.PendingCapture pending = AutonomousBuildService.prepareCapture(
             source.getWorld(),
             player,
             name,
             height,
             includeAir
         );
-        if (!result.ok()) {
-            error(source, "[Bladelow] " + result.message());
+        if (!pending.ok()) {
+            error(source, "[Bladelow] " + pending.extent().message());
             return;
         }
-        feedback(source, "[Bladelow] " + result.message());
-        feedback(source, "[Bladelow] selected blueprint " + name + " volume=" + result.volume());
+        MinecraftServer server = source.getServer();
+        submitJob(source, player, HudAction.BLUEPRINT_CAPTURE, name.toLowerCase(Locale.ROOT) + "|" + pending.extent().volume(),
+            () -> AutonomousBuildService.finishCapture(server, pending),
+            result -> {
+                if (!result.ok()) {
+                    error(source, "[Bladelow] " + result.message());
+                    return;
+                }
+                BlueprintLibrary.select(player.getUuid(), name);
+                feedback(source, "[Bladelow] " + result.message());
+                feedback(source, "[Bladelow] selected blueprint " + name + " volume=" + result.volume());
+            }
+        );
     }
 
     private static void runSelectionBuildHeight(ServerCommandSource source, ServerPlayerEntity player, int height, String blockSpec) {
@@ -632,6 +933,7 @@ public final class HudActionService {
         }
         List<Block> blocks = MaterialResolver.parseBlockSpec(blockSpec, source);
         if (blocks.isEmpty()) {
+            markStepFailed("invalid block spec: " + blockSpec);
             return;
         }
         List<BlockPos> base = SelectionState.snapshot(player.getUuid(), source.getWorld().getRegistryKey());
@@ -652,6 +954,16 @@ public final class HudActionService {
         PlacementPipeline.run(source, player, blocks, targets, "selectionh");
     }
 
+    private static void validateMarkerBox(BlockPos from, BlockPos to, int height) {
+        if (height < 1 || height > 256) {
+            throw new IllegalArgumentException("height must be 1..256");
+        }
+        long area = ((long) Math.abs(from.getX() - to.getX()) + 1L) * ((long) Math.abs(from.getZ() - to.getZ()) + 1L);
+        if (area > MAX_SELECTION_BOX_BLOCKS) {
+            throw new IllegalArgumentException("marker box too large (" + area + " base blocks). limit=" + MAX_SELECTION_BOX_BLOCKS);
+        }
+    }
+
     private static void applyMarkerBox(ServerCommandSource source, ServerPlayerEntity player, BlockPos from, BlockPos to, int height, boolean hollow) {
         if (height < 1 || height > 256) {
             throw new IllegalArgumentException("height must be 1..256");
@@ -748,7 +1060,7 @@ public final class HudActionService {
     private static void handleCancel(ServerCommandSource source, ServerPlayerEntity player) {
         boolean canceled = com.bladelow.builder.PlacementJobRunner.cancel(source.getServer(), player.getUuid());
         clearCityPreview(player.getUuid());
-        feedback(source, "[Bladelow] preview-clear");
+        hidePreview(source, player);
         feedback(source, canceled
             ? "[Bladelow] active build canceled."
             : "[Bladelow] no active build to cancel.");
@@ -764,8 +1076,7 @@ public final class HudActionService {
     private static BlockPos[] selectionBounds3d(ServerPlayerEntity player, ServerCommandSource source) {
         List<BlockPos> points = SelectionState.snapshot(player.getUuid(), source.getWorld().getRegistryKey());
         if (points.isEmpty()) {
-            error(source, "[Bladelow] selection is empty; mark an area in the HUD first");
-            return null;
+            throw new IllegalArgumentException("selection is empty; mark an area in the HUD first");
         }
         int minX = Integer.MAX_VALUE;
         int minY = Integer.MAX_VALUE;
@@ -787,8 +1098,7 @@ public final class HudActionService {
     private static BlockPos[] selectionBounds2d(ServerPlayerEntity player, ServerCommandSource source) {
         List<BlockPos> points = SelectionState.snapshot(player.getUuid(), source.getWorld().getRegistryKey());
         if (points.isEmpty()) {
-            error(source, "[Bladelow] selection is empty; mark an area in the HUD first");
-            return null;
+            throw new IllegalArgumentException("selection is empty; mark an area in the HUD first");
         }
         int minX = Integer.MAX_VALUE;
         int minZ = Integer.MAX_VALUE;
@@ -821,6 +1131,15 @@ public final class HudActionService {
         );
     }
 
+    private static long parseJobId(String text) {
+        String value = text.startsWith("#") ? text.substring(1) : text;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid job id: " + text);
+        }
+    }
+
     private static int parseInt(String text, String label) {
         try {
             return Integer.parseInt(text);
@@ -863,23 +1182,97 @@ public final class HudActionService {
         return true;
     }
 
-    private static IntentStructurePlanner.GeneratedBuild generateCityPlan(
+    private static IntentStructurePlanner.PreparedSelection prepareCityPlan(
         ServerCommandSource source,
         ServerPlayerEntity player,
         BlockPos[] bounds,
-        List<String> args,
-        int variant
+        List<String> args
     ) {
-        return AutonomousBuildService.generateCityStructure(
+        return AutonomousBuildService.prepareCityStructure(
             source.getWorld(),
             player,
             bounds[0],
             bounds[1],
-            args,
-            variant
+            args
         );
     }
 
+    /**
+     * Hand the compute step of a heavy action to {@link HudActionJobs} and
+     * report its handle. {@code complete} runs back on the server thread.
+     */
+    private static <T> void submitJob(
+        ServerCommandSource source,
+        ServerPlayerEntity player,
+        HudAction action,
+        String key,
+        Supplier<T> compute,
+        Consumer<T> complete
+    ) {
+        HudActionJobs.Submission submission = HudActionJobs.submit(
+            source.getServer(),
+            player,
+            action,
+            key,
+            compute,
+            complete,
+            failure -> error(source, "[Bladelow] "
+                + (failure instanceof IllegalArgumentException ? "" : "action failed: ")
+                + failure.getMessage())
+        );
+        if (submission.joined()) {
+            feedback(source, "[Bladelow] job #" + submission.jobId() + " already running " + action.wireId());
+            return;
+        }
+        String replaced = submission.supersededId() == null ? "" : " replaces=#" + submission.supersededId();
+        feedback(source, "[Bladelow] job #" + submission.jobId() + " queued " + action.wireId() + replaced);
+    }
+
+    /**
+     * Plan reroll {@code variant} on the server thread and restart the
+     * speculative queue from it.
+     */
+    private static void rerollDirect(
+        ServerCommandSource source,
+        ServerPlayerEntity player,
+        BlockPos[] bounds,
+        List<String> args,
+        int variant,
+        boolean keepPrevious
+    ) {
+        IntentStructurePlanner.PreparedSelection prepared = prepareCityPlan(source, player, bounds, args);
+        IntentStructurePlanner.GeneratedBuild plan = prepared.ok()
+            ? IntentStructurePlanner.generateVariant(prepared, variant)
+            : IntentStructurePlanner.GeneratedBuild.error(prepared.message());
+        if (plan.ok()) {
+            CityPreviewQueue.start(player.getUuid(), prepared, args, variant, plan);
+        }
+        showReroll(source, player, bounds, variant, plan, keepPrevious);
+    }
+
+    private static void showReroll(
+        ServerCommandSource source,
+        ServerPlayerEntity player,
+        BlockPos[] bounds,
+        int variant,
+        IntentStructurePlanner.GeneratedBuild plan,
+        boolean keepPrevious
+    ) {
+        if (!plan.ok()) {
+            if (!keepPrevious) {
+                clearCityPreview(player.getUuid());
+            }
+            error(source, "[Bladelow] " + plan.message());
+            return;
+        }
+        rememberCityPreview(player.getUuid(), bounds[0], bounds[1], variant, plan);
+        showPreview(source, player, bounds[0], bounds[1], variant, plan);
+    }
+
+    private static String jobKey(BlockPos[] bounds, List<String> args) {
+        return bounds[0].toShortString() + ".." + bounds[1].toShortString() + "|" + String.join(" ", args);
+    }
+
     private static void rememberCityPreview(UUID playerId, BlockPos from, BlockPos to, int variant, IntentStructurePlanner.GeneratedBuild plan) {
         CITY_BUILD_PREVIEWS.put(playerId, new CachedPreview(
             Math.min(from.getX(), to.getX()),
@@ -893,10 +1286,11 @@ public final class HudActionService {
 
     private static void clearCityPreview(UUID playerId) {
         CITY_BUILD_PREVIEWS.remove(playerId);
+        CityPreviewQueue.clear(playerId);
     }
 
     private static String previewSummary(IntentStructurePlanner.GeneratedBuild plan, int variant) {
-        String label = plan.intent().primaryArchetype().isBlank() ? "house" : plan.intent().primaryArchetype();
+        String label = previewLabel(plan);
         String palette = plan.intent().paletteProfile().isBlank() ? "auto" : plan.intent().paletteProfile();
         IntentStructurePlanner.GenerationProfile generation = plan.generation();
         String generator = generation != null && generation.learned()
@@ -911,8 +1305,56 @@ public final class HudActionService {
             + " " + generator;
     }
 
+    /**
+     * Put a preview on the player's HUD map: over the telemetry channel when
+     * the client has it, otherwise as the chat lines older clients parse.
+     */
+    private static void showPreview(
+        ServerCommandSource source,
+        ServerPlayerEntity player,
+        BlockPos from,
+        BlockPos to,
+        int variant,
+        IntentStructurePlanner.GeneratedBuild plan
+    ) {
+        if (!HudTelemetrySync.supports(player)) {
+            feedback(source, "[Bladelow] preview plan " + previewSummary(plan, variant));
+            feedback(source, "[Bladelow] " + previewMapLine(from, to, variant, plan));
+            return;
+        }
+        HudTelemetrySync.preview(player, new HudTelemetryPayload.Preview(
+            Math.min(from.getX(), to.getX()),
+            Math.min(from.getZ(), to.getZ()),
+            Math.max(from.getX(), to.getX()),
+            Math.max(from.getZ(), to.getZ()),
+            plan.minX(),
+            plan.minZ(),
+            plan.maxX(),
+            plan.maxZ(),
+            plan.entranceWorldX(),
+            plan.entranceWorldZ(),
+            variant,
+            previewLabel(plan),
+            previewSummary(plan, variant)
+        ));
+        PreviewGeometryStreamer.start(player, plan.targets(), plan.blockStates());
+    }
+
+    private static void hidePreview(ServerCommandSource source, ServerPlayerEntity player) {
+        if (HudTelemetrySync.supports(player)) {
+            HudTelemetrySync.preview(player, null);
+            PreviewGeometryStreamer.clear(player);
+        } else {
+            feedback(source, "[Bladelow] preview-clear");
+        }
+    }
+
+    private static String previewLabel(IntentStructurePlanner.GeneratedBuild plan) {
+        return plan.intent().primaryArchetype().isBlank() ? "house" : plan.intent().primaryArchetype();
+    }
+
     private static String previewMapLine(BlockPos from, BlockPos to, int variant, IntentStructurePlanner.GeneratedBuild plan) {
-        String label = plan.intent().primaryArchetype().isBlank() ? "house" : plan.intent().primaryArchetype();
+        String label = previewLabel(plan);
         return "preview-map "
             + "selMinX=" + Math.min(from.getX(), to.getX()) + " "
             + "selMinZ=" + Math.min(from.getZ(), to.getZ()) + " "
@@ -934,6 +1376,22 @@ public final class HudActionService {
 
     private static void error(ServerCommandSource source, String message) {
         source.sendError(blue(message));
+        StepStatus status = runningStep;
+        if (status != null && status.failure == null) {
+            status.failure = message.startsWith("[Bladelow] ") ? message.substring("[Bladelow] ".length()) : message;
+        }
+    }
+
+    /**
+     * Fail the running batch step without a message of its own, for
+     * helpers such as {@link MaterialResolver#parseBlockSpec} that already
+     * told the player what was wrong.
+     */
+    private static void markStepFailed(String reason) {
+        StepStatus status = runningStep;
+        if (status != null && status.failure == null) {
+            status.failure = reason;
+        }
     }
 
     private static Text blue(String msg) {
@@ -955,4 +1413,8 @@ public final class HudActionService {
                 && selMaxZ == Math.max(from.getZ(), to.getZ());
         }
     }
+
+    private static final class StepStatus {
+        private String failure;
+    }
 }
@@ -0,0 +1,63 @@
+package com.bladelow.network;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Locale;
+
+/**
+ * One typed argument of a batched HUD step.
+ *
+ * Positions, integers and decimals travel as numbers so the server does not
+ * re-parse them from strings; everything else stays text. {@link #asText()}
+ * gives the legacy string form for handlers that still take string args.
+ */
+public sealed interface HudArg permits HudArg.Int, HudArg.Pos, HudArg.Decimal, HudArg.Text {
+    String asText();
+
+    static HudArg of(int value) {
+        return new Int(value);
+    }
+
+    static HudArg of(BlockPos value) {
+        return new Pos(value.toImmutable());
+    }
+
+    static HudArg of(float value) {
+        return new Decimal(value);
+    }
+
+    static HudArg of(String value) {
+        return new Text(value == null ? "" : value.trim());
+    }
+
+    record Int(int value) implements HudArg {
+        @Override
+        public String asText() {
+            return Integer.toString(value);
+        }
+    }
+
+    /**
+     * A block position; its legacy string form is three separate args.
+     */
+    record Pos(BlockPos value) implements HudArg {
+        @Override
+        public String asText() {
+            return value.getX() + " " + value.getY() + " " + value.getZ();
+        }
+    }
+
+    record Decimal(float value) implements HudArg {
+        @Override
+        public String asText() {
+            return String.format(Locale.ROOT, "%.2f", value);
+        }
+    }
+
+    record Text(String value) implements HudArg {
+        @Override
+        public String asText() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.bladelow.network;
+
+import com.bladelow.BladelowMod;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Internal client->server payload carrying several HUD actions as one
+ * request.
+ *
+ * Related steps (marker box, zone set, build height, preview) travel in one
+ * packet with typed arguments and a client-chosen {@code requestId}. The
+ * server runs them in order within one tick and answers with a single
+ * {@link HudAckPayload} carrying the same id. The leading {@code version}
+ * lets the layout change without misreading older clients.
+ */
+public record HudBatchPayload(int version, int requestId, List<Step> steps) implements CustomPayload {
+    public static final int VERSION = 1;
+    public static final int MAX_STEPS = 16;
+    private static final int MAX_ARGS = 32;
+    private static final byte TAG_INT = 0;
+    private static final byte TAG_POS = 1;
+    private static final byte TAG_DECIMAL = 2;
+    private static final byte TAG_TEXT = 3;
+
+    public static final CustomPayload.Id<HudBatchPayload> ID =
+        new CustomPayload.Id<>(Identifier.of(BladelowMod.MOD_ID, "hud_batch"));
+    public static final PacketCodec<ByteBuf, HudBatchPayload> CODEC =
+        PacketCodec.of(HudBatchPayload::write, HudBatchPayload::read);
+
+    public HudBatchPayload {
+        steps = steps == null ? List.of() : List.copyOf(steps);
+        if (steps.size() > MAX_STEPS) {
+            throw new IllegalArgumentException("HUD batch has too many steps: " + steps.size());
+        }
+    }
+
+    public static HudBatchPayload of(int requestId, List<HudCommandPayload> actions) {
+        List<Step> steps = new ArrayList<>(actions.size());
+        for (HudCommandPayload action : actions) {
+            steps.add(Step.typed(action));
+        }
+        return new HudBatchPayload(VERSION, requestId, steps);
+    }
+
+    public String describe() {
+        List<String> parts = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            parts.add(step.describe());
+        }
+        return "batch#" + requestId + " [" + String.join("; ", parts) + "]";
+    }
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+
+    /**
+     * One action of a batch with its typed arguments.
+     */
+    public record Step(HudAction action, List<HudArg> args) {
+        public Step {
+            if (action == null) {
+                throw new IllegalArgumentException("HUD action is required");
+            }
+            args = args == null ? List.of() : List.copyOf(args);
+        }
+
+        /**
+         * Convert a string-argument action into typed arguments for the
+         * actions the server reads natively; everything else stays text.
+         */
+        public static Step typed(HudCommandPayload payload) {
+            List<String> raw = payload.args();
+            List<HudArg> args = new ArrayList<>(raw.size());
+            try {
+                switch (payload.action()) {
+                    case SELECTION_MARKER_BOX -> {
+                        if (raw.size() >= 7) {
+                            args.add(HudArg.of(new BlockPos(Integer.parseInt(raw.get(0)), Integer.parseInt(raw.get(1)), Integer.parseInt(raw.get(2)))));
+                            args.add(HudArg.of(new BlockPos(Integer.parseInt(raw.get(3)), Integer.parseInt(raw.get(4)), Integer.parseInt(raw.get(5)))));
+                            args.add(HudArg.of(Integer.parseInt(raw.get(6))));
+                            textFrom(raw, 7, args);
+                            return new Step(payload.action(), args);
+                        }
+                    }
+                    case SELECTION_BUILD_HEIGHT -> {
+                        if (!raw.isEmpty()) {
+                            args.add(HudArg.of(Integer.parseInt(raw.get(0))));
+                            textFrom(raw, 1, args);
+                            return new Step(payload.action(), args);
+                        }
+                    }
+                    case MOVE_SET_REACH -> {
+                        if (raw.size() == 1) {
+                            args.add(HudArg.of(Float.parseFloat(raw.get(0))));
+                            return new Step(payload.action(), args);
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            } catch (NumberFormatException ignored) {
+                // Leave malformed input as text so the server reports it.
+            }
+            args.clear();
+            textFrom(raw, 0, args);
+            return new Step(payload.action(), args);
+        }
+
+        /**
+         * The string arguments the single-action handlers expect; a position
+         * expands to its three coordinates.
+         */
+        public List<String> legacyArgs() {
+            List<String> out = new ArrayList<>(args.size() + 4);
+            for (HudArg arg : args) {
+                if (arg instanceof HudArg.Pos pos) {
+                    out.add(Integer.toString(pos.value().getX()));
+                    out.add(Integer.toString(pos.value().getY()));
+                    out.add(Integer.toString(pos.value().getZ()));
+                } else {
+                    out.add(arg.asText());
+                }
+            }
+            return out;
+        }
+
+        public String describe() {
+            if (args.isEmpty()) {
+                return action.wireId();
+            }
+            return action.wireId() + " " + String.join(" ", legacyArgs());
+        }
+
+        private static void textFrom(List<String> raw, int start, List<HudArg> out) {
+            for (int i = start; i < raw.size(); i++) {
+                out.add(HudArg.of(raw.get(i)));
+            }
+        }
+    }
+
+    private void write(ByteBuf buf) {
+        buf.writeByte(version);
+        VarInts.write(buf, requestId);
+        VarInts.write(buf, steps.size());
+        for (Step step : steps) {
+            VarInts.write(buf, step.action().ordinal());
+            VarInts.write(buf, step.args().size());
+            for (HudArg arg : step.args()) {
+                switch (arg) {
+                    case HudArg.Int value -> {
+                        buf.writeByte(TAG_INT);
+                        writeSigned(buf, value.value());
+                    }
+                    case HudArg.Pos value -> {
+                        buf.writeByte(TAG_POS);
+                        writeSigned(buf, value.value().getX());
+                        writeSigned(buf, value.value().getY());
+                        writeSigned(buf, value.value().getZ());
+                    }
+                    case HudArg.Decimal value -> {
+                        buf.writeByte(TAG_DECIMAL);
+                        buf.writeFloat(value.value());
+                    }
+                    case HudArg.Text value -> {
+                        buf.writeByte(TAG_TEXT);
+                        PacketCodecs.STRING.encode(buf, value.value());
+                    }
+                }
+            }
+        }
+    }
+
+    private static HudBatchPayload read(ByteBuf buf) {
+        int version = buf.readUnsignedByte();
+        int requestId = VarInts.read(buf);
+        if (version != VERSION) {
+            // Skip the body; the server answers with a rejection for this id.
+            buf.skipBytes(buf.readableBytes());
+            return new HudBatchPayload(version, requestId, List.of());
+        }
+        int stepCount = boundedCount(VarInts.read(buf), MAX_STEPS);
+        List<Step> steps = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            HudAction action = HudAction.fromOrdinal(VarInts.read(buf));
+            int argCount = boundedCount(VarInts.read(buf), MAX_ARGS);
+            List<HudArg> args = new ArrayList<>(argCount);
+            for (int a = 0; a < argCount; a++) {
+                byte tag = buf.readByte();
+                args.add(switch (tag) {
+                    case TAG_INT -> HudArg.of(readSigned(buf));
+                    case TAG_POS -> HudArg.of(new BlockPos(readSigned(buf), readSigned(buf), readSigned(buf)));
+                    case TAG_DECIMAL -> HudArg.of(buf.readFloat());
+                    case TAG_TEXT -> HudArg.of(PacketCodecs.STRING.decode(buf));
+                    default -> throw new IllegalArgumentException("Unknown HUD arg tag: " + tag);
+                });
+            }
+            steps.add(new Step(action, args));
+        }
+        return new HudBatchPayload(version, requestId, steps);
+    }
+
+    private static int boundedCount(int count, int max) {
+        if (count < 0 || count > max) {
+            throw new IllegalArgumentException("Invalid HUD batch count: " + count);
+        }
+        return count;
+    }
+
+    private static void writeSigned(ByteBuf buf, int value) {
+        VarInts.write(buf, (value << 1) ^ (value >> 31));
+    }
+
+    private static int readSigned(ByteBuf buf) {
+        int raw = VarInts.read(buf);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
@@ -7,11 +7,17 @@ import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.server.network.ServerPlayerEntity;
 
+import java.util.function.Consumer;
+
 /**
  * Packet bridge between the client HUD and server-side action handlers.
  *
  * The transport stays packet-based, and the payload itself is action-native:
- * one explicit HUD action enum plus action-specific arguments.
+ * one explicit HUD action enum plus action-specific arguments, or a
+ * {@link HudBatchPayload} of several typed steps answered by one
+ * {@link HudAckPayload}. Telemetry flows
+ * back the other way on {@link HudTelemetryPayload}, and preview blocks on
+ * {@link PreviewGeometryPayload}.
  */
 public final class HudCommandBridge {
     private HudCommandBridge() {
@@ -19,9 +25,32 @@ public final class HudCommandBridge {
 
     public static void registerServer() {
         PayloadTypeRegistry.playC2S().register(HudCommandPayload.ID, HudCommandPayload.CODEC);
+        PayloadTypeRegistry.playC2S().register(HudBatchPayload.ID, HudBatchPayload.CODEC);
+        PayloadTypeRegistry.playS2C().register(HudAckPayload.ID, HudAckPayload.CODEC);
+        PayloadTypeRegistry.playS2C().register(HudTelemetryPayload.ID, HudTelemetryPayload.CODEC);
+        PayloadTypeRegistry.playS2C().register(PreviewGeometryPayload.ID, PreviewGeometryPayload.CODEC);
         ServerPlayNetworking.registerGlobalReceiver(HudCommandPayload.ID, (payload, context) ->
             executeHudAction(context.player(), payload)
         );
+        ServerPlayNetworking.registerGlobalReceiver(HudBatchPayload.ID, (payload, context) ->
+            executeHudBatch(context.player(), payload)
+        );
+    }
+
+    public static void registerClient(
+        Consumer<HudTelemetryPayload> telemetrySink,
+        Consumer<PreviewGeometryPayload> geometrySink,
+        Consumer<HudAckPayload> ackSink
+    ) {
+        ClientPlayNetworking.registerGlobalReceiver(HudTelemetryPayload.ID, (payload, context) ->
+            telemetrySink.accept(payload)
+        );
+        ClientPlayNetworking.registerGlobalReceiver(PreviewGeometryPayload.ID, (payload, context) ->
+            geometrySink.accept(payload)
+        );
+        ClientPlayNetworking.registerGlobalReceiver(HudAckPayload.ID, (payload, context) ->
+            ackSink.accept(payload)
+        );
     }
 
     public static boolean sendClientAction(HudAction action, String... args) {
@@ -43,6 +72,35 @@ public final class HudCommandBridge {
         return true;
     }
 
+    /**
+     * Send a batch if the server understands batches; false means the caller
+     * should fall back to one {@link HudCommandPayload} per action.
+     */
+    public static boolean sendClientBatch(HudBatchPayload payload) {
+        if (payload == null || payload.steps().isEmpty()) {
+            return false;
+        }
+        MinecraftClient client = MinecraftClient.getInstance();
+        if (client.player == null || client.getNetworkHandler() == null) {
+            return false;
+        }
+        if (!ClientPlayNetworking.canSend(HudBatchPayload.ID)) {
+            return false;
+        }
+        ClientPlayNetworking.send(payload);
+        return true;
+    }
+
+    private static void executeHudBatch(ServerPlayerEntity player, HudBatchPayload payload) {
+        if (player == null || payload == null) {
+            return;
+        }
+        HudAckPayload ack = HudActionService.executeBatch(player, payload);
+        if (ServerPlayNetworking.canSend(player, HudAckPayload.ID)) {
+            ServerPlayNetworking.send(player, ack);
+        }
+    }
+
     private static void executeHudAction(ServerPlayerEntity player, HudCommandPayload payload) {
         if (player == null || payload == null) {
             return;
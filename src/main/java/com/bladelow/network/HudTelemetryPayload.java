@@ -0,0 +1,177 @@
+package com.bladelow.network;
+
+import com.bladelow.BladelowMod;
+import com.bladelow.builder.PlacementJob;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Internal server->client payload carrying HUD telemetry.
+ *
+ * Each packet is a delta: {@code sections} flags which parts are present and
+ * the client keeps its last value for the rest. Counters are varints and
+ * coordinates zigzag varints, so a progress-only update is a handful of
+ * bytes instead of a formatted chat line the HUD has to parse back.
+ */
+public record HudTelemetryPayload(
+    int sections,
+    Progress progress,
+    Activity activity,
+    PathDebug path,
+    Preview preview,
+    String intent
+) implements CustomPayload {
+    public static final int PROGRESS = 1;
+    public static final int ACTIVITY = 1 << 1;
+    public static final int PATH = 1 << 2;
+    public static final int PREVIEW = 1 << 3;
+    public static final int INTENT = 1 << 4;
+
+    public static final CustomPayload.Id<HudTelemetryPayload> ID =
+        new CustomPayload.Id<>(Identifier.of(BladelowMod.MOD_ID, "hud_telemetry"));
+    public static final PacketCodec<ByteBuf, HudTelemetryPayload> CODEC =
+        PacketCodec.of(HudTelemetryPayload::write, HudTelemetryPayload::read);
+
+    public boolean has(int section) {
+        return (sections & section) != 0;
+    }
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+
+    private void write(ByteBuf buf) {
+        buf.writeByte(sections);
+        if (has(PROGRESS)) {
+            VarInts.write(buf, progress.done());
+            VarInts.write(buf, progress.total());
+            VarInts.write(buf, progress.placed());
+            VarInts.write(buf, progress.skipped());
+            VarInts.write(buf, progress.failed());
+        }
+        if (has(ACTIVITY)) {
+            buf.writeByte(activity.node().ordinal());
+            buf.writeByte(activity.reason().ordinal());
+        }
+        if (has(PATH)) {
+            VarInts.write(buf, path.candidates());
+            VarInts.write(buf, path.selected());
+            buf.writeFloat(path.score());
+            PacketCodecs.STRING.encode(buf, path.label());
+        }
+        if (has(PREVIEW)) {
+            buf.writeBoolean(preview != null);
+            if (preview != null) {
+                writeSigned(buf, preview.selMinX());
+                writeSigned(buf, preview.selMinZ());
+                writeSigned(buf, preview.selMaxX());
+                writeSigned(buf, preview.selMaxZ());
+                writeSigned(buf, preview.minX());
+                writeSigned(buf, preview.minZ());
+                writeSigned(buf, preview.maxX());
+                writeSigned(buf, preview.maxZ());
+                writeSigned(buf, preview.doorX());
+                writeSigned(buf, preview.doorZ());
+                VarInts.write(buf, preview.variant());
+                PacketCodecs.STRING.encode(buf, preview.label());
+                PacketCodecs.STRING.encode(buf, preview.summary());
+            }
+        }
+        if (has(INTENT)) {
+            PacketCodecs.STRING.encode(buf, intent);
+        }
+    }
+
+    private static HudTelemetryPayload read(ByteBuf buf) {
+        int sections = buf.readUnsignedByte();
+        Progress progress = null;
+        Activity activity = null;
+        PathDebug path = null;
+        Preview preview = null;
+        String intent = null;
+        if ((sections & PROGRESS) != 0) {
+            progress = new Progress(VarInts.read(buf), VarInts.read(buf), VarInts.read(buf), VarInts.read(buf), VarInts.read(buf));
+        }
+        if ((sections & ACTIVITY) != 0) {
+            activity = new Activity(
+                enumAt(PlacementJob.TaskNode.values(), buf.readUnsignedByte()),
+                enumAt(PlacementJob.RecoverReason.values(), buf.readUnsignedByte())
+            );
+        }
+        if ((sections & PATH) != 0) {
+            path = new PathDebug(VarInts.read(buf), VarInts.read(buf), buf.readFloat(), PacketCodecs.STRING.decode(buf));
+        }
+        if ((sections & PREVIEW) != 0 && buf.readBoolean()) {
+            preview = new Preview(
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                readSigned(buf),
+                VarInts.read(buf),
+                PacketCodecs.STRING.decode(buf),
+                PacketCodecs.STRING.decode(buf)
+            );
+        }
+        if ((sections & INTENT) != 0) {
+            intent = PacketCodecs.STRING.decode(buf);
+        }
+        return new HudTelemetryPayload(sections, progress, activity, path, preview, intent);
+    }
+
+    private static void writeSigned(ByteBuf buf, int value) {
+        VarInts.write(buf, (value << 1) ^ (value >> 31));
+    }
+
+    private static int readSigned(ByteBuf buf) {
+        int raw = VarInts.read(buf);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static <E extends Enum<E>> E enumAt(E[] values, int ordinal) {
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IllegalArgumentException("Unknown telemetry enum ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    public record Progress(int done, int total, int placed, int skipped, int failed) {
+    }
+
+    public record Activity(PlacementJob.TaskNode node, PlacementJob.RecoverReason reason) {
+    }
+
+    /**
+     * Last approach solve: candidates considered, the 1-based pick, its score
+     * (NaN when none was scored) and its label.
+     */
+    public record PathDebug(int candidates, int selected, float score, String label) {
+    }
+
+    public record Preview(
+        int selMinX,
+        int selMinZ,
+        int selMaxX,
+        int selMaxZ,
+        int minX,
+        int minZ,
+        int maxX,
+        int maxZ,
+        int doorX,
+        int doorZ,
+        int variant,
+        String label,
+        String summary
+    ) {
+    }
+}
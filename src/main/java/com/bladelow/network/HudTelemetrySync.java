@@ -0,0 +1,172 @@
+package com.bladelow.network;
+
+import com.bladelow.builder.BuildRuntimeSettings;
+import com.bladelow.builder.PlacementJob;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server side of the HUD telemetry channel.
+ *
+ * Producers record the latest state per player as often as they like; nothing
+ * is sent until {@link #flush} at the end of the server tick. Only sections
+ * that changed since the last packet go out, and progress for one player is
+ * sent at most once per {@link BuildRuntimeSettings#telemetryIntervalTicks()},
+ * so a job reporting every tick still costs one small packet per interval.
+ * While the player's HUD is closed nothing shows the numbers, so progress
+ * drops to one packet per second. Preview and intent changes go out on the
+ * next flush regardless.
+ *
+ * Players whose client cannot receive the channel are skipped here and keep
+ * getting the chat-line fallback from their callers.
+ */
+public final class HudTelemetrySync {
+    private static final int HUD_CLOSED_INTERVAL_TICKS = 20;
+    private static final Map<UUID, Channel> CHANNELS = new ConcurrentHashMap<>();
+
+    private HudTelemetrySync() {
+    }
+
+    public static boolean supports(ServerPlayerEntity player) {
+        return player != null && ServerPlayNetworking.canSend(player, HudTelemetryPayload.ID);
+    }
+
+    public static void progress(ServerPlayerEntity player, PlacementJob job) {
+        if (player == null || job == null) {
+            return;
+        }
+        Channel channel = channel(player);
+        channel.set(HudTelemetryPayload.PROGRESS, new HudTelemetryPayload.Progress(
+            job.cursor(),
+            job.totalTargets(),
+            job.placedCount(),
+            job.skippedCount(),
+            job.failedCount()
+        ));
+        channel.set(HudTelemetryPayload.ACTIVITY, new HudTelemetryPayload.Activity(job.currentNode(), job.recoverReason()));
+        channel.set(HudTelemetryPayload.PATH, new HudTelemetryPayload.PathDebug(
+            job.lastCandidateCount(),
+            job.lastCandidateIndex(),
+            (float) job.lastCandidateScore(),
+            job.lastCandidateLabel()
+        ));
+        if (job.isComplete()) {
+            channel.urgent = true;
+        }
+    }
+
+    /**
+     * Show {@code preview} on the player's HUD map, or clear it when null.
+     */
+    public static void preview(ServerPlayerEntity player, HudTelemetryPayload.Preview preview) {
+        if (player == null) {
+            return;
+        }
+        Channel channel = channel(player);
+        channel.set(HudTelemetryPayload.PREVIEW, preview);
+        channel.urgent = true;
+    }
+
+    public static void intent(ServerPlayerEntity player, String intent) {
+        if (player == null) {
+            return;
+        }
+        Channel channel = channel(player);
+        channel.set(HudTelemetryPayload.INTENT, intent == null ? "" : intent);
+        channel.urgent = true;
+    }
+
+    /**
+     * Drop what a disconnecting player was sent. Their client starts with an
+     * empty HUD on reconnect, so every section must go out again rather than
+     * being suppressed as unchanged.
+     */
+    public static void forget(UUID playerId) {
+        if (playerId != null) {
+            CHANNELS.remove(playerId);
+        }
+    }
+
+    /**
+     * Send whatever changed for each player whose interval has elapsed. Call
+     * once per server tick on the server thread.
+     */
+    public static void flush(MinecraftServer server) {
+        int now = server.getTicks();
+        int interval = BuildRuntimeSettings.telemetryIntervalTicks();
+        Iterator<Map.Entry<UUID, Channel>> it = CHANNELS.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Channel> entry = it.next();
+            Channel channel = entry.getValue();
+            if (channel.dirty == 0) {
+                continue;
+            }
+            int playerInterval = ProgressReporter.hudOpen(entry.getKey())
+                ? interval
+                : Math.max(interval, HUD_CLOSED_INTERVAL_TICKS);
+            if (!channel.urgent && now - channel.lastSentTick < playerInterval) {
+                continue;
+            }
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+            if (supports(player)) {
+                ServerPlayNetworking.send(player, channel.delta());
+            }
+            channel.markSent(now);
+        }
+    }
+
+    private static Channel channel(ServerPlayerEntity player) {
+        return CHANNELS.computeIfAbsent(player.getUuid(), id -> new Channel());
+    }
+
+    /**
+     * What the client was last sent and what it should see next, per
+     * section. Touched only from the server thread.
+     */
+    private static final class Channel {
+        private final Object[] sent = new Object[5];
+        private final Object[] pending = new Object[5];
+        private int dirty;
+        private boolean urgent;
+        private int lastSentTick = Integer.MIN_VALUE / 2;
+
+        private void set(int section, Object value) {
+            int index = Integer.numberOfTrailingZeros(section);
+            pending[index] = value;
+            if (Objects.equals(sent[index], value)) {
+                dirty &= ~section;
+            } else {
+                dirty |= section;
+            }
+        }
+
+        private HudTelemetryPayload delta() {
+            return new HudTelemetryPayload(
+                dirty,
+                (HudTelemetryPayload.Progress) pending[0],
+                (HudTelemetryPayload.Activity) pending[1],
+                (HudTelemetryPayload.PathDebug) pending[2],
+                (HudTelemetryPayload.Preview) pending[3],
+                (String) pending[4]
+            );
+        }
+
+        private void markSent(int tick) {
+            System.arraycopy(pending, 0, sent, 0, pending.length);
+            dirty = 0;
+            urgent = false;
+            lastSentTick = tick;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bladelow.network;
+
+import com.bladelow.BladelowMod;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * Internal server->client payload carrying one chunk of a preview's blocks.
+ *
+ * A preview is streamed as {@code chunkCount} chunks sharing one
+ * {@code previewId} and bounding box. Positions are linear indices into that
+ * box ({@code x + sizeX * (z + sizeZ * y)}, relative to the origin), sorted
+ * and sent as varint deltas, so a dense build costs about one byte per block.
+ * States are raw block-state ids through a per-chunk palette. A payload with
+ * {@code chunkCount == 0} clears the client's preview.
+ */
+public record PreviewGeometryPayload(
+    int previewId,
+    int chunkIndex,
+    int chunkCount,
+    int totalBlocks,
+    int originX,
+    int originY,
+    int originZ,
+    int sizeX,
+    int sizeY,
+    int sizeZ,
+    int[] palette,
+    int[] cells,
+    int[] paletteIndices
+) implements CustomPayload {
+    public static final CustomPayload.Id<PreviewGeometryPayload> ID =
+        new CustomPayload.Id<>(Identifier.of(BladelowMod.MOD_ID, "preview_geometry"));
+    public static final PacketCodec<ByteBuf, PreviewGeometryPayload> CODEC =
+        PacketCodec.of(PreviewGeometryPayload::write, PreviewGeometryPayload::read);
+
+    public static PreviewGeometryPayload clear(int previewId) {
+        return new PreviewGeometryPayload(previewId, 0, 0, 0, 0, 0, 0, 0, 0, 0, new int[0], new int[0], new int[0]);
+    }
+
+    public boolean isClear() {
+        return chunkCount == 0;
+    }
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+
+    private void write(ByteBuf buf) {
+        VarInts.write(buf, previewId);
+        VarInts.write(buf, chunkIndex);
+        VarInts.write(buf, chunkCount);
+        if (isClear()) {
+            return;
+        }
+        VarInts.write(buf, totalBlocks);
+        buf.writeInt(originX);
+        buf.writeInt(originY);
+        buf.writeInt(originZ);
+        VarInts.write(buf, sizeX);
+        VarInts.write(buf, sizeY);
+        VarInts.write(buf, sizeZ);
+        VarInts.write(buf, palette.length);
+        for (int rawId : palette) {
+            VarInts.write(buf, rawId);
+        }
+        VarInts.write(buf, cells.length);
+        int previous = 0;
+        for (int i = 0; i < cells.length; i++) {
+            VarInts.write(buf, cells[i] - previous);
+            VarInts.write(buf, paletteIndices[i]);
+            previous = cells[i];
+        }
+    }
+
+    private static PreviewGeometryPayload read(ByteBuf buf) {
+        int previewId = VarInts.read(buf);
+        int chunkIndex = VarInts.read(buf);
+        int chunkCount = VarInts.read(buf);
+        if (chunkCount == 0) {
+            return clear(previewId);
+        }
+        int totalBlocks = VarInts.read(buf);
+        int originX = buf.readInt();
+        int originY = buf.readInt();
+        int originZ = buf.readInt();
+        int sizeX = VarInts.read(buf);
+        int sizeY = VarInts.read(buf);
+        int sizeZ = VarInts.read(buf);
+        int[] palette = new int[boundedLength(buf, VarInts.read(buf))];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = VarInts.read(buf);
+        }
+        int count = boundedLength(buf, VarInts.read(buf));
+        int[] cells = new int[count];
+        int[] paletteIndices = new int[count];
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += VarInts.read(buf);
+            cells[i] = previous;
+            paletteIndices[i] = VarInts.read(buf);
+        }
+        return new PreviewGeometryPayload(
+            previewId,
+            chunkIndex,
+            chunkCount,
+            totalBlocks,
+            originX,
+            originY,
+            originZ,
+            sizeX,
+            sizeY,
+            sizeZ,
+            palette,
+            cells,
+            paletteIndices
+        );
+    }
+
+    // Every entry takes at least one byte, so a count larger than what is
+    // left in the buffer is malformed.
+    private static int boundedLength(ByteBuf buf, int length) {
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid preview geometry length: " + length);
+        }
+        return length;
+    }
+}
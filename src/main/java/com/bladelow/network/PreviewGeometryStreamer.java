@@ -0,0 +1,180 @@
+package com.bladelow.network;
+
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams a preview's full block list to the HUD in rate-limited chunks.
+ *
+ * The preview is encoded once when it is shown. {@link #tick} then sends at
+ * most {@link #BLOCKS_PER_TICK} blocks per player per tick, so a 20k-block
+ * preview arrives over a few ticks instead of as one burst. Showing or
+ * clearing a preview drops whatever was still queued for the previous one.
+ */
+public final class PreviewGeometryStreamer {
+    private static final int BLOCKS_PER_CHUNK = 2048;
+    private static final int BLOCKS_PER_TICK = 4096;
+    // Larger previews keep the footprint-only map view.
+    private static final int MAX_STREAMED_BLOCKS = 131072;
+    private static final AtomicInteger PREVIEW_IDS = new AtomicInteger();
+    private static final Map<UUID, Deque<PreviewGeometryPayload>> QUEUES = new ConcurrentHashMap<>();
+
+    private PreviewGeometryStreamer() {
+    }
+
+    public static boolean supports(ServerPlayerEntity player) {
+        return player != null && ServerPlayNetworking.canSend(player, PreviewGeometryPayload.ID);
+    }
+
+    public static int maxStreamedBlocks() {
+        return MAX_STREAMED_BLOCKS;
+    }
+
+    /**
+     * Queue the blocks of a newly shown preview, replacing any preview still
+     * streaming to this player. Returns whether the blocks are being
+     * streamed; an empty or over-cap preview only clears the client's old
+     * one. Call on the server thread.
+     */
+    public static boolean start(ServerPlayerEntity player, List<BlockPos> targets, List<BlockState> states) {
+        if (!supports(player) || targets == null || states == null || targets.size() != states.size()) {
+            return false;
+        }
+        int previewId = PREVIEW_IDS.incrementAndGet();
+        Deque<PreviewGeometryPayload> queue = new ArrayDeque<>();
+        if (!targets.isEmpty() && targets.size() <= MAX_STREAMED_BLOCKS) {
+            encode(previewId, targets, states, queue);
+        }
+        boolean streamed = !queue.isEmpty();
+        if (!streamed) {
+            // Nothing to stream; still retire whatever the client holds.
+            queue.add(PreviewGeometryPayload.clear(previewId));
+        }
+        QUEUES.put(player.getUuid(), queue);
+        return streamed;
+    }
+
+    public static void clear(ServerPlayerEntity player) {
+        if (!supports(player)) {
+            return;
+        }
+        Deque<PreviewGeometryPayload> queue = new ArrayDeque<>();
+        queue.add(PreviewGeometryPayload.clear(PREVIEW_IDS.incrementAndGet()));
+        QUEUES.put(player.getUuid(), queue);
+    }
+
+    public static void tick(MinecraftServer server) {
+        Iterator<Map.Entry<UUID, Deque<PreviewGeometryPayload>>> it = QUEUES.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Deque<PreviewGeometryPayload>> entry = it.next();
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+            Deque<PreviewGeometryPayload> queue = entry.getValue();
+            int budget = BLOCKS_PER_TICK;
+            while (!queue.isEmpty() && budget > 0) {
+                PreviewGeometryPayload chunk = queue.pollFirst();
+                ServerPlayNetworking.send(player, chunk);
+                budget -= Math.max(1, chunk.cells().length);
+            }
+            if (queue.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    private static void encode(int previewId, List<BlockPos> targets, List<BlockState> states, Deque<PreviewGeometryPayload> out) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (BlockPos pos : targets) {
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        int sizeX = maxX - minX + 1;
+        int sizeY = maxY - minY + 1;
+        int sizeZ = maxZ - minZ + 1;
+        if ((long) sizeX * sizeY * sizeZ > Integer.MAX_VALUE) {
+            return;
+        }
+
+        // Sort (cell, placement index) pairs by cell so deltas stay small; a
+        // later placement at the same cell wins, as it would in the world.
+        int count = targets.size();
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            BlockPos pos = targets.get(i);
+            long cell = (pos.getX() - minX) + (long) sizeX * ((pos.getZ() - minZ) + (long) sizeZ * (pos.getY() - minY));
+            packed[i] = (cell << 32) | (i & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (i + 1 < count && (packed[i + 1] >>> 32) == (packed[i] >>> 32)) {
+                continue;
+            }
+            packed[unique++] = packed[i];
+        }
+
+        int chunkCount = (unique + BLOCKS_PER_CHUNK - 1) / BLOCKS_PER_CHUNK;
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            int from = chunk * BLOCKS_PER_CHUNK;
+            int to = Math.min(unique, from + BLOCKS_PER_CHUNK);
+            Map<Integer, Integer> paletteIndex = new HashMap<>();
+            int[] palette = new int[to - from];
+            int paletteSize = 0;
+            int[] cells = new int[to - from];
+            int[] indices = new int[to - from];
+            for (int i = from; i < to; i++) {
+                int rawId = Block.getRawIdFromState(states.get((int) packed[i]));
+                Integer index = paletteIndex.get(rawId);
+                if (index == null) {
+                    index = paletteSize;
+                    paletteIndex.put(rawId, index);
+                    palette[paletteSize++] = rawId;
+                }
+                cells[i - from] = (int) (packed[i] >>> 32);
+                indices[i - from] = index;
+            }
+            out.add(new PreviewGeometryPayload(
+                previewId,
+                chunk,
+                chunkCount,
+                unique,
+                minX,
+                minY,
+                minZ,
+                sizeX,
+                sizeY,
+                sizeZ,
+                Arrays.copyOf(palette, paletteSize),
+                cells,
+                indices
+            ));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.bladelow.network;
+
+import com.bladelow.builder.PlacementJob;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Action-bar progress for running jobs, sent only when the player would see
+ * a difference.
+ *
+ * Jobs record themselves every tick; {@link #flush} then aggregates each
+ * player's jobs and decides whether a line goes out. A line is sent when the
+ * visible signature changed (percent, failures, task node, or raw progress
+ * while the HUD is open), at most {@link #HUD_CLOSED_UPDATES_PER_SECOND} or
+ * {@link #HUD_OPEN_UPDATES_PER_SECOND} times a second. While the HUD is open
+ * on a client that receives {@link HudTelemetryPayload}, the HUD already
+ * shows progress and no action-bar line is sent at all.
+ *
+ * The client reports whether the HUD is open with
+ * {@link HudAction#HUD_VISIBILITY}. All state is touched from the server
+ * thread only.
+ */
+public final class ProgressReporter {
+    private static final int TICKS_PER_SECOND = 20;
+    private static final int HUD_OPEN_UPDATES_PER_SECOND = 4;
+    private static final int HUD_CLOSED_UPDATES_PER_SECOND = 1;
+    // The action bar fades after about three seconds; an unchanged line is
+    // repeated just before that so a stalled job stays on screen.
+    private static final int ACTION_BAR_REFRESH_TICKS = 50;
+    // Safety net for a job dropped without forget(); the runner forgets jobs
+    // it finishes, cancels, pauses or aborts.
+    private static final int STALE_JOB_TICKS = 100;
+
+    private static final Map<UUID, Viewer> VIEWERS = new ConcurrentHashMap<>();
+
+    private ProgressReporter() {
+    }
+
+    public static void record(ServerPlayerEntity player, PlacementJob job) {
+        if (player == null || job == null) {
+            return;
+        }
+        Viewer viewer = VIEWERS.computeIfAbsent(player.getUuid(), id -> new Viewer());
+        viewer.jobs.put(job, viewer.tick);
+    }
+
+    /**
+     * Drop a finished job; its completion summary is sent by the runner.
+     */
+    public static void finish(ServerPlayerEntity player, PlacementJob job) {
+        if (player != null) {
+            forget(player.getUuid(), job);
+        }
+    }
+
+    /**
+     * Drop a job that stopped running for any reason, so the next flush
+     * neither counts it nor refreshes a stale line for it.
+     */
+    public static void forget(UUID playerId, PlacementJob job) {
+        if (playerId == null || job == null) {
+            return;
+        }
+        Viewer viewer = VIEWERS.get(playerId);
+        if (viewer != null) {
+            viewer.jobs.remove(job);
+        }
+    }
+
+    public static void setHudOpen(UUID playerId, boolean open) {
+        if (playerId == null) {
+            return;
+        }
+        VIEWERS.computeIfAbsent(playerId, id -> new Viewer()).hudOpen = open;
+    }
+
+    public static boolean hudOpen(UUID playerId) {
+        Viewer viewer = playerId == null ? null : VIEWERS.get(playerId);
+        return viewer != null && viewer.hudOpen;
+    }
+
+    /**
+     * Send the lines that are due. Call once per server tick on the server
+     * thread, after jobs have recorded.
+     */
+    public static void flush(MinecraftServer server) {
+        Iterator<Map.Entry<UUID, Viewer>> it = VIEWERS.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Viewer> entry = it.next();
+            Viewer viewer = entry.getValue();
+            int now = ++viewer.tick;
+            viewer.jobs.values().removeIf(seen -> now - seen > STALE_JOB_TICKS);
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+            if (player == null) {
+                it.remove();
+                continue;
+            }
+            if (viewer.jobs.isEmpty()) {
+                viewer.signature = 0;
+                if (!viewer.hudOpen) {
+                    it.remove();
+                }
+                continue;
+            }
+            if (viewer.hudOpen && HudTelemetrySync.supports(player)) {
+                continue;
+            }
+
+            int done = 0;
+            int total = 0;
+            int failed = 0;
+            PlacementJob.TaskNode node = null;
+            for (PlacementJob job : viewer.jobs.keySet()) {
+                done += job.cursor();
+                total += job.totalTargets();
+                failed += job.failedCount();
+                node = job.currentNode();
+            }
+            int percent = total <= 0 ? 0 : (int) Math.round(done * 100.0 / total);
+            int signature = viewer.hudOpen
+                ? Objects.hash(done, total, failed, node)
+                : Objects.hash(percent, failed, node);
+            int interval = TICKS_PER_SECOND / (viewer.hudOpen ? HUD_OPEN_UPDATES_PER_SECOND : HUD_CLOSED_UPDATES_PER_SECOND);
+            int sinceLast = now - viewer.lastSentTick;
+            boolean changed = signature != viewer.signature;
+            if (!(changed && sinceLast >= interval) && sinceLast < ACTION_BAR_REFRESH_TICKS) {
+                continue;
+            }
+            player.sendMessage(Text.literal(summary(viewer, percent, done, total)).formatted(Formatting.AQUA), true);
+            viewer.signature = signature;
+            viewer.lastSentTick = now;
+        }
+    }
+
+    private static String summary(Viewer viewer, int percent, int done, int total) {
+        if (viewer.jobs.size() == 1) {
+            return viewer.jobs.keySet().iterator().next().compactProgressSummary();
+        }
+        int placed = 0;
+        for (PlacementJob job : viewer.jobs.keySet()) {
+            placed += job.placedCount();
+        }
+        return "[Bladelow] Building " + Math.max(0, Math.min(100, percent)) + "%"
+            + " | progress " + done + "/" + total
+            + " | Placed " + placed
+            + " | jobs " + viewer.jobs.size();
+    }
+
+    private static final class Viewer {
+        // Job -> reporter tick it last recorded at.
+        private final Map<PlacementJob, Integer> jobs = new IdentityHashMap<>();
+        private boolean hudOpen;
+        private int tick;
+        private int signature;
+        private int lastSentTick = Integer.MIN_VALUE / 2;
+    }
+}